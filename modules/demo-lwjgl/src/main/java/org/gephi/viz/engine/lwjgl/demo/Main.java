@@ -20,6 +20,8 @@ public class Main {
 
         if (mode.equalsIgnoreCase("GLFW")) {
             MainGLFW.main(argsWithoutMode);
+        } else if (mode.equalsIgnoreCase("HEADLESS")) {
+            MainHeadless.main(argsWithoutMode);
         } else {
             MainAWT.main(argsWithoutMode);
         }
@@ -36,6 +36,8 @@ import java.util.concurrent.Executors;
  */
 public class MainAWT {
 
+    private static final boolean DISABLE_QUAD_IMPOSTOR_RENDERING = false;
+    private static final boolean DISABLE_INDEXED_EDGE_RENDERING = false;
     private static final boolean DISABLE_INDIRECT_RENDERING = false;
     private static final boolean DISABLE_INSTANCED_RENDERING = false;
     private static final boolean DISABLE_VAOS = false;
@@ -47,6 +49,7 @@ public class MainAWT {
     private static final int HEIGHT = 760;
 
     private static final WorldUpdaterExecutionMode UPDATE_DATA_MODE = WorldUpdaterExecutionMode.CONCURRENT_ASYNCHRONOUS;
+    private static final boolean SKIP_UNCHANGED_WORLD_UPDATES = true;
 
     private JFrame frame;
     private LWJGLRenderingTargetAWT renderingTarget;
@@ -88,8 +91,11 @@ public class MainAWT {
                 )
         );
         engine.setWorldUpdatersExecutionMode(UPDATE_DATA_MODE);
+        engine.getWorldUpdateTracker().setEnabled(SKIP_UNCHANGED_WORLD_UPDATES);
 
         final OpenGLOptions glOptions = engine.getLookup().lookup(OpenGLOptions.class);
+        glOptions.setDisableQuadImpostorDrawing(DISABLE_QUAD_IMPOSTOR_RENDERING);
+        glOptions.setDisableIndexedEdgeDrawing(DISABLE_INDEXED_EDGE_RENDERING);
         glOptions.setDisableIndirectDrawing(DISABLE_INDIRECT_RENDERING);
         glOptions.setDisableInstancedDrawing(DISABLE_INSTANCED_RENDERING);
         glOptions.setDisableVAOS(DISABLE_VAOS);
@@ -238,6 +244,7 @@ public class MainAWT {
                         forceAtlas2.initAlgo();
                         while (layoutEnabled && forceAtlas2.canAlgo()) {
                             forceAtlas2.goAlgo();
+                            engine.requestPositionsUpdate();
                         }
                         forceAtlas2.endAlgo();
                     });
@@ -28,6 +28,8 @@ import static org.lwjgl.system.MemoryUtil.NULL;
 
 public class MainGLFW {
 
+    private static final boolean DISABLE_QUAD_IMPOSTOR_RENDERING = false;
+    private static final boolean DISABLE_INDEXED_EDGE_RENDERING = false;
     private static final boolean DISABLE_INDIRECT_RENDERING = false;
     private static final boolean DISABLE_INSTANCED_RENDERING = false;
     private static final boolean DISABLE_VAOS = false;
@@ -39,6 +41,7 @@ public class MainGLFW {
     private static final int HEIGHT = 760;
 
     private static final WorldUpdaterExecutionMode UPDATE_DATA_MODE = WorldUpdaterExecutionMode.CONCURRENT_ASYNCHRONOUS;
+    private static final boolean SKIP_UNCHANGED_WORLD_UPDATES = true;
 
     // The window handle
     private long windowHandle;
@@ -56,8 +59,11 @@ public class MainGLFW {
                 )
         );
         engine.setWorldUpdatersExecutionMode(UPDATE_DATA_MODE);
+        engine.getWorldUpdateTracker().setEnabled(SKIP_UNCHANGED_WORLD_UPDATES);
 
         final OpenGLOptions glOptions = engine.getLookup().lookup(OpenGLOptions.class);
+        glOptions.setDisableQuadImpostorDrawing(DISABLE_QUAD_IMPOSTOR_RENDERING);
+        glOptions.setDisableIndexedEdgeDrawing(DISABLE_INDEXED_EDGE_RENDERING);
         glOptions.setDisableIndirectDrawing(DISABLE_INDIRECT_RENDERING);
         glOptions.setDisableInstancedDrawing(DISABLE_INSTANCED_RENDERING);
         glOptions.setDisableVAOS(DISABLE_VAOS);
@@ -229,6 +235,7 @@ public class MainGLFW {
                         forceAtlas2.initAlgo();
                         while (layoutEnabled && forceAtlas2.canAlgo()) {
                             forceAtlas2.goAlgo();
+                            engine.requestPositionsUpdate();
                         }
                         forceAtlas2.endAlgo();
                     });
@@ -0,0 +1,107 @@
+package org.gephi.viz.engine.lwjgl.demo;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.VizEngineFactory;
+import org.gephi.viz.engine.lwjgl.LWJGLRenderingTarget;
+import org.gephi.viz.engine.lwjgl.LWJGLRenderingTargetHeadless;
+import org.gephi.viz.engine.lwjgl.VizEngineLWJGLConfigurator;
+import org.gephi.viz.engine.lwjgl.pipeline.events.LWJGLInputEvent;
+import org.gephi.viz.engine.spi.WorldUpdaterExecutionMode;
+import org.gephi.viz.engine.status.FrameStats;
+import org.gephi.viz.engine.util.actions.InputActionsProcessor;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Renders a graph without any window and prints the frame stats, for servers and performance CI.
+ *
+ * <p>
+ * Arguments: graph file, frames count and optionally a PNG file to save the last frame.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class MainHeadless {
+
+    private static final boolean DISABLE_QUAD_IMPOSTOR_RENDERING = false;
+    private static final boolean DISABLE_INDEXED_EDGE_RENDERING = false;
+    private static final boolean DISABLE_INDIRECT_RENDERING = false;
+    private static final boolean DISABLE_INSTANCED_RENDERING = false;
+    private static final boolean DISABLE_VAOS = false;
+
+    private static final boolean DEBUG = false;
+
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final int SAMPLES = 4;
+
+    private static final int DEFAULT_FRAMES = 600;
+
+    //Synchronous, so every measured frame draws the last world update:
+    private static final WorldUpdaterExecutionMode UPDATE_DATA_MODE = WorldUpdaterExecutionMode.CONCURRENT_SYNCHRONOUS;
+
+    public void run(final String graphFilePath, final int frames, final String imageFilePath) throws IOException {
+        final LWJGLRenderingTargetHeadless renderingTarget = new LWJGLRenderingTargetHeadless(WIDTH, HEIGHT, SAMPLES);
+
+        final VizEngine<LWJGLRenderingTarget, LWJGLInputEvent> engine = VizEngineFactory.<LWJGLRenderingTarget, LWJGLInputEvent>newEngine(
+                renderingTarget,
+                GraphLoader.load(graphFilePath),
+                Collections.singletonList(
+                        new VizEngineLWJGLConfigurator()
+                )
+        );
+        engine.setWorldUpdatersExecutionMode(UPDATE_DATA_MODE);
+
+        final OpenGLOptions glOptions = engine.getLookup().lookup(OpenGLOptions.class);
+        glOptions.setDisableQuadImpostorDrawing(DISABLE_QUAD_IMPOSTOR_RENDERING);
+        glOptions.setDisableIndexedEdgeDrawing(DISABLE_INDEXED_EDGE_RENDERING);
+        glOptions.setDisableIndirectDrawing(DISABLE_INDIRECT_RENDERING);
+        glOptions.setDisableInstancedDrawing(DISABLE_INSTANCED_RENDERING);
+        glOptions.setDisableVAOS(DISABLE_VAOS);
+        glOptions.setDebug(DEBUG);
+
+        engine.start();//Creates the offscreen context in this thread
+        new InputActionsProcessor(engine).processCenterOnGraphEvent();
+
+        //Warm up and first world update, not measured:
+        renderingTarget.display(2);
+        renderingTarget.finish();
+
+        final FrameStats frameStats = engine.getFrameStats();
+        frameStats.reset();
+
+        final long start = System.nanoTime();
+        renderingTarget.display(frames);
+        renderingTarget.finish();
+        final long elapsedNanos = System.nanoTime() - start;
+
+        System.out.println(frames + " frames in " + (elapsedNanos / 1_000_000) + " ms");
+        System.out.println(frameStats);
+
+        if (imageFilePath != null) {
+            ImageIO.write(renderingTarget.readFrameImage(), "png", new File(imageFilePath));
+            System.out.println("Last frame saved to " + imageFilePath);
+        }
+
+        engine.destroy();
+        renderingTarget.destroy();
+    }
+
+    public static void main(String[] args) throws IOException {
+        final MainHeadless main = new MainHeadless();
+
+        System.out.println(Arrays.toString(args));
+
+        final String graphFile = "samples/test.gexf";
+
+        main.run(
+                args.length > 0 ? args[0] : graphFile,
+                args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_FRAMES,
+                args.length > 2 ? args[2] : null
+        );
+    }
+}
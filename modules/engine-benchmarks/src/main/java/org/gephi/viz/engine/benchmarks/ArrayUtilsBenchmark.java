@@ -0,0 +1,79 @@
+package org.gephi.viz.engine.benchmarks;
+
+import org.gephi.viz.engine.lwjgl.models.EdgeLineModelDirected;
+import org.gephi.viz.engine.lwjgl.models.EdgeLineModelUndirected;
+import org.gephi.viz.engine.util.ArrayUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ArrayUtils#repeat} of each edge attributes once per vertex of its model, as done by the array draw edges
+ * renderer when instancing is not available.
+ *
+ * @author Eduardo Ramos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ArrayUtilsBenchmark {
+
+    private static final int ATTRIBS_STRIDE = Math.max(
+        EdgeLineModelUndirected.TOTAL_ATTRIBUTES_FLOATS,
+        EdgeLineModelDirected.TOTAL_ATTRIBUTES_FLOATS
+    );
+
+    @Param({"10000", "100000", "1000000"})
+    public int edges;
+
+    @Param({"true", "false"})
+    public boolean directed;
+
+    private int vertexCount;
+    private float[] attributes;
+    private float[] attributesOneCopyPerVertex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        vertexCount = directed ? EdgeLineModelDirected.VERTEX_COUNT : EdgeLineModelUndirected.VERTEX_COUNT;
+        attributes = new float[edges * ATTRIBS_STRIDE];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = i;
+        }
+        attributesOneCopyPerVertex = new float[edges * ATTRIBS_STRIDE * vertexCount];
+    }
+
+    @Benchmark
+    public float[] repeat() {
+        for (int edgeIndex = 0; edgeIndex < edges; edgeIndex++) {
+            System.arraycopy(
+                attributes, edgeIndex * ATTRIBS_STRIDE,
+                attributesOneCopyPerVertex, edgeIndex * ATTRIBS_STRIDE * vertexCount,
+                ATTRIBS_STRIDE
+            );
+
+            ArrayUtils.repeat(
+                attributesOneCopyPerVertex,
+                edgeIndex * ATTRIBS_STRIDE * vertexCount,
+                ATTRIBS_STRIDE,
+                vertexCount
+            );
+        }
+
+        return attributesOneCopyPerVertex;
+    }
+}
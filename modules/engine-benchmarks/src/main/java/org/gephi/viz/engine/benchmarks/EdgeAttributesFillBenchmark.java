@@ -0,0 +1,132 @@
+package org.gephi.viz.engine.benchmarks;
+
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractEdgeData;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.status.GraphRenderingOptionsImpl;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.status.GraphSelectionImpl;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.ParallelFill;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Edge attributes fill of {@link AbstractEdgeData}, as run by the edges world updaters: visible edges query, regions
+ * classification, writing of the attributes to a frame direct buffer (instanced) or array (array draw) and of the
+ * selection states.
+ *
+ * @author Eduardo Ramos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g"})
+public class EdgeAttributesFillBenchmark {
+
+    private static final int EDGES_PER_NODE = 4;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int edges;
+
+    @Param({"true", "false"})
+    public boolean instanced;
+
+    @Param({"false", "true"})
+    public boolean selection;
+
+    @Param({"true", "false"})
+    public boolean parallel;
+
+    private VizEngine<?, ?> engine;
+    private GraphIndexImpl graphIndex;
+    private GraphRenderingOptionsImpl renderingOptions;
+    private GraphSelectionImpl graphSelection;
+    private BenchmarkEdgeData edgeData;
+    private int previousParallelThreshold;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final int nodes = Math.max(edges / EDGES_PER_NODE, 16);
+        final GraphModel graphModel = SyntheticGraphs.newGraphModel(nodes, edges);
+        engine = SyntheticGraphs.newEngine(graphModel, 1);
+
+        graphIndex = new GraphIndexImpl(engine);
+        renderingOptions = new GraphRenderingOptionsImpl();
+        graphSelection = new GraphSelectionImpl(engine);
+
+        if (selection) {
+            //Select 10% of the nodes and 10% of the edges:
+            final Node[] allNodes = graphModel.getGraph().getNodes().toArray();
+            final Node[] selectedNodes = new Node[allNodes.length / 10];
+            for (int i = 0; i < selectedNodes.length; i++) {
+                selectedNodes[i] = allNodes[i * 10];
+            }
+            graphSelection.setSelectedNodes(selectedNodes);
+
+            final Edge[] allEdges = graphModel.getGraph().getEdges().toArray();
+            final Edge[] selectedEdges = new Edge[allEdges.length / 10];
+            for (int i = 0; i < selectedEdges.length; i++) {
+                selectedEdges[i] = allEdges[i * 10];
+            }
+            graphSelection.setSelectedEdges(selectedEdges);
+        }
+
+        previousParallelThreshold = ParallelFill.getParallelThreshold();
+        ParallelFill.setParallelThreshold(parallel ? ParallelFill.DEFAULT_PARALLEL_THRESHOLD : 0);
+
+        edgeData = new BenchmarkEdgeData(instanced);
+        edgeData.initBuffers();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        edgeData.dispose();
+        ParallelFill.setParallelThreshold(previousParallelThreshold);
+    }
+
+    @Benchmark
+    public int fillEdges() {
+        return edgeData.fill(engine, graphIndex, renderingOptions, graphSelection);
+    }
+
+    /**
+     * Exposes the world updater side of {@link AbstractEdgeData}, the GL programs and buffers are never created.
+     * Same as the updateData of the instanced and array draw edges data.
+     */
+    private static class BenchmarkEdgeData extends AbstractEdgeData {
+
+        public BenchmarkEdgeData(final boolean instanced) {
+            super(instanced);
+        }
+
+        @Override
+        protected void initBuffers() {
+            super.initBuffers();
+        }
+
+        public int fill(final VizEngine engine, final GraphIndexImpl graphIndex, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection) {
+            updateData(engine, graphIndex, renderingOptions, graphSelection, false);
+
+            return edgesCallback.getCount();
+        }
+    }
+}
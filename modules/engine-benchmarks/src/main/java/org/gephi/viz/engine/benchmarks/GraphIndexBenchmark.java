@@ -0,0 +1,176 @@
+package org.gephi.viz.engine.benchmarks;
+
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.structure.EdgesCallback;
+import org.gephi.viz.engine.util.structure.NodesCallback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GraphIndexImpl} visibility and picking queries, edges indexing and graph boundaries.
+ *
+ * <p>
+ * Picking queries run around a different node each invocation, like the mouse moving over the graph.</p>
+ *
+ * @author Eduardo Ramos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g"})
+public class GraphIndexBenchmark {
+
+    private static final int PICKING_POSITIONS = 1024;
+    private static final float PICKING_RADIUS = 50;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int nodes;
+
+    @Param({"1", "0.1"})
+    public float visibleFraction;
+
+    private GraphIndexImpl graphIndex;
+    private final NodesCallback nodesCallback = new NodesCallback();
+    private final EdgesCallback edgesCallback = new EdgesCallback();
+    private float[] pickingPositions;
+    private int pickingIndex = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final GraphModel graphModel = SyntheticGraphs.newGraphModel(nodes, nodes);
+        final VizEngine<?, ?> engine = SyntheticGraphs.newEngine(graphModel, visibleFraction);
+        //Aggregates are only cached with the tracker enabled, the full computation benchmarks invalidate them:
+        engine.getWorldUpdateTracker().setEnabled(true);
+
+        graphIndex = new GraphIndexImpl(engine);
+
+        final Node[] allNodes = graphModel.getGraph().getNodes().toArray();
+        final Random random = new Random(SyntheticGraphs.DEFAULT_SEED);
+        pickingPositions = new float[PICKING_POSITIONS * 2];
+        for (int i = 0; i < PICKING_POSITIONS; i++) {
+            final Node node = allNodes[random.nextInt(allNodes.length)];
+            pickingPositions[i * 2] = node.x();
+            pickingPositions[i * 2 + 1] = node.y();
+        }
+    }
+
+    private int nextPickingPosition() {
+        pickingIndex = (pickingIndex + 1) % PICKING_POSITIONS;
+        return pickingIndex * 2;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int visibleNodes() {
+        graphIndex.getVisibleNodes(nodesCallback);
+        return nodesCallback.getCount();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int visibleEdges() {
+        graphIndex.getVisibleEdges(edgesCallback);
+        return edgesCallback.getCount();
+    }
+
+    @Benchmark
+    public int nodesUnderPosition() {
+        final int position = nextPickingPosition();
+
+        int count = 0;
+        for (Node node : graphIndex.getNodesUnderPosition(pickingPositions[position], pickingPositions[position + 1])) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int nodesInsideCircle() {
+        final int position = nextPickingPosition();
+
+        int count = 0;
+        for (Node node : graphIndex.getNodesInsideCircle(pickingPositions[position], pickingPositions[position + 1], PICKING_RADIUS)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int nodesInsideRectangle() {
+        final int position = nextPickingPosition();
+        final float x = pickingPositions[position];
+        final float y = pickingPositions[position + 1];
+
+        int count = 0;
+        for (Node node : graphIndex.getNodesInsideRectangle(new Rect2D(x - PICKING_RADIUS, y - PICKING_RADIUS, x + PICKING_RADIUS, y + PICKING_RADIUS))) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int edgesInsideRectangle() {
+        final int position = nextPickingPosition();
+        final float x = pickingPositions[position];
+        final float y = pickingPositions[position + 1];
+
+        int count = 0;
+        for (Edge edge : graphIndex.getEdgesInsideRectangle(new Rect2D(x - PICKING_RADIUS, y - PICKING_RADIUS, x + PICKING_RADIUS, y + PICKING_RADIUS))) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int edgesInsideCircle() {
+        final int position = nextPickingPosition();
+
+        int count = 0;
+        for (Edge edge : graphIndex.getEdgesInsideCircle(pickingPositions[position], pickingPositions[position + 1], PICKING_RADIUS)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public float indexEdges() {
+        //Full computation, not the cached range:
+        graphIndex.invalidateAggregates();
+        graphIndex.indexEdges();
+        return graphIndex.getEdgesMaxWeight();
+    }
+
+    @Benchmark
+    public float indexEdgesUnchanged() {
+        graphIndex.indexEdges();
+        return graphIndex.getEdgesMaxWeight();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Rect2D graphBoundaries() {
+        graphIndex.invalidateAggregates();
+        return graphIndex.getGraphBoundaries();
+    }
+}
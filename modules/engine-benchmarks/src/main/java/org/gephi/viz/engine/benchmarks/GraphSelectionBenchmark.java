@@ -0,0 +1,90 @@
+package org.gephi.viz.engine.benchmarks;
+
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.status.GraphSelectionImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GraphSelectionImpl} membership checks of every node and edge, as done while filling the attributes.
+ *
+ * @author Eduardo Ramos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g"})
+public class GraphSelectionBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int elements;
+
+    @Param({"0.001", "0.1", "0.5"})
+    public float selectedFraction;
+
+    private GraphSelectionImpl graphSelection;
+    private Node[] nodes;
+    private Edge[] edges;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final GraphModel graphModel = SyntheticGraphs.newGraphModel(elements, elements);
+        final VizEngine<?, ?> engine = SyntheticGraphs.newEngine(graphModel, 1);
+
+        nodes = graphModel.getGraph().getNodes().toArray();
+        edges = graphModel.getGraph().getEdges().toArray();
+
+        graphSelection = new GraphSelectionImpl(engine);
+        graphSelection.setSelectedNodes(everyNth(nodes, selectedFraction));
+        graphSelection.setSelectedEdges(everyNth(edges, selectedFraction));
+    }
+
+    private static <T> T[] everyNth(final T[] elements, final float fraction) {
+        final int step = Math.max(1, Math.round(1 / fraction));
+        final T[] selected = Arrays.copyOf(elements, (elements.length + step - 1) / step);
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = elements[i * step];
+        }
+        return selected;
+    }
+
+    @Benchmark
+    public int isNodeSelected() {
+        int count = 0;
+        for (Node node : nodes) {
+            if (graphSelection.isNodeSelected(node)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int isEdgeSelected() {
+        int count = 0;
+        for (Edge edge : edges) {
+            if (graphSelection.isEdgeSelected(edge)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,124 @@
+package org.gephi.viz.engine.benchmarks;
+
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractNodeData;
+import org.gephi.viz.engine.status.GraphRenderingOptionsImpl;
+import org.gephi.viz.engine.status.GraphSelectionImpl;
+import org.gephi.viz.engine.status.GraphSelectionNeighboursImpl;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.ParallelFill;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node attributes fill of {@link AbstractNodeData#updateData}, as run by the nodes world updaters: visible nodes query,
+ * selection classification and writing of the attributes (and indirect draw commands) to a frame direct buffer.
+ *
+ * @author Eduardo Ramos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class NodeAttributesFillBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int nodes;
+
+    @Param({"false", "true"})
+    public boolean indirect;
+
+    @Param({"false", "true"})
+    public boolean selection;
+
+    @Param({"true", "false"})
+    public boolean parallel;
+
+    private GraphIndexImpl graphIndex;
+    private GraphRenderingOptionsImpl renderingOptions;
+    private GraphSelectionImpl graphSelection;
+    private GraphSelectionNeighboursImpl neighboursSelection;
+    private BenchmarkNodeData nodeData;
+    private int previousParallelThreshold;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final GraphModel graphModel = SyntheticGraphs.newGraphModel(nodes, 0);
+        final VizEngine<?, ?> engine = SyntheticGraphs.newEngine(graphModel, 1);
+
+        graphIndex = new GraphIndexImpl(engine);
+        renderingOptions = new GraphRenderingOptionsImpl();
+        graphSelection = new GraphSelectionImpl(engine);
+        neighboursSelection = new GraphSelectionNeighboursImpl(engine);
+
+        if (selection) {
+            //Select 10% of the nodes:
+            final Node[] allNodes = graphModel.getGraph().getNodes().toArray();
+            final Node[] selectedNodes = new Node[allNodes.length / 10];
+            for (int i = 0; i < selectedNodes.length; i++) {
+                selectedNodes[i] = allNodes[i * 10];
+            }
+            graphSelection.setSelectedNodes(selectedNodes);
+        }
+
+        previousParallelThreshold = ParallelFill.getParallelThreshold();
+        ParallelFill.setParallelThreshold(parallel ? ParallelFill.DEFAULT_PARALLEL_THRESHOLD : 0);
+
+        nodeData = new BenchmarkNodeData(indirect);
+        nodeData.initBuffers();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        nodeData.dispose();
+        ParallelFill.setParallelThreshold(previousParallelThreshold);
+    }
+
+    @Benchmark
+    public int fillNodes() {
+        return nodeData.fill(1, graphIndex, renderingOptions, graphSelection, neighboursSelection);
+    }
+
+    /**
+     * Exposes the world updater side of {@link AbstractNodeData}, the GL programs and buffers are never created.
+     */
+    private static class BenchmarkNodeData extends AbstractNodeData {
+
+        public BenchmarkNodeData(final boolean indirectCommands) {
+            super(true, indirectCommands);
+        }
+
+        @Override
+        protected void initBuffers() {
+            super.initBuffers();
+        }
+
+        public int fill(final float zoom,
+                        final GraphIndexImpl graphIndex,
+                        final GraphRenderingOptionsImpl renderingOptions,
+                        final GraphSelectionImpl graphSelection,
+                        final GraphSelectionNeighboursImpl neighboursSelection) {
+            final NodesFrame frame = frames.write();
+            updateData(zoom, graphIndex, renderingOptions, graphSelection, neighboursSelection);
+
+            return frame.unselectedCount + frame.selectedCount;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.gephi.viz.engine.benchmarks;
+
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.spi.RenderingTarget;
+import org.joml.Vector2f;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic random graphs and headless engines to run benchmarks without any GL context.
+ *
+ * <p>
+ * Nodes are placed with some jitter in the cells of a square grid, so the density stays the same for any graph size.
+ * Edges connect nodes close in the grid rows, like in a laid out graph, and half of them are directed.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class SyntheticGraphs {
+
+    public static final long DEFAULT_SEED = 42;
+    public static final int VIEWPORT_WIDTH = 1920;
+    public static final int VIEWPORT_HEIGHT = 1080;
+
+    private static final float DISTANCE_BETWEEN_NODES = 20;
+    private static final float MIN_NODE_SIZE = 1;
+    private static final float MAX_NODE_SIZE = 10;
+
+    public static GraphModel newGraphModel(final int nodesCount, final int edgesCount) {
+        return newGraphModel(nodesCount, edgesCount, DEFAULT_SEED);
+    }
+
+    public static GraphModel newGraphModel(final int nodesCount, final int edgesCount, final long seed) {
+        if (nodesCount < 1) {
+            throw new IllegalArgumentException("nodesCount should be >= 1");
+        }
+        if (edgesCount < 0) {
+            throw new IllegalArgumentException("edgesCount should be >= 0");
+        }
+        if (edgesCount > 0 && (edgesCount - 1) / nodesCount >= (nodesCount - 1) / 2) {
+            throw new IllegalArgumentException("Too many edges for " + nodesCount + " nodes");
+        }
+
+        final Configuration configuration = new Configuration();
+        configuration.setEnableSpatialIndex(true);
+
+        final GraphModel graphModel = GraphModel.Factory.newInstance(configuration);
+        final GraphFactory factory = graphModel.factory();
+        final Graph graph = graphModel.getGraph();
+        final Random random = new Random(seed);
+
+        final int columns = (int) Math.ceil(Math.sqrt(nodesCount));
+
+        final List<Node> nodes = new ArrayList<>(nodesCount);
+        for (int i = 0; i < nodesCount; i++) {
+            final Node node = factory.newNode();
+            node.setX((i % columns + random.nextFloat() - columns / 2f) * DISTANCE_BETWEEN_NODES);
+            node.setY((i / columns + random.nextFloat() - columns / 2f) * DISTANCE_BETWEEN_NODES);
+            node.setSize(MIN_NODE_SIZE + random.nextFloat() * (MAX_NODE_SIZE - MIN_NODE_SIZE));
+            node.setR(random.nextFloat());
+            node.setG(random.nextFloat());
+            node.setB(random.nextFloat());
+            nodes.add(node);
+        }
+        graph.addAllNodes(nodes);
+
+        final List<Edge> edges = new ArrayList<>(edgesCount);
+        for (int i = 0; i < edgesCount; i++) {
+            //Each round connects every node to the next one not connected yet, so there are no parallel edges nor self loops:
+            final int round = i / nodesCount;
+            final Node source = nodes.get(i % nodesCount);
+            final Node target = nodes.get((i % nodesCount + round + 1) % nodesCount);
+
+            edges.add(factory.newEdge(source, target, 0, 1 + random.nextInt(10), i % 2 == 0));
+        }
+        graph.addAllEdges(edges);
+
+        return graphModel;
+    }
+
+    /**
+     * Creates an engine that is never started, only usable for its camera and lookup.
+     *
+     * @param graphModel Graph model
+     * @param visibleFraction Fraction of the graph area that should be inside the view, 1 to see the whole graph
+     * @return Engine
+     */
+    public static VizEngine<HeadlessRenderingTarget, Object> newEngine(final GraphModel graphModel, final float visibleFraction) {
+        final VizEngine<HeadlessRenderingTarget, Object> engine = new VizEngine<>(graphModel, new HeadlessRenderingTarget());
+        engine.reshape(VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
+        engine.setGuardBandFactor(0);
+
+        final Rect2D boundaries = graphBoundaries(graphModel.getGraph());
+        final float scale = (float) Math.sqrt(visibleFraction);
+        engine.centerOn(
+            new Vector2f((boundaries.minX + boundaries.maxX) / 2, (boundaries.minY + boundaries.maxY) / 2),
+            boundaries.width() * scale,
+            boundaries.height() * scale
+        );
+
+        return engine;
+    }
+
+    private static Rect2D graphBoundaries(final Graph graph) {
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+
+        for (Node node : graph.getNodes()) {
+            minX = Math.min(minX, node.x() - node.size());
+            minY = Math.min(minY, node.y() - node.size());
+            maxX = Math.max(maxX, node.x() + node.size());
+            maxY = Math.max(maxY, node.y() + node.size());
+        }
+
+        return new Rect2D(minX, minY, maxX, maxY);
+    }
+
+    public static class HeadlessRenderingTarget implements RenderingTarget {
+
+        @Override
+        public void setup(VizEngine engine) {
+            //NOOP
+        }
+
+        @Override
+        public void start() {
+            //NOOP
+        }
+
+        @Override
+        public void stop() {
+            //NOOP
+        }
+    }
+}
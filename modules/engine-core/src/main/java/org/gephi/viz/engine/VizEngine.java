@@ -2,8 +2,16 @@ package org.gephi.viz.engine;
 
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.export.Tile;
+import org.gephi.viz.engine.export.TileCallback;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.spi.*;
+import org.gephi.viz.engine.status.FrameContext;
+import org.gephi.viz.engine.status.FrameStats;
+import org.gephi.viz.engine.status.WorldUpdateTracker;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.structure.VisibilitySnapshot;
+import org.gephi.viz.engine.util.InputEventsQueue;
 import org.gephi.viz.engine.util.TimeUtils;
 import org.joml.*;
 import org.openide.util.Lookup;
@@ -24,6 +32,8 @@ import java.lang.Math;
 public class VizEngine<R extends RenderingTarget, I> {
 
     public static final int DEFAULT_MAX_WORLD_UPDATES_PER_SECOND = 60;
+    public static final float DEFAULT_GUARD_BAND_FACTOR = 0.25f;
+    public static final float DEFAULT_GUARD_BAND_MAX_ZOOM_FACTOR = 1.5f;
 
     //Rendering target
     private final R renderingTarget;
@@ -35,6 +45,9 @@ public class VizEngine<R extends RenderingTarget, I> {
     private int width = 0;
     private int height = 0;
     private Rect2D viewBoundaries = new Rect2D(0, 0, 0, 0);
+    private volatile Rect2D cullingBoundaries = viewBoundaries;
+    private volatile float cullingZoom = 0;
+    private volatile long cullingVersion = 0;
 
     //Matrix
     private final Matrix4f modelMatrix = new Matrix4f().identity();
@@ -47,6 +60,7 @@ public class VizEngine<R extends RenderingTarget, I> {
 
     private float zoom = 0.3f;
     private final Vector2f translate = new Vector2f();
+    private volatile long cameraVersion = 0;
 
     //Renderers:
     private final Set<Renderer<R>> allRenderers = new LinkedHashSet<>();
@@ -57,9 +71,17 @@ public class VizEngine<R extends RenderingTarget, I> {
     private final List<WorldUpdater<R>> updatersPipeline = new ArrayList<>();
     private ExecutorService updatersThreadPool;
     private WorldUpdaterExecutionMode worldUpdatersExecutionMode = WorldUpdaterExecutionMode.CONCURRENT_SYNCHRONOUS;
+    private final WorldUpdateTracker worldUpdateTracker;
+
+    //Stats:
+    private final FrameStats frameStats = new FrameStats();
+
+    //Context of the last frame, only accessed in the rendering thread:
+    private FrameContext frameContext = null;
 
     //Input listeners:
-    private final List<I> eventsQueue = Collections.synchronizedList(new ArrayList<>());
+    private final InputEventsQueue<I> eventsQueue = new InputEventsQueue<>();
+    private volatile InputEventsQueue.Coalescer<I> inputEventsCoalescer = null;
     private final Set<InputListener<R, I>> allInputListeners = new LinkedHashSet<>();
     private final List<InputListener<R, I>> inputListenersPipeline = new ArrayList<>();
 
@@ -68,17 +90,23 @@ public class VizEngine<R extends RenderingTarget, I> {
 
     //Settings:
     private final float[] backgroundColor = new float[]{1, 1, 1, 1};
+    private volatile long backgroundColorVersion = 0;
     private int maxWorldUpdatesPerSecond = DEFAULT_MAX_WORLD_UPDATES_PER_SECOND;
+    private float guardBandFactor = DEFAULT_GUARD_BAND_FACTOR;
+    private float guardBandMaxZoomFactor = DEFAULT_GUARD_BAND_MAX_ZOOM_FACTOR;
 
     //Lookup for communication between components:
     private final InstanceContent instanceContent;
     private final AbstractLookup lookup;
+    private volatile long lookupVersion = 0;
 
     public VizEngine(GraphModel graphModel, R renderingTarget) {
         this.graphModel = Objects.requireNonNull(graphModel, "graphModel mandatory");
         this.instanceContent = new InstanceContent();
         this.lookup = new AbstractLookup(instanceContent);
         this.renderingTarget = Objects.requireNonNull(renderingTarget, "renderingTarget mandatory");
+        this.worldUpdateTracker = new WorldUpdateTracker(this);
+        this.instanceContent.add(frameStats);
         loadModelViewProjection();
     }
 
@@ -174,6 +202,20 @@ public class VizEngine<R extends RenderingTarget, I> {
         return Collections.unmodifiableList(inputListenersPipeline);
     }
 
+    public InputEventsQueue.Coalescer<I> getInputEventsCoalescer() {
+        return inputEventsCoalescer;
+    }
+
+    /**
+     * Sets how consecutive queued input events are merged before the input listeners process them, like a flood of mouse
+     * moves between two frames.
+     *
+     * @param inputEventsCoalescer Coalescer, or null to process every event
+     */
+    public void setInputEventsCoalescer(InputEventsQueue.Coalescer<I> inputEventsCoalescer) {
+        this.inputEventsCoalescer = inputEventsCoalescer;
+    }
+
     public void addRenderer(Renderer<R> renderer) {
         if (renderer != null) {
             allRenderers.add(renderer);
@@ -236,6 +278,35 @@ public class VizEngine<R extends RenderingTarget, I> {
         return updatersPipeline.contains(renderer);
     }
 
+    public WorldUpdateTracker getWorldUpdateTracker() {
+        return worldUpdateTracker;
+    }
+
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
+    /**
+     * Forces a world update on the next opportunity. Needed when skipping unchanged world updates is enabled and
+     * element properties not versioned by the graph (position, size, color, edge weight) change. World updaters that
+     * keep their data between updates check those properties again (see {@link WorldUpdateTracker#getElementsVersion()}).
+     */
+    public void requestWorldUpdate() {
+        worldUpdateTracker.requestUpdate();
+    }
+
+    /**
+     * Same as {@link #requestWorldUpdate()} when only node positions changed, for example after each layout step, so
+     * world updaters that support it only write positions again. The indexed edges pipeline then only uploads the node
+     * positions instead of all the edges, node pipelines still write their whole instances.
+     * <p>
+     * Only effective with the {@link WorldUpdateTracker} enabled: while disabled, unversioned sizes and colors are polled
+     * with full world updates.</p>
+     */
+    public void requestPositionsUpdate() {
+        worldUpdateTracker.requestPositionsUpdate();
+    }
+
     public Vector2fc getTranslate() {
         return translate;
     }
@@ -302,6 +373,7 @@ public class VizEngine<R extends RenderingTarget, I> {
         modelViewProjectionMatrix.invertAffine(modelViewProjectionMatrixInverted);
 
         calculateWorldBoundaries();
+        cameraVersion++;
     }
 
     private void loadModel() {
@@ -324,6 +396,38 @@ public class VizEngine<R extends RenderingTarget, I> {
         modelViewProjectionMatrixInverted.transformAab(-1, -1, 0, 1, 1, 0, minCoords, maxCoords);
 
         viewBoundaries = new Rect2D(minCoords.x, minCoords.y, maxCoords.x, maxCoords.y);
+
+        calculateCullingBoundaries();
+    }
+
+    /**
+     * Culling boundaries are the view boundaries expanded by the guard band.
+     * They are only recalculated when the view leaves them or the zoom changes by more than the allowed factor,
+     * so panning and zooming inside an already uploaded area does not need a new world update.
+     */
+    private void calculateCullingBoundaries() {
+        final Rect2D view = viewBoundaries;
+        final Rect2D current = cullingBoundaries;
+
+        final boolean insideGuardBand = view.minX >= current.minX && view.minY >= current.minY
+                && view.maxX <= current.maxX && view.maxY <= current.maxY;
+        final float zoomFactor = cullingZoom > 0 ? Math.max(zoom / cullingZoom, cullingZoom / zoom) : Float.POSITIVE_INFINITY;
+
+        if (insideGuardBand && zoomFactor <= guardBandMaxZoomFactor) {
+            return;
+        }
+
+        final float marginX = view.width() * guardBandFactor;
+        final float marginY = view.height() * guardBandFactor;
+
+        cullingBoundaries = new Rect2D(view.minX - marginX, view.minY - marginY, view.maxX + marginX, view.maxY + marginY);
+        cullingZoom = zoom;
+        cullingVersion++;
+    }
+
+    private void invalidateCullingBoundaries() {
+        cullingZoom = 0;
+        calculateCullingBoundaries();
     }
 
     public void reshape(int width, int height) {
@@ -348,6 +452,8 @@ public class VizEngine<R extends RenderingTarget, I> {
         setupWorldUpdatersPipeline();
         setupInputListenersPipeline();
 
+        frameStats.setup(updatersPipeline, renderersPipeline);
+
         updatersPipeline.forEach((worldUpdater) -> {
             worldUpdater.init(renderingTarget);
         });
@@ -357,6 +463,7 @@ public class VizEngine<R extends RenderingTarget, I> {
         });
 
         loadModelViewProjection();
+        worldUpdateTracker.requestUpdate();
     }
 
     public synchronized void pause() {
@@ -389,16 +496,25 @@ public class VizEngine<R extends RenderingTarget, I> {
             renderer.dispose(renderingTarget);
         });
 
+        System.out.println("Dispose input listeners");
+        inputListenersPipeline.forEach((inputListener) -> {
+            inputListener.dispose(renderingTarget);
+        });
+
+        worldUpdateTracker.destroy();
+
         this.isDestroyed = true;
         this.renderingTarget.stop();
     }
 
     private CompletableFuture allUpdatersCompletableFuture = null;
 
-    private CompletableFuture<WorldUpdater> completableFutureOfUpdater(final WorldUpdater updater) {
+    private CompletableFuture<WorldUpdater> completableFutureOfUpdater(final WorldUpdater updater, final FrameContext context) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                updater.updateWorld();
+                final long start = frameStats.start();
+                updater.updateWorld(context);
+                frameStats.recordWorldUpdate(updater, start);
             } catch (Throwable t) {
                 t.printStackTrace();//TODO Logger
             }
@@ -406,6 +522,37 @@ public class VizEngine<R extends RenderingTarget, I> {
         }, updatersThreadPool);
     }
 
+    /**
+     * Starts the visible elements snapshot shared by the world updaters of the next world update.
+     *
+     * @return Snapshot, or null if there is no graph index in the lookup
+     */
+    private VisibilitySnapshot newVisibilitySnapshot() {
+        final GraphIndexImpl graphIndex = lookup.lookup(GraphIndexImpl.class);
+        return graphIndex != null ? graphIndex.newVisibilitySnapshot() : null;
+    }
+
+    private void collectVisibilitySnapshot(final VisibilitySnapshot visibilitySnapshot) {
+        if (visibilitySnapshot == null) {
+            return;
+        }
+
+        try {
+            visibilitySnapshot.collect();
+        } catch (Throwable t) {
+            //Updaters collect what is missing themselves
+            t.printStackTrace();//TODO Logger
+        }
+    }
+
+    /**
+     * Resolves the context of the frame starting, after input events are processed since they move the camera.
+     */
+    private FrameContext newFrameContext() {
+        frameContext = FrameContext.create(this, frameContext);
+        return frameContext;
+    }
+
     private static final RenderingLayer[] ALL_LAYERS = RenderingLayer.values();
 
     public void display() {
@@ -413,36 +560,180 @@ public class VizEngine<R extends RenderingTarget, I> {
             return;
         }
 
+        final long frameStart = frameStats.start();
         renderingTarget.frameStart();
 
+        final long inputEventsStart = frameStats.start();
         processInputEvents();
+        frameStats.recordInputEvents(inputEventsStart);
+
+        final FrameContext context = newFrameContext();
 
         if (updatersThreadPool == null) {
-            runWorldUpdaters();
+            runWorldUpdaters(context);
         } else {
             checkConcurrentWorldUpdateIsDone();
         }
 
+        render(context);
+
+        //Schedule next concurrent world update:
+        if (updatersThreadPool != null) {
+            scheduleNextConcurrentWorldUpdateIfDone(context);
+        }
+
+        renderingTarget.frameEnd();
+        frameStats.recordFrame(frameStart);
+    }
+
+    /**
+     * Renders a frame of the current camera after running all world updaters in the calling thread, whatever the
+     * execution mode, max world updates per second and world update tracker state.
+     * Input events are kept for the next {@link #display()}.
+     * <p>
+     * Useful when every frame must be complete for its own camera, like the tiles of {@link #renderTiles}.</p>
+     */
+    public void displayWithWorldUpdate() {
+        if (isPaused) {
+            return;
+        }
+
+        final long frameStart = frameStats.start();
+        renderingTarget.frameStart();
+
+        waitConcurrentWorldUpdate();
+
+        final FrameContext context = newFrameContext();
+
+        //Always a full world update, also keeps the tracker versions current:
+        worldUpdateTracker.requestUpdate();
+        worldUpdateTracker.checkWorldChanged(context);
+
+        collectVisibilitySnapshot(newVisibilitySnapshot());
+
+        for (WorldUpdater<R> worldUpdater : updatersPipeline) {
+            final long start = frameStats.start();
+            worldUpdater.updateWorld(context);
+            frameStats.recordWorldUpdate(worldUpdater, start);
+        }
+        lastWorldUpdateMillis = TimeUtils.getTimeMillis();
+
+        notifyRenderersWorldUpdated();
+
+        render(context);
+
+        renderingTarget.frameEnd();
+        frameStats.recordFrame(frameStart);
+    }
+
+    /**
+     * Renders the current view as an image of the given size, split in tiles of at most tileSize x tileSize pixels.
+     * <p>
+     * The view is scaled to fit the image, keeping its center. For each tile, in rows from top to bottom and
+     * left to right, the camera is set to the tile sub-rectangle of the scaled view and
+     * {@link #displayWithWorldUpdate()} is called between {@link TileCallback#beginTile} and
+     * {@link TileCallback#endTile}, so the callback can bind its render target and read the tile back.
+     * The camera is restored afterwards.</p>
+     * <p>
+     * Must be called in the rendering thread, with the rendering context current.</p>
+     *
+     * @param imageWidth Image width in pixels
+     * @param imageHeight Image height in pixels
+     * @param tileSize Max tile width and height in pixels
+     * @param callback Tiles callback
+     */
+    public synchronized void renderTiles(final int imageWidth, final int imageHeight, final int tileSize, final TileCallback callback) {
+        if (imageWidth < 1 || imageHeight < 1) {
+            throw new IllegalArgumentException("imageWidth and imageHeight should be >= 1");
+        }
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("tileSize should be >= 1");
+        }
+        if (width < 1 || height < 1) {
+            throw new IllegalStateException("Engine has no size yet, call reshape first");
+        }
+
+        final int previousWidth = width;
+        final int previousHeight = height;
+        final float previousZoom = zoom;
+        final Vector2f previousTranslate = new Vector2f(translate);
+
+        //View center in world coordinates, and world units per image pixel:
+        final float centerX = -translate.x;
+        final float centerY = -translate.y;
+        final float tilesZoom = zoom * Math.min((float) imageWidth / width, (float) imageHeight / height);
+
+        final int columns = (imageWidth + tileSize - 1) / tileSize;
+        final int rows = (imageHeight + tileSize - 1) / tileSize;
+
+        try {
+            callback.begin(imageWidth, imageHeight, columns, rows);
+
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    final int x = column * tileSize;
+                    final int y = row * tileSize;
+                    final int tileWidth = Math.min(tileSize, imageWidth - x);
+                    final int tileHeight = Math.min(tileSize, imageHeight - y);
+
+                    //Image y goes down, world y goes up:
+                    final float tileCenterX = centerX + (x + tileWidth / 2f - imageWidth / 2f) / tilesZoom;
+                    final float tileCenterY = centerY - (y + tileHeight / 2f - imageHeight / 2f) / tilesZoom;
+
+                    this.width = tileWidth;
+                    this.height = tileHeight;
+                    this.zoom = tilesZoom;
+                    this.translate.set(-tileCenterX, -tileCenterY);
+                    loadModelViewProjection();
+
+                    final Tile tile = new Tile(column, row, x, y, tileWidth, tileHeight, viewBoundaries);
+
+                    callback.beginTile(tile);
+                    displayWithWorldUpdate();
+                    callback.endTile(tile);
+                }
+            }
+
+            callback.end();
+        } finally {
+            this.width = previousWidth;
+            this.height = previousHeight;
+            this.zoom = previousZoom;
+            this.translate.set(previousTranslate);
+            loadModelViewProjection();
+
+            //Renderers hold the data of the last tile:
+            worldUpdateTracker.requestUpdate();
+        }
+    }
+
+    private void render(final FrameContext context) {
         //Call renderers for the current frame:
         for (RenderingLayer layer : ALL_LAYERS) {
             for (Renderer renderer : renderersPipeline) {
                 if (renderer.getLayers().contains(layer)) {
-                    renderer.render(renderingTarget, layer);
+                    final long start = frameStats.start();
+                    renderer.render(renderingTarget, layer, context);
+                    frameStats.recordRender(renderer, layer, start);
                 }
             }
         }
+    }
 
-        //Schedule next concurrent world update:
-        if (updatersThreadPool != null) {
-            scheduleNextConcurrentWorldUpdateIfDone();
+    private void waitConcurrentWorldUpdate() {
+        if (allUpdatersCompletableFuture != null) {
+            try {
+                allUpdatersCompletableFuture.get();
+            } catch (Throwable ex) {
+                ex.printStackTrace();//TODO Logger
+            }
+            allUpdatersCompletableFuture = null;
         }
-
-        renderingTarget.frameEnd();
     }
 
     private long lastWorldUpdateMillis = 0;
 
-    private void runWorldUpdaters() {
+    private void runWorldUpdaters(final FrameContext context) {
         //Control max world updates per second
         if (maxWorldUpdatesPerSecond >= 1) {
             if (TimeUtils.getTimeMillis() < lastWorldUpdateMillis + 1000 / maxWorldUpdatesPerSecond) {
@@ -451,13 +742,28 @@ public class VizEngine<R extends RenderingTarget, I> {
             }
         }
 
+        if (!worldUpdateTracker.checkWorldChanged(context)) {
+            //Nothing changed, keep current world data
+            return;
+        }
+
+        collectVisibilitySnapshot(newVisibilitySnapshot());
+
         for (WorldUpdater<R> worldUpdater : updatersPipeline) {
-            worldUpdater.updateWorld();
+            final long start = frameStats.start();
+            worldUpdater.updateWorld(context);
+            frameStats.recordWorldUpdate(worldUpdater, start);
         }
         lastWorldUpdateMillis = TimeUtils.getTimeMillis();
 
+        notifyRenderersWorldUpdated();
+    }
+
+    private void notifyRenderersWorldUpdated() {
         for (Renderer renderer : renderersPipeline) {
+            final long start = frameStats.start();
             renderer.worldUpdated(renderingTarget);
+            frameStats.recordWorldUpdated(renderer, start);
         }
     }
 
@@ -470,9 +776,7 @@ public class VizEngine<R extends RenderingTarget, I> {
                     allUpdatersCompletableFuture = null;
 
                     //Notify renderers when next concurrent synchronous world data update is done:
-                    for (Renderer renderer : renderersPipeline) {
-                        renderer.worldUpdated(renderingTarget);
-                    }
+                    notifyRenderersWorldUpdated();
                 } catch (Throwable ex) {
                     ex.printStackTrace();//TODO Logger
                 }
@@ -482,16 +786,14 @@ public class VizEngine<R extends RenderingTarget, I> {
                 if (worldUpdateDone) {
                     allUpdatersCompletableFuture = null;
 
-                    for (Renderer renderer : renderersPipeline) {
-                        renderer.worldUpdated(renderingTarget);
-                    }
+                    notifyRenderersWorldUpdated();
                 }
             }
         }
 
     }
 
-    private void scheduleNextConcurrentWorldUpdateIfDone() {
+    private void scheduleNextConcurrentWorldUpdateIfDone(final FrameContext context) {
         if (!updatersThreadPool.isShutdown() && allUpdatersCompletableFuture == null) {
             //Control max world updates per second
             if (maxWorldUpdatesPerSecond >= 1) {
@@ -501,10 +803,21 @@ public class VizEngine<R extends RenderingTarget, I> {
                 }
             }
 
+            if (!worldUpdateTracker.checkWorldChanged(context)) {
+                //Nothing changed, keep current world data
+                return;
+            }
+
+            //Culling boundaries of this moment, the visible elements are collected in the pool before the updaters run:
+            final VisibilitySnapshot visibilitySnapshot = newVisibilitySnapshot();
+            final CompletableFuture<Void> visibilitySnapshotFuture = CompletableFuture.runAsync(
+                    () -> collectVisibilitySnapshot(visibilitySnapshot), updatersThreadPool
+            );
+
             final CompletableFuture[] futures = new CompletableFuture[updatersPipeline.size()];
             for (int i = 0; i < futures.length; i++) {
                 final WorldUpdater worldUpdater = updatersPipeline.get(i);
-                futures[i] = completableFutureOfUpdater(worldUpdater);
+                futures[i] = visibilitySnapshotFuture.thenCompose(v -> completableFutureOfUpdater(worldUpdater, context));
             }
 
             allUpdatersCompletableFuture = CompletableFuture.allOf(futures);
@@ -519,10 +832,20 @@ public class VizEngine<R extends RenderingTarget, I> {
 
     public void addToLookup(Object instance) {
         instanceContent.add(instance);
+        lookupVersion++;
     }
 
     public void removeFromLookup(Object instance) {
         instanceContent.remove(instance);
+        lookupVersion++;
+    }
+
+    /**
+     * @return Version incremented by every {@link #addToLookup(Object)} and {@link #removeFromLookup(Object)}, to cache
+     * services looked up in the engine lookup
+     */
+    public long getLookupVersion() {
+        return lookupVersion;
     }
 
     public GraphModel getGraphModel() {
@@ -561,6 +884,76 @@ public class VizEngine<R extends RenderingTarget, I> {
         return viewBoundaries;
     }
 
+    public long getCameraVersion() {
+        return cameraVersion;
+    }
+
+    /**
+     * Boundaries that world updaters should query for visible elements.
+     *
+     * @return View boundaries expanded by the guard band
+     */
+    public Rect2D getCullingBoundaries() {
+        return cullingBoundaries;
+    }
+
+    /**
+     * Incremented each time the culling boundaries change.
+     *
+     * @return Culling boundaries version
+     */
+    public long getCullingVersion() {
+        return cullingVersion;
+    }
+
+    /**
+     * Zoom at which the current culling boundaries were calculated. Updaters that cull by screen size should use it,
+     * together with {@link #getGuardBandMaxZoomFactor()}, so their results stay valid while the culling version doesn't change.
+     *
+     * @return Culling zoom
+     */
+    public float getCullingZoom() {
+        final float currentCullingZoom = cullingZoom;
+        return currentCullingZoom > 0 ? currentCullingZoom : zoom;
+    }
+
+    public float getGuardBandFactor() {
+        return guardBandFactor;
+    }
+
+    /**
+     * Sets how much the culling boundaries extend beyond the view on each side, as a fraction of the view size.
+     * Zero disables the guard band.
+     *
+     * @param guardBandFactor Guard band factor, must be &gt;= 0
+     */
+    public void setGuardBandFactor(float guardBandFactor) {
+        if (guardBandFactor < 0) {
+            throw new IllegalArgumentException("guardBandFactor should be >= 0");
+        }
+
+        this.guardBandFactor = guardBandFactor;
+        invalidateCullingBoundaries();
+    }
+
+    public float getGuardBandMaxZoomFactor() {
+        return guardBandMaxZoomFactor;
+    }
+
+    /**
+     * Sets the zoom change ratio (in or out) that forces recalculating the culling boundaries even if the view is still inside them.
+     *
+     * @param guardBandMaxZoomFactor Max zoom factor, must be &gt;= 1
+     */
+    public void setGuardBandMaxZoomFactor(float guardBandMaxZoomFactor) {
+        if (guardBandMaxZoomFactor < 1) {
+            throw new IllegalArgumentException("guardBandMaxZoomFactor should be >= 1");
+        }
+
+        this.guardBandMaxZoomFactor = guardBandMaxZoomFactor;
+        invalidateCullingBoundaries();
+    }
+
     public void getBackgroundColor(float[] backgroundColorFloats) {
         System.arraycopy(this.backgroundColor, 0, backgroundColorFloats, 0, 4);
     }
@@ -582,6 +975,14 @@ public class VizEngine<R extends RenderingTarget, I> {
         }
 
         System.arraycopy(color, 0, backgroundColor, 0, 4);
+        backgroundColorVersion++;
+    }
+
+    /**
+     * @return Version incremented by every background color change
+     */
+    public long getBackgroundColorVersion() {
+        return backgroundColorVersion;
     }
 
     public int getMaxWorldUpdatesPerSecond() {
@@ -644,12 +1045,12 @@ public class VizEngine<R extends RenderingTarget, I> {
             inputListener.frameStart();
         }
 
-        final Object[] events = eventsQueue.toArray();
-        eventsQueue.clear();
+        final int eventsCount = eventsQueue.drain(inputEventsCoalescer);
 
-        for (Object event : events) {
+        for (int i = 0; i < eventsCount; i++) {
+            final I event = eventsQueue.getDrained(i);
             for (InputListener<R, I> inputListener : inputListenersPipeline) {
-                final boolean consumed = inputListener.processEvent((I) event);
+                final boolean consumed = inputListener.processEvent(event);
                 if (consumed) {
                     break;
                 }
@@ -661,6 +1062,11 @@ public class VizEngine<R extends RenderingTarget, I> {
         }
     }
 
+    /**
+     * Queues an input event for the next {@link #display()}. Can be called from any thread.
+     *
+     * @param e Event
+     */
     public void queueEvent(I e) {
         eventsQueue.add(e);
     }
@@ -0,0 +1,183 @@
+package org.gephi.viz.engine.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PNG encoder that receives the image row by row, from top to bottom, and streams it compressed to the output.
+ * Memory usage does not depend on the image height, so it can write images too big to fit in memory.
+ *
+ * <p>
+ * Writes 8 bits RGBA, non interlaced, with the Sub filter on every row.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class StreamingPngWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final int BIT_DEPTH = 8;
+    private static final int COLOR_TYPE_RGBA = 6;
+    private static final int FILTER_SUB = 1;
+    private static final int IDAT_CHUNK_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+
+    private final byte[] filteredRow;
+    private final byte[] idatBuffer = new byte[IDAT_CHUNK_SIZE];
+    private int idatBufferCount = 0;
+    private int rowsWritten = 0;
+    private boolean closed = false;
+
+    public StreamingPngWriter(OutputStream out, int width, int height) throws IOException {
+        this(out, width, height, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public StreamingPngWriter(OutputStream out, int width, int height, int compressionLevel) throws IOException {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("width and height should be >= 1");
+        }
+        if ((long) width * BYTES_PER_PIXEL + 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("width is too big");
+        }
+
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        this.deflater = new Deflater(compressionLevel);
+        this.filteredRow = new byte[1 + width * BYTES_PER_PIXEL];
+
+        out.write(SIGNATURE);
+
+        final byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = BIT_DEPTH;
+        header[9] = COLOR_TYPE_RGBA;
+        header[10] = 0;//Deflate compression
+        header[11] = 0;//Adaptive filtering
+        header[12] = 0;//No interlace
+        writeChunk("IHDR", header, header.length);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Writes the next row of the image.
+     *
+     * @param rgba Pixels, 4 bytes per pixel in RGBA order
+     * @param offset Offset of the first pixel of the row in rgba
+     * @throws IOException If the output fails
+     */
+    public void writeRow(final byte[] rgba, final int offset) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Writer already closed");
+        }
+        if (rowsWritten == height) {
+            throw new IllegalStateException("All " + height + " rows were already written");
+        }
+
+        final int rowBytes = width * BYTES_PER_PIXEL;
+        filteredRow[0] = FILTER_SUB;
+        for (int i = 0; i < BYTES_PER_PIXEL; i++) {
+            filteredRow[1 + i] = rgba[offset + i];
+        }
+        for (int i = BYTES_PER_PIXEL; i < rowBytes; i++) {
+            filteredRow[1 + i] = (byte) (rgba[offset + i] - rgba[offset + i - BYTES_PER_PIXEL]);
+        }
+
+        deflater.setInput(filteredRow, 0, filteredRow.length);
+        while (!deflater.needsInput()) {
+            deflate();
+        }
+
+        rowsWritten++;
+    }
+
+    private void deflate() throws IOException {
+        idatBufferCount += deflater.deflate(idatBuffer, idatBufferCount, idatBuffer.length - idatBufferCount);
+        if (idatBufferCount == idatBuffer.length) {
+            flushIdat();
+        }
+    }
+
+    private void flushIdat() throws IOException {
+        if (idatBufferCount > 0) {
+            writeChunk("IDAT", idatBuffer, idatBufferCount);
+            idatBufferCount = 0;
+        }
+    }
+
+    /**
+     * Finishes the image and closes the output.
+     *
+     * @throws IOException If the output fails
+     * @throws IllegalStateException If not all the rows were written. The output is closed anyway
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            if (rowsWritten == height) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflate();
+                }
+                flushIdat();
+                writeChunk("IEND", idatBuffer, 0);
+            }
+        } finally {
+            deflater.end();
+            out.close();
+        }
+
+        if (rowsWritten != height) {
+            throw new IllegalStateException("Only " + rowsWritten + " of " + height + " rows were written");
+        }
+    }
+
+    private void writeChunk(final String type, final byte[] data, final int length) throws IOException {
+        final byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        final byte[] intBytes = new byte[4];
+
+        putInt(intBytes, 0, length);
+        out.write(intBytes);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        putInt(intBytes, 0, (int) crc.getValue());
+        out.write(intBytes);
+    }
+
+    private static void putInt(final byte[] dest, final int offset, final int value) {
+        dest[offset] = (byte) (value >>> 24);
+        dest[offset + 1] = (byte) (value >>> 16);
+        dest[offset + 2] = (byte) (value >>> 8);
+        dest[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,71 @@
+package org.gephi.viz.engine.export;
+
+import org.gephi.graph.api.Rect2D;
+
+/**
+ * One tile of an image rendered by {@link org.gephi.viz.engine.VizEngine#renderTiles}.
+ *
+ * @author Eduardo Ramos
+ */
+public class Tile {
+
+    private final int column;
+    private final int row;
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final Rect2D worldBoundaries;
+
+    public Tile(int column, int row, int x, int y, int width, int height, Rect2D worldBoundaries) {
+        this.column = column;
+        this.row = row;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.worldBoundaries = worldBoundaries;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * @return Left pixel of the tile in the image
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * @return Top pixel of the tile in the image
+     */
+    public int getY() {
+        return y;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return World area drawn in the tile
+     */
+    public Rect2D getWorldBoundaries() {
+        return worldBoundaries;
+    }
+
+    @Override
+    public String toString() {
+        return "Tile{" + "column=" + column + ", row=" + row + ", x=" + x + ", y=" + y + ", width=" + width + ", height=" + height + '}';
+    }
+}
@@ -0,0 +1,38 @@
+package org.gephi.viz.engine.export;
+
+/**
+ * Receives the tiles rendered by {@link org.gephi.viz.engine.VizEngine#renderTiles}, in the rendering thread.
+ *
+ * @author Eduardo Ramos
+ */
+public interface TileCallback {
+
+    /**
+     * Called once before the first tile.
+     *
+     * @param imageWidth Image width in pixels
+     * @param imageHeight Image height in pixels
+     * @param columns Tiles per row
+     * @param rows Tiles rows
+     */
+    void begin(int imageWidth, int imageHeight, int columns, int rows);
+
+    /**
+     * Called before rendering a tile, to bind and clear its render target and set the viewport to the tile size.
+     *
+     * @param tile Tile
+     */
+    void beginTile(Tile tile);
+
+    /**
+     * Called after rendering a tile, to read it back.
+     *
+     * @param tile Tile
+     */
+    void endTile(Tile tile);
+
+    /**
+     * Called once after the last tile.
+     */
+    void end();
+}
@@ -10,15 +10,20 @@ public class InstanceCounter {
     public int selectedCount = 0;
     public int unselectedCountToDraw = 0;
     public int selectedCountToDraw = 0;
+    //Visible instances that are not drawn because they are too small:
+    public int culledCount = 0;
+    public int culledCountToDraw = 0;
 
     public void promoteCountToDraw() {
         unselectedCountToDraw = unselectedCount;
         selectedCountToDraw = selectedCount;
+        culledCountToDraw = culledCount;
     }
 
     public void clearCount() {
         unselectedCount = 0;
         selectedCount = 0;
+        culledCount = 0;
     }
 
     public int total() {
@@ -31,6 +36,6 @@ public class InstanceCounter {
 
     @Override
     public String toString() {
-        return "InstanceCounter{" + "unselectedCount=" + unselectedCount + ", selectedCount=" + selectedCount + ", unselectedCountToDraw=" + unselectedCountToDraw + ", selectedCountToDraw=" + selectedCountToDraw + '}';
+        return "InstanceCounter{" + "unselectedCount=" + unselectedCount + ", selectedCount=" + selectedCount + ", unselectedCountToDraw=" + unselectedCountToDraw + ", selectedCountToDraw=" + selectedCountToDraw + ", culledCount=" + culledCount + ", culledCountToDraw=" + culledCountToDraw + '}';
     }
 }
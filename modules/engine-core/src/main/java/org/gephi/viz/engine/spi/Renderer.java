@@ -1,6 +1,7 @@
 package org.gephi.viz.engine.spi;
 
 import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.FrameContext;
 
 import java.util.EnumSet;
 
@@ -13,7 +14,12 @@ public interface Renderer<R extends RenderingTarget> extends PipelinedExecutor<R
 
     void worldUpdated(R target);
 
-    void render(R target, RenderingLayer layer);
+    /**
+     * @param target Rendering target
+     * @param layer Layer to render
+     * @param context Context of the frame being rendered
+     */
+    void render(R target, RenderingLayer layer, FrameContext context);
 
     EnumSet<RenderingLayer> getLayers();
 }
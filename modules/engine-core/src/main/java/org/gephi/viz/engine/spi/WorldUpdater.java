@@ -1,5 +1,7 @@
 package org.gephi.viz.engine.spi;
 
+import org.gephi.viz.engine.status.FrameContext;
+
 /**
  *
  * @author Eduardo Ramos
@@ -7,5 +9,9 @@ package org.gephi.viz.engine.spi;
  */
 public interface WorldUpdater<R extends RenderingTarget> extends PipelinedExecutor<R> {
 
-    void updateWorld();
+    /**
+     * @param context Context of the frame that started the world update, maybe older than the frame being rendered when
+     * world updates are concurrent
+     */
+    void updateWorld(FrameContext context);
 }
@@ -18,7 +18,8 @@ public enum WorldUpdaterExecutionMode {
      * Run each world update in a concurrent thread but don't wait for termination in the render loop thread before rendering.
      * </p>
      * <p>
-     * Maximizes FPS and responsiveness to input events but can cause flicker when zooming out.
+     * Maximizes FPS and responsiveness to input events but can cause flicker when zooming out beyond the guard band.
+     * See {@link org.gephi.viz.engine.VizEngine#setGuardBandFactor(float)}.
      * </p>
      */
     CONCURRENT_ASYNCHRONOUS;
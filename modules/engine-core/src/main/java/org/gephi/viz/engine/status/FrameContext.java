@@ -0,0 +1,198 @@
+package org.gephi.viz.engine.status;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.structure.GraphIndex;
+
+/**
+ * Everything renderers and world updaters read about the frame being drawn, resolved once per frame by the engine:
+ * services of the engine lookup, a snapshot of the rendering options, selection counts and camera.
+ *
+ * <p>
+ * Immutable, so world updaters running concurrently with the rendering of the next frames keep a consistent view of the
+ * frame that started them. The selection services are the live ones, only their counts and versions are snapshots.</p>
+ *
+ * <p>
+ * Arrays are shared to avoid copies in the rendering path, they must not be modified.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public final class FrameContext {
+
+    //Services:
+    private final long lookupVersion;
+    private final GraphIndex graphIndex;
+    private final GraphSelection selection;
+    private final GraphSelectionNeighbours neighboursSelection;
+    private final GraphRenderingOptions liveRenderingOptions;
+    private final GraphRenderingOptions renderingOptions;
+
+    //Selection:
+    private final long selectionVersion;
+    private final long neighboursSelectionVersion;
+    private final int selectedNodesCount;
+    private final int selectedEdgesCount;
+    private final int selectedNeighboursCount;
+
+    //Camera:
+    private final int width;
+    private final int height;
+    private final float zoom;
+    private final long cameraVersion;
+    private final float[] modelViewProjectionFloats;
+    private final long backgroundColorVersion;
+    private final float[] backgroundColor;
+
+    private FrameContext(final VizEngine engine, final FrameContext previous) {
+        //Versions first, so a change while reading is seen again by the next frame.
+        //Services only change with the lookup:
+        this.lookupVersion = engine.getLookupVersion();
+        if (previous != null && previous.lookupVersion == lookupVersion) {
+            this.graphIndex = previous.graphIndex;
+            this.selection = previous.selection;
+            this.neighboursSelection = previous.neighboursSelection;
+            this.liveRenderingOptions = previous.liveRenderingOptions;
+        } else {
+            this.graphIndex = engine.getLookup().lookup(GraphIndex.class);
+            this.selection = engine.getLookup().lookup(GraphSelection.class);
+            this.neighboursSelection = engine.getLookup().lookup(GraphSelectionNeighbours.class);
+            this.liveRenderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+        }
+
+        this.renderingOptions = snapshotRenderingOptions(
+                liveRenderingOptions,
+                previous != null ? previous.renderingOptions : null
+        );
+
+        //Versions first, like the rendering options snapshot:
+        if (selection != null) {
+            this.selectionVersion = selection.getVersion();
+            this.selectedNodesCount = selection.getSelectedNodesCount();
+            this.selectedEdgesCount = selection.getSelectedEdgesCount();
+        } else {
+            this.selectionVersion = 0;
+            this.selectedNodesCount = 0;
+            this.selectedEdgesCount = 0;
+        }
+
+        if (neighboursSelection != null) {
+            this.neighboursSelectionVersion = neighboursSelection.getVersion();
+            this.selectedNeighboursCount = neighboursSelection.getSelectedNodesCount();
+        } else {
+            this.neighboursSelectionVersion = 0;
+            this.selectedNeighboursCount = 0;
+        }
+
+        this.width = engine.getWidth();
+        this.height = engine.getHeight();
+        this.zoom = engine.getZoom();
+
+        //Arrays are immutable, shared while the camera and background color don't change:
+        this.cameraVersion = engine.getCameraVersion();
+        if (previous != null && previous.cameraVersion == cameraVersion) {
+            this.modelViewProjectionFloats = previous.modelViewProjectionFloats;
+        } else {
+            this.modelViewProjectionFloats = engine.getModelViewProjectionMatrixFloats();
+        }
+
+        this.backgroundColorVersion = engine.getBackgroundColorVersion();
+        if (previous != null && previous.backgroundColorVersion == backgroundColorVersion) {
+            this.backgroundColor = previous.backgroundColor;
+        } else {
+            this.backgroundColor = engine.getBackgroundColor();
+        }
+    }
+
+    private static GraphRenderingOptions snapshotRenderingOptions(final GraphRenderingOptions options, final GraphRenderingOptions previousSnapshot) {
+        if (options == null) {
+            return new GraphRenderingOptionsSnapshot(new GraphRenderingOptionsImpl());
+        }
+
+        if (previousSnapshot != null && previousSnapshot.getVersion() == options.getVersion()) {
+            //Nothing changed, immutable so it can be shared:
+            return previousSnapshot;
+        }
+
+        return new GraphRenderingOptionsSnapshot(options);
+    }
+
+    /**
+     * Must be called in the rendering thread, where the camera changes.
+     *
+     * @param engine Engine
+     * @param previous Context of the previous frame, to share what did not change, or null
+     * @return Context of the current state of the engine
+     */
+    public static FrameContext create(final VizEngine engine, final FrameContext previous) {
+        return new FrameContext(engine, previous);
+    }
+
+    public GraphIndex getGraphIndex() {
+        return graphIndex;
+    }
+
+    public GraphSelection getSelection() {
+        return selection;
+    }
+
+    public GraphSelectionNeighbours getNeighboursSelection() {
+        return neighboursSelection;
+    }
+
+    /**
+     * @return Read-only snapshot of the rendering options, or of the defaults if there are no options in the lookup
+     */
+    public GraphRenderingOptions getRenderingOptions() {
+        return renderingOptions;
+    }
+
+    public long getSelectionVersion() {
+        return selectionVersion;
+    }
+
+    public long getNeighboursSelectionVersion() {
+        return neighboursSelectionVersion;
+    }
+
+    public int getSelectedNodesCount() {
+        return selectedNodesCount;
+    }
+
+    public int getSelectedEdgesCount() {
+        return selectedEdgesCount;
+    }
+
+    public int getSelectedNeighboursCount() {
+        return selectedNeighboursCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public float getZoom() {
+        return zoom;
+    }
+
+    /**
+     * @return Model view projection matrix in column major order. Must not be modified
+     */
+    public float[] getModelViewProjectionFloats() {
+        return modelViewProjectionFloats;
+    }
+
+    /**
+     * @return Background color RGBA components. Must not be modified
+     */
+    public float[] getBackgroundColor() {
+        return backgroundColor;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameContext{" + "width=" + width + ", height=" + height + ", zoom=" + zoom + ", selectedNodesCount=" + selectedNodesCount + ", selectedEdgesCount=" + selectedEdgesCount + ", selectedNeighboursCount=" + selectedNeighboursCount + ", renderingOptionsVersion=" + renderingOptions.getVersion() + '}';
+    }
+}
@@ -0,0 +1,291 @@
+package org.gephi.viz.engine.status;
+
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.pipeline.common.InstanceCounter;
+import org.gephi.viz.engine.spi.Renderer;
+import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.util.TimingHistogram;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per phase frame timings of the engine, available in the engine lookup.
+ *
+ * <p>
+ * Keeps a rolling {@link TimingHistogram} for the whole frame, input events processing, each world updater
+ * {@link WorldUpdater#updateWorld}, each renderer {@link Renderer#worldUpdated} (buffers upload) and each renderer
+ * {@link Renderer#render} per {@link RenderingLayer}. Histograms are created when the pipeline is initialized, so
+ * recording does not allocate.</p>
+ *
+ * <p>
+ * Renderers can also register their {@link InstanceCounter} to expose how many instances they draw.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class FrameStats {
+
+    private static final RenderingLayer[] ALL_LAYERS = RenderingLayer.values();
+
+    //Settings:
+    private volatile boolean enabled = true;
+    private final int windowSize;
+
+    //Timings:
+    private final TimingHistogram frameTimings;
+    private final TimingHistogram inputEventsTimings;
+    private volatile Map<WorldUpdater, TimingHistogram> worldUpdateTimings = Collections.emptyMap();
+    private volatile Map<Renderer, TimingHistogram> worldUpdatedTimings = Collections.emptyMap();
+    private volatile Map<Renderer, TimingHistogram[]> renderTimings = Collections.emptyMap();
+
+    //Instance counts:
+    private final Map<Renderer, InstanceCounter[]> instanceCounters = new ConcurrentHashMap<>();
+
+    public FrameStats() {
+        this(TimingHistogram.DEFAULT_WINDOW_SIZE);
+    }
+
+    public FrameStats(int windowSize) {
+        this.windowSize = windowSize;
+        this.frameTimings = new TimingHistogram(windowSize);
+        this.inputEventsTimings = new TimingHistogram(windowSize);
+    }
+
+    /**
+     * Creates the histograms of the given pipeline elements, discarding the previous ones.
+     *
+     * @param updaters World updaters pipeline
+     * @param renderers Renderers pipeline
+     */
+    public void setup(List<? extends WorldUpdater> updaters, List<? extends Renderer> renderers) {
+        final Map<WorldUpdater, TimingHistogram> newWorldUpdateTimings = new IdentityHashMap<>();
+        for (WorldUpdater updater : updaters) {
+            newWorldUpdateTimings.put(updater, new TimingHistogram(windowSize));
+        }
+
+        final Map<Renderer, TimingHistogram> newWorldUpdatedTimings = new IdentityHashMap<>();
+        final Map<Renderer, TimingHistogram[]> newRenderTimings = new IdentityHashMap<>();
+        for (Renderer renderer : renderers) {
+            newWorldUpdatedTimings.put(renderer, new TimingHistogram(windowSize));
+
+            final TimingHistogram[] layersTimings = new TimingHistogram[ALL_LAYERS.length];
+            for (RenderingLayer layer : ALL_LAYERS) {
+                if (renderer.getLayers().contains(layer)) {
+                    layersTimings[layer.ordinal()] = new TimingHistogram(windowSize);
+                }
+            }
+            newRenderTimings.put(renderer, layersTimings);
+        }
+
+        worldUpdateTimings = Collections.unmodifiableMap(newWorldUpdateTimings);
+        worldUpdatedTimings = Collections.unmodifiableMap(newWorldUpdatedTimings);
+        renderTimings = Collections.unmodifiableMap(newRenderTimings);
+        instanceCounters.clear();
+
+        reset();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return Current time to pass later to the record methods, or 0 when disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void recordFrame(long startNanos) {
+        if (startNanos != 0) {
+            frameTimings.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public void recordInputEvents(long startNanos) {
+        if (startNanos != 0) {
+            inputEventsTimings.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public void recordWorldUpdate(WorldUpdater updater, long startNanos) {
+        if (startNanos != 0) {
+            final TimingHistogram histogram = worldUpdateTimings.get(updater);
+            if (histogram != null) {
+                histogram.record(System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    public void recordWorldUpdated(Renderer renderer, long startNanos) {
+        if (startNanos != 0) {
+            final TimingHistogram histogram = worldUpdatedTimings.get(renderer);
+            if (histogram != null) {
+                histogram.record(System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    public void recordRender(Renderer renderer, RenderingLayer layer, long startNanos) {
+        if (startNanos != 0) {
+            final TimingHistogram histogram = getRenderTimings(renderer, layer);
+            if (histogram != null) {
+                histogram.record(System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    public TimingHistogram getFrameTimings() {
+        return frameTimings;
+    }
+
+    public TimingHistogram getInputEventsTimings() {
+        return inputEventsTimings;
+    }
+
+    public Map<WorldUpdater, TimingHistogram> getWorldUpdateTimings() {
+        return worldUpdateTimings;
+    }
+
+    public TimingHistogram getWorldUpdateTimings(WorldUpdater updater) {
+        return worldUpdateTimings.get(updater);
+    }
+
+    public Map<Renderer, TimingHistogram> getWorldUpdatedTimings() {
+        return worldUpdatedTimings;
+    }
+
+    public TimingHistogram getWorldUpdatedTimings(Renderer renderer) {
+        return worldUpdatedTimings.get(renderer);
+    }
+
+    /**
+     * @param renderer Renderer
+     * @param layer Layer
+     * @return Render timings, or null if the renderer is not in the pipeline or does not render the layer
+     */
+    public TimingHistogram getRenderTimings(Renderer renderer, RenderingLayer layer) {
+        final TimingHistogram[] layersTimings = renderTimings.get(renderer);
+        return layersTimings != null ? layersTimings[layer.ordinal()] : null;
+    }
+
+    /**
+     * Registers the instance counters of a renderer, so {@link #getVisibleInstances(Renderer)} and {@link #getDrawnInstances(Renderer)} can report them.
+     *
+     * @param renderer Renderer
+     * @param counters Instance counters that the renderer draws
+     */
+    public void setInstanceCounters(Renderer renderer, InstanceCounter... counters) {
+        instanceCounters.put(renderer, counters.clone());
+    }
+
+    /**
+     * @param renderer Renderer
+     * @return Instances of the last world update of the renderer, -1 if it has no registered counters
+     */
+    public int getVisibleInstances(Renderer renderer) {
+        final InstanceCounter[] counters = instanceCounters.get(renderer);
+        if (counters == null) {
+            return -1;
+        }
+
+        int count = 0;
+        for (InstanceCounter counter : counters) {
+            count += counter.total();
+        }
+        return count;
+    }
+
+    /**
+     * @param renderer Renderer
+     * @return Instances currently drawn by the renderer, -1 if it has no registered counters
+     */
+    public int getDrawnInstances(Renderer renderer) {
+        final InstanceCounter[] counters = instanceCounters.get(renderer);
+        if (counters == null) {
+            return -1;
+        }
+
+        int count = 0;
+        for (InstanceCounter counter : counters) {
+            count += counter.totalToDraw();
+        }
+        return count;
+    }
+
+    /**
+     * @param renderer Renderer
+     * @return Instances culled from the ones currently drawn by the renderer, -1 if it has no registered counters
+     */
+    public int getCulledInstances(Renderer renderer) {
+        final InstanceCounter[] counters = instanceCounters.get(renderer);
+        if (counters == null) {
+            return -1;
+        }
+
+        int count = 0;
+        for (InstanceCounter counter : counters) {
+            count += counter.culledCountToDraw;
+        }
+        return count;
+    }
+
+    public void reset() {
+        frameTimings.reset();
+        inputEventsTimings.reset();
+        worldUpdateTimings.values().forEach(TimingHistogram::reset);
+        worldUpdatedTimings.values().forEach(TimingHistogram::reset);
+        for (TimingHistogram[] layersTimings : renderTimings.values()) {
+            for (TimingHistogram histogram : layersTimings) {
+                if (histogram != null) {
+                    histogram.reset();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("FrameStats{");
+        appendTimings(sb, "frame", frameTimings);
+        appendTimings(sb, "inputEvents", inputEventsTimings);
+        worldUpdateTimings.forEach((updater, histogram) -> appendTimings(sb, "updateWorld[" + updater.getName() + "]", histogram));
+        worldUpdatedTimings.forEach((renderer, histogram) -> appendTimings(sb, "worldUpdated[" + renderer.getName() + "]", histogram));
+        renderTimings.forEach((renderer, layersTimings) -> {
+            for (RenderingLayer layer : ALL_LAYERS) {
+                if (layersTimings[layer.ordinal()] != null) {
+                    appendTimings(sb, "render[" + renderer.getName() + ", " + layer + "]", layersTimings[layer.ordinal()]);
+                }
+            }
+
+            if (instanceCounters.containsKey(renderer)) {
+                sb.append("\n  instances[").append(renderer.getName()).append("]: visible=").append(getVisibleInstances(renderer))
+                    .append(", drawn=").append(getDrawnInstances(renderer))
+                    .append(", culled=").append(getCulledInstances(renderer));
+            }
+        });
+        sb.append("\n}");
+        return sb.toString();
+    }
+
+    private static void appendTimings(StringBuilder sb, String name, TimingHistogram histogram) {
+        sb.append("\n  ").append(name).append(": ")
+            .append("p50=").append(formatMillis(histogram.getP50()))
+            .append(", p95=").append(formatMillis(histogram.getP95()))
+            .append(", p99=").append(formatMillis(histogram.getP99()))
+            .append(", max=").append(formatMillis(histogram.getMax()))
+            .append(" ms");
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+}
@@ -16,6 +16,7 @@ public interface GraphRenderingOptions {
 
     //Edges:
     float DEFAULT_EDGE_SCALE = 2f;
+    float DEFAULT_EDGE_CULLING_PIXELS = 0.5f;
     boolean DEFAULT_ENABLE_EDGE_SELECTION_COLOR = false;
     Color DEFAULT_EDGE_IN_SELECTION_COLOR = new Color(32, 95, 154, 255);
     Color DEFAULT_EDGE_OUT_SELECTION_COLOR = new Color(196, 66, 79, 255);
@@ -31,6 +32,15 @@ public interface GraphRenderingOptions {
 
     void setEdgeScale(float edgeScale);
 
+    /**
+     * Edges whose length and thickness on screen are both below this size in pixels are not drawn.
+     *
+     * @return Size in pixels, 0 when edges are never culled
+     */
+    float getEdgeCullingPixels();
+
+    void setEdgeCullingPixels(float edgeCullingPixels);
+
     boolean isShowNodes();
 
     void setShowNodes(boolean showNodes);
@@ -78,4 +88,11 @@ public interface GraphRenderingOptions {
     Color getEdgeInSelectionColor();
 
     void setEdgeInSelectionColor(Color color);
+
+    /**
+     * Incremented each time any option is changed.
+     *
+     * @return Current version
+     */
+    long getVersion();
 }
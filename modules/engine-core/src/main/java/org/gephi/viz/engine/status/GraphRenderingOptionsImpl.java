@@ -13,6 +13,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
 
     //Edges
     private float edgeScale = DEFAULT_EDGE_SCALE;
+    private float edgeCullingPixels = DEFAULT_EDGE_CULLING_PIXELS;
     private boolean edgeSelectionColor = DEFAULT_ENABLE_EDGE_SELECTION_COLOR;
     private Color edgeBothSelectionColor = DEFAULT_EDGE_BOTH_SELECTION_COLOR;
     private Color edgeInSelectionColor = DEFAULT_EDGE_IN_SELECTION_COLOR;
@@ -24,6 +25,8 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     private boolean lightenNonSelected = DEFAULT_LIGHTEN_NON_SELECTED;
     private float lightenNonSelectedFactor = DEFAULT_LIGHTEN_NON_SELECTED_FACTOR;
 
+    private volatile long version = 0;
+
     @Override
     public float getEdgeScale() {
         return edgeScale;
@@ -36,6 +39,22 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
         }
 
         this.edgeScale = edgeScale;
+        version++;
+    }
+
+    @Override
+    public float getEdgeCullingPixels() {
+        return edgeCullingPixels;
+    }
+
+    @Override
+    public void setEdgeCullingPixels(float edgeCullingPixels) {
+        if (edgeCullingPixels < 0) {
+            throw new IllegalArgumentException("edgeCullingPixels should be >= 0");
+        }
+
+        this.edgeCullingPixels = edgeCullingPixels;
+        version++;
     }
 
     @Override
@@ -46,6 +65,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setShowNodes(boolean showNodes) {
         this.showNodes = showNodes;
+        version++;
     }
 
     @Override
@@ -56,6 +76,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setShowEdges(boolean showEdges) {
         this.showEdges = showEdges;
+        version++;
     }
 
     @Override
@@ -66,6 +87,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setShowNodeLabels(boolean showNodeLabels) {
         this.showNodeLabels = showNodeLabels;
+        version++;
     }
 
     @Override
@@ -76,6 +98,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setShowEdgeLabels(boolean showEdgeLabels) {
         this.showEdgeLabels = showEdgeLabels;
+        version++;
     }
 
     @Override
@@ -86,6 +109,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setHideNonSelected(boolean hideNonSelected) {
         this.hideNonSelected = hideNonSelected;
+        version++;
     }
 
     @Override
@@ -96,6 +120,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setLightenNonSelected(boolean lightenNonSelected) {
         this.lightenNonSelected = lightenNonSelected;
+        version++;
     }
 
     @Override
@@ -114,6 +139,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
         }
 
         this.lightenNonSelectedFactor = lightenNonSelectedFactor;
+        version++;
     }
 
     @Override
@@ -124,6 +150,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setAutoSelectNeighbours(boolean autoSelectNeighbours) {
         this.autoSelectNeighbours = autoSelectNeighbours;
+        version++;
     }
 
     @Override
@@ -134,6 +161,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     @Override
     public void setEdgeSelectionColor(boolean edgeSelectionColor) {
         this.edgeSelectionColor = edgeSelectionColor;
+        version++;
     }
 
     @Override
@@ -145,6 +173,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     public void setEdgeBothSelectionColor(Color color) {
         Objects.requireNonNull(color, "color");
         this.edgeBothSelectionColor = color;
+        version++;
     }
 
     @Override
@@ -156,6 +185,7 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     public void setEdgeOutSelectionColor(Color color) {
         Objects.requireNonNull(color, "color");
         this.edgeOutSelectionColor = color;
+        version++;
     }
 
     @Override
@@ -167,6 +197,11 @@ public class GraphRenderingOptionsImpl implements GraphRenderingOptions {
     public void setEdgeInSelectionColor(Color color) {
         Objects.requireNonNull(color, "color");
         this.edgeInSelectionColor = color;
+        version++;
     }
 
+    @Override
+    public long getVersion() {
+        return version;
+    }
 }
@@ -0,0 +1,205 @@
+package org.gephi.viz.engine.status;
+
+import java.awt.*;
+
+/**
+ * Read-only copy of some rendering options at a given version, see {@link FrameContext}. Setters throw
+ * {@link UnsupportedOperationException}.
+ *
+ * @author Eduardo Ramos
+ */
+public final class GraphRenderingOptionsSnapshot implements GraphRenderingOptions {
+
+    //Show:
+    private final boolean showNodes;
+    private final boolean showEdges;
+    private final boolean showNodeLabels;
+    private final boolean showEdgeLabels;
+
+    //Edges
+    private final float edgeScale;
+    private final float edgeCullingPixels;
+    private final boolean edgeSelectionColor;
+    private final Color edgeBothSelectionColor;
+    private final Color edgeInSelectionColor;
+    private final Color edgeOutSelectionColor;
+
+    //Selection:
+    private final boolean autoSelectNeighbours;
+    private final boolean hideNonSelected;
+    private final boolean lightenNonSelected;
+    private final float lightenNonSelectedFactor;
+
+    private final long version;
+
+    public GraphRenderingOptionsSnapshot(final GraphRenderingOptions options) {
+        //Version first: if an option changes while copying, the next snapshot will have a newer version
+        this.version = options.getVersion();
+
+        this.showNodes = options.isShowNodes();
+        this.showEdges = options.isShowEdges();
+        this.showNodeLabels = options.isShowNodeLabels();
+        this.showEdgeLabels = options.isShowEdgeLabels();
+
+        this.edgeScale = options.getEdgeScale();
+        this.edgeCullingPixels = options.getEdgeCullingPixels();
+        this.edgeSelectionColor = options.isEdgeSelectionColor();
+        this.edgeBothSelectionColor = options.getEdgeBothSelectionColor();
+        this.edgeInSelectionColor = options.getEdgeInSelectionColor();
+        this.edgeOutSelectionColor = options.getEdgeOutSelectionColor();
+
+        this.autoSelectNeighbours = options.isAutoSelectNeighbours();
+        this.hideNonSelected = options.isHideNonSelected();
+        this.lightenNonSelected = options.isLightenNonSelected();
+        this.lightenNonSelectedFactor = options.getLightenNonSelectedFactor();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Rendering options snapshots are read-only");
+    }
+
+    @Override
+    public float getEdgeScale() {
+        return edgeScale;
+    }
+
+    @Override
+    public void setEdgeScale(float edgeScale) {
+        throw readOnly();
+    }
+
+    @Override
+    public float getEdgeCullingPixels() {
+        return edgeCullingPixels;
+    }
+
+    @Override
+    public void setEdgeCullingPixels(float edgeCullingPixels) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isShowNodes() {
+        return showNodes;
+    }
+
+    @Override
+    public void setShowNodes(boolean showNodes) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isShowEdges() {
+        return showEdges;
+    }
+
+    @Override
+    public void setShowEdges(boolean showEdges) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isShowNodeLabels() {
+        return showNodeLabels;
+    }
+
+    @Override
+    public void setShowNodeLabels(boolean showNodeLabels) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isShowEdgeLabels() {
+        return showEdgeLabels;
+    }
+
+    @Override
+    public void setShowEdgeLabels(boolean showEdgeLabels) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isHideNonSelected() {
+        return hideNonSelected;
+    }
+
+    @Override
+    public void setHideNonSelected(boolean hideNonSelected) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isLightenNonSelected() {
+        return lightenNonSelected;
+    }
+
+    @Override
+    public void setLightenNonSelected(boolean lightenNonSelected) {
+        throw readOnly();
+    }
+
+    @Override
+    public float getLightenNonSelectedFactor() {
+        return lightenNonSelectedFactor;
+    }
+
+    @Override
+    public void setLightenNonSelectedFactor(float lightenNonSelectedFactor) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isAutoSelectNeighbours() {
+        return autoSelectNeighbours;
+    }
+
+    @Override
+    public void setAutoSelectNeighbours(boolean autoSelectNeighbours) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isEdgeSelectionColor() {
+        return edgeSelectionColor;
+    }
+
+    @Override
+    public void setEdgeSelectionColor(boolean edgeSelectionColor) {
+        throw readOnly();
+    }
+
+    @Override
+    public Color getEdgeBothSelectionColor() {
+        return edgeBothSelectionColor;
+    }
+
+    @Override
+    public void setEdgeBothSelectionColor(Color color) {
+        throw readOnly();
+    }
+
+    @Override
+    public Color getEdgeOutSelectionColor() {
+        return edgeOutSelectionColor;
+    }
+
+    @Override
+    public void setEdgeOutSelectionColor(Color color) {
+        throw readOnly();
+    }
+
+    @Override
+    public Color getEdgeInSelectionColor() {
+        return edgeInSelectionColor;
+    }
+
+    @Override
+    public void setEdgeInSelectionColor(Color color) {
+        throw readOnly();
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+}
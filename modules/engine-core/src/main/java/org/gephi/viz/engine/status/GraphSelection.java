@@ -31,6 +31,24 @@ public interface GraphSelection {
 
     void clearSelectedNodes();
 
+    /**
+     * Replaces the selected nodes, without the boxing and hashing of a collection.
+     *
+     * @param nodes Nodes
+     */
+    void setSelectedNodes(Node[] nodes);
+
+    void addSelectedNodes(Node[] nodes);
+
+    void removeSelectedNodes(int[] nodeStoreIds);
+
+    /**
+     * Keeps selected only the nodes that are both selected and in the given graphstore store ids.
+     *
+     * @param nodeStoreIds Node store ids
+     */
+    void retainSelectedNodes(int[] nodeStoreIds);
+
     boolean isEdgeSelected(Edge edge);
 
     int getSelectedEdgesCount();
@@ -51,6 +69,31 @@ public interface GraphSelection {
 
     void clearSelectedEdges();
 
+    /**
+     * Replaces the selected edges, without the boxing and hashing of a collection.
+     *
+     * @param edges Edges
+     */
+    void setSelectedEdges(Edge[] edges);
+
+    void addSelectedEdges(Edge[] edges);
+
+    void removeSelectedEdges(int[] edgeStoreIds);
+
+    /**
+     * Keeps selected only the edges that are both selected and in the given graphstore store ids.
+     *
+     * @param edgeStoreIds Edge store ids
+     */
+    void retainSelectedEdges(int[] edgeStoreIds);
+
     void clearSelection();
 
+    /**
+     * Incremented each time the selection changes. Allows consumers to skip work when nothing changed.
+     *
+     * @return Current version
+     */
+    long getVersion();
+
 }
@@ -3,17 +3,23 @@ package org.gephi.viz.engine.status;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Node;
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.ElementsBitSet;
 
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Selection backed by bitsets indexed by graphstore store id.
+ * Selected elements sets are read-only live views of the bitsets, in store id order.
+ *
+ * @author Eduardo Ramos
+ */
 public class GraphSelectionImpl implements GraphSelection {
 
     private final VizEngine engine;
-    private final Set<Node> nodes = new HashSet<>();
-    private final Set<Edge> edges = new HashSet<>();
+    private final ElementsBitSet<Node> nodes = new ElementsBitSet<>(Node::getStoreId);
+    private final ElementsBitSet<Edge> edges = new ElementsBitSet<>(Edge::getStoreId);
+    private volatile long version = 0;
 
     public GraphSelectionImpl(VizEngine engine) {
         this.engine = engine;
@@ -31,28 +37,36 @@ public class GraphSelectionImpl implements GraphSelection {
 
     @Override
     public Set<Node> getSelectedNodes() {
-        return Collections.unmodifiableSet(nodes);
+        return nodes.asSet();
     }
 
     @Override
     public void setSelectedNodes(Collection<Node> nodes) {
-        this.nodes.clear();
-        if (nodes != null) {
-            this.nodes.addAll(nodes);
+        if (nodes == null || nodes.isEmpty()) {
+            clearSelectedNodes();
+            return;
+        }
+
+        if (this.nodes.containsExactly(nodes)) {
+            return;
         }
+
+        this.nodes.clear();
+        this.nodes.addAll(nodes);
+        version++;
     }
 
     @Override
     public void addSelectedNodes(Collection<Node> nodes) {
-        if (nodes != null) {
-            this.nodes.addAll(nodes);
+        if (nodes != null && this.nodes.addAll(nodes)) {
+            version++;
         }
     }
 
     @Override
     public void removeSelectedNodes(Collection<Node> nodes) {
-        if (nodes != null) {
-            this.nodes.removeAll(nodes);
+        if (nodes != null && this.nodes.removeAll(nodes)) {
+            version++;
         }
     }
 
@@ -61,28 +75,74 @@ public class GraphSelectionImpl implements GraphSelection {
         if (node == null) {
             this.clearSelectedNodes();
         } else {
+            if (this.nodes.size() == 1 && this.nodes.contains(node)) {
+                return;
+            }
+
             this.nodes.clear();
             this.nodes.add(node);
+            version++;
         }
     }
 
     @Override
     public void addSelectedNode(Node node) {
-        if (node != null) {
-            this.nodes.add(node);
+        if (node != null && this.nodes.add(node)) {
+            version++;
         }
     }
 
     @Override
     public void removeSelectedNode(Node node) {
-        if (node != null) {
-            this.nodes.remove(node);
+        if (node != null && this.nodes.remove(node)) {
+            version++;
         }
     }
 
     @Override
     public void clearSelectedNodes() {
+        if (this.nodes.clear()) {
+            version++;
+        }
+    }
+
+    @Override
+    public void setSelectedNodes(Node[] nodes) {
+        if (nodes == null || nodes.length == 0) {
+            clearSelectedNodes();
+            return;
+        }
+
+        if (this.nodes.containsExactly(nodes)) {
+            return;
+        }
+
         this.nodes.clear();
+        this.nodes.addAll(nodes);
+        version++;
+    }
+
+    @Override
+    public void addSelectedNodes(Node[] nodes) {
+        if (nodes != null && this.nodes.addAll(nodes)) {
+            version++;
+        }
+    }
+
+    @Override
+    public void removeSelectedNodes(int[] nodeStoreIds) {
+        if (nodeStoreIds != null && this.nodes.removeAll(nodeStoreIds)) {
+            version++;
+        }
+    }
+
+    @Override
+    public void retainSelectedNodes(int[] nodeStoreIds) {
+        if (nodeStoreIds == null) {
+            clearSelectedNodes();
+        } else if (this.nodes.retainAll(nodeStoreIds)) {
+            version++;
+        }
     }
 
     @Override
@@ -97,28 +157,36 @@ public class GraphSelectionImpl implements GraphSelection {
 
     @Override
     public Set<Edge> getSelectedEdges() {
-        return Collections.unmodifiableSet(edges);
+        return edges.asSet();
     }
 
     @Override
     public void setSelectedEdges(Collection<Edge> edges) {
-        this.edges.clear();
-        if (edges != null) {
-            this.edges.addAll(edges);
+        if (edges == null || edges.isEmpty()) {
+            clearSelectedEdges();
+            return;
         }
+
+        if (this.edges.containsExactly(edges)) {
+            return;
+        }
+
+        this.edges.clear();
+        this.edges.addAll(edges);
+        version++;
     }
 
     @Override
     public void addSelectedEdges(Collection<Edge> edges) {
-        if (edges != null) {
-            this.edges.addAll(edges);
+        if (edges != null && this.edges.addAll(edges)) {
+            version++;
         }
     }
 
     @Override
     public void removeSelectedEdges(Collection<Edge> edges) {
-        if (edges != null) {
-            this.edges.removeAll(edges);
+        if (edges != null && this.edges.removeAll(edges)) {
+            version++;
         }
     }
 
@@ -127,28 +195,74 @@ public class GraphSelectionImpl implements GraphSelection {
         if (edge == null) {
             this.clearSelectedEdges();
         } else {
+            if (this.edges.size() == 1 && this.edges.contains(edge)) {
+                return;
+            }
+
             this.edges.clear();
             this.edges.add(edge);
+            version++;
         }
     }
 
     @Override
     public void addSelectedEdge(Edge edge) {
-        if (edge != null) {
-            this.edges.add(edge);
+        if (edge != null && this.edges.add(edge)) {
+            version++;
         }
     }
 
     @Override
     public void removeSelectedEdge(Edge edge) {
-        if (edge != null) {
-            this.edges.remove(edge);
+        if (edge != null && this.edges.remove(edge)) {
+            version++;
         }
     }
 
     @Override
     public void clearSelectedEdges() {
+        if (this.edges.clear()) {
+            version++;
+        }
+    }
+
+    @Override
+    public void setSelectedEdges(Edge[] edges) {
+        if (edges == null || edges.length == 0) {
+            clearSelectedEdges();
+            return;
+        }
+
+        if (this.edges.containsExactly(edges)) {
+            return;
+        }
+
         this.edges.clear();
+        this.edges.addAll(edges);
+        version++;
+    }
+
+    @Override
+    public void addSelectedEdges(Edge[] edges) {
+        if (edges != null && this.edges.addAll(edges)) {
+            version++;
+        }
+    }
+
+    @Override
+    public void removeSelectedEdges(int[] edgeStoreIds) {
+        if (edgeStoreIds != null && this.edges.removeAll(edgeStoreIds)) {
+            version++;
+        }
+    }
+
+    @Override
+    public void retainSelectedEdges(int[] edgeStoreIds) {
+        if (edgeStoreIds == null) {
+            clearSelectedEdges();
+        } else if (this.edges.retainAll(edgeStoreIds)) {
+            version++;
+        }
     }
 
     @Override
@@ -156,4 +270,9 @@ public class GraphSelectionImpl implements GraphSelection {
         clearSelectedEdges();
         clearSelectedNodes();
     }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
 }
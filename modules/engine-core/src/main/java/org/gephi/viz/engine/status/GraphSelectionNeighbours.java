@@ -30,4 +30,24 @@ public interface GraphSelectionNeighbours {
     void removeSelectedNode(Node node);
 
     void clearSelectedNodes();
+
+    /**
+     * Replaces the selected neighbours, without the boxing and hashing of a collection.
+     *
+     * @param nodes Nodes
+     */
+    void setSelectedNodes(Node[] nodes);
+
+    void addSelectedNodes(Node[] nodes);
+
+    void removeSelectedNodes(int[] nodeStoreIds);
+
+    void retainSelectedNodes(int[] nodeStoreIds);
+
+    /**
+     * Incremented each time the set of selected neighbours changes.
+     *
+     * @return Current version
+     */
+    long getVersion();
 }
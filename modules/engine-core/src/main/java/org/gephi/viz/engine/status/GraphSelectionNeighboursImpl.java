@@ -2,16 +2,16 @@ package org.gephi.viz.engine.status;
 
 import org.gephi.graph.api.Node;
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.ElementsBitSet;
 
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
 
 public class GraphSelectionNeighboursImpl implements GraphSelectionNeighbours {
 
     private final VizEngine engine;
-    private final Set<Node> nodes = new HashSet<>();
+    private final ElementsBitSet<Node> nodes = new ElementsBitSet<>(Node::getStoreId);
+    private volatile long version = 0;
 
     public GraphSelectionNeighboursImpl(VizEngine engine) {
         this.engine = engine;
@@ -29,28 +29,36 @@ public class GraphSelectionNeighboursImpl implements GraphSelectionNeighbours {
 
     @Override
     public Set<Node> getSelectedNodes() {
-        return Collections.unmodifiableSet(nodes);
+        return nodes.asSet();
     }
 
     @Override
     public void setSelectedNodes(Collection<Node> nodes) {
-        this.nodes.clear();
-        if (nodes != null) {
-            this.nodes.addAll(nodes);
+        if (nodes == null || nodes.isEmpty()) {
+            clearSelectedNodes();
+            return;
+        }
+
+        if (this.nodes.containsExactly(nodes)) {
+            return;
         }
+
+        this.nodes.clear();
+        this.nodes.addAll(nodes);
+        version++;
     }
 
     @Override
     public void addSelectedNodes(Collection<Node> nodes) {
-        if (nodes != null) {
-            this.nodes.addAll(nodes);
+        if (nodes != null && this.nodes.addAll(nodes)) {
+            version++;
         }
     }
 
     @Override
     public void removeSelectedNodes(Collection<Node> nodes) {
-        if (nodes != null) {
-            this.nodes.removeAll(nodes);
+        if (nodes != null && this.nodes.removeAll(nodes)) {
+            version++;
         }
     }
 
@@ -59,28 +67,78 @@ public class GraphSelectionNeighboursImpl implements GraphSelectionNeighbours {
         if (node == null) {
             this.clearSelectedNodes();
         } else {
+            if (this.nodes.size() == 1 && this.nodes.contains(node)) {
+                return;
+            }
+
             this.nodes.clear();
             this.nodes.add(node);
+            version++;
         }
     }
 
     @Override
     public void addSelectedNode(Node node) {
-        if (node != null) {
-            this.nodes.add(node);
+        if (node != null && this.nodes.add(node)) {
+            version++;
         }
     }
 
     @Override
     public void removeSelectedNode(Node node) {
-        if (node != null) {
-            this.nodes.remove(node);
+        if (node != null && this.nodes.remove(node)) {
+            version++;
         }
     }
 
     @Override
     public void clearSelectedNodes() {
+        if (this.nodes.clear()) {
+            version++;
+        }
+    }
+
+    @Override
+    public void setSelectedNodes(Node[] nodes) {
+        if (nodes == null || nodes.length == 0) {
+            clearSelectedNodes();
+            return;
+        }
+
+        if (this.nodes.containsExactly(nodes)) {
+            return;
+        }
+
         this.nodes.clear();
+        this.nodes.addAll(nodes);
+        version++;
     }
 
+    @Override
+    public void addSelectedNodes(Node[] nodes) {
+        if (nodes != null && this.nodes.addAll(nodes)) {
+            version++;
+        }
+    }
+
+    @Override
+    public void removeSelectedNodes(int[] nodeStoreIds) {
+        if (nodeStoreIds != null && this.nodes.removeAll(nodeStoreIds)) {
+            version++;
+        }
+    }
+
+    @Override
+    public void retainSelectedNodes(int[] nodeStoreIds) {
+        if (nodeStoreIds == null) {
+            clearSelectedNodes();
+        } else if (this.nodes.retainAll(nodeStoreIds)) {
+            version++;
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
 }
@@ -0,0 +1,281 @@
+package org.gephi.viz.engine.status;
+
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphObserver;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.TableObserver;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.TimeUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps track of the versions of everything the world updaters depend on (graph structure and tables, culling
+ * boundaries, selection and rendering options) so the engine can skip world updates when nothing changed.
+ *
+ * <p>
+ * Graphstore does not version node and edge positions, sizes or colors. While disabled (the default), they are polled:
+ * a full world update runs at least every {@link #getUnversionedPollMillis()}, that is 0 by default so every world
+ * update runs, like without tracking. A bigger poll interval also skips world updates until a tracked version changes,
+ * like the camera leaving the culling guard band, at the cost of picking up unversioned changes later. When enabled,
+ * there is no polling and any code that changes them has to call {@link #requestUpdate()}, or
+ * {@link #requestPositionsUpdate()} when only positions changed (a running layout, for example).</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class WorldUpdateTracker {
+
+    private final VizEngine engine;
+
+    public static final long DEFAULT_UNVERSIONED_POLL_MILLIS = 0;
+
+    //Settings:
+    private volatile boolean enabled = false;
+    private volatile long unversionedPollMillis = DEFAULT_UNVERSIONED_POLL_MILLIS;
+
+    //Graph observers:
+    private GraphView observedView;
+    private GraphObserver graphObserver;
+    private TableObserver nodeTableObserver;
+    private TableObserver edgeTableObserver;
+
+    //Last seen versions:
+    private long cullingVersion = -1;
+    private long selectionVersion = -1;
+    private long neighboursSelectionVersion = -1;
+    private long renderingOptionsVersion = -1;
+
+    //Set by any thread, consumed atomically so a request arriving while checking is not lost:
+    private final AtomicBoolean updateRequested = new AtomicBoolean(true);
+    private final AtomicBoolean positionsUpdateRequested = new AtomicBoolean(false);
+    private volatile boolean selectionOnlyUpdate = false;
+    private volatile boolean positionsOnlyUpdate = false;
+    private volatile long elementsVersion = 0;
+    private long lastFullUpdateMillis = 0;
+
+    //Stats:
+    private volatile long performedUpdates = 0;
+    private volatile long skippedUpdates = 0;
+
+    public WorldUpdateTracker(VizEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Checks every tracked version, remembering the new ones, and counts the update as performed or skipped.
+     * Selection and rendering options versions are the ones of the given context, the same the world updaters get.
+     *
+     * @param context Context of the frame starting the world update
+     * @return True if the world updaters should run
+     */
+    public boolean checkWorldChanged(final FrameContext context) {
+        final long now = TimeUtils.getTimeMillis();
+        //Unversioned properties may have changed since the last full update:
+        final boolean pollDue = !enabled && now - lastFullUpdateMillis >= unversionedPollMillis;
+
+        final boolean requested = updateRequested.getAndSet(false) || pollDue;
+        final boolean positionsRequested = positionsUpdateRequested.getAndSet(false);
+
+        //Don't short-circuit, every check has to remember its new versions:
+        final boolean graphChanged = checkGraphChanged();
+        final boolean cullingChanged = checkCullingChanged();
+        final boolean selectionChanged = checkSelectionChanged(context);
+        final boolean renderingOptionsChanged = checkRenderingOptionsChanged(context);
+
+        final boolean changed = requested || positionsRequested || graphChanged || cullingChanged || selectionChanged || renderingOptionsChanged;
+        selectionOnlyUpdate = selectionChanged && !(requested || positionsRequested || graphChanged || cullingChanged || renderingOptionsChanged);
+        //Culling and selection changes don't touch sizes or colors:
+        positionsOnlyUpdate = positionsRequested && !(requested || graphChanged || renderingOptionsChanged);
+
+        if (requested || positionsRequested || graphChanged) {
+            elementsVersion++;
+        }
+
+        if (changed && !selectionOnlyUpdate && !positionsOnlyUpdate) {
+            lastFullUpdateMillis = now;
+        }
+
+        if (changed) {
+            performedUpdates++;
+        } else {
+            skippedUpdates++;
+        }
+
+        return changed;
+    }
+
+    private boolean checkGraphChanged() {
+        final GraphModel graphModel = engine.getGraphModel();
+        final GraphView visibleView = graphModel.getVisibleView();
+
+        if (graphObserver == null || visibleView != observedView) {
+            destroyObservers();
+
+            observedView = visibleView;
+            graphObserver = graphModel.createGraphObserver(graphModel.getGraph(visibleView), false);
+            nodeTableObserver = graphModel.getNodeTable().createTableObserver(false);
+            edgeTableObserver = graphModel.getEdgeTable().createTableObserver(false);
+            return true;
+        }
+
+        //Don't short-circuit, every observer has to consume its changes:
+        final boolean graphChanged = graphObserver.hasGraphChanged();
+        final boolean nodeTableChanged = nodeTableObserver.hasTableChanged();
+        final boolean edgeTableChanged = edgeTableObserver.hasTableChanged();
+
+        return graphChanged || nodeTableChanged || edgeTableChanged;
+    }
+
+    private boolean checkCullingChanged() {
+        //Camera moves inside the guard band don't need new world data:
+        final long version = engine.getCullingVersion();
+        if (version != cullingVersion) {
+            cullingVersion = version;
+            return true;
+        }
+
+        return false;
+    }
+
+    private boolean checkSelectionChanged(final FrameContext context) {
+        boolean changed = false;
+
+        final long newSelectionVersion = context.getSelectionVersion();
+        if (newSelectionVersion != selectionVersion) {
+            selectionVersion = newSelectionVersion;
+            changed = true;
+        }
+
+        final long newNeighboursSelectionVersion = context.getNeighboursSelectionVersion();
+        if (newNeighboursSelectionVersion != neighboursSelectionVersion) {
+            neighboursSelectionVersion = newNeighboursSelectionVersion;
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    private boolean checkRenderingOptionsChanged(final FrameContext context) {
+        final long version = context.getRenderingOptions().getVersion();
+        if (version != renderingOptionsVersion) {
+            renderingOptionsVersion = version;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Forces the next world update to run even if no tracked version changed.
+     */
+    public void requestUpdate() {
+        updateRequested.set(true);
+    }
+
+    /**
+     * Forces the next world update to run, telling world updaters that only node positions changed since the last one,
+     * so they can keep the sizes and colors they already have. Graph, rendering options changes or {@link #requestUpdate()}
+     * in the same update make it a full one, and so does polling while disabled.
+     */
+    public void requestPositionsUpdate() {
+        positionsUpdateRequested.set(true);
+    }
+
+    /**
+     * While disabled, unversioned changes not seen yet are picked up by the next poll.
+     *
+     * @return True if the last world update that ran was only caused by a selection change, so world updaters can
+     * keep the elements data of the previous update and only refresh their selection state (hovering, for example)
+     */
+    public boolean isSelectionOnlyUpdate() {
+        return selectionOnlyUpdate;
+    }
+
+    /**
+     * See {@link #isSelectionOnlyUpdate()}.
+     *
+     * @return True if the last world update that ran was only caused by {@link #requestPositionsUpdate()}, and maybe
+     * culling or selection changes, so world updaters can keep the node sizes and colors of the previous update and only
+     * write positions again
+     */
+    public boolean isPositionsOnlyUpdate() {
+        return positionsOnlyUpdate;
+    }
+
+    /**
+     * While disabled, only as accurate as the polling, see {@link #getUnversionedPollMillis()}.
+     *
+     * @return Version incremented by every world update that may have changed the graph, or node positions, sizes or
+     * colors, to cache values computed from them
+     */
+    public long getElementsVersion() {
+        return elementsVersion;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        requestUpdate();
+    }
+
+    public long getUnversionedPollMillis() {
+        return unversionedPollMillis;
+    }
+
+    /**
+     * Sets how often a full world update runs while disabled, to pick up position, size and color changes. 0 runs a
+     * full world update every time.
+     *
+     * @param unversionedPollMillis Milliseconds, &gt;= 0
+     */
+    public void setUnversionedPollMillis(long unversionedPollMillis) {
+        if (unversionedPollMillis < 0) {
+            throw new IllegalArgumentException("unversionedPollMillis should be >= 0");
+        }
+        this.unversionedPollMillis = unversionedPollMillis;
+    }
+
+    public long getPerformedUpdates() {
+        return performedUpdates;
+    }
+
+    public long getSkippedUpdates() {
+        return skippedUpdates;
+    }
+
+    public void resetStats() {
+        performedUpdates = 0;
+        skippedUpdates = 0;
+    }
+
+    private void destroyObservers() {
+        if (graphObserver != null && !graphObserver.isDestroyed()) {
+            graphObserver.destroy();
+        }
+
+        if (nodeTableObserver != null && !nodeTableObserver.isDestroyed()) {
+            nodeTableObserver.destroy();
+        }
+
+        if (edgeTableObserver != null && !edgeTableObserver.isDestroyed()) {
+            edgeTableObserver.destroy();
+        }
+
+        graphObserver = null;
+        nodeTableObserver = null;
+        edgeTableObserver = null;
+        observedView = null;
+    }
+
+    public void destroy() {
+        destroyObservers();
+    }
+
+    @Override
+    public String toString() {
+        return "WorldUpdateTracker{" + "enabled=" + enabled + ", performedUpdates=" + performedUpdates + ", skippedUpdates=" + skippedUpdates + '}';
+    }
+}
@@ -3,6 +3,7 @@ package org.gephi.viz.engine.structure;
 import org.gephi.graph.api.*;
 import org.gephi.graph.impl.GraphStoreConfiguration;
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.status.WorldUpdateTracker;
 import org.gephi.viz.engine.util.EdgeIterableFilteredWrapper;
 import org.gephi.viz.engine.util.NodeIterableFilteredWrapper;
 import org.joml.Intersectionf;
@@ -27,8 +28,21 @@ public class GraphIndexImpl implements GraphIndex {
     //Graph
     private GraphModel graphModel;
     private Graph graph;
-    private float edgesMinWeight = 1;
-    private float edgesMaxWeight = 1;
+    private volatile float edgesMinWeight = 1;
+    private volatile float edgesMaxWeight = 1;
+
+    //Aggregates cache:
+    private final Object edgesWeightLock = new Object();
+    private boolean edgesWeightValid = false;
+    private long edgesWeightVersion = -1;
+
+    private final Object boundariesLock = new Object();
+    private Rect2D cachedBoundaries;
+    private long cachedBoundariesVersion = -1;
+
+    //Visible elements of the current world update:
+    private final Object visibilitySnapshotLock = new Object();
+    private VisibilitySnapshot visibilitySnapshot;
 
     private void init() {
         graphModel = engine.getGraphModel();
@@ -51,45 +65,63 @@ public class GraphIndexImpl implements GraphIndex {
         //NOOP
     }
 
+    /**
+     * Updates the edges weight range. Same as {@link #getGraphBoundaries()}, it is computed again on each call unless the
+     * world update tracker is enabled, since edge weights are only versioned by it (see
+     * {@link WorldUpdateTracker#getElementsVersion()}).
+     */
     public void indexEdges() {
         ensureInitialized();
 
-        if (graph.getEdgeCount() > 0) {
-            final Column weightColumn = graph.getModel().getEdgeTable().getColumn(GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
+        final WorldUpdateTracker worldUpdateTracker = engine.getWorldUpdateTracker();
+        final boolean cacheable = worldUpdateTracker.isEnabled();
+        final long version = worldUpdateTracker.getElementsVersion();
 
-            if (weightColumn.isIndexed() && AttributeUtils.isSimpleType(weightColumn.getTypeClass())) {
-                graph.readLock();
-                try {
+        synchronized (edgesWeightLock) {
+            if (cacheable && edgesWeightValid && edgesWeightVersion == version) {
+                return;
+            }
+
+            graph.readLock();
+            try {
+                edgesWeightVersion = version;
+
+                if (graph.getEdgeCount() == 0) {
+                    edgesMinWeight = edgesMaxWeight = 1;
+                    edgesWeightValid = false;
+                    return;
+                }
+
+                final GraphView graphView = graph.getView();
+                final Column weightColumn = graph.getModel().getEdgeTable().getColumn(GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
+                if (graphView.isMainView() && weightColumn.isIndexed() && AttributeUtils.isSimpleType(weightColumn.getTypeClass())) {
                     edgesMinWeight = graph.getModel().getEdgeIndex().getMinValue(weightColumn).floatValue();
                     edgesMaxWeight = graph.getModel().getEdgeIndex().getMaxValue(weightColumn).floatValue();
-                } finally {
-                    graph.readUnlockAll();
-                }
-            } else {
-                graph.readLock();
-                try {
-                    final GraphView graphView = graph.getView();
-                    final boolean isView = !graphView.isMainView();
-
-                    if (!isView) {
-                        float minWeight = Float.MAX_VALUE;
-                        float maxWeight = Float.MIN_VALUE;
-
-                        for (Edge edge : graph.getEdges()) {
-                            float weight = (float) edge.getWeight(graphView);
-                            minWeight = weight <= minWeight ? weight : minWeight;
-                            maxWeight = weight >= maxWeight ? weight : maxWeight;
-                        }
-
-                        edgesMinWeight = minWeight;
-                        edgesMaxWeight = maxWeight;
-                    }
-                } finally {
-                    graph.readUnlockAll();
+                    edgesWeightValid = true;
+                    return;
                 }
+
+                final Edge[] edges = graph.getEdges().toArray();
+                final float[] range = GraphStatistics.edgesWeightRange(edges, edges.length, graphView);
+                edgesMinWeight = range[0];
+                edgesMaxWeight = range[1];
+                edgesWeightValid = true;
+            } finally {
+                graph.readUnlockAll();
             }
-        } else {
-            edgesMinWeight = edgesMaxWeight = 1;
+        }
+    }
+
+    /**
+     * Forgets the cached aggregates, for example after changing edge weights or node positions without requesting a
+     * world update, so they are computed again when next needed.
+     */
+    public void invalidateAggregates() {
+        synchronized (edgesWeightLock) {
+            edgesWeightValid = false;
+        }
+        synchronized (boundariesLock) {
+            cachedBoundaries = null;
         }
     }
 
@@ -117,11 +149,43 @@ public class GraphIndexImpl implements GraphIndex {
         return edgesMaxWeight;
     }
 
+    /**
+     * Starts the visibility snapshot of a new world update with the current culling boundaries. Called by the engine
+     * before running the world updaters, that then call {@link VisibilitySnapshot#collect()}.
+     *
+     * @return New snapshot
+     */
+    public VisibilitySnapshot newVisibilitySnapshot() {
+        ensureInitialized();
+
+        synchronized (visibilitySnapshotLock) {
+            visibilitySnapshot = new VisibilitySnapshot(
+                    graph, graphModel.getSpatialIndex(), engine.getCullingBoundaries(), engine.getCullingVersion(), visibilitySnapshot
+            );
+            return visibilitySnapshot;
+        }
+    }
+
+    /**
+     * World updaters should get the visible elements from it instead of {@link #getVisibleNodes(ElementsCallback)} and
+     * {@link #getVisibleEdges(ElementsCallback)}, so they all use the same elements.
+     *
+     * @return Visibility snapshot of the current world update, started now if there is none
+     */
+    public VisibilitySnapshot getVisibilitySnapshot() {
+        synchronized (visibilitySnapshotLock) {
+            if (visibilitySnapshot == null) {
+                return newVisibilitySnapshot();
+            }
+            return visibilitySnapshot;
+        }
+    }
+
     @Override
     public NodeIterable getVisibleNodes() {
         ensureInitialized();
 
-        return graphModel.getSpatialIndex().getNodesInArea(engine.getViewBoundaries());
+        return graphModel.getSpatialIndex().getNodesInArea(engine.getCullingBoundaries());
     }
 
     @Override
@@ -130,7 +194,7 @@ public class GraphIndexImpl implements GraphIndex {
 
         callback.start(graph);
 
-        final NodeIterable nodeIterable = graphModel.getSpatialIndex().getNodesInArea(engine.getViewBoundaries());
+        final NodeIterable nodeIterable = graphModel.getSpatialIndex().getNodesInArea(engine.getCullingBoundaries());
         try {
             for (Node node : nodeIterable) {
                 callback.accept(node);
@@ -146,7 +210,7 @@ public class GraphIndexImpl implements GraphIndex {
     public EdgeIterable getVisibleEdges() {
         ensureInitialized();
 
-        return graphModel.getSpatialIndex().getEdgesInArea(engine.getViewBoundaries());
+        return graphModel.getSpatialIndex().getEdgesInArea(engine.getCullingBoundaries());
     }
 
     @Override
@@ -154,7 +218,7 @@ public class GraphIndexImpl implements GraphIndex {
         ensureInitialized();
 
         callback.start(graph);
-        final EdgeIterable edgeIterable = graphModel.getSpatialIndex().getEdgesInArea(engine.getViewBoundaries());
+        final EdgeIterable edgeIterable = graphModel.getSpatialIndex().getEdgesInArea(engine.getCullingBoundaries());
         try {
             for (Edge edge : edgeIterable) {
                 callback.accept(edge);
@@ -228,35 +292,40 @@ public class GraphIndexImpl implements GraphIndex {
         });
     }
 
+    /**
+     * Computed again on each call unless the world update tracker is enabled, since positions and sizes are only
+     * versioned by it (see {@link WorldUpdateTracker#getElementsVersion()}). Computed in a single pass over the
+     * nodes under the graph read lock, without copying them.
+     */
     @Override
     public Rect2D getGraphBoundaries() {
         ensureInitialized();
 
-        if (graph.getNodeCount() > 0) {
-            float minX = Float.MAX_VALUE;
-            float maxX = Float.MIN_VALUE;
-            float minY = Float.MAX_VALUE;
-            float maxY = Float.MIN_VALUE;
-
-            for (Node node : graph.getNodes()) {
-                final float x = node.x();
-                final float y = node.y();
-                final float size = node.size();
-
-                minX = x - size <= minX ? x - size : minX;
-                minY = y - size <= minY ? y - size : minY;
-                maxX = x + size >= maxX ? x + size : maxX;
-                maxY = y + size >= maxY ? y + size : maxY;
+        final WorldUpdateTracker worldUpdateTracker = engine.getWorldUpdateTracker();
+        final boolean cacheable = worldUpdateTracker.isEnabled();
+        final long version = worldUpdateTracker.getElementsVersion();
+
+        synchronized (boundariesLock) {
+            if (cacheable && cachedBoundaries != null && cachedBoundariesVersion == version) {
+                return cachedBoundaries;
+            }
+
+            final Rect2D boundaries;
+            graph.readLock();
+            try {
+                boundaries = GraphStatistics.nodesBoundaries(graph.getNodes());
+            } finally {
+                graph.readUnlockAll();
             }
 
-            return new Rect2D(minX, minY, maxX, maxY);
-        } else {
-            return new Rect2D(0, 0, 0, 0);
+            cachedBoundaries = cacheable ? boundaries : null;
+            cachedBoundariesVersion = version;
+            return boundaries;
         }
     }
 
     private Rect2D getCircleRect2D(float x, float y, float radius) {
-        return new Rect2D(x - radius, y - radius, x + radius, y - radius);
+        return new Rect2D(x - radius, y - radius, x + radius, y + radius);
     }
 
     private NodeIterable filterNodeIterable(NodeIterable nodesIterable, Predicate<Node> predicate) {
@@ -0,0 +1,92 @@
+package org.gephi.viz.engine.structure;
+
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.util.ParallelFill;
+
+/**
+ * Aggregates of graph elements. Edge weights are computed with a parallel reduction in chunks (see {@link ParallelFill})
+ * for big graphs: each chunk reduces its own range and the chunk results are merged in the calling thread.
+ *
+ * @author Eduardo Ramos
+ */
+public class GraphStatistics {
+
+    private GraphStatistics() {
+    }
+
+    /**
+     * Single pass over the nodes, without copying them to an array first. Not parallel, the copy a parallel reduction
+     * needs costs about as much as the pass itself.
+     *
+     * @param nodes Nodes
+     * @return Boundaries of the nodes including their size, or an empty rectangle at the origin if there are none
+     */
+    public static Rect2D nodesBoundaries(final Iterable<Node> nodes) {
+        //Not Float.MIN_VALUE, the smallest positive float, coordinates can be negative:
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        boolean empty = true;
+
+        for (Node node : nodes) {
+            final float x = node.x();
+            final float y = node.y();
+            final float size = node.size();
+
+            minX = Math.min(minX, x - size);
+            minY = Math.min(minY, y - size);
+            maxX = Math.max(maxX, x + size);
+            maxY = Math.max(maxY, y + size);
+            empty = false;
+        }
+
+        if (empty) {
+            return new Rect2D(0, 0, 0, 0);
+        }
+
+        return new Rect2D(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * @param edges Edges
+     * @param count Edges count in the array
+     * @param view View to get the weights in, for dynamic weights
+     * @return Min and max weight of the edges, or 1 and 1 if there are none
+     */
+    public static float[] edgesWeightRange(final Edge[] edges, final int count, final GraphView view) {
+        if (count == 0) {
+            return new float[]{1, 1};
+        }
+
+        final int chunks = ParallelFill.chunksCount(count);
+        final float[] chunksRanges = new float[chunks * 2];
+
+        ParallelFill.forEachChunk(chunks, chunk -> {
+            float minWeight = Float.MAX_VALUE;
+            float maxWeight = -Float.MAX_VALUE;
+
+            final int end = ParallelFill.chunkStart(chunk + 1, chunks, count);
+            for (int i = ParallelFill.chunkStart(chunk, chunks, count); i < end; i++) {
+                final float weight = (float) edges[i].getWeight(view);
+                minWeight = Math.min(minWeight, weight);
+                maxWeight = Math.max(maxWeight, weight);
+            }
+
+            chunksRanges[chunk * 2] = minWeight;
+            chunksRanges[chunk * 2 + 1] = maxWeight;
+        });
+
+        float minWeight = Float.MAX_VALUE;
+        float maxWeight = -Float.MAX_VALUE;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            minWeight = Math.min(minWeight, chunksRanges[chunk * 2]);
+            maxWeight = Math.max(maxWeight, chunksRanges[chunk * 2 + 1]);
+        }
+
+        return new float[]{minWeight, maxWeight};
+    }
+}
@@ -0,0 +1,200 @@
+package org.gephi.viz.engine.structure;
+
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.graph.api.SpatialIndex;
+import org.gephi.viz.engine.structure.GraphIndex.ElementsCallback;
+
+import java.util.Arrays;
+
+import static org.gephi.viz.engine.util.ArrayUtils.getNextPowerOf2;
+
+/**
+ * Visible nodes and edges of one world update, queried once from the spatial index with the culling boundaries of the
+ * moment the world update started, and shared by every world updater. Updaters that run concurrently get the same
+ * elements for the same camera, and the quadtree is only traversed once.
+ *
+ * <p>
+ * {@link #collect()} gets the visible nodes and edges that were used in the previous world update under a single graph
+ * read lock. Elements not collected yet are collected the first time an updater asks for them, with the same boundaries.</p>
+ *
+ * <p>
+ * Only valid during its world update: the next snapshot reuses the arrays, so updaters copy the elements to their own
+ * callbacks.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class VisibilitySnapshot {
+
+    private final Graph graph;
+    private final SpatialIndex spatialIndex;
+    private final Rect2D cullingBoundaries;
+    private final long cullingVersion;
+
+    private final Object nodesLock = new Object();
+    private Node[] nodes;
+    private int nodesCount = -1;
+    private volatile boolean nodesRequested = false;
+
+    private final Object edgesLock = new Object();
+    private Edge[] edges;
+    private int edgesCount = -1;
+    private volatile boolean edgesRequested = false;
+
+    //Which elements to collect in collect(), the ones the previous world update asked for:
+    private final boolean collectNodes;
+    private final boolean collectEdges;
+
+    VisibilitySnapshot(final Graph graph, final SpatialIndex spatialIndex, final Rect2D cullingBoundaries, final long cullingVersion, final VisibilitySnapshot previous) {
+        this.graph = graph;
+        this.spatialIndex = spatialIndex;
+        this.cullingBoundaries = cullingBoundaries;
+        this.cullingVersion = cullingVersion;
+
+        if (previous != null) {
+            this.nodes = previous.nodes;
+            this.edges = previous.edges;
+            this.collectNodes = previous.nodesRequested;
+            this.collectEdges = previous.edgesRequested;
+        } else {
+            //Not known yet, the updaters collect what they need:
+            this.nodes = new Node[0];
+            this.edges = new Edge[0];
+            this.collectNodes = false;
+            this.collectEdges = false;
+        }
+    }
+
+    /**
+     * Collects the elements the previous world update used, under a single graph read lock.
+     */
+    public void collect() {
+        if (!collectNodes && !collectEdges) {
+            return;
+        }
+
+        synchronized (nodesLock) {
+            synchronized (edgesLock) {
+                graph.readLock();
+                try {
+                    if (collectNodes && nodesCount < 0) {
+                        collectNodes();
+                    }
+                    if (collectEdges && edgesCount < 0) {
+                        collectEdges();
+                    }
+                } finally {
+                    graph.readUnlockAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the visible nodes to the callback, collecting them if not done yet.
+     */
+    public void getVisibleNodes(final ElementsCallback<Node> callback) {
+        nodesRequested = true;
+
+        final Node[] array;
+        final int count;
+        synchronized (nodesLock) {
+            if (nodesCount < 0) {
+                graph.readLock();
+                try {
+                    collectNodes();
+                } finally {
+                    graph.readUnlockAll();
+                }
+            }
+            array = nodes;
+            count = nodesCount;
+        }
+
+        callback.start(graph);
+        for (int i = 0; i < count; i++) {
+            callback.accept(array[i]);
+        }
+        callback.end(graph);
+    }
+
+    /**
+     * Sends the visible edges to the callback, collecting them if not done yet.
+     */
+    public void getVisibleEdges(final ElementsCallback<Edge> callback) {
+        edgesRequested = true;
+
+        final Edge[] array;
+        final int count;
+        synchronized (edgesLock) {
+            if (edgesCount < 0) {
+                graph.readLock();
+                try {
+                    collectEdges();
+                } finally {
+                    graph.readUnlockAll();
+                }
+            }
+            array = edges;
+            count = edgesCount;
+        }
+
+        callback.start(graph);
+        for (int i = 0; i < count; i++) {
+            callback.accept(array[i]);
+        }
+        callback.end(graph);
+    }
+
+    private void collectNodes() {
+        Node[] array = nodes;
+        if (array.length < graph.getNodeCount()) {
+            array = new Node[getNextPowerOf2(graph.getNodeCount())];
+        }
+
+        //The spatial index may return more elements than the visible graph counts, grow as needed:
+        int count = 0;
+        for (Node node : spatialIndex.getNodesInArea(cullingBoundaries)) {
+            if (count == array.length) {
+                array = Arrays.copyOf(array, getNextPowerOf2(count + 1));
+            }
+            array[count++] = node;
+        }
+
+        nodes = array;
+        nodesCount = count;
+    }
+
+    private void collectEdges() {
+        Edge[] array = edges;
+        if (array.length < graph.getEdgeCount()) {
+            array = new Edge[getNextPowerOf2(graph.getEdgeCount())];
+        }
+
+        int count = 0;
+        for (Edge edge : spatialIndex.getEdgesInArea(cullingBoundaries)) {
+            if (count == array.length) {
+                array = Arrays.copyOf(array, getNextPowerOf2(count + 1));
+            }
+            array[count++] = edge;
+        }
+
+        edges = array;
+        edgesCount = count;
+    }
+
+    public Rect2D getCullingBoundaries() {
+        return cullingBoundaries;
+    }
+
+    public long getCullingVersion() {
+        return cullingVersion;
+    }
+
+    @Override
+    public String toString() {
+        return "VisibilitySnapshot{" + "cullingBoundaries=" + cullingBoundaries + ", cullingVersion=" + cullingVersion + ", nodesCount=" + nodesCount + ", edgesCount=" + edgesCount + '}';
+    }
+}
@@ -0,0 +1,285 @@
+package org.gephi.viz.engine.util;
+
+import java.util.Arrays;
+
+/**
+ * Persistent slots for graph elements keyed by graphstore store id, so the data of each element stays at the same place
+ * in a buffer and only the slots that changed have to be written and uploaded again.
+ *
+ * <p>
+ * Removed elements leave holes, reused by the next added elements. {@link #compact(int, SlotMoveListener)} moves the
+ * last elements into the holes a few at a time, so the used slots range shrinks back after many removals.</p>
+ *
+ * <p>
+ * Every slot that changes (added, removed or moved element, or explicitly marked) is recorded as dirty until
+ * {@link #collectDirtyRanges(int)} merges them into ranges to upload.</p>
+ *
+ * <p>
+ * Used by the indexed edges pipeline, the default edge pipeline when available, so edge additions, removals and weight,
+ * color or selection changes only upload the edges that changed. Node pipelines fill their buffers in visible order and
+ * don't use slots.</p>
+ *
+ * <p>
+ * Not thread safe.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class ElementSlots {
+
+    public static final int NO_SLOT = -1;
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] slotByStoreId = EMPTY;
+    private int[] storeIdBySlot = EMPTY;
+    private int slotsCount = 0;
+    private int holesCount = 0;
+
+    //Holes to reuse. May contain stale entries (holes trimmed or reused since), skipped when popped:
+    private int[] freeSlots = EMPTY;
+    private int freeSlotsCount = 0;
+
+    //Dirty slots, in no particular order and maybe repeated, until they are more than the slots:
+    private int[] dirtySlots = EMPTY;
+    private int dirtySlotsCount = 0;
+    private boolean allDirty = false;
+
+    public interface SlotMoveListener {
+
+        /**
+         * Called once the element of fromSlot is in toSlot, to move the data of the slot.
+         */
+        void moved(int fromSlot, int toSlot);
+    }
+
+    /**
+     * @return Slot of the element, or {@link #NO_SLOT}
+     */
+    public int getSlot(int storeId) {
+        if (storeId < 0 || storeId >= slotByStoreId.length) {
+            return NO_SLOT;
+        }
+
+        return slotByStoreId[storeId];
+    }
+
+    /**
+     * @return Store id of the element in the slot, or {@link #NO_SLOT} for holes
+     */
+    public int getStoreId(int slot) {
+        if (slot < 0 || slot >= slotsCount) {
+            throw new IllegalArgumentException("Slot " + slot + " out of range [0, " + slotsCount + ")");
+        }
+
+        return storeIdBySlot[slot];
+    }
+
+    public boolean isHole(int slot) {
+        return getStoreId(slot) == NO_SLOT;
+    }
+
+    /**
+     * @return Used slots range, elements and holes
+     */
+    public int getSlotsCount() {
+        return slotsCount;
+    }
+
+    public int getHolesCount() {
+        return holesCount;
+    }
+
+    public int getElementsCount() {
+        return slotsCount - holesCount;
+    }
+
+    /**
+     * Gives a slot to a new element: the last hole if any, or a new slot at the end of the range.
+     *
+     * @return Slot of the element
+     */
+    public int add(int storeId) {
+        if (storeId < 0) {
+            throw new IllegalArgumentException("Invalid store id " + storeId);
+        }
+
+        if (storeId >= slotByStoreId.length) {
+            final int oldLength = slotByStoreId.length;
+            slotByStoreId = Arrays.copyOf(slotByStoreId, Math.max(2 * oldLength, storeId + 1));
+            Arrays.fill(slotByStoreId, oldLength, slotByStoreId.length, NO_SLOT);
+        } else if (slotByStoreId[storeId] != NO_SLOT) {
+            throw new IllegalArgumentException("Element " + storeId + " already has slot " + slotByStoreId[storeId]);
+        }
+
+        int slot = popFreeSlot();
+        if (slot == NO_SLOT) {
+            slot = slotsCount++;
+            if (slot >= storeIdBySlot.length) {
+                storeIdBySlot = Arrays.copyOf(storeIdBySlot, Math.max(2 * storeIdBySlot.length, slot + 1));
+            }
+        } else {
+            holesCount--;
+        }
+
+        storeIdBySlot[slot] = storeId;
+        slotByStoreId[storeId] = slot;
+        markDirty(slot);
+        return slot;
+    }
+
+    /**
+     * Leaves a hole in the slot of the element.
+     *
+     * @return Slot the element had, or {@link #NO_SLOT} if it had none
+     */
+    public int remove(int storeId) {
+        final int slot = getSlot(storeId);
+        if (slot == NO_SLOT) {
+            return NO_SLOT;
+        }
+
+        slotByStoreId[storeId] = NO_SLOT;
+        storeIdBySlot[slot] = NO_SLOT;
+        holesCount++;
+
+        if (freeSlotsCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(16, 2 * freeSlots.length));
+        }
+        freeSlots[freeSlotsCount++] = slot;
+
+        markDirty(slot);
+        return slot;
+    }
+
+    private int popFreeSlot() {
+        if (holesCount == 0) {
+            freeSlotsCount = 0;
+            return NO_SLOT;
+        }
+
+        while (freeSlotsCount > 0) {
+            final int slot = freeSlots[--freeSlotsCount];
+            if (slot < slotsCount && storeIdBySlot[slot] == NO_SLOT) {
+                return slot;
+            }
+        }
+
+        return NO_SLOT;
+    }
+
+    /**
+     * Removes the holes at the end of the range, then moves up to maxMoves elements from the end of the range into holes.
+     *
+     * @param maxMoves Maximum elements to move, 0 to only remove the holes at the end
+     * @param listener Called for each move, before the next one
+     * @return Moved elements
+     */
+    public int compact(int maxMoves, SlotMoveListener listener) {
+        int moves = 0;
+        while (true) {
+            while (slotsCount > 0 && storeIdBySlot[slotsCount - 1] == NO_SLOT) {
+                slotsCount--;
+                holesCount--;
+            }
+
+            if (holesCount == 0 || moves >= maxMoves) {
+                return moves;
+            }
+
+            //The last slot is used now, so the hole is before it:
+            final int toSlot = popFreeSlot();
+            final int fromSlot = slotsCount - 1;
+            final int storeId = storeIdBySlot[fromSlot];
+
+            storeIdBySlot[toSlot] = storeId;
+            slotByStoreId[storeId] = toSlot;
+            storeIdBySlot[fromSlot] = NO_SLOT;
+            slotsCount--;
+            holesCount--;
+
+            listener.moved(fromSlot, toSlot);
+            markDirty(toSlot);
+            moves++;
+        }
+    }
+
+    public void markDirty(int slot) {
+        if (allDirty) {
+            return;
+        }
+
+        //Past this point, uploading everything is cheaper than sorting the slots:
+        if (dirtySlotsCount >= slotsCount) {
+            markAllDirty();
+            return;
+        }
+
+        if (dirtySlotsCount == dirtySlots.length) {
+            dirtySlots = Arrays.copyOf(dirtySlots, Math.max(16, 2 * dirtySlots.length));
+        }
+        dirtySlots[dirtySlotsCount++] = slot;
+    }
+
+    public void markAllDirty() {
+        allDirty = true;
+        dirtySlotsCount = 0;
+    }
+
+    public boolean hasDirtySlots() {
+        return allDirty || dirtySlotsCount > 0;
+    }
+
+    /**
+     * Merges the dirty slots into sorted ranges and forgets them.
+     *
+     * @param maxGap Maximum clean slots between two dirty slots to merge them in the same range, to avoid many small uploads
+     * @return Ranges as pairs of first slot (inclusive) and last slot (exclusive), inside the current slots range
+     */
+    public int[] collectDirtyRanges(int maxGap) {
+        final int[] ranges;
+        if (allDirty) {
+            ranges = slotsCount > 0 ? new int[]{0, slotsCount} : EMPTY;
+        } else {
+            Arrays.sort(dirtySlots, 0, dirtySlotsCount);
+
+            final int[] merged = new int[dirtySlotsCount * 2];
+            int count = 0;
+            for (int i = 0; i < dirtySlotsCount; i++) {
+                final int slot = dirtySlots[i];
+                if (slot >= slotsCount) {
+                    //Removed from the range since, sorted so all the next ones too
+                    break;
+                }
+
+                if (count > 0 && slot - merged[count - 1] <= maxGap) {
+                    merged[count - 1] = Math.max(merged[count - 1], slot + 1);
+                } else {
+                    merged[count++] = slot;
+                    merged[count++] = slot + 1;
+                }
+            }
+            ranges = Arrays.copyOf(merged, count);
+        }
+
+        allDirty = false;
+        dirtySlotsCount = 0;
+        return ranges;
+    }
+
+    public void clear() {
+        slotByStoreId = EMPTY;
+        storeIdBySlot = EMPTY;
+        slotsCount = 0;
+        holesCount = 0;
+        freeSlots = EMPTY;
+        freeSlotsCount = 0;
+        dirtySlots = EMPTY;
+        dirtySlotsCount = 0;
+        allDirty = false;
+    }
+
+    @Override
+    public String toString() {
+        return "ElementSlots{" + "slotsCount=" + slotsCount + ", holesCount=" + holesCount + '}';
+    }
+}
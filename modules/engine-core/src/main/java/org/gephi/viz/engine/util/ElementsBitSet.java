@@ -0,0 +1,455 @@
+package org.gephi.viz.engine.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Set of graph elements backed by a dense bitset indexed by graphstore store id, and the elements themselves at the
+ * same index. Membership checks are O(1) without hashing or boxing.
+ *
+ * <p>
+ * Graphstore reuses the store ids of removed elements, so membership of an element also checks that it is the one that
+ * was added with its store id. Store id based methods don't, they are meant for store ids of live elements.</p>
+ *
+ * <p>
+ * Reads are safe to run concurrently with writes from another thread (they may just not see the latest changes), since
+ * the arrays are never mutated in place when they need to grow.</p>
+ *
+ * @param <T> Element type
+ * @author Eduardo Ramos
+ */
+public class ElementsBitSet<T> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final long[] EMPTY_WORDS = new long[0];
+    private static final Object[] EMPTY_ELEMENTS = new Object[0];
+
+    private final ToIntFunction<T> storeIdFunction;
+    private volatile long[] words = EMPTY_WORDS;
+    private volatile Object[] elements = EMPTY_ELEMENTS;
+    private int count = 0;
+
+    //Scratch bits of containsExactly, all zero between calls:
+    private long[] seenWords = EMPTY_WORDS;
+
+    private final Set<T> view = new ElementsView();
+
+    public ElementsBitSet(ToIntFunction<T> storeIdFunction) {
+        this.storeIdFunction = storeIdFunction;
+    }
+
+    private static int wordIndex(int storeId) {
+        return storeId >>> ADDRESS_BITS_PER_WORD;
+    }
+
+    private void ensureCapacity(int storeId) {
+        final int wordsRequired = wordIndex(storeId) + 1;
+        if (words.length < wordsRequired) {
+            final int newWordsLength = Math.max(2 * words.length, wordsRequired);
+            elements = Arrays.copyOf(elements, newWordsLength << ADDRESS_BITS_PER_WORD);
+            words = Arrays.copyOf(words, newWordsLength);
+        }
+    }
+
+    public boolean contains(T element) {
+        if (element == null) {
+            return false;
+        }
+
+        final int storeId = storeIdFunction.applyAsInt(element);
+        if (!contains(storeId)) {
+            return false;
+        }
+
+        //Not a different element that reuses the store id of a removed one:
+        final Object[] e = elements;
+        return storeId < e.length && element.equals(e[storeId]);
+    }
+
+    public boolean contains(int storeId) {
+        if (storeId < 0) {
+            return false;
+        }
+
+        final long[] w = words;
+        final int wordIndex = wordIndex(storeId);
+        return wordIndex < w.length && (w[wordIndex] & (1L << storeId)) != 0;
+    }
+
+    /**
+     * @param storeId Store id
+     * @return Element added with the store id, or null if none
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int storeId) {
+        if (!contains(storeId)) {
+            return null;
+        }
+
+        final Object[] e = elements;
+        return storeId < e.length ? (T) e[storeId] : null;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Adds the element, replacing a different element that was added with the same store id.
+     *
+     * @param element Element
+     * @return True if the set changed
+     */
+    public boolean add(T element) {
+        if (element == null) {
+            return false;
+        }
+
+        final int storeId = storeIdFunction.applyAsInt(element);
+        if (storeId < 0) {
+            return false;
+        }
+
+        if (contains(storeId)) {
+            if (element.equals(elements[storeId])) {
+                return false;
+            }
+
+            elements[storeId] = element;
+            return true;
+        }
+
+        ensureCapacity(storeId);
+        elements[storeId] = element;
+        words[wordIndex(storeId)] |= (1L << storeId);
+        count++;
+        return true;
+    }
+
+    public boolean remove(T element) {
+        return contains(element) && remove(storeIdFunction.applyAsInt(element));
+    }
+
+    public boolean remove(int storeId) {
+        if (!contains(storeId)) {
+            return false;
+        }
+
+        words[wordIndex(storeId)] &= ~(1L << storeId);
+        elements[storeId] = null;
+        count--;
+        return true;
+    }
+
+    public boolean addAll(Collection<? extends T> elements) {
+        boolean changed = false;
+        for (T element : elements) {
+            changed |= add(element);
+        }
+        return changed;
+    }
+
+    public boolean addAll(T[] elements) {
+        boolean changed = false;
+        for (T element : elements) {
+            changed |= add(element);
+        }
+        return changed;
+    }
+
+    public boolean removeAll(Collection<? extends T> elements) {
+        boolean changed = false;
+        for (T element : elements) {
+            changed |= remove(element);
+        }
+        return changed;
+    }
+
+    public boolean removeAll(int[] storeIds) {
+        boolean changed = false;
+        for (int storeId : storeIds) {
+            changed |= remove(storeId);
+        }
+        return changed;
+    }
+
+    /**
+     * Keeps only the given store ids.
+     *
+     * @param storeIds Store ids to keep
+     * @return True if the set changed
+     */
+    public boolean retainAll(int[] storeIds) {
+        long[] retainedWords = EMPTY_WORDS;
+        for (int storeId : storeIds) {
+            if (storeId < 0) {
+                continue;
+            }
+
+            final int wordIndex = wordIndex(storeId);
+            if (wordIndex >= retainedWords.length) {
+                retainedWords = Arrays.copyOf(retainedWords, Math.max(2 * retainedWords.length, wordIndex + 1));
+            }
+            retainedWords[wordIndex] |= (1L << storeId);
+        }
+
+        return intersectWords(retainedWords);
+    }
+
+    /**
+     * Adds every element of other set.
+     *
+     * @param other Other set
+     * @return True if the set changed
+     */
+    public boolean union(ElementsBitSet<T> other) {
+        boolean changed = false;
+        for (int storeId = other.nextStoreId(0); storeId >= 0; storeId = other.nextStoreId(storeId + 1)) {
+            changed |= add(other.get(storeId));
+        }
+        return changed;
+    }
+
+    /**
+     * Removes every element that is not in other set.
+     *
+     * @param other Other set
+     * @return True if the set changed
+     */
+    public boolean intersect(ElementsBitSet<T> other) {
+        boolean changed = false;
+        for (int storeId = nextStoreId(0); storeId >= 0; storeId = nextStoreId(storeId + 1)) {
+            if (!other.contains(get(storeId))) {
+                remove(storeId);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean intersectWords(final long[] otherWords) {
+        final long[] w = words;
+        final Object[] e = elements;
+        int newCount = 0;
+        for (int i = 0; i < w.length; i++) {
+            final long removed = w[i] & ~(i < otherWords.length ? otherWords[i] : 0);
+            for (long bits = removed; bits != 0; bits &= bits - 1) {
+                e[(i << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(bits)] = null;
+            }
+            w[i] &= ~removed;
+            newCount += Long.bitCount(w[i]);
+        }
+
+        final boolean changed = newCount != count;
+        count = newCount;
+        return changed;
+    }
+
+    /**
+     * Checks if this set contains exactly the given elements, ignoring duplicates in the collection. Doesn't allocate,
+     * duplicates are counted with scratch bits that are cleared again, so like writes it must not be called concurrently
+     * with other writes.
+     *
+     * @param elements Elements
+     * @return True if same elements
+     */
+    public boolean containsExactly(Collection<? extends T> elements) {
+        if (elements.size() < count) {
+            return false;
+        }
+
+        int checked = 0;
+        int distinct = 0;
+        for (T element : elements) {
+            if (!contains(element)) {
+                break;
+            }
+            checked++;
+            if (markSeen(element)) {
+                distinct++;
+            }
+        }
+
+        int unmarked = 0;
+        for (T element : elements) {
+            if (unmarked++ == checked) {
+                break;
+            }
+            unmarkSeen(element);
+        }
+
+        return checked == elements.size() && distinct == count;
+    }
+
+    /**
+     * Same as {@link #containsExactly(Collection)} for an array.
+     *
+     * @param elements Elements
+     * @return True if same elements
+     */
+    public boolean containsExactly(T[] elements) {
+        if (elements.length < count) {
+            return false;
+        }
+
+        int checked = 0;
+        int distinct = 0;
+        for (; checked < elements.length; checked++) {
+            final T element = elements[checked];
+            if (!contains(element)) {
+                break;
+            }
+            if (markSeen(element)) {
+                distinct++;
+            }
+        }
+
+        for (int i = 0; i < checked; i++) {
+            unmarkSeen(elements[i]);
+        }
+
+        return checked == elements.length && distinct == count;
+    }
+
+    /**
+     * @param element Element contained in the set
+     * @return True if not seen yet
+     */
+    private boolean markSeen(T element) {
+        if (seenWords.length < words.length) {
+            seenWords = new long[words.length];
+        }
+
+        final int storeId = storeIdFunction.applyAsInt(element);
+        final int wordIndex = wordIndex(storeId);
+        final long bit = 1L << storeId;
+        if ((seenWords[wordIndex] & bit) != 0) {
+            return false;
+        }
+
+        seenWords[wordIndex] |= bit;
+        return true;
+    }
+
+    private void unmarkSeen(T element) {
+        seenWords[wordIndex(storeIdFunction.applyAsInt(element))] = 0;
+    }
+
+    /**
+     * Returns the next store id in the set, starting from the given one (inclusive).
+     *
+     * @param fromStoreId Store id to start from
+     * @return Next store id or -1 if none
+     */
+    public int nextStoreId(int fromStoreId) {
+        if (fromStoreId < 0) {
+            fromStoreId = 0;
+        }
+
+        final long[] w = words;
+        int wordIndex = wordIndex(fromStoreId);
+        if (wordIndex >= w.length) {
+            return -1;
+        }
+
+        long word = w[wordIndex] & (-1L << fromStoreId);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+            }
+
+            wordIndex++;
+            if (wordIndex == w.length) {
+                return -1;
+            }
+            word = w[wordIndex];
+        }
+    }
+
+    public int[] toStoreIdArray() {
+        final int[] storeIds = new int[count];
+        int i = 0;
+        for (int storeId = nextStoreId(0); storeId >= 0 && i < storeIds.length; storeId = nextStoreId(storeId + 1)) {
+            storeIds[i++] = storeId;
+        }
+        return storeIds;
+    }
+
+    /**
+     * Read-only live view of the elements, in store id order. Not a copy, so it's O(1) to get and reflects later changes.
+     *
+     * @return Elements view
+     */
+    public Set<T> asSet() {
+        return view;
+    }
+
+    /**
+     * Removes every element, keeping the capacity so the set can be filled again without allocating.
+     *
+     * @return True if the set changed
+     */
+    public boolean clear() {
+        if (count == 0) {
+            return false;
+        }
+
+        intersectWords(EMPTY_WORDS);
+        return true;
+    }
+
+    private class ElementsView extends AbstractSet<T> {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            try {
+                return ElementsBitSet.this.contains((T) o);
+            } catch (ClassCastException ex) {
+                return false;
+            }
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int next = nextStoreId(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public T next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+
+                    final T element = get(next);
+                    next = nextStoreId(next + 1);
+                    return element;
+                }
+            };
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ElementsBitSet{" + "count=" + count + '}';
+    }
+}
@@ -0,0 +1,137 @@
+package org.gephi.viz.engine.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free multi-producer single-consumer queue for input events. Any thread can {@link #add(Object)} events, and one
+ * consumer thread moves them all at once to a reusable array with {@link #drain(Coalescer)}.
+ *
+ * <p>
+ * Producers only swap the tail of a linked list, and link the previous tail to their node after. The consumer stops
+ * at a node that is not linked yet, so an event being added while draining is left for the next drain, never lost.</p>
+ *
+ * @author Eduardo Ramos
+ * @param <E> Event type
+ */
+public class InputEventsQueue<E> {
+
+    /**
+     * Merges consecutive events, for example mouse moves, so input listeners process less events.
+     *
+     * @param <E> Event type
+     */
+    public interface Coalescer<E> {
+
+        /**
+         * @param previous Previous event
+         * @param next Event right after it
+         * @return Event replacing both, or null to keep both
+         */
+        E coalesce(E previous, E next);
+    }
+
+    private static final class Node<E> {
+
+        private E event;
+        private volatile Node<E> next;
+
+        Node(E event) {
+            this.event = event;
+        }
+    }
+
+    private final AtomicReference<Node<E>> tail;
+
+    //Only accessed by the consumer:
+    private Node<E> head;
+    private Object[] drained = new Object[16];
+    private int drainedCount = 0;
+
+    public InputEventsQueue() {
+        head = new Node<>(null);
+        tail = new AtomicReference<>(head);
+    }
+
+    /**
+     * Queues an event. Can be called from any thread.
+     *
+     * @param event Event
+     */
+    public void add(E event) {
+        if (event == null) {
+            throw new IllegalArgumentException("event can't be null");
+        }
+
+        final Node<E> node = new Node<>(event);
+        final Node<E> previous = tail.getAndSet(node);
+        previous.next = node;
+    }
+
+    /**
+     * Moves every queued event to the drained events, replacing the ones of the previous drain. Only the consumer thread
+     * should call it.
+     *
+     * @param coalescer Coalescer for consecutive events, or null to keep every event
+     * @return Drained events count, see {@link #getDrained(int)}
+     */
+    public int drain(final Coalescer<E> coalescer) {
+        //Don't keep references to the previous events:
+        Arrays.fill(drained, 0, drainedCount, null);
+        drainedCount = 0;
+
+        Node<E> node = head.next;
+        while (node != null) {
+            final E event = node.event;
+            //The node is the new stub head, forget its event:
+            node.event = null;
+            head = node;
+
+            boolean coalesced = false;
+            if (coalescer != null && drainedCount > 0) {
+                final E merged = coalescer.coalesce(getDrained(drainedCount - 1), event);
+                if (merged != null) {
+                    drained[drainedCount - 1] = merged;
+                    coalesced = true;
+                }
+            }
+
+            if (!coalesced) {
+                if (drainedCount == drained.length) {
+                    drained = Arrays.copyOf(drained, drained.length * 2);
+                }
+                drained[drainedCount++] = event;
+            }
+
+            node = node.next;
+        }
+
+        return drainedCount;
+    }
+
+    /**
+     * @param index Index of the event in the last drain
+     * @return Drained event
+     */
+    @SuppressWarnings("unchecked")
+    public E getDrained(int index) {
+        if (index < 0 || index >= drainedCount) {
+            throw new IllegalArgumentException("Index " + index + " out of range [0, " + drainedCount + ")");
+        }
+
+        return (E) drained[index];
+    }
+
+    public int getDrainedCount() {
+        return drainedCount;
+    }
+
+    /**
+     * Only meaningful in the consumer thread.
+     *
+     * @return True if no event was queued since the last drain
+     */
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+}
@@ -0,0 +1,85 @@
+package org.gephi.viz.engine.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Helpers to split the filling of attribute buffers in chunks that run in parallel in the common fork-join pool.
+ *
+ * <p>
+ * Parallel filling is only used for element counts above {@link #getParallelThreshold()}; below it a single chunk is
+ * used and run in the calling thread.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class ParallelFill {
+
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 250000;
+    public static final int MIN_CHUNK_SIZE = 32768;
+
+    private static volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * Returns the amount of chunks to split the given elements count into.
+     *
+     * @param elementsCount Elements count
+     * @return Chunks count, 1 when the elements should be processed sequentially
+     */
+    public static int chunksCount(final int elementsCount) {
+        final int threshold = parallelThreshold;
+        if (threshold <= 0 || elementsCount < threshold) {
+            return 1;
+        }
+
+        final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (parallelism <= 1) {
+            return 1;
+        }
+
+        //A few chunks per thread for better balancing:
+        return Math.max(1, Math.min(parallelism * 2, elementsCount / MIN_CHUNK_SIZE));
+    }
+
+    /**
+     * Returns the first element index (inclusive) of the given chunk. Use with chunk + 1 to get its end index (exclusive).
+     *
+     * @param chunk Chunk index
+     * @param chunksCount Chunks count
+     * @param elementsCount Elements count
+     * @return Chunk start index
+     */
+    public static int chunkStart(final int chunk, final int chunksCount, final int elementsCount) {
+        return (int) ((long) elementsCount * chunk / chunksCount);
+    }
+
+    /**
+     * Runs the task for every chunk and waits for all of them. A single chunk runs in the calling thread.
+     *
+     * @param chunksCount Chunks count
+     * @param task Task receiving the chunk index
+     */
+    public static void forEachChunk(final int chunksCount, final IntConsumer task) {
+        if (chunksCount == 1) {
+            task.accept(0);
+        } else {
+            IntStream.range(0, chunksCount).parallel().forEach(task);
+        }
+    }
+
+    public static int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Sets the minimum elements count to fill buffers in parallel.
+     *
+     * @param parallelThreshold Threshold, 0 to disable parallel filling
+     */
+    public static void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException("parallelThreshold should be >= 0");
+        }
+        ParallelFill.parallelThreshold = parallelThreshold;
+    }
+}
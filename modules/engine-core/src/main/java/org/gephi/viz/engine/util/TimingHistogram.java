@@ -0,0 +1,164 @@
+package org.gephi.viz.engine.util;
+
+/**
+ * Rolling histogram of the last {@link #getWindowSize()} recorded nanosecond timings.
+ *
+ * <p>
+ * Values are counted in log-linear buckets (16 sub-buckets per power of 2, so percentiles are accurate to ~6%), and
+ * the oldest sample is removed from its bucket when the window is full. Recording and querying never allocate.</p>
+ *
+ * <p>
+ * Methods are synchronized, so samples can be recorded from any thread and read from any other one.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class TimingHistogram {
+
+    public static final int DEFAULT_WINDOW_SIZE = 600;
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS_COUNT;
+
+    private final long[] window;
+    private final int[] buckets = new int[BUCKETS_COUNT];
+    private int windowPosition = 0;
+    private int windowCount = 0;
+    private long totalCount = 0;
+
+    public TimingHistogram() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    public TimingHistogram(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize should be >= 1");
+        }
+        this.window = new long[windowSize];
+    }
+
+    public synchronized void record(long nanos) {
+        final long value = Math.max(0, nanos);
+
+        if (windowCount == window.length) {
+            buckets[bucketIndex(window[windowPosition])]--;
+        } else {
+            windowCount++;
+        }
+
+        window[windowPosition] = value;
+        buckets[bucketIndex(value)]++;
+        windowPosition = (windowPosition + 1) % window.length;
+        totalCount++;
+    }
+
+    /**
+     * Returns the given percentile of the samples in the window, as the upper bound of the bucket that contains it.
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return Percentile in nanoseconds, 0 without samples
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile should be between 0 and 100");
+        }
+
+        if (windowCount == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * windowCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                //Never report more than the real max:
+                return Math.min(bucketUpperBound(i), getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    public long getP50() {
+        return getPercentile(50);
+    }
+
+    public long getP95() {
+        return getPercentile(95);
+    }
+
+    public long getP99() {
+        return getPercentile(99);
+    }
+
+    /**
+     * @return Exact max of the samples in the window, 0 without samples
+     */
+    public synchronized long getMax() {
+        long max = 0;
+        for (int i = 0; i < windowCount; i++) {
+            max = Math.max(max, window[i]);
+        }
+        return max;
+    }
+
+    /**
+     * @return Samples currently in the window
+     */
+    public synchronized int getWindowCount() {
+        return windowCount;
+    }
+
+    /**
+     * @return Samples recorded since creation or last reset, including the ones that left the window
+     */
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    public int getWindowSize() {
+        return window.length;
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            buckets[i] = 0;
+        }
+        windowPosition = 0;
+        windowCount = 0;
+        totalCount = 0;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS_COUNT) {
+            return (int) value;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS_COUNT + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS_COUNT) {
+            return index;
+        }
+
+        final int exponent = index / SUB_BUCKETS_COUNT + SUB_BUCKET_BITS - 1;
+        final int subBucket = index % SUB_BUCKETS_COUNT;
+        final int shift = exponent - SUB_BUCKET_BITS;
+        if (exponent >= 63) {
+            //Would overflow
+            return Long.MAX_VALUE;
+        }
+
+        final long lowerBound = ((long) (SUB_BUCKETS_COUNT + subBucket)) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TimingHistogram{" + "p50=" + getP50() + ", p95=" + getP95() + ", p99=" + getP99() + ", max=" + getMax() + ", windowCount=" + windowCount + ", totalCount=" + totalCount + '}';
+    }
+}
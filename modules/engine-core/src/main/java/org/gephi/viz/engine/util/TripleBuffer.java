@@ -0,0 +1,89 @@
+package org.gephi.viz.engine.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free triple buffer of frame data, shared between one writer (world updaters) and one reader (the render thread).
+ *
+ * <p>
+ * The writer fills {@link #write()} and calls {@link #publish()}, which atomically swaps it with the ready slot.
+ * The reader calls {@link #acquire()}, which atomically swaps the ready slot with the draw slot when a newer frame
+ * was published, and then reads {@link #draw()}. Writer and reader never share a slot, so the writer can publish
+ * frames back to back without waiting for the reader, which always gets the latest complete frame.</p>
+ *
+ * <p>
+ * The write slot may be used from different threads over time, as long as one write/publish finishes before the next
+ * one starts (for example tasks submitted one after the other to an executor). The same applies to the draw slot.</p>
+ *
+ * @author Eduardo Ramos
+ * @param <T> Frame data type
+ */
+public class TripleBuffer<T> {
+
+    private static final int INDEX_MASK = 0b11;
+    private static final int FRESH_BIT = 0b100;
+
+    private final Object[] slots = new Object[3];
+
+    //Ready slot index, with FRESH_BIT set when it was published after the last acquire:
+    private final AtomicInteger ready = new AtomicInteger(1);
+    private int writeIndex = 0;
+    private int drawIndex = 2;
+
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = factory.get();
+        }
+    }
+
+    /**
+     * @return Slot to fill by the writer
+     */
+    @SuppressWarnings("unchecked")
+    public T write() {
+        return (T) slots[writeIndex];
+    }
+
+    /**
+     * Makes the write slot the latest ready frame. The writer receives the previous ready slot to fill next.
+     */
+    public void publish() {
+        writeIndex = ready.getAndSet(writeIndex | FRESH_BIT) & INDEX_MASK;
+    }
+
+    /**
+     * Makes the latest published frame the draw slot, if a frame was published since the last call.
+     *
+     * @return True if the draw slot changed
+     */
+    public boolean acquire() {
+        if ((ready.get() & FRESH_BIT) == 0) {
+            return false;
+        }
+
+        drawIndex = ready.getAndSet(drawIndex) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * @return Slot to read by the reader
+     */
+    @SuppressWarnings("unchecked")
+    public T draw() {
+        return (T) slots[drawIndex];
+    }
+
+    /**
+     * Runs the action for every slot. Only to be used when neither the writer nor the reader are active, for example to release resources.
+     *
+     * @param action Action
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<T> action) {
+        for (Object slot : slots) {
+            action.accept((T) slot);
+        }
+    }
+}
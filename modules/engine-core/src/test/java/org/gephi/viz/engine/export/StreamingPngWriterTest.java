@@ -0,0 +1,78 @@
+package org.gephi.viz.engine.export;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class StreamingPngWriterTest {
+
+    public StreamingPngWriterTest() {
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        final int width = 37;
+        final int height = 23;
+        final byte[] rgba = new byte[width * height * 4];
+        new Random(42).nextBytes(rgba);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingPngWriter writer = new StreamingPngWriter(out, width, height)) {
+            for (int y = 0; y < height; y++) {
+                writer.writeRow(rgba, y * width * 4);
+            }
+        }
+
+        final BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertEquals(width, image.getWidth());
+        Assert.assertEquals(height, image.getHeight());
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int i = (y * width + x) * 4;
+                final int expected = (rgba[i + 3] & 0xFF) << 24 | (rgba[i] & 0xFF) << 16 | (rgba[i + 1] & 0xFF) << 8 | (rgba[i + 2] & 0xFF);
+                Assert.assertEquals(expected, image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testLargeRows() throws IOException {
+        //Rows bigger than an IDAT chunk:
+        final int width = 40000;
+        final int height = 3;
+        final byte[] rgba = new byte[width * 4];
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingPngWriter writer = new StreamingPngWriter(out, width, height)) {
+            for (int y = 0; y < height; y++) {
+                new Random(y).nextBytes(rgba);
+                writer.writeRow(rgba, 0);
+            }
+        }
+
+        final BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertEquals(width, image.getWidth());
+        Assert.assertEquals(height, image.getHeight());
+
+        new Random(2).nextBytes(rgba);
+        Assert.assertEquals((rgba[3] & 0xFF) << 24 | (rgba[0] & 0xFF) << 16 | (rgba[1] & 0xFF) << 8 | (rgba[2] & 0xFF), image.getRGB(0, 2));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMissingRows() throws IOException {
+        final StreamingPngWriter writer = new StreamingPngWriter(new ByteArrayOutputStream(), 2, 2);
+        writer.writeRow(new byte[8], 0);
+        writer.close();
+    }
+}
@@ -0,0 +1,43 @@
+package org.gephi.viz.engine.status;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.awt.*;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class GraphRenderingOptionsSnapshotTest {
+
+    public GraphRenderingOptionsSnapshotTest() {
+    }
+
+    @Test
+    public void testCopy() {
+        final GraphRenderingOptionsImpl options = new GraphRenderingOptionsImpl();
+        options.setEdgeScale(5);
+        options.setShowEdges(false);
+        options.setLightenNonSelectedFactor(0.5f);
+        options.setEdgeInSelectionColor(Color.RED);
+
+        final GraphRenderingOptionsSnapshot snapshot = new GraphRenderingOptionsSnapshot(options);
+        Assert.assertEquals(options.getVersion(), snapshot.getVersion());
+        Assert.assertEquals(5, snapshot.getEdgeScale(), 0);
+        Assert.assertFalse(snapshot.isShowEdges());
+        Assert.assertTrue(snapshot.isShowNodes());
+        Assert.assertEquals(0.5f, snapshot.getLightenNonSelectedFactor(), 0);
+        Assert.assertEquals(Color.RED, snapshot.getEdgeInSelectionColor());
+
+        //Later changes don't affect the snapshot:
+        options.setEdgeScale(1);
+        Assert.assertEquals(5, snapshot.getEdgeScale(), 0);
+        Assert.assertTrue(options.getVersion() != snapshot.getVersion());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() {
+        new GraphRenderingOptionsSnapshot(new GraphRenderingOptionsImpl()).setShowNodes(false);
+    }
+}
@@ -0,0 +1,84 @@
+package org.gephi.viz.engine.structure;
+
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.util.ParallelFill;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class GraphStatisticsTest {
+
+    public GraphStatisticsTest() {
+    }
+
+    private static Node newNode(final GraphModel graphModel, final int id, final float x, final float y, final float size) {
+        final Node node = graphModel.factory().newNode(String.valueOf(id));
+        node.setX(x);
+        node.setY(y);
+        node.setSize(size);
+        return node;
+    }
+
+    @Test
+    public void testNegativeBoundaries() {
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final Node[] nodes = {
+            newNode(graphModel, 0, -100, -50, 2),
+            newNode(graphModel, 1, -20, -80, 1)
+        };
+
+        final Rect2D boundaries = GraphStatistics.nodesBoundaries(Arrays.asList(nodes));
+        Assert.assertEquals(-102, boundaries.minX, 0);
+        Assert.assertEquals(-81, boundaries.minY, 0);
+        Assert.assertEquals(-19, boundaries.maxX, 0);
+        Assert.assertEquals(-48, boundaries.maxY, 0);
+    }
+
+    @Test
+    public void testEmpty() {
+        final Rect2D boundaries = GraphStatistics.nodesBoundaries(Collections.<Node>emptyList());
+        Assert.assertEquals(0, boundaries.width(), 0);
+        Assert.assertEquals(0, boundaries.height(), 0);
+
+        Assert.assertArrayEquals(new float[]{1, 1}, GraphStatistics.edgesWeightRange(new Edge[0], 0, null), 0);
+    }
+
+    @Test
+    public void testParallelReduction() {
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final Random random = new Random(42);
+
+        final int count = 200000;
+        final Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = newNode(graphModel, i, random.nextFloat() * 2000 - 1000, random.nextFloat() * 2000 - 1000, 1 + random.nextFloat());
+        }
+
+        final Edge[] edges = new Edge[count - 1];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = graphModel.factory().newEdge(nodes[i], nodes[i + 1], 0, -random.nextDouble() * 10, true);
+        }
+        edges[edges.length / 3].setWeight(-20);
+
+        final int threshold = ParallelFill.getParallelThreshold();
+        try {
+            ParallelFill.setParallelThreshold(1);
+
+            final float[] range = GraphStatistics.edgesWeightRange(edges, edges.length, graphModel.getVisibleView());
+            Assert.assertEquals(-20, range[0], 0);
+            Assert.assertTrue(range[1] <= 0);
+        } finally {
+            ParallelFill.setParallelThreshold(threshold);
+        }
+    }
+}
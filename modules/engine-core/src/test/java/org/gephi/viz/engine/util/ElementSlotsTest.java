@@ -0,0 +1,120 @@
+package org.gephi.viz.engine.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class ElementSlotsTest {
+
+    public ElementSlotsTest() {
+    }
+
+    @Test
+    public void testAddRemoveReusesHoles() {
+        final ElementSlots slots = new ElementSlots();
+
+        Assert.assertEquals(0, slots.add(10));
+        Assert.assertEquals(1, slots.add(3));
+        Assert.assertEquals(2, slots.add(7));
+        Assert.assertEquals(3, slots.getSlotsCount());
+
+        Assert.assertEquals(1, slots.remove(3));
+        Assert.assertEquals(ElementSlots.NO_SLOT, slots.remove(3));
+        Assert.assertEquals(ElementSlots.NO_SLOT, slots.getSlot(3));
+        Assert.assertTrue(slots.isHole(1));
+        Assert.assertEquals(1, slots.getHolesCount());
+        Assert.assertEquals(2, slots.getElementsCount());
+
+        //Hole reused before growing:
+        Assert.assertEquals(1, slots.add(100));
+        Assert.assertEquals(100, slots.getStoreId(1));
+        Assert.assertEquals(0, slots.getHolesCount());
+        Assert.assertEquals(3, slots.add(3));
+        Assert.assertEquals(4, slots.getSlotsCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddTwice() {
+        final ElementSlots slots = new ElementSlots();
+        slots.add(1);
+        slots.add(1);
+    }
+
+    @Test
+    public void testCompact() {
+        final ElementSlots slots = new ElementSlots();
+        for (int i = 0; i < 6; i++) {
+            slots.add(i);
+        }
+        slots.collectDirtyRanges(0);
+
+        slots.remove(1);
+        slots.remove(2);
+        slots.remove(5);
+
+        final List<int[]> moves = new ArrayList<>();
+        Assert.assertEquals(1, slots.compact(1, (from, to) -> moves.add(new int[]{from, to})));
+
+        //Trailing hole removed, then the last element moved into the last hole:
+        Assert.assertEquals(1, moves.size());
+        Assert.assertArrayEquals(new int[]{4, 2}, moves.get(0));
+        Assert.assertEquals(2, slots.getSlot(4));
+        Assert.assertEquals(4, slots.getSlotsCount());
+        Assert.assertEquals(1, slots.getHolesCount());
+
+        Assert.assertEquals(1, slots.compact(10, (from, to) -> moves.add(new int[]{from, to})));
+        Assert.assertArrayEquals(new int[]{3, 1}, moves.get(1));
+        Assert.assertEquals(3, slots.getSlotsCount());
+        Assert.assertEquals(0, slots.getHolesCount());
+        for (int slot = 0; slot < slots.getSlotsCount(); slot++) {
+            Assert.assertFalse(slots.isHole(slot));
+            Assert.assertEquals(slot, slots.getSlot(slots.getStoreId(slot)));
+        }
+    }
+
+    @Test
+    public void testDirtyRanges() {
+        final ElementSlots slots = new ElementSlots();
+        for (int i = 0; i < 100; i++) {
+            slots.add(i);
+        }
+
+        Assert.assertArrayEquals(new int[]{0, 100}, slots.collectDirtyRanges(0));
+        Assert.assertFalse(slots.hasDirtySlots());
+
+        slots.markDirty(50);
+        slots.markDirty(10);
+        slots.markDirty(12);
+        slots.markDirty(10);
+        slots.remove(90);
+        Assert.assertArrayEquals(new int[]{10, 11, 12, 13, 50, 51, 90, 91}, slots.collectDirtyRanges(0));
+
+        slots.markDirty(50);
+        slots.markDirty(10);
+        slots.markDirty(12);
+        Assert.assertArrayEquals(new int[]{10, 13, 50, 51}, slots.collectDirtyRanges(4));
+    }
+
+    @Test
+    public void testDirtyRangesSkipRemovedSlots() {
+        final ElementSlots slots = new ElementSlots();
+        for (int i = 0; i < 10; i++) {
+            slots.add(i);
+        }
+        slots.collectDirtyRanges(0);
+
+        slots.remove(9);
+        slots.remove(3);
+        slots.compact(0, (from, to) -> {
+        });
+
+        Assert.assertEquals(9, slots.getSlotsCount());
+        Assert.assertArrayEquals(new int[]{3, 4}, slots.collectDirtyRanges(0));
+    }
+}
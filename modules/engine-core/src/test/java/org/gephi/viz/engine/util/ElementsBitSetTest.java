@@ -0,0 +1,155 @@
+package org.gephi.viz.engine.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class ElementsBitSetTest {
+
+    public ElementsBitSetTest() {
+    }
+
+    private static ElementsBitSet<Integer> newSet() {
+        return new ElementsBitSet<>(Integer::intValue);
+    }
+
+    @Test
+    public void testAddRemove() {
+        final ElementsBitSet<Integer> set = newSet();
+
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertTrue(set.add(3));
+        Assert.assertFalse(set.add(3));
+        Assert.assertTrue(set.add(1000));
+        Assert.assertEquals(2, set.size());
+
+        Assert.assertTrue(set.contains(3));
+        Assert.assertTrue(set.contains(1000));
+        Assert.assertFalse(set.contains(4));
+        Assert.assertFalse(set.contains(100000));
+        Assert.assertFalse(set.contains(-1));
+
+        Assert.assertTrue(set.remove(3));
+        Assert.assertFalse(set.remove(3));
+        Assert.assertEquals(1, set.size());
+        Assert.assertFalse(set.contains(3));
+    }
+
+    @Test
+    public void testBulkStoreIds() {
+        final ElementsBitSet<Integer> set = newSet();
+
+        Assert.assertTrue(set.addAll(new Integer[]{5, 64, 65, 5, 200}));
+        Assert.assertEquals(4, set.size());
+        Assert.assertArrayEquals(new int[]{5, 64, 65, 200}, set.toStoreIdArray());
+
+        Assert.assertTrue(set.removeAll(new int[]{64, 300}));
+        Assert.assertArrayEquals(new int[]{5, 65, 200}, set.toStoreIdArray());
+
+        Assert.assertTrue(set.retainAll(new int[]{65, 200, 1000}));
+        Assert.assertArrayEquals(new int[]{65, 200}, set.toStoreIdArray());
+        Assert.assertFalse(set.retainAll(new int[]{65, 200}));
+    }
+
+    @Test
+    public void testUnionIntersect() {
+        final ElementsBitSet<Integer> a = newSet();
+        final ElementsBitSet<Integer> b = newSet();
+
+        a.addAll(new Integer[]{1, 2, 3});
+        b.addAll(new Integer[]{3, 4, 500});
+
+        Assert.assertTrue(a.union(b));
+        Assert.assertArrayEquals(new int[]{1, 2, 3, 4, 500}, a.toStoreIdArray());
+        Assert.assertFalse(a.union(b));
+
+        final ElementsBitSet<Integer> c = newSet();
+        c.addAll(new Integer[]{2, 500, 600});
+
+        Assert.assertTrue(a.intersect(c));
+        Assert.assertArrayEquals(new int[]{2, 500}, a.toStoreIdArray());
+        Assert.assertEquals(2, a.size());
+    }
+
+    @Test
+    public void testContainsExactly() {
+        final ElementsBitSet<Integer> set = newSet();
+        set.addAll(new Integer[]{1, 2, 3});
+
+        Assert.assertTrue(set.containsExactly(Arrays.asList(3, 2, 1)));
+        Assert.assertTrue(set.containsExactly(Arrays.asList(3, 2, 1, 1)));
+        Assert.assertFalse(set.containsExactly(Arrays.asList(1, 2)));
+        Assert.assertFalse(set.containsExactly(Arrays.asList(1, 2, 4)));
+        Assert.assertFalse(set.containsExactly(Arrays.asList(1, 2, 2)));
+
+        Assert.assertTrue(set.containsExactly(new Integer[]{3, 2, 1, 3}));
+        Assert.assertFalse(set.containsExactly(new Integer[]{1, 1, 2}));
+        Assert.assertFalse(set.containsExactly(new Integer[]{1, 2, 3, 4}));
+    }
+
+    private static final class StoreElement {
+
+        private final int storeId;
+
+        StoreElement(int storeId) {
+            this.storeId = storeId;
+        }
+    }
+
+    @Test
+    public void testReusedStoreId() {
+        final ElementsBitSet<StoreElement> set = new ElementsBitSet<>(e -> e.storeId);
+        final StoreElement removed = new StoreElement(5);
+        final StoreElement reusing = new StoreElement(5);
+
+        Assert.assertTrue(set.add(removed));
+        Assert.assertTrue(set.contains(removed));
+        Assert.assertFalse(set.contains(reusing));
+        Assert.assertFalse(set.remove(reusing));
+
+        Assert.assertTrue(set.add(reusing));
+        Assert.assertEquals(1, set.size());
+        Assert.assertFalse(set.contains(removed));
+        Assert.assertTrue(set.contains(reusing));
+    }
+
+    @Test
+    public void testSetView() {
+        final ElementsBitSet<Integer> set = newSet();
+        set.addAll(new Integer[]{200, 3, 64});
+
+        final Iterator<Integer> iterator = set.asSet().iterator();
+        Assert.assertEquals(3, iterator.next().intValue());
+        Assert.assertEquals(64, iterator.next().intValue());
+        Assert.assertEquals(200, iterator.next().intValue());
+        Assert.assertFalse(iterator.hasNext());
+
+        Assert.assertTrue(set.asSet().contains(64));
+        Assert.assertFalse(set.asSet().contains(65));
+
+        set.remove(64);
+        Assert.assertEquals(2, set.asSet().size());
+        Assert.assertFalse(set.asSet().contains(64));
+    }
+
+    @Test
+    public void testClear() {
+        final ElementsBitSet<Integer> set = newSet();
+
+        Assert.assertFalse(set.clear());
+        set.add(10);
+        Assert.assertTrue(set.clear());
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertEquals(-1, set.nextStoreId(0));
+
+        Assert.assertTrue(set.add(10));
+        Assert.assertTrue(set.contains(10));
+        Assert.assertEquals(1, set.size());
+    }
+}
@@ -0,0 +1,109 @@
+package org.gephi.viz.engine.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class InputEventsQueueTest {
+
+    public InputEventsQueueTest() {
+    }
+
+    @Test
+    public void testOrder() {
+        final InputEventsQueue<Integer> queue = new InputEventsQueue<>();
+        Assert.assertTrue(queue.isEmpty());
+
+        for (int i = 0; i < 100; i++) {
+            queue.add(i);
+        }
+        Assert.assertFalse(queue.isEmpty());
+
+        Assert.assertEquals(100, queue.drain(null));
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i, queue.getDrained(i).intValue());
+        }
+
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertEquals(0, queue.drain(null));
+        Assert.assertEquals(0, queue.getDrainedCount());
+    }
+
+    @Test
+    public void testCoalescing() {
+        final InputEventsQueue<Integer> queue = new InputEventsQueue<>();
+        //Merge consecutive even numbers by summing them:
+        final InputEventsQueue.Coalescer<Integer> coalescer = (previous, next) -> {
+            if (previous % 2 == 0 && next % 2 == 0) {
+                return previous + next;
+            }
+            return null;
+        };
+
+        final int[] events = {2, 4, 6, 1, 8, 10, 3, 5};
+        for (int event : events) {
+            queue.add(event);
+        }
+
+        Assert.assertEquals(5, queue.drain(coalescer));
+        final int[] expected = {12, 1, 18, 3, 5};
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i], queue.getDrained(i).intValue());
+        }
+    }
+
+    @Test
+    public void testMultipleProducers() throws InterruptedException {
+        final InputEventsQueue<Integer> queue = new InputEventsQueue<>();
+        final int producers = 4;
+        final int eventsPerProducer = 100000;
+
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    queue.add(producer * eventsPerProducer + i);
+                }
+            });
+            threads[p].start();
+        }
+
+        final int[] lastByProducer = new int[producers];
+        Arrays.fill(lastByProducer, -1);
+
+        int received = 0;
+        startLatch.countDown();
+        boolean producing = true;
+        while (producing || !queue.isEmpty()) {
+            producing = false;
+            for (Thread thread : threads) {
+                producing |= thread.isAlive();
+            }
+
+            final int count = queue.drain(null);
+            for (int i = 0; i < count; i++) {
+                final int event = queue.getDrained(i);
+                final int producer = event / eventsPerProducer;
+                //Events of one producer keep their order:
+                Assert.assertTrue(event % eventsPerProducer > lastByProducer[producer]);
+                lastByProducer[producer] = event % eventsPerProducer;
+            }
+            received += count;
+        }
+
+        Assert.assertEquals(producers * eventsPerProducer, received);
+    }
+}
@@ -0,0 +1,47 @@
+package org.gephi.viz.engine.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class ParallelFillTest {
+
+    public ParallelFillTest() {
+    }
+
+    @Test
+    public void testSequentialBelowThreshold() {
+        Assert.assertEquals(1, ParallelFill.chunksCount(0));
+        Assert.assertEquals(1, ParallelFill.chunksCount(ParallelFill.getParallelThreshold() - 1));
+    }
+
+    @Test
+    public void testChunksCoverAllElements() {
+        final int elementsCount = 1000003;
+        final int chunksCount = 7;
+
+        Assert.assertEquals(0, ParallelFill.chunkStart(0, chunksCount, elementsCount));
+        Assert.assertEquals(elementsCount, ParallelFill.chunkStart(chunksCount, chunksCount, elementsCount));
+
+        for (int chunk = 0; chunk < chunksCount; chunk++) {
+            Assert.assertTrue(ParallelFill.chunkStart(chunk, chunksCount, elementsCount) <= ParallelFill.chunkStart(chunk + 1, chunksCount, elementsCount));
+        }
+    }
+
+    @Test
+    public void testForEachChunk() {
+        final int chunksCount = 16;
+        final AtomicIntegerArray visits = new AtomicIntegerArray(chunksCount);
+
+        ParallelFill.forEachChunk(chunksCount, visits::incrementAndGet);
+
+        for (int chunk = 0; chunk < chunksCount; chunk++) {
+            Assert.assertEquals(1, visits.get(chunk));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.gephi.viz.engine.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class TimingHistogramTest {
+
+    public TimingHistogramTest() {
+    }
+
+    @Test
+    public void testEmpty() {
+        final TimingHistogram histogram = new TimingHistogram(10);
+
+        Assert.assertEquals(0, histogram.getP50());
+        Assert.assertEquals(0, histogram.getMax());
+        Assert.assertEquals(0, histogram.getWindowCount());
+    }
+
+    @Test
+    public void testBucketBounds() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE / 3}) {
+            final long upperBound = TimingHistogram.bucketUpperBound(TimingHistogram.bucketIndex(value));
+            Assert.assertTrue(upperBound >= value);
+            Assert.assertTrue(upperBound - value <= value / 16);
+        }
+
+        Assert.assertEquals(Long.MAX_VALUE, TimingHistogram.bucketUpperBound(TimingHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final TimingHistogram histogram = new TimingHistogram(1000);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertApproximately(500_000, histogram.getP50());
+        assertApproximately(950_000, histogram.getP95());
+        assertApproximately(990_000, histogram.getP99());
+        Assert.assertEquals(1_000_000, histogram.getMax());
+    }
+
+    @Test
+    public void testRollingWindow() {
+        final TimingHistogram histogram = new TimingHistogram(100);
+        for (int i = 0; i < 100; i++) {
+            histogram.record(1_000_000);
+        }
+        for (int i = 0; i < 100; i++) {
+            histogram.record(1000);
+        }
+
+        Assert.assertEquals(100, histogram.getWindowCount());
+        Assert.assertEquals(200, histogram.getTotalCount());
+        Assert.assertEquals(1000, histogram.getMax());
+        assertApproximately(1000, histogram.getP99());
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getWindowCount());
+        Assert.assertEquals(0, histogram.getMax());
+    }
+
+    private static void assertApproximately(long expected, long actual) {
+        Assert.assertTrue("Expected ~" + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 16);
+    }
+}
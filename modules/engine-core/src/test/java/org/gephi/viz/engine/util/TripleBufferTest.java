@@ -0,0 +1,94 @@
+package org.gephi.viz.engine.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class TripleBufferTest {
+
+    public TripleBufferTest() {
+    }
+
+    private static class Frame {
+
+        private int a;
+        private int b;
+    }
+
+    @Test
+    public void testNothingPublished() {
+        final TripleBuffer<Frame> buffer = new TripleBuffer<>(Frame::new);
+
+        Assert.assertFalse(buffer.acquire());
+        Assert.assertNotSame(buffer.write(), buffer.draw());
+    }
+
+    @Test
+    public void testPublishAcquire() {
+        final TripleBuffer<Frame> buffer = new TripleBuffer<>(Frame::new);
+
+        final Frame written = buffer.write();
+        written.a = 1;
+        buffer.publish();
+        Assert.assertNotSame(written, buffer.write());
+
+        Assert.assertTrue(buffer.acquire());
+        Assert.assertSame(written, buffer.draw());
+        Assert.assertFalse(buffer.acquire());
+        Assert.assertSame(written, buffer.draw());
+    }
+
+    @Test
+    public void testLatestFrameWins() {
+        final TripleBuffer<Frame> buffer = new TripleBuffer<>(Frame::new);
+
+        buffer.write().a = 1;
+        buffer.publish();
+        buffer.write().a = 2;
+        buffer.publish();
+        buffer.write().a = 3;
+        buffer.publish();
+
+        Assert.assertTrue(buffer.acquire());
+        Assert.assertEquals(3, buffer.draw().a);
+        Assert.assertNotSame(buffer.write(), buffer.draw());
+    }
+
+    @Test
+    public void testConcurrentNoTearing() throws InterruptedException {
+        final TripleBuffer<Frame> buffer = new TripleBuffer<>(Frame::new);
+        final int frames = 200000;
+        final AtomicBoolean torn = new AtomicBoolean(false);
+        final AtomicInteger lastSeen = new AtomicInteger(0);
+
+        final Thread writer = new Thread(() -> {
+            for (int i = 1; i <= frames; i++) {
+                final Frame frame = buffer.write();
+                frame.a = i;
+                frame.b = -i;
+                buffer.publish();
+            }
+        });
+
+        writer.start();
+        while (lastSeen.get() < frames) {
+            if (buffer.acquire()) {
+                final Frame frame = buffer.draw();
+                if (frame.a != -frame.b || frame.a < lastSeen.get()) {
+                    torn.set(true);
+                    break;
+                }
+                lastSeen.set(frame.a);
+            }
+        }
+        writer.join();
+
+        Assert.assertFalse(torn.get());
+    }
+}
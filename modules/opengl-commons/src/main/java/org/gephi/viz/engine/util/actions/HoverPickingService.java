@@ -0,0 +1,246 @@
+package org.gephi.viz.engine.util.actions;
+
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphObserver;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeIterable;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.status.GraphSelectionNeighbours;
+import org.gephi.viz.engine.structure.GraphIndex;
+import org.joml.Vector2f;
+
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Picks the node under the mouse cursor outside of the rendering thread, or collects the edges and neighbours of a node
+ * picked elsewhere (see {@link #requestPickedNode}).
+ *
+ * <p>
+ * Only the latest request is kept: requests made while a pick is running replace each other and only the last one
+ * is picked. When the picked node, its graph and the neighbours option don't change, the previous
+ * result is kept and nothing is collected again.</p>
+ *
+ * <p>
+ * Results are published as a whole and applied to the selection by {@link #applyPendingResult()}, which must be
+ * called in the rendering thread before the world updaters run, so they never see a partially updated selection.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class HoverPickingService {
+
+    private final VizEngine<?, ?> engine;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor((Runnable r) -> {
+        final Thread t = new Thread(r, "Hover Picking");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicReference<PickRequest> pendingRequest = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final AtomicReference<PickResult> pendingResult = new AtomicReference<>();
+
+    //Only accessed by the picking thread:
+    private PickResult lastResult = null;
+    private GraphView observedView = null;
+    private GraphObserver graphObserver = null;
+
+    public HoverPickingService(VizEngine<?, ?> engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Requests picking the node under the given world position, replacing any request that is still pending.
+     *
+     * @param worldCoords World coordinates
+     */
+    public void requestPick(Vector2f worldCoords) {
+        pendingRequest.set(new PickRequest(new Vector2f(worldCoords), null));
+        schedule();
+    }
+
+    /**
+     * Requests selecting a node that was already picked, for example on the GPU, so only its edges and neighbours are
+     * collected. Replaces any request that is still pending.
+     *
+     * @param node Picked node, or null to clear the selection
+     */
+    public void requestPickedNode(Node node) {
+        pendingRequest.set(new PickRequest(null, node));
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::pickPendingRequests);
+            } catch (RejectedExecutionException ex) {
+                //Already shut down
+                scheduled.set(false);
+            }
+        }
+    }
+
+    private void pickPendingRequests() {
+        try {
+            PickRequest request;
+            while ((request = pendingRequest.getAndSet(null)) != null) {
+                pick(request);
+            }
+        } catch (Throwable ex) {
+            ex.printStackTrace();//TODO Logger
+        } finally {
+            scheduled.set(false);
+        }
+
+        //A request made after the last check but before resetting the flag would not be picked otherwise:
+        if (pendingRequest.get() != null) {
+            schedule();
+        }
+    }
+
+    private void pick(PickRequest request) {
+        final GraphIndex index = engine.getLookup().lookup(GraphIndex.class);
+        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+        final Graph graph = engine.getGraphModel().getGraphVisible();
+        final boolean autoSelectNeighbours = renderingOptions.isAutoSelectNeighbours();
+
+        final boolean graphChanged = checkGraphChanged(graph);
+        final Node frontNode;
+        if (request.position != null) {
+            frontNode = findFrontNode(index, request.position);
+        } else {
+            //Picked elsewhere, it could have been removed since:
+            frontNode = request.node != null && graph.contains(request.node) ? request.node : null;
+        }
+
+        if (lastResult != null && !graphChanged
+                && lastResult.node == frontNode
+                && lastResult.autoSelectNeighbours == autoSelectNeighbours) {
+            //Same node, the published selection is still valid
+            return;
+        }
+
+        final PickResult result;
+        if (frontNode != null) {
+            result = new PickResult(
+                    frontNode,
+                    graph.getEdges(frontNode).toArray(),
+                    autoSelectNeighbours ? graph.getNeighbors(frontNode).toArray() : null,
+                    autoSelectNeighbours
+            );
+        } else {
+            result = new PickResult(null, null, null, autoSelectNeighbours);
+        }
+
+        lastResult = result;
+        pendingResult.set(result);
+    }
+
+    private static Node findFrontNode(GraphIndex index, Vector2f position) {
+        final NodeIterable iterable = index.getNodesUnderPosition(position.x, position.y);
+        final Iterator<Node> iterator = iterable.iterator();
+
+        try {
+            return iterator.hasNext() ? iterator.next() : null;
+        } finally {
+            if (iterator.hasNext()) {
+                iterable.doBreak();
+            }
+        }
+    }
+
+    private boolean checkGraphChanged(Graph graph) {
+        final GraphView view = graph.getView();
+        if (graphObserver == null || view != observedView) {
+            destroyObserver();
+
+            final GraphModel graphModel = engine.getGraphModel();
+            observedView = view;
+            graphObserver = graphModel.createGraphObserver(graph, false);
+            return true;
+        }
+
+        return graphObserver.hasGraphChanged();
+    }
+
+    private void destroyObserver() {
+        if (graphObserver != null && !graphObserver.isDestroyed()) {
+            graphObserver.destroy();
+        }
+        graphObserver = null;
+        observedView = null;
+    }
+
+    /**
+     * Applies the latest published result, if any, to the selection. Must be called in the rendering thread.
+     *
+     * @return True if the selection was updated
+     */
+    public boolean applyPendingResult() {
+        final PickResult result = pendingResult.getAndSet(null);
+        if (result == null) {
+            return false;
+        }
+
+        final GraphSelection selection = engine.getLookup().lookup(GraphSelection.class);
+        final GraphSelectionNeighbours neighboursSelection = engine.getLookup().lookup(GraphSelectionNeighbours.class);
+
+        if (result.node != null) {
+            selection.setSelectedNode(result.node);
+            selection.setSelectedEdges(result.edges);
+            neighboursSelection.setSelectedNodes(result.neighbours);
+        } else {
+            selection.clearSelectedNodes();
+            selection.clearSelectedEdges();
+            neighboursSelection.clearSelectedNodes();
+        }
+
+        return true;
+    }
+
+    public void shutdown() {
+        pendingRequest.set(null);
+        try {
+            executor.execute(this::destroyObserver);
+        } catch (RejectedExecutionException ex) {
+            //Already shut down
+        }
+        executor.shutdown();
+    }
+
+    private static final class PickRequest {
+
+        private final Vector2f position;
+        private final Node node;
+
+        public PickRequest(Vector2f position, Node node) {
+            this.position = position;
+            this.node = node;
+        }
+    }
+
+    private static final class PickResult {
+
+        private final Node node;
+        private final Edge[] edges;
+        private final Node[] neighbours;
+        private final boolean autoSelectNeighbours;
+
+        public PickResult(Node node, Edge[] edges, Node[] neighbours, boolean autoSelectNeighbours) {
+            this.node = node;
+            this.edges = edges;
+            this.neighbours = neighbours;
+            this.autoSelectNeighbours = autoSelectNeighbours;
+        }
+    }
+}
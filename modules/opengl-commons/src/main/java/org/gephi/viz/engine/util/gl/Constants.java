@@ -17,6 +17,9 @@ public class Constants {
     public static final String ATTRIB_NAME_TARGET_COLOR = "targetColor";
     public static final String ATTRIB_NAME_SOURCE_SIZE = "sourceSize";
     public static final String ATTRIB_NAME_TARGET_SIZE = "targetSize";
+    public static final String ATTRIB_NAME_SELECTION_STATE = "selectionState";
+    public static final String ATTRIB_NAME_SOURCE_INDEX = "sourceIndex";
+    public static final String ATTRIB_NAME_TARGET_INDEX = "targetIndex";
 
     public static final int SHADER_VERT_LOCATION = 0;
     public static final int SHADER_POSITION_LOCATION = 1;
@@ -27,6 +30,9 @@ public class Constants {
     public static final int SHADER_SOURCE_SIZE_LOCATION = 6;
     public static final int SHADER_TARGET_SIZE_LOCATION = 7;
     public static final int SHADER_POSITION_TARGET_LOCATION = 8;
+    public static final int SHADER_SELECTION_STATE_LOCATION = 9;
+    public static final int SHADER_SOURCE_INDEX_LOCATION = 10;
+    public static final int SHADER_TARGET_INDEX_LOCATION = 11;
 
     public static final String UNIFORM_NAME_MODEL_VIEW_PROJECTION = "mvp";
     public static final String UNIFORM_NAME_EDGE_SCALE = "edgeScale";
@@ -41,6 +47,29 @@ public class Constants {
     public static final String UNIFORM_NAME_COLOR_LIGHTEN_FACTOR = "colorLightenFactor";
     public static final String UNIFORM_NAME_COLOR_BIAS = "colorBias";
     public static final String UNIFORM_NAME_COLOR_MULTIPLIER = "colorMultiplier";
+    public static final String UNIFORM_NAME_DRAWN_SELECTION_STATE = "drawnSelectionState";
+    public static final String UNIFORM_NAME_BORDER_COLOR_BIAS = "borderColorBias";
+    public static final String UNIFORM_NAME_BORDER_COLOR_MULTIPLIER = "borderColorMultiplier";
+    public static final String UNIFORM_NAME_INSIDE_CIRCLE_SIZE = "insideCircleSize";
+    public static final String UNIFORM_NAME_NODES_POSITIONS = "nodesPositions";
+    public static final String UNIFORM_NAME_NODES_SIZES = "nodesSizes";
+    public static final String UNIFORM_NAME_NODES_COLORS = "nodesColors";
+    public static final String UNIFORM_NAME_CULLING_SIZE = "cullingSize";
+    public static final String UNIFORM_NAME_VIEW_BOUNDARIES = "viewBoundaries";
+    public static final String UNIFORM_NAME_EDGE_BOTH_SELECTION_COLOR = "edgeBothSelectionColor";
+    public static final String UNIFORM_NAME_EDGE_OUT_SELECTION_COLOR = "edgeOutSelectionColor";
+    public static final String UNIFORM_NAME_EDGE_IN_SELECTION_COLOR = "edgeInSelectionColor";
+
+    //Per instance selection states, see SHADER_SELECTION_STATE_LOCATION:
+    public static final byte SELECTION_STATE_UNSELECTED = 0;
+    public static final byte SELECTION_STATE_SELECTED = 1;
+    public static final byte SELECTION_STATE_HIDDEN = 2;
+    //Selected edges drawn with a selection color or the color of one of their nodes instead of their own color:
+    public static final byte SELECTION_STATE_SELECTED_BOTH = 3;
+    public static final byte SELECTION_STATE_SELECTED_OUT = 4;
+    public static final byte SELECTION_STATE_SELECTED_IN = 5;
+    public static final byte SELECTION_STATE_SELECTED_SOURCE_COLOR = 6;
+    public static final byte SELECTION_STATE_SELECTED_TARGET_COLOR = 7;
 
     //Rendering order:
     public static final int RENDERING_ORDER_NODES = 100;
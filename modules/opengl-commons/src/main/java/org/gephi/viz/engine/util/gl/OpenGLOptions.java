@@ -6,15 +6,35 @@ package org.gephi.viz.engine.util.gl;
  */
 public class OpenGLOptions {
 
+    private boolean disableQuadImpostorDrawing = false;
+    private boolean disableIndexedEdgeDrawing = false;
     private boolean disableIndirectDrawing = false;
     private boolean disableInstancedDrawing = false;
     private boolean disableVertexArrayDrawing = false;
     private boolean disableVAOS = false;
+    private boolean disablePersistentMappedBuffers = false;
+    private boolean enableIdBufferPicking = false;
     private boolean debug = false;
 
     public OpenGLOptions() {
     }
 
+    public boolean isDisableQuadImpostorDrawing() {
+        return disableQuadImpostorDrawing;
+    }
+
+    public void setDisableQuadImpostorDrawing(boolean disableQuadImpostorDrawing) {
+        this.disableQuadImpostorDrawing = disableQuadImpostorDrawing;
+    }
+
+    public boolean isDisableIndexedEdgeDrawing() {
+        return disableIndexedEdgeDrawing;
+    }
+
+    public void setDisableIndexedEdgeDrawing(boolean disableIndexedEdgeDrawing) {
+        this.disableIndexedEdgeDrawing = disableIndexedEdgeDrawing;
+    }
+
     public boolean isDisableIndirectDrawing() {
         return disableIndirectDrawing;
     }
@@ -47,6 +67,28 @@ public class OpenGLOptions {
         this.disableVAOS = disableVAOS;
     }
 
+    public boolean isDisablePersistentMappedBuffers() {
+        return disablePersistentMappedBuffers;
+    }
+
+    public void setDisablePersistentMappedBuffers(boolean disablePersistentMappedBuffers) {
+        this.disablePersistentMappedBuffers = disablePersistentMappedBuffers;
+    }
+
+    public boolean isEnableIdBufferPicking() {
+        return enableIdBufferPicking;
+    }
+
+    /**
+     * Picks hovered nodes by rendering their IDs around the cursor instead of querying the spatial index.
+     * Only used with quad impostor, instanced or indirect node rendering.
+     *
+     * @param enableIdBufferPicking True to enable it
+     */
+    public void setEnableIdBufferPicking(boolean enableIdBufferPicking) {
+        this.enableIdBufferPicking = enableIdBufferPicking;
+    }
+
     public boolean isDebug() {
         return debug;
     }
@@ -57,7 +99,7 @@ public class OpenGLOptions {
 
     @Override
     public String toString() {
-        return "OpenGLOptions{" + "disableIndirectDrawing=" + disableIndirectDrawing + ", disableInstancedDrawing=" + disableInstancedDrawing + ", disableVertexArrayDrawing=" + disableVertexArrayDrawing + ", disableVAOS=" + disableVAOS + ", debug=" + debug + '}';
+        return "OpenGLOptions{" + "disableQuadImpostorDrawing=" + disableQuadImpostorDrawing + ", disableIndexedEdgeDrawing=" + disableIndexedEdgeDrawing + ", disableIndirectDrawing=" + disableIndirectDrawing + ", disableInstancedDrawing=" + disableInstancedDrawing + ", disableVertexArrayDrawing=" + disableVertexArrayDrawing + ", disableVAOS=" + disableVAOS + ", disablePersistentMappedBuffers=" + disablePersistentMappedBuffers + ", enableIdBufferPicking=" + enableIdBufferPicking + ", debug=" + debug + '}';
     }
 
 }
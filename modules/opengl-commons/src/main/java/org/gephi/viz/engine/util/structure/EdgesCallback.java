@@ -25,6 +25,10 @@ public class EdgesCallback implements ElementsCallback<Edge> {
 
     @Override
     public void accept(Edge edge) {
+        //More edges than the graph count, from a spatial index query for example:
+        if (nextIndex == edgesArray.length) {
+            edgesArray = ensureEdgesArraySize(edgesArray, nextIndex + 1);
+        }
         edgesArray[nextIndex++] = edge;
     }
 
@@ -25,6 +25,10 @@ public class NodesCallback implements ElementsCallback<Node> {
 
     @Override
     public void accept(Node node) {
+        //More nodes than the graph count, from a spatial index query for example:
+        if (nextIndex == nodesArray.length) {
+            nodesArray = ensureNodesArraySize(nodesArray, nextIndex + 1);
+        }
         nodesArray[nextIndex++] = node;
     }
 
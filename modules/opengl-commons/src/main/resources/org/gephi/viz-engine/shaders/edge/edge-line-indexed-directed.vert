@@ -0,0 +1,101 @@
+//#if with_selection
+//#if selected
+//#outname "edge-line-indexed-directed_with_selection_selected.vert"
+//#else
+//#outname "edge-line-indexed-directed_with_selection_unselected.vert"
+//#endif
+//#endif
+#version 140
+#define ARROW_HEIGHT 1.1
+
+uniform mat4 mvp;
+//#if with_selection
+//#if selected
+uniform float colorBias;
+uniform float colorMultiplier;
+//#else
+uniform vec4 backgroundColor;
+uniform float colorLightenFactor;
+//#endif
+//#endif
+uniform float minWeight;
+uniform float weightDifferenceDivisor;
+uniform float edgeScaleMin;
+uniform float edgeScaleMax;
+uniform float drawnSelectionState;
+//Edges smaller than it in world units, and outside of the view (minX, minY, maxX, maxY), are not drawn:
+uniform float cullingSize;
+uniform vec4 viewBoundaries;
+
+//Node slots: x and y in the positions buffer, size and color in the attributes buffer, viewed as floats for the size
+//and as bytes for the color (see IndexedEdgeData):
+uniform samplerBuffer nodesPositions;
+uniform samplerBuffer nodesSizes;
+uniform samplerBuffer nodesColors;
+
+in vec3 vert;
+in int sourceIndex;
+in int targetIndex;
+in float size;//It's the weight
+in vec4 elementColor;
+in float selectionState;
+
+out vec4 fragColor;
+
+void main() {
+    //Edges keep their slot in the attributes buffer, so each pass skips the ones in the other selection state, and holes:
+    if (abs(selectionState - drawnSelectionState) > 0.5) {
+        gl_Position = vec4(2.0, 2.0, 2.0, 1.0);//Outside clip space, the whole instance is discarded
+        fragColor = vec4(0.0);
+        return;
+    }
+
+    vec2 position = texelFetch(nodesPositions, sourceIndex).xy;
+    vec2 targetPosition = texelFetch(nodesPositions, targetIndex).xy;
+    float targetSize = texelFetch(nodesSizes, targetIndex).x;
+
+    float thickness = mix(edgeScaleMin, edgeScaleMax, (size - minWeight) / weightDifferenceDivisor);
+
+    vec2 direction = targetPosition - position;
+
+    //Same culling the other edge pipelines do when filling their buffers, the line ends at the target border so it can
+    //extend beyond the target position:
+    float extent = thickness * ARROW_HEIGHT * 2.0;
+    bool subPixel = dot(direction, direction) < cullingSize * cullingSize && extent < cullingSize && targetSize < cullingSize;
+    bool outsideView = any(lessThan(max(position, targetPosition) + extent, viewBoundaries.xy))
+        || any(greaterThan(min(position, targetPosition) - extent, viewBoundaries.zw));
+    if (subPixel || outsideView) {
+        gl_Position = vec4(2.0, 2.0, 2.0, 1.0);
+        fragColor = vec4(0.0);
+        return;
+    }
+    vec2 directionNormalized = normalize(direction);
+
+    vec2 sideVector = vec2(-directionNormalized.y, directionNormalized.x) * thickness * 0.5;
+    vec2 arrowHeight = directionNormalized * thickness * ARROW_HEIGHT * 2.0;
+
+    vec2 lineEnd = direction - directionNormalized * targetSize;
+
+    vec2 edgeVert = lineEnd * vert.x + sideVector * vert.y + arrowHeight * vert.z;
+
+    gl_Position = mvp * vec4(edgeVert + position, 0.0, 1.0);
+
+    //bgra -> rgba because Java color is argb big-endian
+    vec4 color;
+    if(elementColor.a <= 0.0) {
+        //Color texels are already normalized:
+        color = texelFetch(nodesColors, sourceIndex * 2 + 1).bgra;
+    } else {
+        color = elementColor.bgra / 255.0;
+    }
+
+    //#if with_selection
+    //#if selected
+    color.rgb = colorBias + color.rgb * colorMultiplier;
+    //#else
+    color.rgb = mix(color.rgb, backgroundColor.rgb, colorLightenFactor);
+    //#endif
+    //#endif
+
+    fragColor = color;
+}
@@ -12,6 +12,9 @@ uniform mat4 mvp;
 //#if selected
 uniform float colorBias;
 uniform float colorMultiplier;
+uniform vec4 edgeBothSelectionColor;
+uniform vec4 edgeOutSelectionColor;
+uniform vec4 edgeInSelectionColor;
 //#else
 uniform vec4 backgroundColor;
 uniform float colorLightenFactor;
@@ -30,9 +33,27 @@ attribute vec4 sourceColor;
 attribute vec4 targetColor;
 attribute vec4 elementColor;
 
+//#if with_selection
+attribute float selectionState;
+//#endif
+
 varying vec4 fragColor;
 
 void main() {
+    //#if with_selection
+    //Edges keep their order in the attributes buffer, so each pass skips the ones in the other selection state and the hidden ones:
+    //#if selected
+    bool skipped = selectionState < 0.5 || abs(selectionState - 2.0) < 0.5;
+    //#else
+    bool skipped = selectionState > 0.5;
+    //#endif
+    if (skipped) {
+        gl_Position = vec4(2.0, 2.0, 2.0, 1.0);//Outside clip space, the whole instance is discarded
+        fragColor = vec4(0.0);
+        return;
+    }
+
+    //#endif
     float thickness = mix(edgeScaleMin, edgeScaleMax, (size - minWeight) / weightDifferenceDivisor);
 
     vec2 direction = targetPosition - position;
@@ -56,6 +77,20 @@ void main() {
 
     //#if with_selection
     //#if selected
+    //Selection colors, see SELECTION_STATE_SELECTED_BOTH and next ones:
+    if (selectionState > 2.5) {
+        if (selectionState < 3.5) {
+            color = edgeBothSelectionColor;
+        } else if (selectionState < 4.5) {
+            color = edgeOutSelectionColor;
+        } else if (selectionState < 5.5) {
+            color = edgeInSelectionColor;
+        } else if (selectionState < 6.5) {
+            color = sourceColor.bgra / 255.0;
+        } else {
+            color = targetColor.bgra / 255.0;
+        }
+    }
     color.rgb = colorBias + color.rgb * colorMultiplier;
     //#else
     color.rgb = mix(color.rgb, backgroundColor.rgb, colorLightenFactor);
@@ -0,0 +1,9 @@
+#version 140
+
+flat in uint pickingId;
+
+out uint fragPickingId;
+
+void main() {
+    fragPickingId = pickingId;
+}
@@ -0,0 +1,26 @@
+#version 140
+
+uniform mat4 mvp;
+uniform float drawnSelectionState;
+
+in vec2 vert;
+in vec2 position;
+in float size;
+in float selectionState;
+
+flat out uint pickingId;
+
+void main() {
+    //Same as the rendering layers, each pass only draws the instances in its selection state:
+    if (abs(selectionState - drawnSelectionState) > 0.5) {
+        gl_Position = vec4(2.0, 2.0, 2.0, 1.0);//Outside clip space, the whole instance is discarded
+        pickingId = 0u;
+        return;
+    }
+
+    vec2 instancePosition = size * vert + position;
+    gl_Position = mvp * vec4(instancePosition, 0.0, 1.0);
+
+    //0 is the background, ids are the instance index + 1:
+    pickingId = uint(gl_InstanceID) + 1u;
+}
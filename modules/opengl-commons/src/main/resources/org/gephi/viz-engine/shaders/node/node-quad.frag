@@ -0,0 +1,26 @@
+#version 140
+
+uniform float insideCircleSize;
+
+in vec2 circleCoord;
+flat in vec4 fillColor;
+flat in vec4 borderColor;
+
+out vec4 fragColor;
+
+void main() {
+    //Distance to the center, 1 at the node border:
+    float distance = length(circleCoord);
+    float smoothing = fwidth(distance);
+
+    float alpha = 1.0 - smoothstep(1.0 - smoothing, 1.0, distance);
+    if (alpha <= 0.0) {
+        discard;
+    }
+
+    float inside = 1.0 - smoothstep(insideCircleSize - smoothing, insideCircleSize, distance);
+    vec4 color = mix(borderColor, fillColor, inside);
+
+    //Alpha is only used as coverage, with multisampling (see NodeQuadModel):
+    fragColor = vec4(color.rgb, color.a * alpha);
+}
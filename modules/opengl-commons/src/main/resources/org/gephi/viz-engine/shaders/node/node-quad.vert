@@ -0,0 +1,42 @@
+#version 140
+
+uniform mat4 mvp;
+uniform vec4 backgroundColor;
+uniform float colorBias;
+uniform float colorMultiplier;
+uniform float borderColorBias;
+uniform float borderColorMultiplier;
+uniform float colorLightenFactor;
+uniform float drawnSelectionState;
+
+in vec2 vert;
+in vec2 position;
+in vec4 elementColor;
+in float size;
+in float selectionState;
+
+out vec2 circleCoord;
+flat out vec4 fillColor;
+flat out vec4 borderColor;
+
+void main() {
+    //Elements keep their order in the attributes buffer, so each pass skips the ones in the other selection state:
+    if (abs(selectionState - drawnSelectionState) > 0.5) {
+        gl_Position = vec4(2.0, 2.0, 2.0, 1.0);//Outside clip space, the whole instance is discarded
+        circleCoord = vec2(0.0);
+        fillColor = vec4(0.0);
+        borderColor = vec4(0.0);
+        return;
+    }
+
+    vec2 instancePosition = size * vert + position;
+    gl_Position = mvp * vec4(instancePosition, 0.0, 1.0);
+    circleCoord = vert;
+
+    //bgra -> rgba because Java color is argb big-endian
+    vec4 color = elementColor.bgra / 255.0;
+
+    //Both colors once per vertex instead of once per fragment:
+    fillColor = vec4(mix(colorBias + color.rgb * colorMultiplier, backgroundColor.rgb, colorLightenFactor), color.a);
+    borderColor = vec4(mix(borderColorBias + color.rgb * borderColorMultiplier, backgroundColor.rgb, colorLightenFactor), color.a);
+}
@@ -10,16 +10,29 @@ uniform float colorMultiplier;
 uniform vec4 backgroundColor;
 uniform float colorBias;
 uniform float colorLightenFactor;
+uniform float drawnSelectionState;
 //#endif
 
 attribute vec2 vert;
 attribute vec2 position;
 attribute vec4 elementColor;
 attribute float size;
+//#if with_selection
+attribute float selectionState;
+//#endif
 
 varying vec4 fragColor;
 
 void main() {	
+    //#if with_selection
+    //Elements keep their order in the attributes buffer, so each pass skips the ones in the other selection state:
+    if (abs(selectionState - drawnSelectionState) > 0.5) {
+        gl_Position = vec4(2.0, 2.0, 2.0, 1.0);//Outside clip space, the whole instance is discarded
+        fragColor = vec4(0.0);
+        return;
+    }
+
+    //#endif
     vec2 instancePosition = size * sizeMultiplier * vert + position;
     gl_Position = mvp * vec4(instancePosition, 0.0, 1.0);
 
@@ -0,0 +1,434 @@
+package org.gephi.viz.engine.lwjgl;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+import org.lwjgl.PointerBuffer;
+import org.lwjgl.egl.EGL;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.opengl.GLUtil;
+import org.lwjgl.system.Configuration;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.egl.EGL10.*;
+import static org.lwjgl.egl.EGL12.EGL_RENDERABLE_TYPE;
+import static org.lwjgl.egl.EGL12.eglBindAPI;
+import static org.lwjgl.egl.EGL14.EGL_OPENGL_API;
+import static org.lwjgl.egl.EGL14.EGL_OPENGL_BIT;
+import static org.lwjgl.egl.EGL15.*;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * Windowless rendering target, for servers and performance CI without any display (for example Mesa llvmpipe).
+ *
+ * <p>
+ * Creates an offscreen OpenGL context through EGL with a small pbuffer surface, and renders into a framebuffer
+ * object of the engine size. Nothing loops by itself: {@link #display()} renders one frame on demand, and
+ * {@link #readFrame(ByteBuffer)} or {@link #readFrameImage()} read it back.</p>
+ *
+ * <p>
+ * {@link VizEngine#start()} creates the context current in the calling thread, so every other call must be done in
+ * that same thread. Since OpenGL functions are loaded through EGL, this target should be started before any other
+ * LWJGL OpenGL usage in the process.</p>
+ *
+ * <p>
+ * With concurrent world updaters, the first world update is only drawn in the second frame. Use
+ * {@link org.gephi.viz.engine.spi.WorldUpdaterExecutionMode#SINGLE_THREAD} to draw it in the first one.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class LWJGLRenderingTargetHeadless implements LWJGLRenderingTarget {
+
+    //Core profile versions to try, from best to worst, before falling back to the default context:
+    private static final int[][] CONTEXT_VERSIONS = {{4, 6}, {4, 5}, {4, 3}, {3, 3}};
+
+    private final int samples;
+    private VizEngine engine;
+
+    //EGL:
+    private long eglDisplay = EGL_NO_DISPLAY;
+    private long eglSurface = EGL_NO_SURFACE;
+    private long eglContext = EGL_NO_CONTEXT;
+
+    //Framebuffers. The multisample one is only used with samples > 0, and resolved to the other one when reading:
+    private int framebuffer = 0;
+    private int colorRenderbuffer = 0;
+    private int multisampleFramebuffer = 0;
+    private int multisampleColorRenderbuffer = 0;
+    private int framebufferWidth = 0;
+    private int framebufferHeight = 0;
+
+    public LWJGLRenderingTargetHeadless(int width, int height, int samples) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("width and height should be >= 1");
+        }
+        if (samples < 0) {
+            throw new IllegalArgumentException("samples should be >= 0");
+        }
+
+        this.framebufferWidth = width;
+        this.framebufferHeight = height;
+        this.samples = samples;
+    }
+
+    public LWJGLRenderingTargetHeadless(int width, int height) {
+        this(width, height, 0);
+    }
+
+    @Override
+    public void setup(VizEngine engine) {
+        this.engine = engine;
+        engine.reshape(framebufferWidth, framebufferHeight);
+    }
+
+    private volatile boolean running = false;
+
+    @Override
+    public void start() {
+        if (eglContext == EGL_NO_CONTEXT) {
+            initializeContext();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    public void reshape(final int width, final int height) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("width and height should be >= 1");
+        }
+
+        //Framebuffers are resized in the next frame:
+        engine.reshape(width, height);
+    }
+
+    private void initializeContext() {
+        eglDisplay = eglGetDisplay(EGL_DEFAULT_DISPLAY);
+        if (eglDisplay == EGL_NO_DISPLAY) {
+            throw new IllegalStateException("Unable to get EGL display");
+        }
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            final IntBuffer major = stack.mallocInt(1);
+            final IntBuffer minor = stack.mallocInt(1);
+            if (!eglInitialize(eglDisplay, major, minor)) {
+                throw new IllegalStateException("Unable to initialize EGL: " + eglErrorString());
+            }
+            System.err.println("EGL_VERSION: " + major.get(0) + "." + minor.get(0));
+
+            if (!eglBindAPI(EGL_OPENGL_API)) {
+                throw new IllegalStateException("EGL does not support desktop OpenGL: " + eglErrorString());
+            }
+
+            final IntBuffer configAttributes = stack.ints(
+                EGL_SURFACE_TYPE, EGL_PBUFFER_BIT,
+                EGL_RENDERABLE_TYPE, EGL_OPENGL_BIT,
+                EGL_RED_SIZE, 8,
+                EGL_GREEN_SIZE, 8,
+                EGL_BLUE_SIZE, 8,
+                EGL_ALPHA_SIZE, 8,
+                EGL_NONE
+            );
+            final PointerBuffer configs = stack.mallocPointer(1);
+            final IntBuffer configsCount = stack.mallocInt(1);
+            if (!eglChooseConfig(eglDisplay, configAttributes, configs, configsCount) || configsCount.get(0) == 0) {
+                throw new IllegalStateException("No EGL config for a desktop OpenGL pbuffer: " + eglErrorString());
+            }
+            final long config = configs.get(0);
+
+            //Only to make the context current, rendering goes to the framebuffer object:
+            eglSurface = eglCreatePbufferSurface(eglDisplay, config, stack.ints(EGL_WIDTH, 1, EGL_HEIGHT, 1, EGL_NONE));
+            if (eglSurface == EGL_NO_SURFACE) {
+                throw new IllegalStateException("Unable to create EGL pbuffer surface: " + eglErrorString());
+            }
+
+            eglContext = createContext(stack, config);
+            if (eglContext == EGL_NO_CONTEXT) {
+                throw new IllegalStateException("Unable to create EGL OpenGL context: " + eglErrorString());
+            }
+        }
+
+        if (!eglMakeCurrent(eglDisplay, eglSurface, eglSurface, eglContext)) {
+            throw new IllegalStateException("Unable to make EGL context current: " + eglErrorString());
+        }
+
+        //Load OpenGL functions through EGL instead of the platform default (GLX, WGL...):
+        Configuration.OPENGL_EXPLICIT_INIT.set(true);
+        if (GL.getFunctionProvider() == null) {
+            GL.create(EGL.getFunctionProvider());
+        }
+
+        final GLCapabilities capabilities = GL.createCapabilities();
+        engine.addToLookup(capabilities);
+
+        if (engine.getLookup().lookup(OpenGLOptions.class).isDebug()) {
+            GLUtil.setupDebugMessageCallback();
+        }
+
+        //TODO: Use logger instead
+        System.err.println("GL_VENDOR: " + glGetString(GL_VENDOR));
+        System.err.println("GL_RENDERER: " + glGetString(GL_RENDERER));
+        System.err.println("GL_VERSION: " + glGetString(GL_VERSION));
+
+        updateFramebuffers();
+
+        glDisable(GL11.GL_DEPTH_TEST);//Z-order is set by the order of drawing
+
+        //Disable blending for better performance
+        glDisable(GL11.GL_BLEND);
+
+        System.out.println("OpenGL options: " + engine.getLookup().lookup(OpenGLOptions.class));
+        engine.initPipeline();
+    }
+
+    private long createContext(final MemoryStack stack, final long config) {
+        final boolean debug = engine.getLookup().lookup(OpenGLOptions.class).isDebug();
+
+        for (int[] version : CONTEXT_VERSIONS) {
+            final long context = eglCreateContext(eglDisplay, config, EGL_NO_CONTEXT, stack.ints(
+                EGL_CONTEXT_MAJOR_VERSION, version[0],
+                EGL_CONTEXT_MINOR_VERSION, version[1],
+                EGL_CONTEXT_OPENGL_PROFILE_MASK, EGL_CONTEXT_OPENGL_CORE_PROFILE_BIT,
+                EGL_CONTEXT_OPENGL_DEBUG, debug ? EGL_TRUE : EGL_FALSE,
+                EGL_NONE
+            ));
+
+            if (context != EGL_NO_CONTEXT) {
+                return context;
+            }
+        }
+
+        //EGL 1.4 or old drivers:
+        return eglCreateContext(eglDisplay, config, EGL_NO_CONTEXT, stack.ints(EGL_NONE));
+    }
+
+    private static String eglErrorString() {
+        return "0x" + Integer.toHexString(eglGetError());
+    }
+
+    /**
+     * (Re)creates the framebuffers when the engine size changed, and binds the one to draw into.
+     */
+    private void updateFramebuffers() {
+        final int width = engine.getWidth();
+        final int height = engine.getHeight();
+
+        if (framebuffer == 0 || width != framebufferWidth || height != framebufferHeight) {
+            destroyFramebuffers();
+
+            framebufferWidth = width;
+            framebufferHeight = height;
+
+            framebuffer = glGenFramebuffers();
+            colorRenderbuffer = glGenRenderbuffers();
+            glBindRenderbuffer(GL_RENDERBUFFER, colorRenderbuffer);
+            glRenderbufferStorage(GL_RENDERBUFFER, GL_RGBA8, width, height);
+            glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+            glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, colorRenderbuffer);
+            checkFramebufferStatus();
+
+            if (samples > 0) {
+                multisampleFramebuffer = glGenFramebuffers();
+                multisampleColorRenderbuffer = glGenRenderbuffers();
+                glBindRenderbuffer(GL_RENDERBUFFER, multisampleColorRenderbuffer);
+                glRenderbufferStorageMultisample(GL_RENDERBUFFER, samples, GL_RGBA8, width, height);
+                glBindFramebuffer(GL_FRAMEBUFFER, multisampleFramebuffer);
+                glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, multisampleColorRenderbuffer);
+                checkFramebufferStatus();
+            }
+
+            glBindRenderbuffer(GL_RENDERBUFFER, 0);
+            glViewport(0, 0, width, height);
+        }
+
+        glBindFramebuffer(GL_FRAMEBUFFER, samples > 0 ? multisampleFramebuffer : framebuffer);
+    }
+
+    private static void checkFramebufferStatus() {
+        final int status = glCheckFramebufferStatus(GL_FRAMEBUFFER);
+        if (status != GL_FRAMEBUFFER_COMPLETE) {
+            throw new IllegalStateException("Incomplete framebuffer: 0x" + Integer.toHexString(status));
+        }
+    }
+
+    private void destroyFramebuffers() {
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+
+        if (framebuffer != 0) {
+            glDeleteFramebuffers(framebuffer);
+            glDeleteRenderbuffers(colorRenderbuffer);
+            framebuffer = 0;
+            colorRenderbuffer = 0;
+        }
+
+        if (multisampleFramebuffer != 0) {
+            glDeleteFramebuffers(multisampleFramebuffer);
+            glDeleteRenderbuffers(multisampleColorRenderbuffer);
+            multisampleFramebuffer = 0;
+            multisampleColorRenderbuffer = 0;
+        }
+    }
+
+    private final float[] backgroundColor = new float[4];
+
+    /**
+     * Renders one frame into the framebuffer.
+     */
+    public void display() {
+        if (!running) {
+            return;
+        }
+
+        updateFramebuffers();
+
+        // Set the clear color
+        engine.getBackgroundColor(backgroundColor);
+
+        glClearColor(backgroundColor[0], backgroundColor[1], backgroundColor[2], backgroundColor[3]);
+
+        glClear(GL_COLOR_BUFFER_BIT); // clear the framebuffer
+
+        engine.display();
+    }
+
+    /**
+     * Renders the given count of frames back to back, for example to measure them with the engine frame stats.
+     *
+     * @param frames Frames count
+     */
+    public void display(final int frames) {
+        for (int i = 0; i < frames && running; i++) {
+            display();
+        }
+    }
+
+    /**
+     * Waits for the GPU to finish all the frames rendered so far.
+     */
+    public void finish() {
+        glFinish();
+    }
+
+    /**
+     * @return Bytes needed by {@link #readFrame(ByteBuffer)}
+     */
+    public int getFrameSizeBytes() {
+        return framebufferWidth * framebufferHeight * 4;
+    }
+
+    public int getFrameWidth() {
+        return framebufferWidth;
+    }
+
+    public int getFrameHeight() {
+        return framebufferHeight;
+    }
+
+    /**
+     * Reads back the last rendered frame as tightly packed RGBA bytes, rows from bottom to top (OpenGL order).
+     *
+     * @param dest Destination buffer with at least {@link #getFrameSizeBytes()} remaining bytes
+     */
+    public void readFrame(final ByteBuffer dest) {
+        if (framebuffer == 0) {
+            throw new IllegalStateException("No frame rendered yet");
+        }
+        if (dest.remaining() < getFrameSizeBytes()) {
+            throw new IllegalArgumentException("dest should have at least " + getFrameSizeBytes() + " remaining bytes");
+        }
+
+        if (samples > 0) {
+            glBindFramebuffer(GL_READ_FRAMEBUFFER, multisampleFramebuffer);
+            glBindFramebuffer(GL_DRAW_FRAMEBUFFER, framebuffer);
+            glBlitFramebuffer(
+                0, 0, framebufferWidth, framebufferHeight,
+                0, 0, framebufferWidth, framebufferHeight,
+                GL_COLOR_BUFFER_BIT, GL_NEAREST
+            );
+        }
+
+        glBindFramebuffer(GL_READ_FRAMEBUFFER, framebuffer);
+        glPixelStorei(GL_PACK_ALIGNMENT, 1);
+        glReadPixels(0, 0, framebufferWidth, framebufferHeight, GL_RGBA, GL_UNSIGNED_BYTE, dest);
+
+        glBindFramebuffer(GL_FRAMEBUFFER, samples > 0 ? multisampleFramebuffer : framebuffer);
+    }
+
+    /**
+     * Reads back the last rendered frame as an image.
+     *
+     * @return ARGB image, rows from top to bottom
+     */
+    public BufferedImage readFrameImage() {
+        final int width = framebufferWidth;
+        final int height = framebufferHeight;
+        final ByteBuffer pixels = MemoryUtil.memAlloc(getFrameSizeBytes());
+        try {
+            readFrame(pixels);
+
+            final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            final int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                final int rowStart = (height - 1 - y) * width * 4;
+                for (int x = 0; x < width; x++) {
+                    final int i = rowStart + x * 4;
+                    final int r = pixels.get(i) & 0xFF;
+                    final int g = pixels.get(i + 1) & 0xFF;
+                    final int b = pixels.get(i + 2) & 0xFF;
+                    final int a = pixels.get(i + 3) & 0xFF;
+                    row[x] = (a << 24) | (r << 16) | (g << 8) | b;
+                }
+                image.setRGB(0, y, width, 1, row, 0, width);
+            }
+
+            return image;
+        } finally {
+            MemoryUtil.memFree(pixels);
+        }
+    }
+
+    /**
+     * Releases the framebuffers and the EGL context. Must be called after {@link VizEngine#destroy()}, in the thread
+     * that started the engine.
+     */
+    public void destroy() {
+        running = false;
+
+        if (eglContext != EGL_NO_CONTEXT) {
+            destroyFramebuffers();
+            GL.setCapabilities(null);
+
+            eglMakeCurrent(eglDisplay, EGL_NO_SURFACE, EGL_NO_SURFACE, EGL_NO_CONTEXT);
+            eglDestroyContext(eglDisplay, eglContext);
+            eglContext = EGL_NO_CONTEXT;
+        }
+
+        if (eglSurface != EGL_NO_SURFACE) {
+            eglDestroySurface(eglDisplay, eglSurface);
+            eglSurface = EGL_NO_SURFACE;
+        }
+
+        if (eglDisplay != EGL_NO_DISPLAY) {
+            eglTerminate(eglDisplay);
+            eglDisplay = EGL_NO_DISPLAY;
+        }
+    }
+
+    public VizEngine getEngine() {
+        return engine;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -9,6 +9,13 @@ import org.gephi.viz.engine.lwjgl.pipeline.arrays.renderers.NodeRendererArrayDra
 import org.gephi.viz.engine.lwjgl.pipeline.arrays.updaters.EdgesUpdaterArrayDrawRendering;
 import org.gephi.viz.engine.lwjgl.pipeline.arrays.updaters.NodesUpdaterArrayDrawRendering;
 import org.gephi.viz.engine.lwjgl.pipeline.events.LWJGLInputEvent;
+import org.gephi.viz.engine.lwjgl.pipeline.events.LWJGLInputEventsCoalescer;
+import org.gephi.viz.engine.lwjgl.pipeline.impostor.QuadImpostorNodeData;
+import org.gephi.viz.engine.lwjgl.pipeline.impostor.renderers.NodeRendererQuadImpostor;
+import org.gephi.viz.engine.lwjgl.pipeline.impostor.updaters.NodesUpdaterQuadImpostorRendering;
+import org.gephi.viz.engine.lwjgl.pipeline.indexed.IndexedEdgeData;
+import org.gephi.viz.engine.lwjgl.pipeline.indexed.renderers.EdgeRendererIndexed;
+import org.gephi.viz.engine.lwjgl.pipeline.indexed.updaters.EdgesUpdaterIndexedRendering;
 import org.gephi.viz.engine.lwjgl.pipeline.indirect.IndirectNodeData;
 import org.gephi.viz.engine.lwjgl.pipeline.indirect.renderers.NodeRendererIndirect;
 import org.gephi.viz.engine.lwjgl.pipeline.indirect.updaters.NodesUpdaterIndirectRendering;
@@ -18,6 +25,7 @@ import org.gephi.viz.engine.lwjgl.pipeline.instanced.renderers.EdgeRendererInsta
 import org.gephi.viz.engine.lwjgl.pipeline.instanced.renderers.NodeRendererInstanced;
 import org.gephi.viz.engine.lwjgl.pipeline.instanced.updaters.EdgesUpdaterInstancedRendering;
 import org.gephi.viz.engine.lwjgl.pipeline.instanced.updaters.NodesUpdaterInstancedRendering;
+import org.gephi.viz.engine.lwjgl.pipeline.picking.NodesIdBufferPicker;
 import org.gephi.viz.engine.spi.VizEngineConfigurator;
 import org.gephi.viz.engine.status.*;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
@@ -42,7 +50,10 @@ public class VizEngineLWJGLConfigurator implements VizEngineConfigurator<LWJGLRe
         engine.addToLookup(graphSelectionNeighbours);
         engine.addToLookup(renderingOptions);
         engine.addToLookup(openGLOptions);
+        engine.addToLookup(new NodesIdBufferPicker(engine));//Only used when enabled in OpenGLOptions
 
+        setupQuadImpostorRendering(engine, graphIndex);
+        setupIndexedEdgeRendering(engine, graphIndex);
         setupIndirectRendering(engine, graphIndex);
         setupInstancedRendering(engine, graphIndex);//Preferred and better performance
         setupVertexArrayRendering(engine, graphIndex);//Fallback for very old versions of OpenGL
@@ -50,6 +61,22 @@ public class VizEngineLWJGLConfigurator implements VizEngineConfigurator<LWJGLRe
         setupInputListeners(engine);
     }
 
+    private void setupQuadImpostorRendering(VizEngine engine, GraphIndexImpl graphIndex) {
+        //Only nodes supported, edges are already simple quads
+        final QuadImpostorNodeData nodeData = new QuadImpostorNodeData();
+
+        engine.addRenderer(new NodeRendererQuadImpostor(engine, nodeData));
+        engine.addWorldUpdater(new NodesUpdaterQuadImpostorRendering(engine, nodeData, graphIndex));
+    }
+
+    private void setupIndexedEdgeRendering(VizEngine engine, GraphIndexImpl graphIndex) {
+        //Only edges supported, nodes have nothing to share
+        final IndexedEdgeData edgeData = new IndexedEdgeData();
+
+        engine.addRenderer(new EdgeRendererIndexed(engine, edgeData));
+        engine.addWorldUpdater(new EdgesUpdaterIndexedRendering(engine, edgeData, graphIndex));
+    }
+
     private void setupIndirectRendering(VizEngine engine, GraphIndexImpl graphIndex) {
         //Only nodes supported, edges don't have a LOD to benefit from
         final IndirectNodeData nodeData = new IndirectNodeData();
@@ -85,5 +112,6 @@ public class VizEngineLWJGLConfigurator implements VizEngineConfigurator<LWJGLRe
 
     private void setupInputListeners(VizEngine engine) {
         engine.addInputListener(new DefaultLWJGLEventListener(engine));
+        engine.setInputEventsCoalescer(new LWJGLInputEventsCoalescer());
     }
 }
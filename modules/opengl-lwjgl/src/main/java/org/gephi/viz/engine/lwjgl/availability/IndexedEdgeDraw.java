@@ -0,0 +1,27 @@
+package org.gephi.viz.engine.lwjgl.availability;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+import org.lwjgl.opengl.GLCapabilities;
+
+/**
+ * @author Eduardo Ramos
+ */
+public class IndexedEdgeDraw {
+
+    public static int getPreferenceInCategory() {
+        //Above instanced drawing, moving nodes don't need to write the edges again:
+        return 100;
+    }
+
+    public static boolean isAvailable(VizEngine engine) {
+        if (engine.getLookup().lookup(OpenGLOptions.class).isDisableIndexedEdgeDrawing()) {
+            return false;
+        }
+
+        final GLCapabilities capabilities = engine.getLookup().lookup(GLCapabilities.class);
+
+        //Instancing, texture buffers and GLSL 1.40:
+        return capabilities.OpenGL31;
+    }
+}
@@ -0,0 +1,26 @@
+package org.gephi.viz.engine.lwjgl.availability;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+import org.lwjgl.opengl.GLCapabilities;
+
+/**
+ * Persistent mapped buffers (glBufferStorage + glMapBufferRange with GL_MAP_PERSISTENT_BIT) let world updaters write attributes directly into GPU visible memory.
+ *
+ * @author Eduardo Ramos
+ */
+public class PersistentMappedBuffers {
+
+    public static boolean isAvailable(VizEngine engine) {
+        if (engine.getLookup().lookup(OpenGLOptions.class).isDisablePersistentMappedBuffers()) {
+            return false;
+        }
+
+        final GLCapabilities capabilities = engine.getLookup().lookup(GLCapabilities.class);
+
+        // https://www.khronos.org/registry/OpenGL-Refpages/gl4/html/glBufferStorage.xhtml
+        // Fences (glFenceSync) are core since 3.2
+        return capabilities.OpenGL44
+                || (capabilities.OpenGL32 && capabilities.GL_ARB_buffer_storage);
+    }
+}
@@ -0,0 +1,26 @@
+package org.gephi.viz.engine.lwjgl.availability;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+import org.lwjgl.opengl.GLCapabilities;
+
+/**
+ * @author Eduardo Ramos
+ */
+public class QuadImpostorDraw {
+
+    public static int getPreferenceInCategory() {
+        return 150;
+    }
+
+    public static boolean isAvailable(VizEngine engine) {
+        if (engine.getLookup().lookup(OpenGLOptions.class).isDisableQuadImpostorDrawing()) {
+            return false;
+        }
+
+        final GLCapabilities capabilities = engine.getLookup().lookup(GLCapabilities.class);
+
+        //Instancing and GLSL 1.40:
+        return capabilities.OpenGL31;
+    }
+}
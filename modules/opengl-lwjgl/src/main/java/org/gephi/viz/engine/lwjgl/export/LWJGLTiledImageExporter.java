@@ -0,0 +1,259 @@
+package org.gephi.viz.engine.lwjgl.export;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.export.StreamingPngWriter;
+import org.gephi.viz.engine.export.Tile;
+import org.gephi.viz.engine.export.TileCallback;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_PACK_BUFFER;
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * Exports the current view of an engine as a PNG image of any size, for example 30000x30000 for printing.
+ *
+ * <p>
+ * Tiles rendered by {@link VizEngine#renderTiles} go to a framebuffer object and are read back asynchronously through
+ * 2 pixel buffer objects: while a tile is being rendered and transferred, the previous one is copied to a band of a
+ * tiles row, which is streamed to a {@link StreamingPngWriter} when complete. Peak memory is one row of tiles
+ * (image width x tile size pixels) instead of the whole image.</p>
+ *
+ * <p>
+ * Must be used in the rendering thread, with the OpenGL context current. Requires OpenGL 3.0.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class LWJGLTiledImageExporter implements TileCallback {
+
+    public static final int DEFAULT_TILE_SIZE = 2048;
+
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final int PIXEL_BUFFERS_COUNT = 2;
+
+    private final VizEngine engine;
+    private final OutputStream out;
+    private final int tileSize;
+    private final int samples;
+
+    //GL objects:
+    private int framebuffer = 0;
+    private int colorRenderbuffer = 0;
+    private int multisampleFramebuffer = 0;
+    private int multisampleColorRenderbuffer = 0;
+    private final int[] pixelBuffers = new int[PIXEL_BUFFERS_COUNT];
+    private final Tile[] pixelBuffersTiles = new Tile[PIXEL_BUFFERS_COUNT];
+    private int nextPixelBuffer = 0;
+
+    //Previous GL state, restored at the end:
+    private final int[] previousFramebuffer = new int[1];
+    private final int[] previousViewport = new int[4];
+
+    //Image:
+    private StreamingPngWriter writer;
+    private int imageWidth;
+    private int columns;
+    private byte[] band;
+
+    private final float[] backgroundColor = new float[4];
+
+    public LWJGLTiledImageExporter(VizEngine engine, OutputStream out, int tileSize, int samples) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("tileSize should be >= 1");
+        }
+        if (samples < 0) {
+            throw new IllegalArgumentException("samples should be >= 0");
+        }
+
+        this.engine = engine;
+        this.out = out;
+        this.tileSize = tileSize;
+        this.samples = samples;
+    }
+
+    /**
+     * Renders the current view of the engine to a PNG file.
+     *
+     * @param engine Engine
+     * @param imageWidth Image width in pixels
+     * @param imageHeight Image height in pixels
+     * @param samples Multisampling samples, 0 to disable
+     * @param file Destination file
+     * @throws IOException If writing the file fails
+     */
+    public static void exportPNG(VizEngine engine, int imageWidth, int imageHeight, int samples, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            engine.renderTiles(imageWidth, imageHeight, DEFAULT_TILE_SIZE, new LWJGLTiledImageExporter(engine, out, DEFAULT_TILE_SIZE, samples));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    @Override
+    public void begin(int imageWidth, int imageHeight, int columns, int rows) {
+        this.imageWidth = imageWidth;
+        this.columns = columns;
+        this.band = new byte[imageWidth * Math.min(tileSize, imageHeight) * BYTES_PER_PIXEL];
+
+        try {
+            writer = new StreamingPngWriter(out, imageWidth, imageHeight);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        glGetIntegerv(GL_FRAMEBUFFER_BINDING, previousFramebuffer);
+        glGetIntegerv(GL_VIEWPORT, previousViewport);
+
+        framebuffer = glGenFramebuffers();
+        colorRenderbuffer = glGenRenderbuffers();
+        glBindRenderbuffer(GL_RENDERBUFFER, colorRenderbuffer);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_RGBA8, tileSize, tileSize);
+        glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, colorRenderbuffer);
+        checkFramebufferStatus();
+
+        if (samples > 0) {
+            multisampleFramebuffer = glGenFramebuffers();
+            multisampleColorRenderbuffer = glGenRenderbuffers();
+            glBindRenderbuffer(GL_RENDERBUFFER, multisampleColorRenderbuffer);
+            glRenderbufferStorageMultisample(GL_RENDERBUFFER, samples, GL_RGBA8, tileSize, tileSize);
+            glBindFramebuffer(GL_FRAMEBUFFER, multisampleFramebuffer);
+            glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, multisampleColorRenderbuffer);
+            checkFramebufferStatus();
+        }
+        glBindRenderbuffer(GL_RENDERBUFFER, 0);
+
+        glGenBuffers(pixelBuffers);
+        for (int pixelBuffer : pixelBuffers) {
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffer);
+            glBufferData(GL_PIXEL_PACK_BUFFER, (long) tileSize * tileSize * BYTES_PER_PIXEL, GL_STREAM_READ);
+        }
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+    }
+
+    private static void checkFramebufferStatus() {
+        final int status = glCheckFramebufferStatus(GL_FRAMEBUFFER);
+        if (status != GL_FRAMEBUFFER_COMPLETE) {
+            throw new IllegalStateException("Incomplete framebuffer: 0x" + Integer.toHexString(status));
+        }
+    }
+
+    @Override
+    public void beginTile(Tile tile) {
+        glBindFramebuffer(GL_FRAMEBUFFER, samples > 0 ? multisampleFramebuffer : framebuffer);
+        glViewport(0, 0, tile.getWidth(), tile.getHeight());
+
+        engine.getBackgroundColor(backgroundColor);
+        glClearColor(backgroundColor[0], backgroundColor[1], backgroundColor[2], backgroundColor[3]);
+        glClear(GL_COLOR_BUFFER_BIT);
+    }
+
+    @Override
+    public void endTile(Tile tile) {
+        if (samples > 0) {
+            glBindFramebuffer(GL_READ_FRAMEBUFFER, multisampleFramebuffer);
+            glBindFramebuffer(GL_DRAW_FRAMEBUFFER, framebuffer);
+            glBlitFramebuffer(
+                0, 0, tile.getWidth(), tile.getHeight(),
+                0, 0, tile.getWidth(), tile.getHeight(),
+                GL_COLOR_BUFFER_BIT, GL_NEAREST
+            );
+        }
+
+        //Start the asynchronous transfer of this tile:
+        final int current = nextPixelBuffer;
+        glBindFramebuffer(GL_READ_FRAMEBUFFER, framebuffer);
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffers[current]);
+        glPixelStorei(GL_PACK_ALIGNMENT, 1);
+        glReadPixels(0, 0, tile.getWidth(), tile.getHeight(), GL_RGBA, GL_UNSIGNED_BYTE, 0L);
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        pixelBuffersTiles[current] = tile;
+
+        //And copy the previous one, which had the time to arrive while this tile was rendered:
+        nextPixelBuffer = (current + 1) % PIXEL_BUFFERS_COUNT;
+        copyPixelBuffer(nextPixelBuffer);
+    }
+
+    private void copyPixelBuffer(final int index) {
+        final Tile tile = pixelBuffersTiles[index];
+        if (tile == null) {
+            return;
+        }
+        pixelBuffersTiles[index] = null;
+
+        final int tileWidth = tile.getWidth();
+        final int tileHeight = tile.getHeight();
+        final int rowBytes = tileWidth * BYTES_PER_PIXEL;
+
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffers[index]);
+        final ByteBuffer pixels = glMapBufferRange(GL_PIXEL_PACK_BUFFER, 0, (long) rowBytes * tileHeight, GL_MAP_READ_BIT);
+        if (pixels == null) {
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+            throw new IllegalStateException("Unable to map pixel buffer: 0x" + Integer.toHexString(glGetError()));
+        }
+
+        try {
+            //OpenGL rows go from bottom to top:
+            for (int row = 0; row < tileHeight; row++) {
+                pixels.position(row * rowBytes);
+                pixels.get(band, ((tileHeight - 1 - row) * imageWidth + tile.getX()) * BYTES_PER_PIXEL, rowBytes);
+            }
+        } finally {
+            glUnmapBuffer(GL_PIXEL_PACK_BUFFER);
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        }
+
+        if (tile.getColumn() == columns - 1) {
+            //Tiles row complete:
+            try {
+                for (int row = 0; row < tileHeight; row++) {
+                    writer.writeRow(band, row * imageWidth * BYTES_PER_PIXEL);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    @Override
+    public void end() {
+        try {
+            //The last tile is still pending:
+            copyPixelBuffer(nextPixelBuffer);
+            copyPixelBuffer((nextPixelBuffer + 1) % PIXEL_BUFFERS_COUNT);
+
+            writer.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            destroy();
+        }
+    }
+
+    private void destroy() {
+        glBindFramebuffer(GL_FRAMEBUFFER, previousFramebuffer[0]);
+        glViewport(previousViewport[0], previousViewport[1], previousViewport[2], previousViewport[3]);
+
+        glDeleteBuffers(pixelBuffers);
+        glDeleteFramebuffers(framebuffer);
+        glDeleteRenderbuffers(colorRenderbuffer);
+        if (multisampleFramebuffer != 0) {
+            glDeleteFramebuffers(multisampleFramebuffer);
+            glDeleteRenderbuffers(multisampleColorRenderbuffer);
+        }
+
+        framebuffer = 0;
+        colorRenderbuffer = 0;
+        multisampleFramebuffer = 0;
+        multisampleColorRenderbuffer = 0;
+        band = null;
+    }
+}
@@ -0,0 +1,219 @@
+package org.gephi.viz.engine.lwjgl.models;
+
+import org.gephi.viz.engine.lwjgl.util.gl.GLShaderProgram;
+import org.gephi.viz.engine.util.NumberUtils;
+import org.gephi.viz.engine.util.gl.Constants;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL31;
+
+import static org.gephi.viz.engine.util.gl.Constants.*;
+
+/**
+ * Same edge lines as {@link EdgeLineModelUndirected} and {@link EdgeLineModelDirected}, but each instance only has its
+ * source and target node slots, weight and color. Positions, sizes and node colors are fetched from the node slots
+ * texture buffers: positions in one buffer, sizes and colors in another one, so positions can be uploaded alone.
+ * <p>
+ * Instances also have a selection state, and each draw only shows the ones in the drawn selection state, so edges can
+ * keep their slot whatever their state.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgeLineModelIndexed {
+
+    public static final int SOURCE_INDEX_FLOATS = 1;
+    public static final int TARGET_INDEX_FLOATS = 1;
+    public static final int SIZE_FLOATS = 1;
+    public static final int COLOR_FLOATS = 1;
+
+    public static final int TOTAL_ATTRIBUTES_FLOATS
+            = SOURCE_INDEX_FLOATS
+            + TARGET_INDEX_FLOATS
+            + SIZE_FLOATS
+            + COLOR_FLOATS;
+
+    public static final int SELECTION_STATE_BYTES = 1;
+
+    //Node slots: x and y in the positions buffer, size and color in the attributes buffer:
+    public static final int NODE_POSITION_FLOATS = 2;
+    public static final int NODE_ATTRIBUTES_FLOATS = 2;
+
+    public static final int NODES_POSITIONS_TEXTURE_UNIT = 0;
+    public static final int NODES_SIZES_TEXTURE_UNIT = 1;
+    public static final int NODES_COLORS_TEXTURE_UNIT = 2;
+
+    private final boolean directed;
+    private final int vertexCount;
+
+    private GLShaderProgram program;
+    private GLShaderProgram programWithSelectionSelected;
+    private GLShaderProgram programWithSelectionUnselected;
+
+    //Uniform locations, resolved once after init:
+    private CommonUniformLocations programLocations;
+    private CommonUniformLocations programWithSelectionSelectedLocations;
+    private CommonUniformLocations programWithSelectionUnselectedLocations;
+    private int programWithSelectionSelectedColorBiasLocation;
+    private int programWithSelectionSelectedColorMultiplierLocation;
+    private int programWithSelectionUnselectedBackgroundColorLocation;
+    private int programWithSelectionUnselectedColorLightenFactorLocation;
+
+    public EdgeLineModelIndexed(boolean directed) {
+        this.directed = directed;
+        this.vertexCount = directed ? EdgeLineModelDirected.VERTEX_COUNT : EdgeLineModelUndirected.VERTEX_COUNT;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public float[] getVertexData() {
+        return directed ? EdgeLineModelDirected.getVertexData() : EdgeLineModelUndirected.getVertexData();
+    }
+
+    public int getVertexFloats() {
+        return directed ? EdgeLineModelDirected.VERTEX_FLOATS : EdgeLineModelUndirected.VERTEX_FLOATS;
+    }
+
+    private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "edge";
+
+    private static final String SHADERS_EDGE_LINE_FRAGMENT_SOURCE = "edge-line-indexed";
+
+    public void initGLPrograms() {
+        final String source = directed ? "edge-line-indexed-directed" : "edge-line-indexed-undirected";
+
+        program = createProgram(source)
+                .init();
+
+        programWithSelectionSelected = createProgram(source + "_with_selection_selected")
+                .addUniformName(UNIFORM_NAME_COLOR_BIAS)
+                .addUniformName(UNIFORM_NAME_COLOR_MULTIPLIER)
+                .init();
+
+        programWithSelectionUnselected = createProgram(source + "_with_selection_unselected")
+                .addUniformName(UNIFORM_NAME_BACKGROUND_COLOR)
+                .addUniformName(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR)
+                .init();
+
+        programLocations = new CommonUniformLocations(program);
+        programWithSelectionSelectedLocations = new CommonUniformLocations(programWithSelectionSelected);
+        programWithSelectionUnselectedLocations = new CommonUniformLocations(programWithSelectionUnselected);
+        programWithSelectionSelectedColorBiasLocation = programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_COLOR_BIAS);
+        programWithSelectionSelectedColorMultiplierLocation = programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_COLOR_MULTIPLIER);
+        programWithSelectionUnselectedBackgroundColorLocation = programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_BACKGROUND_COLOR);
+        programWithSelectionUnselectedColorLightenFactorLocation = programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR);
+    }
+
+    private static GLShaderProgram createProgram(String vertexSource) {
+        return new GLShaderProgram(SHADERS_ROOT, vertexSource, SHADERS_EDGE_LINE_FRAGMENT_SOURCE)
+                .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+                .addUniformName(UNIFORM_NAME_EDGE_SCALE_MIN)
+                .addUniformName(UNIFORM_NAME_EDGE_SCALE_MAX)
+                .addUniformName(UNIFORM_NAME_MIN_WEIGHT)
+                .addUniformName(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR)
+                .addUniformName(UNIFORM_NAME_DRAWN_SELECTION_STATE)
+                .addUniformName(UNIFORM_NAME_NODES_POSITIONS)
+                .addUniformName(UNIFORM_NAME_NODES_SIZES)
+                .addUniformName(UNIFORM_NAME_NODES_COLORS)
+                .addUniformName(UNIFORM_NAME_CULLING_SIZE)
+                .addUniformName(UNIFORM_NAME_VIEW_BOUNDARIES)
+                .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_SOURCE_INDEX, SHADER_SOURCE_INDEX_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_TARGET_INDEX, SHADER_TARGET_INDEX_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_SELECTION_STATE, SHADER_SELECTION_STATE_LOCATION);
+    }
+
+    public void drawInstanced(int instanceCount) {
+        if (instanceCount <= 0) {
+            return;
+        }
+
+        GL31.glDrawArraysInstanced(GL11.GL_TRIANGLES, 0, vertexCount, instanceCount);
+    }
+
+    public void stopUsingProgram() {
+        GL20.glUseProgram(0);
+    }
+
+    /**
+     * Edges are culled in the vertex shader, since they don't depend on the camera: the ones whose length and thickness
+     * are both below the culling size, and the ones outside of the view boundaries.
+     *
+     * @param cullingSize Culling size in world units, 0 to disable sub-pixel culling
+     * @param viewBoundariesFloats View boundaries: min x, min y, max x and max y
+     */
+    public void useProgram(float[] mvpFloats, float scale, float minWeight, float maxWeight, float cullingSize, float[] viewBoundariesFloats) {
+        program.use();
+        prepareCommonProgramData(program, programLocations, mvpFloats, scale, minWeight, maxWeight, SELECTION_STATE_SELECTED, cullingSize, viewBoundariesFloats);
+    }
+
+    public void useProgramWithSelectionSelected(float[] mvpFloats, float scale, float minWeight, float maxWeight, float cullingSize, float[] viewBoundariesFloats, float colorBias, float colorMultiplier) {
+        programWithSelectionSelected.use();
+        prepareCommonProgramData(programWithSelectionSelected, programWithSelectionSelectedLocations, mvpFloats, scale, minWeight, maxWeight, SELECTION_STATE_SELECTED, cullingSize, viewBoundariesFloats);
+        programWithSelectionSelected.setUniform1f(programWithSelectionSelectedColorBiasLocation, colorBias);
+        programWithSelectionSelected.setUniform1f(programWithSelectionSelectedColorMultiplierLocation, colorMultiplier);
+    }
+
+    public void useProgramWithSelectionUnselected(float[] mvpFloats, float scale, float minWeight, float maxWeight, float cullingSize, float[] viewBoundariesFloats, float[] backgroundColorFloats, float colorLightenFactor) {
+        programWithSelectionUnselected.use();
+        prepareCommonProgramData(programWithSelectionUnselected, programWithSelectionUnselectedLocations, mvpFloats, scale, minWeight, maxWeight, SELECTION_STATE_UNSELECTED, cullingSize, viewBoundariesFloats);
+        programWithSelectionUnselected.setUniform4fv(programWithSelectionUnselectedBackgroundColorLocation, backgroundColorFloats);
+        programWithSelectionUnselected.setUniform1f(programWithSelectionUnselectedColorLightenFactorLocation, colorLightenFactor);
+    }
+
+    private static void prepareCommonProgramData(GLShaderProgram program, CommonUniformLocations locations, float[] mvpFloats, float scale, float minWeight, float maxWeight, byte drawnSelectionState, float cullingSize, float[] viewBoundariesFloats) {
+        program.setUniformMatrix4fv(locations.modelViewProjection, mvpFloats);
+        program.setUniform1f(locations.drawnSelectionState, drawnSelectionState);
+        program.setUniform1f(locations.edgeScaleMin, EDGE_SCALE_MIN * scale);
+        program.setUniform1f(locations.edgeScaleMax, EDGE_SCALE_MAX * scale);
+        program.setUniform1f(locations.minWeight, minWeight);
+
+        if (NumberUtils.equalsEpsilon(minWeight, maxWeight, 1e-3f)) {
+            program.setUniform1f(locations.weightDifferenceDivisor, 1);
+        } else {
+            program.setUniform1f(locations.weightDifferenceDivisor, maxWeight - minWeight);
+        }
+
+        //Sizes are not used by undirected edges, setting an inactive uniform (-1 location) is ignored:
+        program.setUniform1i(locations.nodesPositions, NODES_POSITIONS_TEXTURE_UNIT);
+        program.setUniform1i(locations.nodesSizes, NODES_SIZES_TEXTURE_UNIT);
+        program.setUniform1i(locations.nodesColors, NODES_COLORS_TEXTURE_UNIT);
+
+        program.setUniform1f(locations.cullingSize, cullingSize);
+        program.setUniform4fv(locations.viewBoundaries, viewBoundariesFloats);
+    }
+
+    /**
+     * Locations of the uniforms every indexed line program has, resolved once after init.
+     */
+    private static final class CommonUniformLocations {
+
+        private final int modelViewProjection;
+        private final int edgeScaleMin;
+        private final int edgeScaleMax;
+        private final int minWeight;
+        private final int weightDifferenceDivisor;
+        private final int drawnSelectionState;
+        private final int nodesPositions;
+        private final int nodesSizes;
+        private final int nodesColors;
+        private final int cullingSize;
+        private final int viewBoundaries;
+
+        CommonUniformLocations(GLShaderProgram program) {
+            this.modelViewProjection = program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION);
+            this.edgeScaleMin = program.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MIN);
+            this.edgeScaleMax = program.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MAX);
+            this.minWeight = program.getUniformLocation(UNIFORM_NAME_MIN_WEIGHT);
+            this.weightDifferenceDivisor = program.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR);
+            this.drawnSelectionState = program.getUniformLocation(UNIFORM_NAME_DRAWN_SELECTION_STATE);
+            this.nodesPositions = program.getUniformLocation(UNIFORM_NAME_NODES_POSITIONS);
+            this.nodesSizes = program.getUniformLocation(UNIFORM_NAME_NODES_SIZES);
+            this.nodesColors = program.getUniformLocation(UNIFORM_NAME_NODES_COLORS);
+            this.cullingSize = program.getUniformLocation(UNIFORM_NAME_CULLING_SIZE);
+            this.viewBoundaries = program.getUniformLocation(UNIFORM_NAME_VIEW_BOUNDARIES);
+        }
+    }
+}
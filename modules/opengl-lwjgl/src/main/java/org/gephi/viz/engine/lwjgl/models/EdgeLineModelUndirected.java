@@ -22,6 +22,7 @@ public class EdgeLineModelUndirected {
     public static final int TARGET_COLOR_FLOATS = SOURCE_COLOR_FLOATS;
     public static final int COLOR_FLOATS = 1;
     public static final int SIZE_FLOATS = 1;
+    public static final int SELECTION_STATE_BYTES = 1;
 
     public static final int TOTAL_ATTRIBUTES_FLOATS
             = POSITION_SOURCE_FLOATS
@@ -40,6 +41,18 @@ public class EdgeLineModelUndirected {
     private GLShaderProgram programWithSelectionSelected;
     private GLShaderProgram programWithSelectionUnselected;
 
+    //Uniform locations, resolved once after init:
+    private CommonUniformLocations programLocations;
+    private CommonUniformLocations programWithSelectionSelectedLocations;
+    private CommonUniformLocations programWithSelectionUnselectedLocations;
+    private int programWithSelectionSelectedColorBiasLocation;
+    private int programWithSelectionSelectedColorMultiplierLocation;
+    private int programWithSelectionSelectedEdgeBothSelectionColorLocation;
+    private int programWithSelectionSelectedEdgeOutSelectionColorLocation;
+    private int programWithSelectionSelectedEdgeInSelectionColorLocation;
+    private int programWithSelectionUnselectedBackgroundColorLocation;
+    private int programWithSelectionUnselectedColorLightenFactorLocation;
+
     public int getVertexCount() {
         return VERTEX_COUNT;
     }
@@ -75,6 +88,9 @@ public class EdgeLineModelUndirected {
                 .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
                 .addUniformName(UNIFORM_NAME_COLOR_BIAS)
                 .addUniformName(UNIFORM_NAME_COLOR_MULTIPLIER)
+                .addUniformName(UNIFORM_NAME_EDGE_BOTH_SELECTION_COLOR)
+                .addUniformName(UNIFORM_NAME_EDGE_OUT_SELECTION_COLOR)
+                .addUniformName(UNIFORM_NAME_EDGE_IN_SELECTION_COLOR)
                 .addUniformName(UNIFORM_NAME_EDGE_SCALE_MIN)
                 .addUniformName(UNIFORM_NAME_EDGE_SCALE_MAX)
                 .addUniformName(UNIFORM_NAME_MIN_WEIGHT)
@@ -86,6 +102,7 @@ public class EdgeLineModelUndirected {
                 .addAttribLocation(ATTRIB_NAME_SOURCE_COLOR, SHADER_SOURCE_COLOR_LOCATION)
                 .addAttribLocation(ATTRIB_NAME_TARGET_COLOR, SHADER_TARGET_COLOR_LOCATION)
                 .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_SELECTION_STATE, SHADER_SELECTION_STATE_LOCATION)
                 .init();
 
         programWithSelectionUnselected = new GLShaderProgram(SHADERS_ROOT, SHADERS_EDGE_LINE_SOURCE_WITH_SELECTION_UNSELECTED, SHADERS_EDGE_LINE_SOURCE)
@@ -103,7 +120,19 @@ public class EdgeLineModelUndirected {
                 .addAttribLocation(ATTRIB_NAME_SOURCE_COLOR, SHADER_SOURCE_COLOR_LOCATION)
                 .addAttribLocation(ATTRIB_NAME_TARGET_COLOR, SHADER_TARGET_COLOR_LOCATION)
                 .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+                .addAttribLocation(ATTRIB_NAME_SELECTION_STATE, SHADER_SELECTION_STATE_LOCATION)
                 .init();
+
+        programLocations = new CommonUniformLocations(program);
+        programWithSelectionSelectedLocations = new CommonUniformLocations(programWithSelectionSelected);
+        programWithSelectionUnselectedLocations = new CommonUniformLocations(programWithSelectionUnselected);
+        programWithSelectionSelectedColorBiasLocation = programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_COLOR_BIAS);
+        programWithSelectionSelectedColorMultiplierLocation = programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_COLOR_MULTIPLIER);
+        programWithSelectionSelectedEdgeBothSelectionColorLocation = programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_EDGE_BOTH_SELECTION_COLOR);
+        programWithSelectionSelectedEdgeOutSelectionColorLocation = programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_EDGE_OUT_SELECTION_COLOR);
+        programWithSelectionSelectedEdgeInSelectionColorLocation = programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_EDGE_IN_SELECTION_COLOR);
+        programWithSelectionUnselectedBackgroundColorLocation = programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_BACKGROUND_COLOR);
+        programWithSelectionUnselectedColorLightenFactorLocation = programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR);
     }
 
     public void drawArraysMultipleInstance(final int drawBatchCount) {
@@ -127,9 +156,16 @@ public class EdgeLineModelUndirected {
         prepareProgramData(mvpFloats, scale, minWeight, maxWeight);
     }
 
-    public void useProgramWithSelectionSelected(float[] mvpFloats, float scale, float minWeight, float maxWeight, float colorBias, float colorMultiplier) {
+    /**
+     * Selected edges program, the selection colors are drawn for edges in their selection states (see SELECTION_STATE_SELECTED_BOTH).
+     */
+    public void useProgramWithSelectionSelected(float[] mvpFloats, float scale, float minWeight, float maxWeight, float colorBias, float colorMultiplier,
+                                                float[] edgeBothSelectionColor, float[] edgeOutSelectionColor, float[] edgeInSelectionColor) {
         programWithSelectionSelected.use();
         prepareProgramDataWithSelectionSelected(mvpFloats, scale, minWeight, maxWeight, colorBias, colorMultiplier);
+        programWithSelectionSelected.setUniform4fv(programWithSelectionSelectedEdgeBothSelectionColorLocation, edgeBothSelectionColor);
+        programWithSelectionSelected.setUniform4fv(programWithSelectionSelectedEdgeOutSelectionColorLocation, edgeOutSelectionColor);
+        programWithSelectionSelected.setUniform4fv(programWithSelectionSelectedEdgeInSelectionColorLocation, edgeInSelectionColor);
     }
 
     public void useProgramWithSelectionUnselected(float[] mvpFloats, float scale, float minWeight, float maxWeight, float[] backgroundColorFloats, float colorLightenFactor) {
@@ -142,45 +178,31 @@ public class EdgeLineModelUndirected {
     }
 
     private void prepareProgramData(float[] mvpFloats, float scale, float minWeight, float maxWeight) {
-        GL20.glUniformMatrix4fv(program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), false, mvpFloats);
-        GL20.glUniform1f(program.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MIN), EDGE_SCALE_MIN * scale);
-        GL20.glUniform1f(program.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MAX), EDGE_SCALE_MAX * scale);
-        GL20.glUniform1f(program.getUniformLocation(UNIFORM_NAME_MIN_WEIGHT), minWeight);
-
-        if (NumberUtils.equalsEpsilon(minWeight, maxWeight, 1e-3f)) {
-            GL20.glUniform1f(program.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR), 1);
-        } else {
-            GL20.glUniform1f(program.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR), maxWeight - minWeight);
-        }
+        prepareCommonProgramData(program, programLocations, mvpFloats, scale, minWeight, maxWeight);
     }
 
     private void prepareProgramDataWithSelectionSelected(float[] mvpFloats, float scale, float minWeight, float maxWeight, float colorBias, float colorMultiplier) {
-        GL20.glUniformMatrix4fv(programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), false, mvpFloats);
-        GL20.glUniform1f(programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_COLOR_BIAS), colorBias);
-        GL20.glUniform1f(programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_COLOR_MULTIPLIER), colorMultiplier);
-        GL20.glUniform1f(programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MIN), EDGE_SCALE_MIN * scale);
-        GL20.glUniform1f(programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MAX), EDGE_SCALE_MAX * scale);
-        GL20.glUniform1f(programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_MIN_WEIGHT), minWeight);
-
-        if (NumberUtils.equalsEpsilon(minWeight, maxWeight, 1e-3f)) {
-            GL20.glUniform1f(programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR), 1);
-        } else {
-            GL20.glUniform1f(programWithSelectionSelected.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR), maxWeight - minWeight);
-        }
+        prepareCommonProgramData(programWithSelectionSelected, programWithSelectionSelectedLocations, mvpFloats, scale, minWeight, maxWeight);
+        programWithSelectionSelected.setUniform1f(programWithSelectionSelectedColorBiasLocation, colorBias);
+        programWithSelectionSelected.setUniform1f(programWithSelectionSelectedColorMultiplierLocation, colorMultiplier);
     }
 
     private void prepareProgramDataWithSelectionUnselected(float[] mvpFloats, float scale, float minWeight, float maxWeight, float[] backgroundColorFloats, float colorLightenFactor) {
-        GL20.glUniformMatrix4fv(programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), false, mvpFloats);
-        GL20.glUniform4fv(programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_BACKGROUND_COLOR), backgroundColorFloats);
-        GL20.glUniform1f(programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR), colorLightenFactor);
-        GL20.glUniform1f(programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MIN), EDGE_SCALE_MIN * scale);
-        GL20.glUniform1f(programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MAX), EDGE_SCALE_MAX * scale);
-        GL20.glUniform1f(programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_MIN_WEIGHT), minWeight);
+        prepareCommonProgramData(programWithSelectionUnselected, programWithSelectionUnselectedLocations, mvpFloats, scale, minWeight, maxWeight);
+        programWithSelectionUnselected.setUniform4fv(programWithSelectionUnselectedBackgroundColorLocation, backgroundColorFloats);
+        programWithSelectionUnselected.setUniform1f(programWithSelectionUnselectedColorLightenFactorLocation, colorLightenFactor);
+    }
+
+    private static void prepareCommonProgramData(GLShaderProgram program, CommonUniformLocations locations, float[] mvpFloats, float scale, float minWeight, float maxWeight) {
+        program.setUniformMatrix4fv(locations.modelViewProjection, mvpFloats);
+        program.setUniform1f(locations.edgeScaleMin, EDGE_SCALE_MIN * scale);
+        program.setUniform1f(locations.edgeScaleMax, EDGE_SCALE_MAX * scale);
+        program.setUniform1f(locations.minWeight, minWeight);
 
         if (NumberUtils.equalsEpsilon(minWeight, maxWeight, 1e-3f)) {
-            GL20.glUniform1f(programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR), 1);
+            program.setUniform1f(locations.weightDifferenceDivisor, 1);
         } else {
-            GL20.glUniform1f(programWithSelectionUnselected.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR), maxWeight - minWeight);
+            program.setUniform1f(locations.weightDifferenceDivisor, maxWeight - minWeight);
         }
     }
 
@@ -197,4 +219,24 @@ public class EdgeLineModelUndirected {
             1, 1// top right corner
         };
     }
+
+    /**
+     * Locations of the uniforms every line program has, resolved once after init.
+     */
+    private static final class CommonUniformLocations {
+
+        private final int modelViewProjection;
+        private final int edgeScaleMin;
+        private final int edgeScaleMax;
+        private final int minWeight;
+        private final int weightDifferenceDivisor;
+
+        CommonUniformLocations(GLShaderProgram program) {
+            this.modelViewProjection = program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION);
+            this.edgeScaleMin = program.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MIN);
+            this.edgeScaleMax = program.getUniformLocation(UNIFORM_NAME_EDGE_SCALE_MAX);
+            this.minWeight = program.getUniformLocation(UNIFORM_NAME_MIN_WEIGHT);
+            this.weightDifferenceDivisor = program.getUniformLocation(UNIFORM_NAME_WEIGHT_DIFFERENCE_DIVISOR);
+        }
+    }
 }
@@ -25,8 +25,28 @@ public class NodeDiskModel {
             + COLOR_FLOATS
             + SIZE_FLOATS;
 
+    //Separate per instance buffer, so selection changes don't need the attributes again:
+    public static final int SELECTION_STATE_BYTES = 1;
+
     private GLShaderProgram program;
     private GLShaderProgram programWithSelection;
+    private GLShaderProgram programPicking;
+
+    //Uniform locations, resolved once after init:
+    private int programModelViewProjectionLocation;
+    private int programSizeMultiplierLocation;
+    private int programColorMultiplierLocation;
+
+    private int programWithSelectionModelViewProjectionLocation;
+    private int programWithSelectionBackgroundColorLocation;
+    private int programWithSelectionSizeMultiplierLocation;
+    private int programWithSelectionColorBiasLocation;
+    private int programWithSelectionColorMultiplierLocation;
+    private int programWithSelectionColorLightenFactorLocation;
+    private int programWithSelectionDrawnSelectionStateLocation;
+
+    private int programPickingModelViewProjectionLocation;
+    private int programPickingDrawnSelectionStateLocation;
 
     public void initGLPrograms() {
         program = new GLShaderProgram(SHADERS_ROOT, SHADERS_NODE_CIRCLE_SOURCE, SHADERS_NODE_CIRCLE_SOURCE)
@@ -46,17 +66,49 @@ public class NodeDiskModel {
             .addUniformName(UNIFORM_NAME_COLOR_BIAS)
             .addUniformName(UNIFORM_NAME_COLOR_MULTIPLIER)
             .addUniformName(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR)
+            .addUniformName(UNIFORM_NAME_DRAWN_SELECTION_STATE)
             .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
             .addAttribLocation(ATTRIB_NAME_POSITION, SHADER_POSITION_LOCATION)
             .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
             .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SELECTION_STATE, SHADER_SELECTION_STATE_LOCATION)
             .init();
+
+        programModelViewProjectionLocation = program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION);
+        programSizeMultiplierLocation = program.getUniformLocation(UNIFORM_NAME_SIZE_MULTIPLIER);
+        programColorMultiplierLocation = program.getUniformLocation(UNIFORM_NAME_COLOR_MULTIPLIER);
+
+        programWithSelectionModelViewProjectionLocation = programWithSelection.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION);
+        programWithSelectionBackgroundColorLocation = programWithSelection.getUniformLocation(UNIFORM_NAME_BACKGROUND_COLOR);
+        programWithSelectionSizeMultiplierLocation = programWithSelection.getUniformLocation(UNIFORM_NAME_SIZE_MULTIPLIER);
+        programWithSelectionColorBiasLocation = programWithSelection.getUniformLocation(UNIFORM_NAME_COLOR_BIAS);
+        programWithSelectionColorMultiplierLocation = programWithSelection.getUniformLocation(UNIFORM_NAME_COLOR_MULTIPLIER);
+        programWithSelectionColorLightenFactorLocation = programWithSelection.getUniformLocation(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR);
+        programWithSelectionDrawnSelectionStateLocation = programWithSelection.getUniformLocation(UNIFORM_NAME_DRAWN_SELECTION_STATE);
     }
 
     private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "node";
 
     private static final String SHADERS_NODE_CIRCLE_SOURCE = "node";
     private static final String SHADERS_NODE_CIRCLE_SOURCE_WITH_SELECTION = "node_with_selection";
+    private static final String SHADERS_NODE_PICKING_SOURCE = "node-picking";
+
+    /**
+     * Picking program needs GLSL 1.40 for integer outputs, so it's only initialized when used.
+     */
+    private void initPickingProgram() {
+        programPicking = new GLShaderProgram(SHADERS_ROOT, SHADERS_NODE_PICKING_SOURCE, SHADERS_NODE_PICKING_SOURCE)
+            .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+            .addUniformName(UNIFORM_NAME_DRAWN_SELECTION_STATE)
+            .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_POSITION, SHADER_POSITION_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SELECTION_STATE, SHADER_SELECTION_STATE_LOCATION)
+            .init();
+
+        programPickingModelViewProjectionLocation = programPicking.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION);
+        programPickingDrawnSelectionStateLocation = programPicking.getUniformLocation(UNIFORM_NAME_DRAWN_SELECTION_STATE);
+    }
 
     public void drawArraysSingleInstance(int firstVertexIndex, int vertexCount) {
         GL11.glDrawArrays(GL11.GL_TRIANGLES, firstVertexIndex, vertexCount);
@@ -76,25 +128,37 @@ public class NodeDiskModel {
         GL43.glMultiDrawArraysIndirect(GL11.GL_TRIANGLES, (long) instancesOffset * INDIRECT_DRAW_COMMAND_BYTES, instanceCount, 0);
     }
 
-    public void useProgramWithSelection(float[] mvpFloats, float[] backgroundColorFloats, float sizeMultiplier, float colorBias, float colorMultiplier, float colorLightenFactor) {
+    public void useProgramWithSelection(float[] mvpFloats, float[] backgroundColorFloats, float sizeMultiplier, float colorBias, float colorMultiplier, float colorLightenFactor, byte drawnSelectionState) {
         //Circle:
         programWithSelection.use();
 
-        GL20.glUniformMatrix4fv(programWithSelection.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), false, mvpFloats);
-        GL20.glUniform4fv(programWithSelection.getUniformLocation(UNIFORM_NAME_BACKGROUND_COLOR), backgroundColorFloats);
-        GL20.glUniform1f(programWithSelection.getUniformLocation(UNIFORM_NAME_SIZE_MULTIPLIER), sizeMultiplier);
-        GL20.glUniform1f(programWithSelection.getUniformLocation(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR), colorLightenFactor);
-        GL20.glUniform1f(programWithSelection.getUniformLocation(UNIFORM_NAME_COLOR_BIAS), colorBias);
-        GL20.glUniform1f(programWithSelection.getUniformLocation(UNIFORM_NAME_COLOR_MULTIPLIER), colorMultiplier);
+        programWithSelection.setUniformMatrix4fv(programWithSelectionModelViewProjectionLocation, mvpFloats);
+        programWithSelection.setUniform4fv(programWithSelectionBackgroundColorLocation, backgroundColorFloats);
+        programWithSelection.setUniform1f(programWithSelectionSizeMultiplierLocation, sizeMultiplier);
+        programWithSelection.setUniform1f(programWithSelectionColorLightenFactorLocation, colorLightenFactor);
+        programWithSelection.setUniform1f(programWithSelectionColorBiasLocation, colorBias);
+        programWithSelection.setUniform1f(programWithSelectionColorMultiplierLocation, colorMultiplier);
+        programWithSelection.setUniform1f(programWithSelectionDrawnSelectionStateLocation, drawnSelectionState);
     }
 
     public void useProgram(float[] mvpFloats, float sizeMultiplier, float colorMultiplier) {
         //Circle:
         program.use();
 
-        GL20.glUniformMatrix4fv(program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION), false, mvpFloats);
-        GL20.glUniform1f(program.getUniformLocation(UNIFORM_NAME_SIZE_MULTIPLIER), sizeMultiplier);
-        GL20.glUniform1f(program.getUniformLocation(UNIFORM_NAME_COLOR_MULTIPLIER), colorMultiplier);
+        program.setUniformMatrix4fv(programModelViewProjectionLocation, mvpFloats);
+        program.setUniform1f(programSizeMultiplierLocation, sizeMultiplier);
+        program.setUniform1f(programColorMultiplierLocation, colorMultiplier);
+    }
+
+    public void usePickingProgram(float[] mvpFloats, byte drawnSelectionState) {
+        if (programPicking == null) {
+            initPickingProgram();
+        }
+
+        programPicking.use();
+
+        programPicking.setUniformMatrix4fv(programPickingModelViewProjectionLocation, mvpFloats);
+        programPicking.setUniform1f(programPickingDrawnSelectionStateLocation, drawnSelectionState);
     }
 
     public void stopUsingProgram() {
@@ -0,0 +1,109 @@
+package org.gephi.viz.engine.lwjgl.models;
+
+import org.gephi.viz.engine.lwjgl.util.gl.GLShaderProgram;
+import org.gephi.viz.engine.util.gl.Constants;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL31;
+
+import static org.gephi.viz.engine.util.gl.Constants.*;
+
+/**
+ * Draws each node as a single quad, with the circle and its border computed in the fragment shader.
+ * Uses the same per instance attributes as {@link NodeDiskModel}.
+ *
+ * @author Eduardo Ramos
+ */
+public class NodeQuadModel {
+
+    public static final int VERTEX_FLOATS = NodeDiskModel.VERTEX_FLOATS;
+
+    //2 triangles covering the [-1, 1] square that contains the unit circle:
+    public static final float[] VERTEX_DATA = new float[]{
+        -1, -1,
+        1, -1,
+        1, 1,
+        -1, -1,
+        1, 1,
+        -1, 1
+    };
+    public static final int VERTEX_COUNT = VERTEX_DATA.length / VERTEX_FLOATS;
+
+    private GLShaderProgram program;
+
+    //Uniform locations, resolved once after init:
+    private int modelViewProjectionLocation;
+    private int backgroundColorLocation;
+    private int colorBiasLocation;
+    private int colorMultiplierLocation;
+    private int borderColorBiasLocation;
+    private int borderColorMultiplierLocation;
+    private int colorLightenFactorLocation;
+    private int drawnSelectionStateLocation;
+    private int insideCircleSizeLocation;
+
+    public void initGLPrograms() {
+        program = new GLShaderProgram(SHADERS_ROOT, SHADERS_NODE_QUAD_SOURCE, SHADERS_NODE_QUAD_SOURCE)
+            .addUniformName(UNIFORM_NAME_MODEL_VIEW_PROJECTION)
+            .addUniformName(UNIFORM_NAME_BACKGROUND_COLOR)
+            .addUniformName(UNIFORM_NAME_COLOR_BIAS)
+            .addUniformName(UNIFORM_NAME_COLOR_MULTIPLIER)
+            .addUniformName(UNIFORM_NAME_BORDER_COLOR_BIAS)
+            .addUniformName(UNIFORM_NAME_BORDER_COLOR_MULTIPLIER)
+            .addUniformName(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR)
+            .addUniformName(UNIFORM_NAME_DRAWN_SELECTION_STATE)
+            .addUniformName(UNIFORM_NAME_INSIDE_CIRCLE_SIZE)
+            .addAttribLocation(ATTRIB_NAME_VERT, SHADER_VERT_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_POSITION, SHADER_POSITION_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_COLOR, SHADER_COLOR_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SIZE, SHADER_SIZE_LOCATION)
+            .addAttribLocation(ATTRIB_NAME_SELECTION_STATE, SHADER_SELECTION_STATE_LOCATION)
+            .init();
+
+        modelViewProjectionLocation = program.getUniformLocation(UNIFORM_NAME_MODEL_VIEW_PROJECTION);
+        backgroundColorLocation = program.getUniformLocation(UNIFORM_NAME_BACKGROUND_COLOR);
+        colorBiasLocation = program.getUniformLocation(UNIFORM_NAME_COLOR_BIAS);
+        colorMultiplierLocation = program.getUniformLocation(UNIFORM_NAME_COLOR_MULTIPLIER);
+        borderColorBiasLocation = program.getUniformLocation(UNIFORM_NAME_BORDER_COLOR_BIAS);
+        borderColorMultiplierLocation = program.getUniformLocation(UNIFORM_NAME_BORDER_COLOR_MULTIPLIER);
+        colorLightenFactorLocation = program.getUniformLocation(UNIFORM_NAME_COLOR_LIGHTEN_FACTOR);
+        drawnSelectionStateLocation = program.getUniformLocation(UNIFORM_NAME_DRAWN_SELECTION_STATE);
+        insideCircleSizeLocation = program.getUniformLocation(UNIFORM_NAME_INSIDE_CIRCLE_SIZE);
+    }
+
+    private static final String SHADERS_ROOT = Constants.SHADERS_ROOT + "node";
+
+    private static final String SHADERS_NODE_QUAD_SOURCE = "node-quad";
+
+    /**
+     * Draws the instances with alpha to coverage, so the circles borders are antialiased when multisampling.
+     */
+    public void drawInstanced(int vertexOffset, int instanceCount) {
+        if (instanceCount <= 0) {
+            return;
+        }
+
+        GL11.glEnable(GL13.GL_SAMPLE_ALPHA_TO_COVERAGE);
+        GL31.glDrawArraysInstanced(GL11.GL_TRIANGLES, vertexOffset, VERTEX_COUNT, instanceCount);
+        GL11.glDisable(GL13.GL_SAMPLE_ALPHA_TO_COVERAGE);
+    }
+
+    public void useProgram(float[] mvpFloats, float[] backgroundColorFloats, float colorBias, float colorMultiplier, float borderColorBias, float borderColorMultiplier, float colorLightenFactor, float insideCircleSize, byte drawnSelectionState) {
+        program.use();
+
+        program.setUniformMatrix4fv(modelViewProjectionLocation, mvpFloats);
+        program.setUniform4fv(backgroundColorLocation, backgroundColorFloats);
+        program.setUniform1f(colorBiasLocation, colorBias);
+        program.setUniform1f(colorMultiplierLocation, colorMultiplier);
+        program.setUniform1f(borderColorBiasLocation, borderColorBias);
+        program.setUniform1f(borderColorMultiplierLocation, borderColorMultiplier);
+        program.setUniform1f(colorLightenFactorLocation, colorLightenFactor);
+        program.setUniform1f(insideCircleSizeLocation, insideCircleSize);
+        program.setUniform1f(drawnSelectionStateLocation, drawnSelectionState);
+    }
+
+    public void stopUsingProgram() {
+        GL20.glUseProgram(0);
+    }
+}
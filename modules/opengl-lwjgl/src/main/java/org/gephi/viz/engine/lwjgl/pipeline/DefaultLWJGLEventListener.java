@@ -6,7 +6,9 @@ import org.gephi.viz.engine.lwjgl.pipeline.events.LWJGLInputEvent;
 import org.gephi.viz.engine.lwjgl.pipeline.events.MouseEvent;
 import org.gephi.viz.engine.lwjgl.pipeline.events.MouseEvent.Action;
 import org.gephi.viz.engine.lwjgl.pipeline.events.MouseEvent.Button;
+import org.gephi.viz.engine.lwjgl.pipeline.picking.NodesIdBufferPicker;
 import org.gephi.viz.engine.spi.InputListener;
+import org.gephi.viz.engine.util.actions.HoverPickingService;
 import org.gephi.viz.engine.util.actions.InputActionsProcessor;
 import org.joml.Vector2f;
 
@@ -18,10 +20,18 @@ public class DefaultLWJGLEventListener implements InputListener<LWJGLRenderingTa
 
     private final VizEngine<LWJGLRenderingTarget, LWJGLInputEvent> engine;
     private final InputActionsProcessor inputActionsProcessor;
+    private final HoverPickingService hoverPickingService;
+    private final NodesIdBufferPicker idBufferPicker;
 
     public DefaultLWJGLEventListener(VizEngine<LWJGLRenderingTarget, LWJGLInputEvent> engine) {
         this.engine = engine;
         this.inputActionsProcessor = new InputActionsProcessor(engine);
+        this.hoverPickingService = new HoverPickingService(engine);
+        this.idBufferPicker = engine.getLookup().lookup(NodesIdBufferPicker.class);
+        if (idBufferPicker != null) {
+            //Picked on the GPU, only edges and neighbours are left to the service:
+            idBufferPicker.setPickListener(hoverPickingService::requestPickedNode);
+        }
     }
 
     private boolean mouseRightButtonPresed = false;
@@ -38,10 +48,17 @@ public class DefaultLWJGLEventListener implements InputListener<LWJGLRenderingTa
     public void frameEnd() {
         if (lastMovedPosition != null) {
             //TODO: move to independent selection input listener
-            final Vector2f worldCoords = engine.screenCoordinatesToWorldCoordinates(lastMovedPosition.x, lastMovedPosition.y);
+            if (idBufferPicker != null && idBufferPicker.isActive()) {
+                idBufferPicker.requestPick(lastMovedPosition.x, lastMovedPosition.y);
+            } else {
+                final Vector2f worldCoords = engine.screenCoordinatesToWorldCoordinates(lastMovedPosition.x, lastMovedPosition.y);
 
-            inputActionsProcessor.selectNodesUnderPosition(worldCoords);
+                hoverPickingService.requestPick(worldCoords);
+            }
         }
+
+        //Picking runs in its own thread, apply its latest result before the world updaters run:
+        hoverPickingService.applyPendingResult();
     }
 
     @Override
@@ -203,4 +220,9 @@ public class DefaultLWJGLEventListener implements InputListener<LWJGLRenderingTa
     public void init(LWJGLRenderingTarget target) {
         //NOOP
     }
+
+    @Override
+    public void dispose(LWJGLRenderingTarget target) {
+        hoverPickingService.shutdown();
+    }
 }
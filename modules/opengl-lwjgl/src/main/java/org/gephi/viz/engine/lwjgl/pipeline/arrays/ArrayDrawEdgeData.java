@@ -1,7 +1,5 @@
 package org.gephi.viz.engine.lwjgl.pipeline.arrays;
 
-import org.gephi.graph.api.Edge;
-import org.gephi.graph.api.Graph;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.lwjgl.models.EdgeLineModelDirected;
 import org.gephi.viz.engine.lwjgl.models.EdgeLineModelUndirected;
@@ -9,17 +7,21 @@ import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractEdgeData;
 import org.gephi.viz.engine.lwjgl.util.gl.GLBufferMutable;
 import org.gephi.viz.engine.lwjgl.util.gl.ManagedDirectBuffer;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
-import org.gephi.viz.engine.status.GraphRenderingOptions;
-import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.status.FrameContext;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 import org.gephi.viz.engine.util.ArrayUtils;
 import org.lwjgl.system.MemoryUtil;
 
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 
-import static org.gephi.viz.engine.pipeline.RenderingLayer.BACK1;
+import static org.gephi.viz.engine.util.gl.Constants.SELECTION_STATE_HIDDEN;
+import static org.gephi.viz.engine.util.gl.Constants.SELECTION_STATE_SELECTED;
+import static org.gephi.viz.engine.util.gl.Constants.SELECTION_STATE_UNSELECTED;
+import static org.gephi.viz.engine.util.gl.Constants.SHADER_SELECTION_STATE_LOCATION;
 import static org.lwjgl.opengl.GL11.GL_FLOAT;
 import static org.lwjgl.opengl.GL15.glGenBuffers;
+import static org.lwjgl.opengl.GL20.glVertexAttrib1f;
 
 /**
  *
@@ -35,48 +37,36 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
     private static final int ATTRIBS_BUFFER_UNDIRECTED = 3;
 
     public ArrayDrawEdgeData() {
-        super(false, false);
+        super(false);
     }
 
-    public void update(VizEngine engine, GraphIndexImpl graphIndex) {
+    public void update(VizEngine engine, FrameContext context, GraphIndexImpl graphIndex) {
         updateData(
+                engine,
                 graphIndex,
-                engine.getLookup().lookup(GraphRenderingOptions.class),
-                engine.getLookup().lookup(GraphSelection.class)
+                context.getRenderingOptions(),
+                context.getSelection(),
+                engine.getWorldUpdateTracker().isSelectionOnlyUpdate()
         );
     }
 
-    public void drawArrays(RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
-        drawUndirected(engine, layer, mvpFloats);
-        drawDirected(engine, layer, mvpFloats);
+    public void drawArrays(RenderingLayer layer, VizEngine engine, FrameContext context) {
+        drawUndirected(engine, layer, context);
+        drawDirected(engine, layer, context);
     }
 
-    private void drawUndirected(VizEngine engine, RenderingLayer layer, float[] mvpFloats) {
-        final int instanceCount = setupShaderProgramForRenderingLayerUndirected(layer, engine, mvpFloats);
-
-        final boolean renderingUnselectedEdges = layer == BACK1;
-        final int instancesOffset = renderingUnselectedEdges ? 0 : undirectedInstanceCounter.unselectedCountToDraw;
+    private void drawUndirected(VizEngine engine, RenderingLayer layer, FrameContext context) {
+        final int instanceCount = setupShaderProgramForRenderingLayerUndirected(layer, engine, context);
+        setupSelectionStateForRenderingLayer(layer);
 
+        final boolean renderingUnselectedEdges = layer.isBack();
         final FloatBuffer batchUpdateBuffer = attributesDrawBufferBatchOneCopyPerVertexManagedDirectBuffer.floatBuffer();
 
-        final int maxIndex = (instancesOffset + instanceCount);
-        for (int edgeBase = instancesOffset; edgeBase < maxIndex; edgeBase += BATCH_EDGES_SIZE) {
-            final int drawBatchCount = Math.min(maxIndex - edgeBase, BATCH_EDGES_SIZE);
-
-            //Need to copy attributes as many times as vertex per model:
-            for (int edgeIndex = 0; edgeIndex < drawBatchCount; edgeIndex++) {
-                System.arraycopy(
-                        attributesBuffer, (edgeBase + edgeIndex) * ATTRIBS_STRIDE,
-                        attributesDrawBufferBatchOneCopyPerVertex, edgeIndex * ATTRIBS_STRIDE * VERTEX_COUNT_UNDIRECTED,
-                        ATTRIBS_STRIDE
-                );
-
-                ArrayUtils.repeat(
-                        attributesDrawBufferBatchOneCopyPerVertex,
-                        edgeIndex * ATTRIBS_STRIDE * VERTEX_COUNT_UNDIRECTED,
-                        ATTRIBS_STRIDE,
-                        VERTEX_COUNT_UNDIRECTED
-                );
+        final int maxIndex = instanceCount;
+        for (int edgeIndex = 0; edgeIndex < maxIndex; ) {
+            edgeIndex = fillDrawBatch(renderingUnselectedEdges, false, VERTEX_COUNT_UNDIRECTED, edgeIndex, maxIndex);
+            if (drawBatchCount == 0) {
+                break;
             }
 
             batchUpdateBuffer.clear();
@@ -93,37 +83,20 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
         unsetupUndirectedVertexArrayAttributes();
     }
 
-    private void drawDirected(VizEngine engine, RenderingLayer layer, float[] mvpFloats) {
-        final int instanceCount = setupShaderProgramForRenderingLayerDirected(layer, engine, mvpFloats);
-
-        final boolean renderingUnselectedEdges = layer == BACK1;
-        final int instancesOffset;
-        if (renderingUnselectedEdges) {
-            instancesOffset = undirectedInstanceCounter.totalToDraw();
-        } else {
-            instancesOffset = undirectedInstanceCounter.totalToDraw() + directedInstanceCounter.unselectedCountToDraw;
-        }
+    private void drawDirected(VizEngine engine, RenderingLayer layer, FrameContext context) {
+        final int instanceCount = setupShaderProgramForRenderingLayerDirected(layer, engine, context);
+        setupSelectionStateForRenderingLayer(layer);
 
+        final boolean renderingUnselectedEdges = layer.isBack();
         final FloatBuffer batchUpdateBuffer = attributesDrawBufferBatchOneCopyPerVertexManagedDirectBuffer.floatBuffer();
 
-        final int maxIndex = (instancesOffset + instanceCount);
-        for (int edgeBase = instancesOffset; edgeBase < maxIndex; edgeBase += BATCH_EDGES_SIZE) {
-            final int drawBatchCount = Math.min(maxIndex - edgeBase, BATCH_EDGES_SIZE);
-
-            //Need to copy attributes as many times as vertex per model:
-            for (int edgeIndex = 0; edgeIndex < drawBatchCount; edgeIndex++) {
-                System.arraycopy(
-                        attributesBuffer, (edgeBase + edgeIndex) * ATTRIBS_STRIDE,
-                        attributesDrawBufferBatchOneCopyPerVertex, edgeIndex * ATTRIBS_STRIDE * VERTEX_COUNT_DIRECTED,
-                        ATTRIBS_STRIDE
-                );
-
-                ArrayUtils.repeat(
-                        attributesDrawBufferBatchOneCopyPerVertex,
-                        edgeIndex * ATTRIBS_STRIDE * VERTEX_COUNT_DIRECTED,
-                        ATTRIBS_STRIDE,
-                        VERTEX_COUNT_DIRECTED
-                );
+        //Directed edges are after the undirected ones:
+        final int instancesOffset = frames.draw().regionsCounts[REGION_UNDIRECTED];
+        final int maxIndex = instancesOffset + instanceCount;
+        for (int edgeIndex = instancesOffset; edgeIndex < maxIndex; ) {
+            edgeIndex = fillDrawBatch(renderingUnselectedEdges, true, VERTEX_COUNT_DIRECTED, edgeIndex, maxIndex);
+            if (drawBatchCount == 0) {
+                break;
             }
 
             batchUpdateBuffer.clear();
@@ -141,12 +114,60 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
         unsetupDirectedVertexArrayAttributes();
     }
 
-    private float[] attributesBuffer;
+    /**
+     * Without per instance selection states buffer, edges of the other layer are skipped when filling the draw batches
+     * and the shader gets the state of the layer as a constant attribute.
+     */
+    private void setupSelectionStateForRenderingLayer(RenderingLayer layer) {
+        glVertexAttrib1f(SHADER_SELECTION_STATE_LOCATION, layer.isBack() ? SELECTION_STATE_UNSELECTED : SELECTION_STATE_SELECTED);
+    }
+
+    /**
+     * Copies the attributes of the next edges drawn in the layer to the draw batch, as many times as vertex per model,
+     * with their selection colors. Sets {@link #drawBatchCount}.
+     *
+     * @return Index of the next edge to copy
+     */
+    private int fillDrawBatch(final boolean renderingUnselectedEdges, final boolean directed, final int vertexCount, final int fromIndex, final int maxIndex) {
+        final EdgesFrame frame = frames.draw();
+        final float[] attributesBuffer = frame.attributesArray;
+        final ByteBuffer selectionStates = frame.selectionStatesBuffer.byteBuffer();
+
+        int count = 0;
+        int edgeIndex = fromIndex;
+        for (; edgeIndex < maxIndex && count < BATCH_EDGES_SIZE; edgeIndex++) {
+            final byte state = selectionStates.get(edgeIndex);
+            final boolean unselected = state == SELECTION_STATE_UNSELECTED;
+            if (state == SELECTION_STATE_HIDDEN || unselected != renderingUnselectedEdges) {
+                continue;
+            }
+
+            final int batchIndex = count * ATTRIBS_STRIDE * vertexCount;
+            System.arraycopy(
+                    attributesBuffer, edgeIndex * ATTRIBS_STRIDE,
+                    attributesDrawBufferBatchOneCopyPerVertex, batchIndex,
+                    ATTRIBS_STRIDE
+            );
+            writeSelectionColor(attributesDrawBufferBatchOneCopyPerVertex, batchIndex, directed, state, frame);
+
+            ArrayUtils.repeat(
+                    attributesDrawBufferBatchOneCopyPerVertex,
+                    batchIndex,
+                    ATTRIBS_STRIDE,
+                    vertexCount
+            );
+            count++;
+        }
+
+        drawBatchCount = count;
+        return edgeIndex;
+    }
 
     private static final int BATCH_EDGES_SIZE = 65536;
 
     //For drawing in a loop:
     private float[] attributesDrawBufferBatchOneCopyPerVertex;
+    private int drawBatchCount;
     private ManagedDirectBuffer attributesDrawBufferBatchOneCopyPerVertexManagedDirectBuffer;
 
     protected void initBuffers() {
@@ -202,59 +223,11 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
         attributesGLBufferUndirected.bind();
         attributesGLBufferUndirected.init(VERTEX_COUNT_MAX * ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBufferUndirected.unbind();
-
-        attributesBuffer = new float[ATTRIBS_STRIDE * BATCH_EDGES_SIZE];
     }
 
     public void updateBuffers() {
-        undirectedInstanceCounter.promoteCountToDraw();
-        directedInstanceCounter.promoteCountToDraw();
-    }
-
-    private void updateData(final GraphIndexImpl graphIndex, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection) {
-        if (!renderingOptions.isShowEdges()) {
-            undirectedInstanceCounter.clearCount();
-            directedInstanceCounter.clearCount();
-            return;
-        }
-
-        graphIndex.indexEdges();
-
-        //Selection:
-        final boolean someEdgesSelection = graphSelection.getSelectedEdgesCount() > 0;
-        final boolean someNodesSelection = graphSelection.getSelectedNodesCount() > 0;
-        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
-        final boolean hideNonSelected = someEdgesSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
-        final boolean edgeSelectionColor = renderingOptions.isEdgeSelectionColor();
-        final float edgeBothSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeBothSelectionColor().getRGB());
-        final float edgeInSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeInSelectionColor().getRGB());
-        final float edgeOutSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeOutSelectionColor().getRGB());
-
-        final int totalEdges = graphIndex.getEdgeCount();
-
-        final float[] attribs
-                = attributesBuffer
-                = ArrayUtils.ensureCapacityNoCopy(attributesBuffer, totalEdges * ATTRIBS_STRIDE);
-
-        graphIndex.getVisibleEdges(edgesCallback);
-
-        final Edge[] visibleEdgesArray = edgesCallback.getEdgesArray();
-        final int visibleEdgesCount = edgesCallback.getCount();
-
-        final Graph graph = graphIndex.getGraph();
-
-        int attribsIndex = 0;
-        attribsIndex = updateUndirectedData(
-                graph,
-                someEdgesSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray,
-                graphSelection, someNodesSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
-                attribs, attribsIndex
-        );
-        updateDirectedData(
-                graph, someEdgesSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray,
-                graphSelection, someNodesSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
-                attribs, attribsIndex
-        );
+        //Attributes are read from the acquired frame while drawing:
+        acquireFrame();
     }
 
     @Override
@@ -262,7 +235,5 @@ public class ArrayDrawEdgeData extends AbstractEdgeData {
         super.dispose();
         attributesDrawBufferBatchOneCopyPerVertex = null;
         attributesDrawBufferBatchOneCopyPerVertexManagedDirectBuffer.destroy();
-
-        attributesBuffer = null;
     }
 }
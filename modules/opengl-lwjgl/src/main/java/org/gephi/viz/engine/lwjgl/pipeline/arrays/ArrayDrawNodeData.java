@@ -3,11 +3,10 @@ package org.gephi.viz.engine.lwjgl.pipeline.arrays;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractNodeData;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
-import org.gephi.viz.engine.status.GraphRenderingOptions;
-import org.gephi.viz.engine.status.GraphSelection;
-import org.gephi.viz.engine.status.GraphSelectionNeighbours;
+import org.gephi.viz.engine.status.FrameContext;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 
 import static org.gephi.viz.engine.util.gl.Constants.*;
@@ -26,27 +25,28 @@ public class ArrayDrawNodeData extends AbstractNodeData {
         super(false, false);
     }
 
-    public void update(VizEngine engine, GraphIndexImpl spatialIndex) {
+    public void update(VizEngine engine, FrameContext context, GraphIndexImpl spatialIndex) {
         updateData(
-                engine.getZoom(),
+                context.getZoom(),
                 spatialIndex,
-                engine.getLookup().lookup(GraphRenderingOptions.class),
-                engine.getLookup().lookup(GraphSelection.class),
-                engine.getLookup().lookup(GraphSelectionNeighbours.class)
+                context.getRenderingOptions(),
+                context.getSelection(),
+                context.getNeighboursSelection(),
+                engine.getWorldUpdateTracker().isSelectionOnlyUpdate()
         );
     }
 
-    public void drawArrays(RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
+    public void drawArrays(RenderingLayer layer, VizEngine engine, FrameContext context) {
         //First we draw outside circle (for border) and then inside circle:
-        drawArraysInternal(layer, engine, mvpFloats, true);
-        drawArraysInternal(layer, engine, mvpFloats, false);
+        drawArraysInternal(layer, engine, context, true);
+        drawArraysInternal(layer, engine, context, false);
     }
 
     public void drawArraysInternal(final RenderingLayer layer,
                                    final VizEngine engine,
-                                   final float[] mvpFloats,
+                                   final FrameContext context,
                                    final boolean isRenderingOutsideCircle) {
-        final int instanceCount = setupShaderProgramForRenderingLayer(layer, engine, mvpFloats, isRenderingOutsideCircle);
+        final int instanceCount = setupShaderProgramForRenderingLayer(layer, engine, context, isRenderingOutsideCircle);
 
         if (instanceCount <= 0) {
             diskModel.stopUsingProgram();
@@ -54,20 +54,24 @@ public class ArrayDrawNodeData extends AbstractNodeData {
             return;
         }
 
-        final boolean renderingUnselectedNodes = layer.isBack();
-        final int instancesOffset = renderingUnselectedNodes ? 0 : instanceCounter.unselectedCountToDraw;
+        final byte drawnSelectionState = layer.isBack() ? SELECTION_STATE_UNSELECTED : SELECTION_STATE_SELECTED;
+        glVertexAttrib1f(SHADER_SELECTION_STATE_LOCATION, drawnSelectionState);
 
-
-        final float zoom = engine.getZoom();
+        final float zoom = context.getZoom();
         final float[] attrs = new float[ATTRIBS_STRIDE];
-        int index = instancesOffset * ATTRIBS_STRIDE;
 
         //We have to perform one draw call per instance because repeating the attributes without instancing per each vertex would use too much memory:
         //TODO: Maybe we can batch a few nodes at once though
-        final FloatBuffer attribs = attributesBuffer.floatBuffer();
+        final NodesFrame frame = frames.draw();
+        final FloatBuffer attribs = frame.attributesBuffer.floatBuffer();
+        final ByteBuffer states = frame.selectionStatesBuffer.byteBuffer();
 
-        attribs.position(index);
         for (int i = 0; i < instanceCount; i++) {
+            if (states.get(i * SELECTION_STATE_STRIDE) != drawnSelectionState) {
+                continue;
+            }
+
+            attribs.position(i * ATTRIBS_STRIDE);
             attribs.get(attrs);
 
             //Choose LOD:
@@ -114,8 +118,8 @@ public class ArrayDrawNodeData extends AbstractNodeData {
     }
 
     public void updateBuffers() {
-        instanceCounter.promoteCountToDraw();
-        maxNodeSizeToDraw = maxNodeSize;
+        //Attributes are read from the acquired frame while drawing:
+        acquireFrame();
     }
 
     protected void initBuffers() {
@@ -6,6 +6,7 @@ import org.gephi.viz.engine.lwjgl.availability.ArrayDraw;
 import org.gephi.viz.engine.lwjgl.pipeline.arrays.ArrayDrawEdgeData;
 import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractEdgeRenderer;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.FrameContext;
 
 /**
  *
@@ -23,7 +24,7 @@ public class EdgeRendererArrayDraw extends AbstractEdgeRenderer {
 
     @Override
     public void init(LWJGLRenderingTarget target) {
-        //NOOP
+        engine.getFrameStats().setInstanceCounters(this, edgeData.getUndirectedInstanceCounter(), edgeData.getDirectedInstanceCounter());
     }
 
     @Override
@@ -31,13 +32,10 @@ public class EdgeRendererArrayDraw extends AbstractEdgeRenderer {
         edgeData.updateBuffers();
     }
 
-    private final float[] mvpFloats = new float[16];
-
     @Override
-    public void render(LWJGLRenderingTarget target, RenderingLayer layer) {
-        engine.getModelViewProjectionMatrixFloats(mvpFloats);
+    public void render(LWJGLRenderingTarget target, RenderingLayer layer, FrameContext context) {
 
-        edgeData.drawArrays(layer, engine, mvpFloats);
+        edgeData.drawArrays(layer, engine, context);
     }
 
     @Override
@@ -6,6 +6,7 @@ import org.gephi.viz.engine.lwjgl.availability.ArrayDraw;
 import org.gephi.viz.engine.lwjgl.pipeline.arrays.ArrayDrawNodeData;
 import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractNodeRenderer;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.FrameContext;
 
 /**
  *
@@ -23,7 +24,7 @@ public class NodeRendererArrayDraw extends AbstractNodeRenderer {
 
     @Override
     public void init(LWJGLRenderingTarget target) {
-        //NOOP
+        engine.getFrameStats().setInstanceCounters(this, nodeData.getInstanceCounter());
     }
 
     @Override
@@ -31,13 +32,10 @@ public class NodeRendererArrayDraw extends AbstractNodeRenderer {
         nodeData.updateBuffers();
     }
 
-    private final float[] mvpFloats = new float[16];
-
     @Override
-    public void render(LWJGLRenderingTarget target, RenderingLayer layer) {
-        engine.getModelViewProjectionMatrixFloats(mvpFloats);
+    public void render(LWJGLRenderingTarget target, RenderingLayer layer, FrameContext context) {
 
-        nodeData.drawArrays(layer, engine, mvpFloats);
+        nodeData.drawArrays(layer, engine, context);
     }
 
     @Override
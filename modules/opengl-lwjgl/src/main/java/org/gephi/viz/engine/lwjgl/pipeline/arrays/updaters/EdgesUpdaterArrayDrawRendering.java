@@ -6,6 +6,7 @@ import org.gephi.viz.engine.lwjgl.availability.ArrayDraw;
 import org.gephi.viz.engine.lwjgl.pipeline.arrays.ArrayDrawEdgeData;
 import org.gephi.viz.engine.pipeline.PipelineCategory;
 import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.status.FrameContext;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 
 /**
@@ -35,8 +36,8 @@ public class EdgesUpdaterArrayDrawRendering implements WorldUpdater<LWJGLRenderi
     }
 
     @Override
-    public void updateWorld() {
-        edgeData.update(engine, spatialIndex);
+    public void updateWorld(FrameContext context) {
+        edgeData.update(engine, context, spatialIndex);
     }
 
     @Override
@@ -1,31 +1,37 @@
 package org.gephi.viz.engine.lwjgl.pipeline.common;
 
 import org.gephi.graph.api.Edge;
-import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.Node;
 import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.lwjgl.models.EdgeLineModelDirected;
 import org.gephi.viz.engine.lwjgl.models.EdgeLineModelUndirected;
 import org.gephi.viz.engine.lwjgl.util.gl.GLBuffer;
 import org.gephi.viz.engine.lwjgl.util.gl.GLBufferMutable;
+import org.gephi.viz.engine.lwjgl.util.gl.GLPersistentRingBuffer;
 import org.gephi.viz.engine.lwjgl.util.gl.GLVertexArrayObject;
 import org.gephi.viz.engine.lwjgl.util.gl.ManagedDirectBuffer;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.pipeline.common.InstanceCounter;
+import org.gephi.viz.engine.status.FrameContext;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.structure.GraphIndex;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.ArrayUtils;
+import org.gephi.viz.engine.util.NumberUtils;
+import org.gephi.viz.engine.util.ParallelFill;
+import org.gephi.viz.engine.util.TripleBuffer;
 import org.gephi.viz.engine.util.gl.OpenGLOptions;
 import org.gephi.viz.engine.util.structure.EdgesCallback;
 import org.lwjgl.opengl.GLCapabilities;
-import org.lwjgl.system.MemoryStack;
 
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
+import java.util.Arrays;
 
 import static org.gephi.viz.engine.util.gl.Constants.*;
 import static org.lwjgl.opengl.GL11.GL_FLOAT;
 import static org.lwjgl.opengl.GL11.GL_UNSIGNED_BYTE;
-import static org.lwjgl.opengl.GL15.glGenBuffers;
 import static org.lwjgl.opengl.GL20.glVertexAttribPointer;
 
 /**
@@ -39,15 +45,13 @@ public class AbstractEdgeData {
     protected final InstanceCounter undirectedInstanceCounter = new InstanceCounter();
     protected final InstanceCounter directedInstanceCounter = new InstanceCounter();
 
-    // NOTE: Why secondary buffers and VAOs?
-    // Sadly, we cannot use glDrawArraysInstancedBaseInstance in MacOS and it will be never available
-
     protected GLBuffer vertexGLBufferUndirected;
     protected GLBuffer vertexGLBufferDirected;
     protected GLBuffer attributesGLBufferDirected;
-    protected GLBuffer attributesGLBufferDirectedSecondary;
     protected GLBuffer attributesGLBufferUndirected;
-    protected GLBuffer attributesGLBufferUndirectedSecondary;
+    //Per instance selection states, only for instanced rendering:
+    protected GLBuffer selectionStatesGLBufferDirected;
+    protected GLBuffer selectionStatesGLBufferUndirected;
 
     protected final EdgesCallback edgesCallback = new EdgesCallback();
 
@@ -55,22 +59,49 @@ public class AbstractEdgeData {
         EdgeLineModelUndirected.TOTAL_ATTRIBUTES_FLOATS,
         EdgeLineModelDirected.TOTAL_ATTRIBUTES_FLOATS
     );
+    protected static final int SELECTION_STATE_STRIDE = EdgeLineModelUndirected.SELECTION_STATE_BYTES;
 
     protected static final int VERTEX_COUNT_UNDIRECTED = EdgeLineModelUndirected.VERTEX_COUNT;
     protected static final int VERTEX_COUNT_DIRECTED = EdgeLineModelDirected.VERTEX_COUNT;
     protected static final int VERTEX_COUNT_MAX = Math.max(VERTEX_COUNT_DIRECTED, VERTEX_COUNT_UNDIRECTED);
 
-    protected final boolean instanced;
-    protected final boolean usesSecondaryBuffer;
+    //Attributes layout, see fillUndirectedEdgeAttributesData and fillDirectedEdgeAttributesData:
+    protected static final int ATTRIB_INDEX_SOURCE_COLOR = 5;
+    protected static final int ATTRIB_INDEX_UNDIRECTED_TARGET_COLOR = 6;
+    protected static final int ATTRIB_INDEX_UNDIRECTED_COLOR = 7;
+    protected static final int ATTRIB_INDEX_DIRECTED_COLOR = 6;
+    protected static final int ATTRIB_INDEX_DIRECTED_TARGET_COLOR = 8;
 
-    protected ManagedDirectBuffer attributesBuffer;
+    protected final boolean instanced;
+    //Floats per edge written by updateEdgesData, ATTRIBS_STRIDE unless a subclass uses its own attributes layout:
+    protected final int attribsStride;
 
     protected float[] attributesBufferBatch;
     protected static final int BATCH_EDGES_SIZE = 32768;
 
-    public AbstractEdgeData(boolean instanced, boolean usesSecondaryBuffer) {
+    //Frames written by world updaters and read by the GL thread (see acquireFrame):
+    protected TripleBuffer<EdgesFrame> frames;
+
+    //Persistent mapped ring buffers, one per edges region, only used by subclasses that create them (see initRingBuffers):
+    protected GLPersistentRingBuffer[] attributesRings;
+
+    // State, only used in the GL thread:
+    private long uploadedAttributesVersion = -1;
+    private final float[] edgeBothSelectionColorFloats = new float[4];
+    private final float[] edgeOutSelectionColorFloats = new float[4];
+    private final float[] edgeInSelectionColorFloats = new float[4];
+
+    public AbstractEdgeData(boolean instanced) {
+        this(instanced, ATTRIBS_STRIDE);
+    }
+
+    /**
+     * @param instanced Instanced rendering, attributes are filled in direct buffers
+     * @param attribsStride Floats per edge, for subclasses that override the fill methods with their own attributes layout
+     */
+    public AbstractEdgeData(boolean instanced, int attribsStride) {
         this.instanced = instanced;
-        this.usesSecondaryBuffer = usesSecondaryBuffer;
+        this.attribsStride = attribsStride;
     }
 
     public void init() {
@@ -80,453 +111,735 @@ public class AbstractEdgeData {
     }
 
     protected void initBuffers() {
-        attributesBufferBatch = new float[ATTRIBS_STRIDE * BATCH_EDGES_SIZE];
-        attributesBuffer = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_EDGES_SIZE);
+        attributesBufferBatch = new float[attribsStride * BATCH_EDGES_SIZE];
+        frames = new TripleBuffer<>(() -> new EdgesFrame(instanced));
     }
 
-    protected int setupShaderProgramForRenderingLayerUndirected(final RenderingLayer layer,
-                                                                final VizEngine engine,
-                                                                final float[] mvpFloats) {
-        final boolean someSelection = engine.getLookup().lookup(GraphSelection.class).getSelectedEdgesCount() > 0;
-        final boolean renderingUnselectedEdges = layer.isBack();
-        if (!someSelection && renderingUnselectedEdges) {
-            return 0;
-        }
-
-        final float[] backgroundColorFloats = engine.getBackgroundColor();
-
-        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+    protected void initSelectionStatesGLBuffers(final int bufferNameUndirected, final int bufferNameDirected) {
+        selectionStatesGLBufferUndirected = initSelectionStatesGLBuffer(bufferNameUndirected);
+        selectionStatesGLBufferDirected = initSelectionStatesGLBuffer(bufferNameDirected);
+    }
 
-        final float edgeScale = renderingOptions.getEdgeScale();
-        float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
+    private static GLBuffer initSelectionStatesGLBuffer(final int bufferName) {
+        final GLBufferMutable buffer = new GLBufferMutable(bufferName, GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        buffer.bind();
+        buffer.init(SELECTION_STATE_STRIDE * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        buffer.unbind();
+        return buffer;
+    }
 
-        final GraphIndex graphIndex = engine.getLookup().lookup(GraphIndex.class);
+    /**
+     * @return Undirected edges instance counts of the frame being drawn. Only updated in the GL thread
+     */
+    public InstanceCounter getUndirectedInstanceCounter() {
+        return undirectedInstanceCounter;
+    }
 
-        final float minWeight = graphIndex.getEdgesMinWeight();
-        final float maxWeight = graphIndex.getEdgesMaxWeight();
+    /**
+     * @return Directed edges instance counts of the frame being drawn. Only updated in the GL thread
+     */
+    public InstanceCounter getDirectedInstanceCounter() {
+        return directedInstanceCounter;
+    }
 
-        final int instanceCount;
-        if (renderingUnselectedEdges) {
-            instanceCount = undirectedInstanceCounter.unselectedCountToDraw;
-
-            lineModelUndirected.useProgramWithSelectionUnselected(
-                    mvpFloats,
-                    edgeScale,
-                    minWeight,
-                    maxWeight,
-                    backgroundColorFloats,
-                    lightenNonSelectedFactor
-            );
+    /**
+     * Both layers draw every undirected edge of the frame, and the shader skips the ones that are not in the selection
+     * state of the layer: unselected edges in the back layer and selected edges (or all of them, without selection) in the front.
+     *
+     * @return Instances to draw, 0 when the layer has nothing to draw
+     */
+    protected int setupShaderProgramForRenderingLayerUndirected(final RenderingLayer layer,
+                                                                final VizEngine engine,
+                                                                final FrameContext context) {
+        if (!setupShaderProgramForRenderingLayer(layer, context, lineModelUndirected, null, undirectedInstanceCounter)) {
+            return 0;
+        }
 
-            if (usesSecondaryBuffer) {
-                setupUndirectedVertexArrayAttributesSecondary(engine);
-            } else {
-                setupUndirectedVertexArrayAttributes(engine);
-            }
-        } else {
-            instanceCount = undirectedInstanceCounter.selectedCountToDraw;
-            lineModelUndirected.useProgram(
-                    mvpFloats,
-                    edgeScale,
-                    minWeight,
-                    maxWeight
-            );
+        setupUndirectedVertexArrayAttributes(engine);
 
-            if (someSelection) {
-                if (someNodesSelection && edgeSelectionColor) {
-                    lineModelUndirected.useProgram(
-                            mvpFloats,
-                            edgeScale,
-                            minWeight,
-                            maxWeight
-                    );
-                } else {
-                    final float colorBias = 0.5f;
-                    final float colorMultiplier = 0.5f;
-
-                    lineModelUndirected.useProgramWithSelectionSelected(
-                            mvpFloats,
-                            edgeScale,
-                            minWeight,
-                            maxWeight,
-                            colorBias,
-                            colorMultiplier
-                    );
-                }
-            } else {
-                lineModelUndirected.useProgram(
-                        mvpFloats,
-                        edgeScale,
-                        minWeight,
-                        maxWeight
-                );
-            }
+        return frames.draw().regionsCounts[REGION_UNDIRECTED];
+    }
 
-            setupUndirectedVertexArrayAttributes(engine);
+    /**
+     * Same as {@link #setupShaderProgramForRenderingLayerUndirected}, for directed edges.
+     */
+    protected int setupShaderProgramForRenderingLayerDirected(final RenderingLayer layer,
+                                                              final VizEngine engine,
+                                                              final FrameContext context) {
+        if (!setupShaderProgramForRenderingLayer(layer, context, null, lineModelDirected, directedInstanceCounter)) {
+            return 0;
         }
 
-        return instanceCount;
+        setupDirectedVertexArrayAttributes(engine);
+
+        return frames.draw().regionsCounts[REGION_DIRECTED];
     }
 
-    protected int setupShaderProgramForRenderingLayerDirected(final RenderingLayer layer,
-                                                              final VizEngine engine,
-                                                              final float[] mvpFloats) {
-        final boolean someSelection = engine.getLookup().lookup(GraphSelection.class).getSelectedEdgesCount() > 0;
+    private boolean setupShaderProgramForRenderingLayer(final RenderingLayer layer,
+                                                        final FrameContext context,
+                                                        final EdgeLineModelUndirected undirectedModel,
+                                                        final EdgeLineModelDirected directedModel,
+                                                        final InstanceCounter instanceCounter) {
+        //Selection of the frame being drawn, its selection states were written with it:
+        final EdgesFrame frame = frames.draw();
+        final boolean someSelection = frame.someEdgesSelection;
         final boolean renderingUnselectedEdges = layer.isBack();
-        if (!someSelection && renderingUnselectedEdges) {
-            return 0;
+        if (renderingUnselectedEdges && (!someSelection || instanceCounter.unselectedCountToDraw == 0)) {
+            return false;
+        }
+        if (!renderingUnselectedEdges && instanceCounter.selectedCountToDraw == 0) {
+            return false;
         }
 
-        final float[] backgroundColorFloats = engine.getBackgroundColor();
+        final float[] mvpFloats = context.getModelViewProjectionFloats();
+        final float[] backgroundColorFloats = context.getBackgroundColor();
 
-        final GraphRenderingOptions renderingOptions = engine.getLookup().lookup(GraphRenderingOptions.class);
+        final GraphRenderingOptions renderingOptions = context.getRenderingOptions();
 
         final float edgeScale = renderingOptions.getEdgeScale();
-        float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
+        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
 
-        final GraphIndex graphIndex = engine.getLookup().lookup(GraphIndex.class);
+        final GraphIndex graphIndex = context.getGraphIndex();
 
         final float minWeight = graphIndex.getEdgesMinWeight();
         final float maxWeight = graphIndex.getEdgesMaxWeight();
 
-        final int instanceCount;
         if (renderingUnselectedEdges) {
-            instanceCount = directedInstanceCounter.unselectedCountToDraw;
-            lineModelDirected.useProgramWithSelectionUnselected(
-                    mvpFloats,
-                    edgeScale,
-                    minWeight,
-                    maxWeight,
-                    backgroundColorFloats,
-                    lightenNonSelectedFactor
-            );
-
-            if (usesSecondaryBuffer) {
-                setupDirectedVertexArrayAttributesSecondary(engine);
+            if (undirectedModel != null) {
+                undirectedModel.useProgramWithSelectionUnselected(mvpFloats, edgeScale, minWeight, maxWeight, backgroundColorFloats, lightenNonSelectedFactor);
             } else {
-                setupDirectedVertexArrayAttributes(engine);
+                directedModel.useProgramWithSelectionUnselected(mvpFloats, edgeScale, minWeight, maxWeight, backgroundColorFloats, lightenNonSelectedFactor);
             }
-        } else {
-            instanceCount = directedInstanceCounter.selectedCountToDraw;
-            lineModelDirected.useProgram(
-                    mvpFloats,
-                    edgeScale,
-                    minWeight,
-                    maxWeight
-            );
-
-            if (someSelection) {
-                if (someNodesSelection && edgeSelectionColor) {
-                    lineModelDirected.useProgram(
-                            mvpFloats,
-                            edgeScale,
-                            minWeight,
-                            maxWeight
-                    );
-                } else {
-                    final float colorBias = 0.5f;
-                    final float colorMultiplier = 0.5f;
-
-                    lineModelDirected.useProgramWithSelectionSelected(
-                            mvpFloats,
-                            edgeScale,
-                            minWeight,
-                            maxWeight,
-                            colorBias,
-                            colorMultiplier
-                    );
-                }
+        } else if (someSelection) {
+            //Edges with selection colors are drawn as they are:
+            final boolean selectionColors = frame.someNodesSelection && frame.edgeSelectionColor;
+            final float colorBias = selectionColors ? 0f : 0.5f;
+            final float colorMultiplier = selectionColors ? 1f : 0.5f;
+
+            unpackColor(frame.edgeBothSelectionColor, edgeBothSelectionColorFloats);
+            unpackColor(frame.edgeOutSelectionColor, edgeOutSelectionColorFloats);
+            unpackColor(frame.edgeInSelectionColor, edgeInSelectionColorFloats);
+
+            if (undirectedModel != null) {
+                undirectedModel.useProgramWithSelectionSelected(
+                    mvpFloats, edgeScale, minWeight, maxWeight, colorBias, colorMultiplier,
+                    edgeBothSelectionColorFloats, edgeOutSelectionColorFloats, edgeInSelectionColorFloats
+                );
             } else {
-                lineModelDirected.useProgram(
-                        mvpFloats,
-                        edgeScale,
-                        minWeight,
-                        maxWeight
+                directedModel.useProgramWithSelectionSelected(
+                    mvpFloats, edgeScale, minWeight, maxWeight, colorBias, colorMultiplier,
+                    edgeBothSelectionColorFloats, edgeOutSelectionColorFloats, edgeInSelectionColorFloats
                 );
             }
-
-            setupDirectedVertexArrayAttributes(engine);
+        } else {
+            if (undirectedModel != null) {
+                undirectedModel.useProgram(mvpFloats, edgeScale, minWeight, maxWeight);
+            } else {
+                directedModel.useProgram(mvpFloats, edgeScale, minWeight, maxWeight);
+            }
         }
 
-        return instanceCount;
+        return true;
     }
 
-    protected int updateDirectedData(
-        final Graph graph,
-        final boolean someEdgesSelection, final boolean hideNonSelected, final int visibleEdgesCount, final Edge[] visibleEdgesArray, final GraphSelection graphSelection, final boolean someNodesSelection, final boolean edgeSelectionColor, final float edgeBothSelectionColor, final float edgeOutSelectionColor, final float edgeInSelectionColor,
-        final float[] attribs, int index
-    ) {
-        return updateDirectedData(graph, someEdgesSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray, graphSelection, someNodesSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor, attribs, index, null);
+    /**
+     * Unpacks a color packed as in the attributes (argb int bits) to normalized rgba.
+     */
+    private static void unpackColor(final float packedColor, final float[] rgba) {
+        final int argb = Float.floatToRawIntBits(packedColor);
+        rgba[0] = ((argb >> 16) & 0xFF) / 255f;
+        rgba[1] = ((argb >> 8) & 0xFF) / 255f;
+        rgba[2] = (argb & 0xFF) / 255f;
+        rgba[3] = ((argb >> 24) & 0xFF) / 255f;
     }
 
-    protected int updateDirectedData(
-        final Graph graph,
-        final boolean someEdgesSelection, final boolean hideNonSelected, final int visibleEdgesCount, final Edge[] visibleEdgesArray, final GraphSelection graphSelection, final boolean someNodesSelection, final boolean edgeSelectionColor, final float edgeBothSelectionColor, final float edgeOutSelectionColor, final float edgeInSelectionColor,
-        final float[] attribs, int index, final FloatBuffer directBuffer
-    ) {
-        checkBufferIndexing(directBuffer, attribs, index);
+    //Edge regions, in the order expected by the attributes buffer:
+    private static final byte REGION_SKIPPED = -1;
+    protected static final int REGION_UNDIRECTED = 0;
+    protected static final int REGION_DIRECTED = 1;
+    private static final int REGIONS_COUNT = 2;
+
+    //Selection states counts, per region:
+    private static final int COUNT_UNSELECTED = 0;
+    private static final int COUNT_SELECTED = 1;
+    private static final int COUNTS_PER_REGION = 2;
+
+    private byte[] edgesRegions = new byte[0];
+
+    //Per chunk and region counts, start positions and write cursors (in instances), for parallel filling.
+    //Start positions are kept for selection only updates:
+    private int[] chunksRegionsCounts = new int[REGIONS_COUNT];
+    private int[] chunksRegionsStarts = new int[REGIONS_COUNT];
+    private int[] chunksRegionsCursors = new int[REGIONS_COUNT];
+    private int[] chunksCulledCounts = new int[REGIONS_COUNT];
+    private int[] chunksStatesCounts = new int[REGIONS_COUNT * COUNTS_PER_REGION];
+    private float[][] chunksBatches = new float[0][];
+    protected static final int CHUNK_BATCH_EDGES_SIZE = 4096;
+
+    //Last visible edges classification and attributes written by the world updaters, kept by selection only updates (see updateData):
+    private long attributesVersion = 0;
+    private boolean lastAttributesValid = false;
+    private boolean lastAttributesWrittenToRings = false;
+    private int lastChunks = 0;
+    private final int[] lastRegionsCounts = new int[REGIONS_COUNT];
+    private final int[] lastCulledCounts = new int[REGIONS_COUNT];
+
+    /**
+     * Writes the next frame: attributes of every visible edge that is not culled, in 2 consecutive regions (undirected
+     * and directed edges) that keep the visible edges order, and the selection state of each one.
+     * <p>
+     * Attributes don't depend on the selection. For selection only updates, the visible edges and attributes of the
+     * last update are kept and only the selection states are written again, so the GL thread only has to upload those.</p>
+     *
+     * @param engine Engine
+     * @param graphIndex Graph index
+     * @param renderingOptions Rendering options
+     * @param graphSelection Selection
+     * @param selectionOnly True if nothing but the selection changed since the last update, see
+     * {@link org.gephi.viz.engine.status.WorldUpdateTracker#isSelectionOnlyUpdate()}
+     */
+    protected void updateData(final VizEngine engine,
+                              final GraphIndexImpl graphIndex,
+                              final GraphRenderingOptions renderingOptions,
+                              final GraphSelection graphSelection,
+                              final boolean selectionOnly) {
+        final EdgesFrame frame = frames.write();
+        if (!renderingOptions.isShowEdges()) {
+            frame.clear();
+            lastAttributesValid = false;
+            frames.publish();
+            return;
+        }
 
-        if (graph.isUndirected()) {
-            directedInstanceCounter.unselectedCount = 0;
-            directedInstanceCounter.selectedCount = 0;
-            return index;
+        //Chunks of the kept start positions:
+        final boolean keepAttributes = selectionOnly && lastAttributesValid
+            && ParallelFill.chunksCount(edgesCallback.getCount()) == lastChunks;
+        if (!keepAttributes) {
+            graphIndex.indexEdges();
+            graphIndex.getVisibilitySnapshot().getVisibleEdges(edgesCallback);
+            attributesVersion++;
         }
 
-        saveSelectionState(someNodesSelection, edgeSelectionColor, graphSelection, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor);
+        //Selection:
+        final boolean someEdgesSelection = graphSelection.getSelectedEdgesCount() > 0;
+        final boolean someNodesSelection = graphSelection.getSelectedNodesCount() > 0;
+        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
+        final boolean hideNonSelected = someEdgesSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
+        final boolean edgeSelectionColor = renderingOptions.isEdgeSelectionColor();
+
+        frame.saveSelectionState(
+            someEdgesSelection, someNodesSelection, edgeSelectionColor,
+            Float.intBitsToFloat(renderingOptions.getEdgeBothSelectionColor().getRGB()),
+            Float.intBitsToFloat(renderingOptions.getEdgeOutSelectionColor().getRGB()),
+            Float.intBitsToFloat(renderingOptions.getEdgeInSelectionColor().getRGB())
+        );
+
+        final Edge[] visibleEdgesArray = edgesCallback.getEdgesArray();
+        final int visibleEdgesCount = edgesCallback.getCount();
+        final int chunks = ParallelFill.chunksCount(visibleEdgesCount);
+
+        if (!keepAttributes) {
+            classifyEdges(visibleEdgesArray, visibleEdgesCount, chunks, createSubPixelCulling(engine, graphIndex, renderingOptions));
+        }
+
+        //Where the attributes of this frame are:
+        final boolean fillAttributes;
+        final boolean writeToRings;
+        if (!keepAttributes) {
+            fillAttributes = true;
+            //NOTE: The ring buffers write segments are not part of the frames, so this relies on the engine not running
+            //a world update while the GL thread swaps them (see updateRingBuffers)
+            boolean fits = attributesRings != null;
+            for (int region = 0; fits && region < REGIONS_COUNT; region++) {
+                fits = attributesRings[region].fits((long) lastRegionsCounts[region] * attribsStride * Float.BYTES);
+            }
+            writeToRings = fits;
+        } else if (lastAttributesWrittenToRings) {
+            //Still in the rings write segments, or already active if the GL thread acquired that frame
+            fillAttributes = false;
+            writeToRings = true;
+        } else {
+            //Frames are reused, this one may hold older attributes
+            fillAttributes = frame.writtenToRings || frame.attributesVersion != attributesVersion;
+            writeToRings = false;
+        }
 
-        int newEdgesCountUnselected = 0;
-        int newEdgesCountSelected = 0;
-        if (someEdgesSelection) {
-            if (hideNonSelected) {
-                for (int j = 0; j < visibleEdgesCount; j++) {
-                    final Edge edge = visibleEdgesArray[j];
-                    if (!edge.isDirected()) {
-                        continue;
-                    }
+        final int instancesCount = lastRegionsCounts[REGION_UNDIRECTED] + lastRegionsCounts[REGION_DIRECTED];
+        if (fillAttributes) {
+            fillAttributes(frame, visibleEdgesArray, visibleEdgesCount, chunks, instancesCount, writeToRings);
+        }
 
-                    final boolean selected = graphSelection.isEdgeSelected(edge);
-                    if (!selected) {
-                        continue;
-                    }
+        if (!keepAttributes) {
+            lastAttributesValid = true;
+            lastAttributesWrittenToRings = writeToRings;
+        }
 
-                    newEdgesCountSelected++;
+        //Selection states, at the same positions as the attributes:
+        frame.selectionStatesBuffer.ensureCapacity(instancesCount * SELECTION_STATE_STRIDE);
+        final ByteBuffer states = frame.selectionStatesBuffer.byteBuffer();
+        final byte[] regions = edgesRegions;
+        final int[] cursors = chunksRegionsCursors;
+        final int[] statesCounts = chunksStatesCounts;
+        System.arraycopy(chunksRegionsStarts, 0, cursors, 0, chunks * REGIONS_COUNT);
+
+        ParallelFill.forEachChunk(chunks, chunk -> fillSelectionStates(
+            visibleEdgesArray, regions,
+            ParallelFill.chunkStart(chunk, chunks, visibleEdgesCount), ParallelFill.chunkStart(chunk + 1, chunks, visibleEdgesCount),
+            states, cursors, chunk * REGIONS_COUNT, statesCounts, chunk * REGIONS_COUNT * COUNTS_PER_REGION,
+            someEdgesSelection, hideNonSelected, graphSelection, someNodesSelection, edgeSelectionColor
+        ));
+
+        Arrays.fill(frame.statesCounts, 0);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            for (int i = 0; i < REGIONS_COUNT * COUNTS_PER_REGION; i++) {
+                frame.statesCounts[i] += statesCounts[chunk * REGIONS_COUNT * COUNTS_PER_REGION + i];
+            }
+        }
 
-                    fillDirectedEdgeAttributesDataWithSelection(attribs, edge, index, selected);
-                    index += ATTRIBS_STRIDE;
+        frame.attributesVersion = attributesVersion;
+        frame.writtenToRings = writeToRings;
+        System.arraycopy(lastRegionsCounts, 0, frame.regionsCounts, 0, REGIONS_COUNT);
+        System.arraycopy(lastCulledCounts, 0, frame.culledCounts, 0, REGIONS_COUNT);
+        frames.publish();
+    }
 
-                    if (directBuffer != null && index == attribs.length) {
-                        directBuffer.put(attribs, 0, attribs.length);
-                        index = 0;
-                    }
-                }
-            } else {
-                //First non-selected (bottom):
-                for (int j = 0; j < visibleEdgesCount; j++) {
-                    final Edge edge = visibleEdgesArray[j];
-                    if (!edge.isDirected()) {
-                        continue;
-                    }
-
-                    if (graphSelection.isEdgeSelected(edge)) {
-                        continue;
-                    }
-
-                    newEdgesCountUnselected++;
-
-                    fillDirectedEdgeAttributesDataWithSelection(attribs, edge, index, false);
-                    index += ATTRIBS_STRIDE;
-
-                    if (directBuffer != null && index == attribs.length) {
-                        directBuffer.put(attribs, 0, attribs.length);
-                        index = 0;
-                    }
-                }
+    /**
+     * Classifies each visible edge into its region, or skips it when culled, and computes the start position of each
+     * chunk inside every region.
+     * <p>
+     * Above {@link ParallelFill#getParallelThreshold()} visible edges, it runs in parallel chunks of visibleEdgesArray.
+     * Prefix sums of the per chunk counts give each chunk its own disjoint range inside every region, so the visible edges order is kept in each region.</p>
+     * <p>
+     * When a culling is given, edges too small to be seen are skipped and only counted (see {@link #createSubPixelCulling}).</p>
+     */
+    private void classifyEdges(final Edge[] visibleEdgesArray, final int visibleEdgesCount, final int chunks, final SubPixelCulling culling) {
+        if (edgesRegions.length < visibleEdgesCount) {
+            edgesRegions = new byte[ArrayUtils.getNextPowerOf2(visibleEdgesCount)];
+        }
 
-                //Then selected ones (up):
-                for (int j = 0; j < visibleEdgesCount; j++) {
-                    final Edge edge = visibleEdgesArray[j];
-                    if (!edge.isDirected()) {
-                        continue;
-                    }
+        ensureChunksCapacity(chunks);
+
+        final byte[] regions = edgesRegions;
+        final int[] counts = chunksRegionsCounts;
+        final int[] culledCounts = chunksCulledCounts;
+
+        //Classify and count:
+        ParallelFill.forEachChunk(chunks, chunk -> classifyEdges(
+            visibleEdgesArray, culling, regions,
+            ParallelFill.chunkStart(chunk, chunks, visibleEdgesCount), ParallelFill.chunkStart(chunk + 1, chunks, visibleEdgesCount),
+            counts, culledCounts, chunk * REGIONS_COUNT
+        ));
+
+        //Prefix sums, regions start positions and each chunk start position inside them:
+        int position = 0;
+        for (int region = 0; region < REGIONS_COUNT; region++) {
+            lastRegionsCounts[region] = 0;
+            lastCulledCounts[region] = 0;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                final int count = counts[chunk * REGIONS_COUNT + region];
+
+                chunksRegionsStarts[chunk * REGIONS_COUNT + region] = position;
+                position += count;
+                lastRegionsCounts[region] += count;
+                lastCulledCounts[region] += culledCounts[chunk * REGIONS_COUNT + region];
+            }
+        }
 
-                    if (!graphSelection.isEdgeSelected(edge)) {
-                        continue;
-                    }
+        lastChunks = chunks;
+    }
 
-                    newEdgesCountSelected++;
+    /**
+     * Fills the attributes of the classified edges, to the frame attributes or directly the write segments of the ring
+     * buffers.
+     * <p>
+     * For instanced rendering, the edges are batched in attributesBufferBatch (one batch per chunk), split in one part
+     * per region, and each part is flushed to its region in the direct buffer when full. Otherwise edges are written
+     * directly in the frame attributes array.</p>
+     */
+    private void fillAttributes(final EdgesFrame frame, final Edge[] visibleEdgesArray, final int visibleEdgesCount,
+                                final int chunks, final int instancesCount, final boolean writeToRings) {
+        final int[] cursors = chunksRegionsCursors;
+        System.arraycopy(chunksRegionsStarts, 0, cursors, 0, chunks * REGIONS_COUNT);
+
+        final byte[] regions = edgesRegions;
+
+        if (!instanced) {
+            final float[] attribs
+                = frame.attributesArray
+                = ArrayUtils.ensureCapacityNoCopy(frame.attributesArray, instancesCount * attribsStride);
+
+            ParallelFill.forEachChunk(chunks, chunk -> fillEdges(
+                visibleEdgesArray, regions,
+                ParallelFill.chunkStart(chunk, chunks, visibleEdgesCount), ParallelFill.chunkStart(chunk + 1, chunks, visibleEdgesCount),
+                attribs, cursors, chunk * REGIONS_COUNT
+            ));
+            return;
+        }
 
-                    fillDirectedEdgeAttributesDataWithSelection(attribs, edge, index, true);
-                    index += ATTRIBS_STRIDE;
+        //Direct buffer write targets. Directly the write segments of the ring buffers when they are big enough:
+        final FloatBuffer[] regionsTargets = new FloatBuffer[REGIONS_COUNT];
+        final int[] regionsTargetsBase = new int[REGIONS_COUNT];
+        if (!writeToRings) {
+            frame.attributesBuffer.ensureCapacity(instancesCount * attribsStride);
+        }
 
-                    if (directBuffer != null && index == attribs.length) {
-                        directBuffer.put(attribs, 0, attribs.length);
-                        index = 0;
-                    }
-                }
+        int regionBase = 0;
+        for (int region = 0; region < REGIONS_COUNT; region++) {
+            if (writeToRings) {
+                //Each region is a separate GL buffer:
+                regionsTargets[region] = attributesRings[region].writeFloatBuffer();
+                regionsTargetsBase[region] = regionBase;
+            } else {
+                regionsTargets[region] = frame.attributesBuffer.floatBuffer();
             }
-        } else {
-            //Just all edges, no selection active:
-            for (int j = 0; j < visibleEdgesCount; j++) {
-                final Edge edge = visibleEdgesArray[j];
-                if (!edge.isDirected()) {
-                    continue;
-                }
+            regionBase += lastRegionsCounts[region];
+        }
 
-                newEdgesCountSelected++;
+        ParallelFill.forEachChunk(chunks, chunk -> {
+            final FloatBuffer[] chunkTargets = new FloatBuffer[REGIONS_COUNT];
+            for (int region = 0; region < REGIONS_COUNT; region++) {
+                chunkTargets[region] = regionsTargets[region].duplicate();
+            }
 
-                fillDirectedEdgeAttributesDataWithoutSelection(attribs, edge, index);
-                index += ATTRIBS_STRIDE;
+            fillEdgesBatched(
+                visibleEdgesArray, regions,
+                ParallelFill.chunkStart(chunk, chunks, visibleEdgesCount), ParallelFill.chunkStart(chunk + 1, chunks, visibleEdgesCount),
+                chunk == 0 ? attributesBufferBatch : chunksBatches[chunk], chunkTargets, regionsTargetsBase,
+                cursors, chunk * REGIONS_COUNT
+            );
+        });
+    }
 
-                if (directBuffer != null && index == attribs.length) {
-                    directBuffer.put(attribs, 0, attribs.length);
-                    index = 0;
-                }
-            }
+    /**
+     * Creates the sub-pixel culling for a world update, or returns null when it's disabled (see {@link GraphRenderingOptions#getEdgeCullingPixels()}).
+     * <p>
+     * Uses the zoom of the culling boundaries multiplied by the guard band max zoom factor, the most the view can be zoomed in before
+     * the next culling update. Culled edges can't become visible in between, and they only change when the culling version does,
+     * so they don't pop in and out while panning or zooming.</p>
+     *
+     * @param engine Engine
+     * @param graphIndex Graph index, for the edges weights range
+     * @param renderingOptions Rendering options
+     * @return Culling or null
+     */
+    protected static SubPixelCulling createSubPixelCulling(final VizEngine engine, final GraphIndex graphIndex, final GraphRenderingOptions renderingOptions) {
+        final float cullingPixels = renderingOptions.getEdgeCullingPixels();
+        final float maxZoom = engine.getCullingZoom() * engine.getGuardBandMaxZoomFactor();
+        if (cullingPixels <= 0 || maxZoom <= 0) {
+            return null;
         }
 
-        //Remaining:
-        if (directBuffer != null && index > 0) {
-            directBuffer.put(attribs, 0, index);
-            index = 0;
+        final float minWeight = graphIndex.getEdgesMinWeight();
+        final float maxWeight = graphIndex.getEdgesMaxWeight();
+        final float edgeScale = renderingOptions.getEdgeScale();
+
+        //Same thickness as the edge shaders:
+        return new SubPixelCulling(
+            cullingPixels / maxZoom,
+            EDGE_SCALE_MIN * edgeScale,
+            EDGE_SCALE_MAX * edgeScale,
+            minWeight,
+            NumberUtils.equalsEpsilon(minWeight, maxWeight, 1e-3f) ? 1 : maxWeight - minWeight
+        );
+    }
+
+    /**
+     * Makes the last frame published by the world updaters the one to draw, and promotes its counts to draw.
+     * Must be called in the GL thread.
+     *
+     * @return True if a new frame was published since the last call, false to keep drawing the current one
+     */
+    protected boolean acquireFrame() {
+        if (!frames.acquire()) {
+            return false;
         }
 
-        directedInstanceCounter.unselectedCount = newEdgesCountUnselected;
-        directedInstanceCounter.selectedCount = newEdgesCountSelected;
+        final EdgesFrame frame = frames.draw();
+        final int[] counts = frame.statesCounts;
+        undirectedInstanceCounter.unselectedCount = counts[REGION_UNDIRECTED * COUNTS_PER_REGION + COUNT_UNSELECTED];
+        undirectedInstanceCounter.selectedCount = counts[REGION_UNDIRECTED * COUNTS_PER_REGION + COUNT_SELECTED];
+        directedInstanceCounter.unselectedCount = counts[REGION_DIRECTED * COUNTS_PER_REGION + COUNT_UNSELECTED];
+        directedInstanceCounter.selectedCount = counts[REGION_DIRECTED * COUNTS_PER_REGION + COUNT_SELECTED];
+        undirectedInstanceCounter.culledCount = frame.culledCounts[REGION_UNDIRECTED];
+        directedInstanceCounter.culledCount = frame.culledCounts[REGION_DIRECTED];
+        undirectedInstanceCounter.promoteCountToDraw();
+        directedInstanceCounter.promoteCountToDraw();
+        return true;
+    }
 
-        return index;
+    /**
+     * @param frame Acquired frame
+     * @return False if the GL buffers already have the attributes of the frame, so only its selection states changed
+     */
+    protected boolean hasNewAttributes(final EdgesFrame frame) {
+        return frame.attributesVersion != uploadedAttributesVersion;
     }
 
-    protected int updateUndirectedData(
-        final Graph graph,
-        final boolean someEdgesSelection, final boolean hideNonSelected, final int visibleEdgesCount, final Edge[] visibleEdgesArray, final GraphSelection graphSelection, final boolean someNodesSelection, final boolean edgeSelectionColor, final float edgeBothSelectionColor, final float edgeOutSelectionColor, final float edgeInSelectionColor,
-        final float[] attribs, int index
-    ) {
-        return updateUndirectedData(graph, someEdgesSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray, graphSelection, someNodesSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor, attribs, index, null);
+    /**
+     * Remembers the attributes of the frame as the ones in the GL buffers. Must be called in the GL thread.
+     *
+     * @param frame Acquired frame
+     */
+    protected void attributesUploaded(final EdgesFrame frame) {
+        uploadedAttributesVersion = frame.attributesVersion;
     }
 
-    protected int updateUndirectedData(
-        final Graph graph,
-        final boolean someEdgesSelection, final boolean hideNonSelected, final int visibleEdgesCount, final Edge[] visibleEdgesArray, final GraphSelection graphSelection, final boolean someNodesSelection, final boolean edgeSelectionColor, final float edgeBothSelectionColor, final float edgeOutSelectionColor, final float edgeInSelectionColor,
-        final float[] attribs, int index, final FloatBuffer directBuffer
-    ) {
-        checkBufferIndexing(directBuffer, attribs, index);
+    /**
+     * Uploads the selection states of the frame, only a byte per edge. Must be called in the GL thread.
+     *
+     * @param frame Acquired frame
+     */
+    protected void updateSelectionStatesGLBuffers(final EdgesFrame frame) {
+        final ByteBuffer states = frame.selectionStatesBuffer.byteBuffer();
+        final int undirectedCount = frame.regionsCounts[REGION_UNDIRECTED];
+
+        states.limit(undirectedCount * SELECTION_STATE_STRIDE);
+        states.position(0);
+        selectionStatesGLBufferUndirected.bind();
+        selectionStatesGLBufferUndirected.updateWithOrphaning(states);
+        selectionStatesGLBufferUndirected.unbind();
+
+        states.limit((undirectedCount + frame.regionsCounts[REGION_DIRECTED]) * SELECTION_STATE_STRIDE);
+        states.position(undirectedCount * SELECTION_STATE_STRIDE);
+        selectionStatesGLBufferDirected.bind();
+        selectionStatesGLBufferDirected.updateWithOrphaning(states);
+        selectionStatesGLBufferDirected.unbind();
+    }
 
-        if (graph.isDirected()) {
-            undirectedInstanceCounter.unselectedCount = 0;
-            undirectedInstanceCounter.selectedCount = 0;
-            return index;
+    protected void initRingBuffers() {
+        attributesRings = new GLPersistentRingBuffer[REGIONS_COUNT];
+        for (int region = 0; region < REGIONS_COUNT; region++) {
+            attributesRings[region] = new GLPersistentRingBuffer(GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+            attributesRings[region].init(attribsStride * Float.BYTES * BATCH_EDGES_SIZE);
         }
 
-        saveSelectionState(someNodesSelection, edgeSelectionColor, graphSelection, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor);
+        updateActiveRingBuffers();
+    }
 
-        int newEdgesCountUnselected = 0;
-        int newEdgesCountSelected = 0;
-        //Undirected edges:
-        if (someEdgesSelection) {
-            if (hideNonSelected) {
-                for (int j = 0; j < visibleEdgesCount; j++) {
-                    final Edge edge = visibleEdgesArray[j];
-                    if (edge.isDirected()) {
-                        continue;
-                    }
+    /**
+     * Makes the attributes of the given frame active when they are new, copying them from the frame attributes buffer
+     * first (and growing the ring buffers) if they were not written to the ring buffers, and uploads its selection states.
+     * Must be called in the GL thread, after {@link #acquireFrame()}.
+     *
+     * @param frame Acquired frame
+     */
+    protected void updateRingBuffers(final EdgesFrame frame) {
+        if (hasNewAttributes(frame)) {
+            if (!frame.writtenToRings) {
+                final int[] counts = frame.regionsCounts;
+
+                boolean reallocated = false;
+                for (int region = 0; region < REGIONS_COUNT; region++) {
+                    reallocated |= attributesRings[region].ensureCapacity((long) counts[region] * attribsStride * Float.BYTES);
+                }
 
-                    if (!graphSelection.isEdgeSelected(edge)) {
-                        continue;
-                    }
+                if (reallocated) {
+                    destroyVertexArrays();
+                }
 
-                    newEdgesCountSelected++;
+                final FloatBuffer buf = frame.attributesBuffer.floatBuffer();
+                int offset = 0;
+                for (int region = 0; region < REGIONS_COUNT; region++) {
+                    buf.limit(offset + counts[region] * attribsStride);
+                    buf.position(offset);
+                    attributesRings[region].writeFloatBuffer().put(buf);
+                    offset = buf.limit();
+                }
+            }
 
-                    fillUndirectedEdgeAttributesDataWithSelection(attribs, edge, index, true);
-                    index += ATTRIBS_STRIDE;
+            for (GLPersistentRingBuffer ring : attributesRings) {
+                ring.swap();
+            }
 
-                    if (directBuffer != null && index == attribs.length) {
-                        directBuffer.put(attribs, 0, attribs.length);
-                        index = 0;
-                    }
-                }
-            } else {
-                //First non-selected (bottom):
-                for (int j = 0; j < visibleEdgesCount; j++) {
-                    final Edge edge = visibleEdgesArray[j];
-                    if (edge.isDirected()) {
-                        continue;
-                    }
-
-                    if (graphSelection.isEdgeSelected(edge)) {
-                        continue;
-                    }
-
-                    newEdgesCountUnselected++;
-
-                    fillUndirectedEdgeAttributesDataWithSelection(attribs, edge, index, false);
-                    index += ATTRIBS_STRIDE;
-
-                    if (directBuffer != null && index == attribs.length) {
-                        directBuffer.put(attribs, 0, attribs.length);
-                        index = 0;
-                    }
-                }
+            updateActiveRingBuffers();
+            attributesUploaded(frame);
+        }
 
-                //Then selected ones (up):
-                for (int j = 0; j < visibleEdgesCount; j++) {
-                    final Edge edge = visibleEdgesArray[j];
-                    if (edge.isDirected()) {
-                        continue;
-                    }
+        updateSelectionStatesGLBuffers(frame);
+    }
 
-                    if (!graphSelection.isEdgeSelected(edge)) {
-                        continue;
-                    }
+    private void updateActiveRingBuffers() {
+        attributesGLBufferUndirected = attributesRings[REGION_UNDIRECTED].getActiveBuffer();
+        attributesGLBufferDirected = attributesRings[REGION_DIRECTED].getActiveBuffer();
+    }
 
-                    newEdgesCountSelected++;
+    private void ensureChunksCapacity(final int chunks) {
+        if (chunksRegionsCounts.length < chunks * REGIONS_COUNT) {
+            chunksRegionsCounts = new int[chunks * REGIONS_COUNT];
+            chunksRegionsStarts = new int[chunks * REGIONS_COUNT];
+            chunksRegionsCursors = new int[chunks * REGIONS_COUNT];
+            chunksCulledCounts = new int[chunks * REGIONS_COUNT];
+            chunksStatesCounts = new int[chunks * REGIONS_COUNT * COUNTS_PER_REGION];
+        }
 
-                    fillUndirectedEdgeAttributesDataWithSelection(attribs, edge, index, true);
-                    index += ATTRIBS_STRIDE;
+        //First chunk uses the main attribs batch:
+        if (instanced && chunksBatches.length < chunks) {
+            final float[][] newChunksBatches = new float[chunks][];
+            System.arraycopy(chunksBatches, 0, newChunksBatches, 0, chunksBatches.length);
+            for (int chunk = Math.max(1, chunksBatches.length); chunk < chunks; chunk++) {
+                newChunksBatches[chunk] = new float[attribsStride * CHUNK_BATCH_EDGES_SIZE];
+            }
+            chunksBatches = newChunksBatches;
+        }
+    }
 
-                    if (directBuffer != null && index == attribs.length) {
-                        directBuffer.put(attribs, 0, attribs.length);
-                        index = 0;
-                    }
-                }
+    private static void classifyEdges(
+        final Edge[] visibleEdgesArray, final SubPixelCulling culling, final byte[] regions,
+        final int start, final int end,
+        final int[] counts, final int[] culledCounts, final int countsOffset
+    ) {
+        for (int region = 0; region < REGIONS_COUNT; region++) {
+            counts[countsOffset + region] = 0;
+            culledCounts[countsOffset + region] = 0;
+        }
+
+        for (int j = start; j < end; j++) {
+            final Edge edge = visibleEdgesArray[j];
+            final int region = edge.isDirected() ? REGION_DIRECTED : REGION_UNDIRECTED;
+
+            if (culling != null && culling.isCulled(edge)) {
+                regions[j] = REGION_SKIPPED;
+                culledCounts[countsOffset + region]++;
+            } else {
+                regions[j] = (byte) region;
+                counts[countsOffset + region]++;
             }
-        } else {
-            //Just all edges, no selection active:
-            for (int j = 0; j < visibleEdgesCount; j++) {
-                final Edge edge = visibleEdgesArray[j];
-                if (edge.isDirected()) {
-                    continue;
-                }
+        }
+    }
 
-                newEdgesCountSelected++;
+    private static void fillSelectionStates(
+        final Edge[] visibleEdgesArray, final byte[] regions, final int start, final int end,
+        final ByteBuffer states, final int[] cursors, final int cursorsOffset, final int[] counts, final int countsOffset,
+        final boolean someEdgesSelection, final boolean hideNonSelected, final GraphSelection graphSelection,
+        final boolean someNodesSelection, final boolean edgeSelectionColor
+    ) {
+        for (int i = 0; i < REGIONS_COUNT * COUNTS_PER_REGION; i++) {
+            counts[countsOffset + i] = 0;
+        }
 
-                fillUndirectedEdgeAttributesDataWithoutSelection(attribs, edge, index);
-                index += ATTRIBS_STRIDE;
+        for (int j = start; j < end; j++) {
+            final byte region = regions[j];
+            if (region == REGION_SKIPPED) {
+                continue;
+            }
 
-                if (directBuffer != null && index == attribs.length) {
-                    directBuffer.put(attribs, 0, attribs.length);
-                    index = 0;
-                }
+            final byte state = edgeSelectionState(
+                visibleEdgesArray[j], someEdgesSelection, hideNonSelected, graphSelection, someNodesSelection, edgeSelectionColor
+            );
+            states.put(cursors[cursorsOffset + region] * SELECTION_STATE_STRIDE, state);
+            cursors[cursorsOffset + region]++;
+
+            if (state == SELECTION_STATE_UNSELECTED) {
+                counts[countsOffset + region * COUNTS_PER_REGION + COUNT_UNSELECTED]++;
+            } else if (state != SELECTION_STATE_HIDDEN) {
+                counts[countsOffset + region * COUNTS_PER_REGION + COUNT_SELECTED]++;
             }
         }
+    }
 
-        //Remaining:
-        if (directBuffer != null && index > 0) {
-            directBuffer.put(attribs, 0, index);
-            index = 0;
+    /**
+     * @return Selection state of an edge, one of the selected states with a selection color (see
+     * {@link org.gephi.viz.engine.util.gl.Constants#SELECTION_STATE_SELECTED_BOTH}) when it's not drawn with its own color
+     */
+    protected static byte edgeSelectionState(final Edge edge, final boolean someEdgesSelection, final boolean hideNonSelected,
+                                             final GraphSelection graphSelection, final boolean someNodesSelection, final boolean edgeSelectionColor) {
+        //Without selection, every edge is drawn as selected:
+        if (!someEdgesSelection) {
+            return SELECTION_STATE_SELECTED;
+        }
+
+        if (!graphSelection.isEdgeSelected(edge)) {
+            return hideNonSelected ? SELECTION_STATE_HIDDEN : SELECTION_STATE_UNSELECTED;
         }
 
-        undirectedInstanceCounter.unselectedCount = newEdgesCountUnselected;
-        undirectedInstanceCounter.selectedCount = newEdgesCountSelected;
+        if (someNodesSelection && edgeSelectionColor) {
+            final boolean sourceSelected = graphSelection.isNodeSelected(edge.getSource());
+            final boolean targetSelected = graphSelection.isNodeSelected(edge.getTarget());
+
+            if (sourceSelected && targetSelected) {
+                return SELECTION_STATE_SELECTED_BOTH;
+            } else if (sourceSelected) {
+                return SELECTION_STATE_SELECTED_OUT;
+            } else if (targetSelected) {
+                return SELECTION_STATE_SELECTED_IN;
+            }
+        } else if (someNodesSelection && edge.alpha() <= 0) {
+            //Color of the non selected node:
+            return graphSelection.isNodeSelected(edge.getSource()) ? SELECTION_STATE_SELECTED_TARGET_COLOR : SELECTION_STATE_SELECTED_SOURCE_COLOR;
+        }
 
-        return index;
+        return SELECTION_STATE_SELECTED;
     }
 
-    private void checkBufferIndexing(final FloatBuffer directBuffer, final float[] attribs, final int index) {
-        if (directBuffer != null) {
-            if (attribs.length % ATTRIBS_STRIDE != 0) {
-                throw new IllegalArgumentException("When filling a directBuffer, attribs buffer length should be a multiple of ATTRIBS_STRIDE = " + ATTRIBS_STRIDE);
+    private void fillEdges(
+        final Edge[] visibleEdgesArray, final byte[] regions, final int start, final int end,
+        final float[] attribs, final int[] cursors, final int cursorsOffset
+    ) {
+        for (int j = start; j < end; j++) {
+            final byte region = regions[j];
+            if (region == REGION_SKIPPED) {
+                continue;
             }
 
-            if (index % ATTRIBS_STRIDE != 0) {
-                throw new IllegalArgumentException("When filling a directBuffer, index should be a multiple of ATTRIBS_STRIDE = " + ATTRIBS_STRIDE);
+            fillEdgeAttributesData(attribs, visibleEdgesArray[j], cursors[cursorsOffset + region] * attribsStride, region);
+            cursors[cursorsOffset + region]++;
+        }
+    }
+
+    private void fillEdgesBatched(
+        final Edge[] visibleEdgesArray, final byte[] regions, final int start, final int end,
+        final float[] batch, final FloatBuffer[] regionsTargets, final int[] regionsTargetsBase, final int[] cursors, final int cursorsOffset
+    ) {
+        final int regionBatchSize = (batch.length / attribsStride / REGIONS_COUNT) * attribsStride;
+        final int[] batchCursors = new int[REGIONS_COUNT];
+        for (int region = 0; region < REGIONS_COUNT; region++) {
+            batchCursors[region] = region * regionBatchSize;
+        }
+
+        for (int j = start; j < end; j++) {
+            final byte region = regions[j];
+            if (region == REGION_SKIPPED) {
+                continue;
             }
+
+            final int batchIndex = batchCursors[region];
+            fillEdgeAttributesData(batch, visibleEdgesArray[j], batchIndex, region);
+            batchCursors[region] = batchIndex + attribsStride;
+
+            if (batchCursors[region] == (region + 1) * regionBatchSize) {
+                flushRegionBatch(regionsTargets[region], regionsTargetsBase[region], batch, region, regionBatchSize, batchCursors, cursors, cursorsOffset);
+            }
+        }
+
+        //Remaining:
+        for (int region = 0; region < REGIONS_COUNT; region++) {
+            flushRegionBatch(regionsTargets[region], regionsTargetsBase[region], batch, region, regionBatchSize, batchCursors, cursors, cursorsOffset);
         }
     }
 
-    private boolean someNodesSelection;
-    private boolean edgeSelectionColor;
-    private GraphSelection graphSelection;
-    private float edgeBothSelectionColor;
-    private float edgeOutSelectionColor;
-    private float edgeInSelectionColor;
+    private void flushRegionBatch(
+        final FloatBuffer target, final int targetBase, final float[] batch, final int region, final int regionBatchSize,
+        final int[] batchCursors, final int[] cursors, final int cursorsOffset
+    ) {
+        final int batchStart = region * regionBatchSize;
+        final int length = batchCursors[region] - batchStart;
+        if (length == 0) {
+            return;
+        }
 
-    private void saveSelectionState(final boolean someNodesSelection1, final boolean edgeSelectionColor1, final GraphSelection graphSelection1, final float edgeBothSelectionColor1, final float edgeOutSelectionColor1, final float edgeInSelectionColor1) {
-        this.someNodesSelection = someNodesSelection1;
-        this.edgeSelectionColor = edgeSelectionColor1;
-        this.graphSelection = graphSelection1;
-        this.edgeBothSelectionColor = edgeBothSelectionColor1;
-        this.edgeOutSelectionColor = edgeOutSelectionColor1;
-        this.edgeInSelectionColor = edgeInSelectionColor1;
+        target.position((cursors[cursorsOffset + region] - targetBase) * attribsStride);
+        target.put(batch, batchStart, length);
+
+        cursors[cursorsOffset + region] += length / attribsStride;
+        batchCursors[region] = batchStart;
+    }
+
+    private void fillEdgeAttributesData(final float[] attribs, final Edge edge, final int index, final byte region) {
+        if (region == REGION_DIRECTED) {
+            fillDirectedEdgeAttributesData(attribs, edge, index);
+        } else {
+            fillUndirectedEdgeAttributesData(attribs, edge, index);
+        }
     }
 
     protected void fillUndirectedEdgeAttributesDataBase(final float[] buffer, final Edge edge, final int index) {
@@ -550,52 +863,79 @@ public class AbstractEdgeData {
         buffer[index + 4] = (float) edge.getWeight();
 
         //Source color:
-        buffer[index + 5] = Float.intBitsToFloat(source.getRGBA());
+        buffer[index + ATTRIB_INDEX_SOURCE_COLOR] = Float.intBitsToFloat(source.getRGBA());
 
         //Target color:
-        buffer[index + 6] = Float.intBitsToFloat(target.getRGBA());
+        buffer[index + ATTRIB_INDEX_UNDIRECTED_TARGET_COLOR] = Float.intBitsToFloat(target.getRGBA());
     }
 
-    protected void fillUndirectedEdgeAttributesDataWithoutSelection(final float[] buffer, final Edge edge, final int index) {
+    protected void fillUndirectedEdgeAttributesData(final float[] buffer, final Edge edge, final int index) {
         fillUndirectedEdgeAttributesDataBase(buffer, edge, index);
 
-        buffer[index + 7] = Float.intBitsToFloat(edge.getRGBA());//Color
+        buffer[index + ATTRIB_INDEX_UNDIRECTED_COLOR] = Float.intBitsToFloat(edge.getRGBA());//Color
     }
 
-    protected void fillUndirectedEdgeAttributesDataWithSelection(final float[] buffer, final Edge edge, final int index, final boolean selected) {
-        final Node source = edge.getSource();
-        final Node target = edge.getTarget();
-
-        fillUndirectedEdgeAttributesDataBase(buffer, edge, index);
-
-        //Color:
+    /**
+     * @return Packed color of an edge filled with selection: the edge selection colors or the color of the non selected node when enabled, the edge color otherwise
+     */
+    protected static float edgeColorWithSelection(final Edge edge, final boolean selected,
+                                                  final boolean someNodesSelection, final boolean edgeSelectionColor, final GraphSelection graphSelection,
+                                                  final float edgeBothSelectionColor, final float edgeOutSelectionColor, final float edgeInSelectionColor) {
         if (selected) {
+            final Node source = edge.getSource();
+            final Node target = edge.getTarget();
+
             if (someNodesSelection && edgeSelectionColor) {
                 boolean sourceSelected = graphSelection.isNodeSelected(source);
                 boolean targetSelected = graphSelection.isNodeSelected(target);
 
                 if (sourceSelected && targetSelected) {
-                    buffer[index + 7] = edgeBothSelectionColor;//Color
+                    return edgeBothSelectionColor;
                 } else if (sourceSelected) {
-                    buffer[index + 7] = edgeOutSelectionColor;//Color
+                    return edgeOutSelectionColor;
                 } else if (targetSelected) {
-                    buffer[index + 7] = edgeInSelectionColor;//Color
-                } else {
-                    buffer[index + 7] = Float.intBitsToFloat(edge.getRGBA());//Color
+                    return edgeInSelectionColor;
                 }
-            } else {
-                if (someNodesSelection && edge.alpha() <= 0) {
-                    if (graphSelection.isNodeSelected(source)) {
-                        buffer[index + 7] = Float.intBitsToFloat(target.getRGBA());//Color
-                    } else {
-                        buffer[index + 7] = Float.intBitsToFloat(source.getRGBA());//Color
-                    }
+            } else if (someNodesSelection && edge.alpha() <= 0) {
+                if (graphSelection.isNodeSelected(source)) {
+                    return Float.intBitsToFloat(target.getRGBA());
                 } else {
-                    buffer[index + 7] = Float.intBitsToFloat(edge.getRGBA());//Color
+                    return Float.intBitsToFloat(source.getRGBA());
                 }
             }
-        } else {
-            buffer[index + 7] = Float.intBitsToFloat(edge.getRGBA());//Color
+        }
+
+        return Float.intBitsToFloat(edge.getRGBA());
+    }
+
+    /**
+     * Writes the color that a selected edge is drawn with in its attributes, for pipelines without per instance
+     * selection states. Attributes of other states are not changed.
+     *
+     * @param attribs Attributes of the edge
+     * @param index Index of the edge attributes
+     * @param directed Directed edge layout
+     * @param state Selection state of the edge
+     * @param frame Frame of the selection state
+     */
+    protected static void writeSelectionColor(final float[] attribs, final int index, final boolean directed, final byte state, final EdgesFrame frame) {
+        final int colorIndex = index + (directed ? ATTRIB_INDEX_DIRECTED_COLOR : ATTRIB_INDEX_UNDIRECTED_COLOR);
+        switch (state) {
+            case SELECTION_STATE_SELECTED_BOTH:
+                attribs[colorIndex] = frame.edgeBothSelectionColor;
+                break;
+            case SELECTION_STATE_SELECTED_OUT:
+                attribs[colorIndex] = frame.edgeOutSelectionColor;
+                break;
+            case SELECTION_STATE_SELECTED_IN:
+                attribs[colorIndex] = frame.edgeInSelectionColor;
+                break;
+            case SELECTION_STATE_SELECTED_SOURCE_COLOR:
+                attribs[colorIndex] = attribs[index + ATTRIB_INDEX_SOURCE_COLOR];
+                break;
+            case SELECTION_STATE_SELECTED_TARGET_COLOR:
+                attribs[colorIndex] = attribs[index + (directed ? ATTRIB_INDEX_DIRECTED_TARGET_COLOR : ATTRIB_INDEX_UNDIRECTED_TARGET_COLOR)];
+                break;
         }
     }
 
@@ -620,129 +960,84 @@ public class AbstractEdgeData {
         buffer[index + 4] = (float) edge.getWeight();
 
         //Source color:
-        buffer[index + 5] = Float.intBitsToFloat(source.getRGBA());
-    }
-
-    protected void fillDirectedEdgeAttributesDataWithoutSelection(final float[] buffer, final Edge edge, final int index) {
-        fillDirectedEdgeAttributesDataBase(buffer, edge, index);
-
-        //Color:
-        buffer[index + 6] = Float.intBitsToFloat(edge.getRGBA());//Color
-
-        //Target size:
-        buffer[index + 7] = edge.getTarget().size();
+        buffer[index + ATTRIB_INDEX_SOURCE_COLOR] = Float.intBitsToFloat(source.getRGBA());
     }
 
-    protected void fillDirectedEdgeAttributesDataWithSelection(final float[] buffer, final Edge edge, final int index, final boolean selected) {
-        final Node source = edge.getSource();
+    protected void fillDirectedEdgeAttributesData(final float[] buffer, final Edge edge, final int index) {
         final Node target = edge.getTarget();
 
         fillDirectedEdgeAttributesDataBase(buffer, edge, index);
 
         //Color:
-        if (selected) {
-            if (someNodesSelection && edgeSelectionColor) {
-                boolean sourceSelected = graphSelection.isNodeSelected(source);
-                boolean targetSelected = graphSelection.isNodeSelected(target);
-
-                if (sourceSelected && targetSelected) {
-                    buffer[index + 6] = edgeBothSelectionColor;//Color
-                } else if (sourceSelected) {
-                    buffer[index + 6] = edgeOutSelectionColor;//Color
-                } else if (targetSelected) {
-                    buffer[index + 6] = edgeInSelectionColor;//Color
-                } else {
-                    buffer[index + 6] = Float.intBitsToFloat(edge.getRGBA());//Color
-                }
-            } else {
-                if (someNodesSelection && edge.alpha() <= 0) {
-                    if (graphSelection.isNodeSelected(source)) {
-                        buffer[index + 6] = Float.intBitsToFloat(target.getRGBA());//Color
-                    } else {
-                        buffer[index + 6] = Float.intBitsToFloat(source.getRGBA());//Color
-                    }
-                } else {
-                    buffer[index + 6] = Float.intBitsToFloat(edge.getRGBA());//Color
-                }
-            }
-        } else {
-            buffer[index + 6] = Float.intBitsToFloat(edge.getRGBA());//Color
-        }
+        buffer[index + ATTRIB_INDEX_DIRECTED_COLOR] = Float.intBitsToFloat(edge.getRGBA());//Color
 
         //Target size:
         buffer[index + 7] = target.size();
+
+        //Target color, for the selection colors:
+        buffer[index + ATTRIB_INDEX_DIRECTED_TARGET_COLOR] = Float.intBitsToFloat(target.getRGBA());
     }
 
-    private UndirectedEdgesVAO undirectedEdgesVAO;
-    private UndirectedEdgesVAO undirectedEdgesVAOSecondary;
-    private DirectedEdgesVAO directedEdgesVAO;
-    private DirectedEdgesVAO directedEdgesVAOSecondary;
+    //One VAO per ring buffer segment, only the first one is used without ring buffers:
+    private final UndirectedEdgesVAO[] undirectedEdgesVAOs = new UndirectedEdgesVAO[GLPersistentRingBuffer.SEGMENTS_COUNT];
+    private final DirectedEdgesVAO[] directedEdgesVAOs = new DirectedEdgesVAO[GLPersistentRingBuffer.SEGMENTS_COUNT];
 
-    public void setupUndirectedVertexArrayAttributes(VizEngine engine) {
-        if (undirectedEdgesVAO == null) {
-            undirectedEdgesVAO = new UndirectedEdgesVAO(
-                engine.getLookup().lookup(GLCapabilities.class),
-                engine.getLookup().lookup(OpenGLOptions.class),
-                attributesGLBufferUndirected
-            );
-        }
-
-        undirectedEdgesVAO.use();
+    private int activeVertexArraysIndex() {
+        return attributesRings != null ? attributesRings[0].getActiveSegment() : 0;
     }
 
-    public void setupUndirectedVertexArrayAttributesSecondary(VizEngine engine) {
-        if (undirectedEdgesVAOSecondary == null) {
-            undirectedEdgesVAOSecondary = new UndirectedEdgesVAO(
+    public void setupUndirectedVertexArrayAttributes(VizEngine engine) {
+        final int index = activeVertexArraysIndex();
+        if (undirectedEdgesVAOs[index] == null) {
+            undirectedEdgesVAOs[index] = new UndirectedEdgesVAO(
                 engine.getLookup().lookup(GLCapabilities.class),
                 engine.getLookup().lookup(OpenGLOptions.class),
-                attributesGLBufferUndirectedSecondary
+                attributesGLBufferUndirected,
+                selectionStatesGLBufferUndirected
             );
         }
 
-        undirectedEdgesVAOSecondary.use();
+        undirectedEdgesVAOs[index].use();
     }
 
     public void unsetupUndirectedVertexArrayAttributes() {
-        if (undirectedEdgesVAO != null) {
-            undirectedEdgesVAO.stopUsing();
-        }
-
-        if (undirectedEdgesVAOSecondary != null) {
-            undirectedEdgesVAOSecondary.stopUsing();
+        final int index = activeVertexArraysIndex();
+        if (undirectedEdgesVAOs[index] != null) {
+            undirectedEdgesVAOs[index].stopUsing();
         }
     }
 
     public void setupDirectedVertexArrayAttributes(VizEngine engine) {
-        if (directedEdgesVAO == null) {
-            directedEdgesVAO = new DirectedEdgesVAO(
+        final int index = activeVertexArraysIndex();
+        if (directedEdgesVAOs[index] == null) {
+            directedEdgesVAOs[index] = new DirectedEdgesVAO(
                 engine.getLookup().lookup(GLCapabilities.class),
                 engine.getLookup().lookup(OpenGLOptions.class),
-                attributesGLBufferDirected
+                attributesGLBufferDirected,
+                selectionStatesGLBufferDirected
             );
         }
 
-        directedEdgesVAO.use();
+        directedEdgesVAOs[index].use();
     }
 
-    public void setupDirectedVertexArrayAttributesSecondary(VizEngine engine) {
-        if (directedEdgesVAOSecondary == null) {
-            directedEdgesVAOSecondary = new DirectedEdgesVAO(
-                engine.getLookup().lookup(GLCapabilities.class),
-                engine.getLookup().lookup(OpenGLOptions.class),
-                attributesGLBufferDirectedSecondary
-            );
+    public void unsetupDirectedVertexArrayAttributes() {
+        final int index = activeVertexArraysIndex();
+        if (directedEdgesVAOs[index] != null) {
+            directedEdgesVAOs[index].stopUsing();
         }
-
-        directedEdgesVAOSecondary.use();
     }
 
-    public void unsetupDirectedVertexArrayAttributes() {
-        if (directedEdgesVAO != null) {
-            directedEdgesVAO.stopUsing();
-        }
+    private void destroyVertexArrays() {
+        for (int i = 0; i < GLPersistentRingBuffer.SEGMENTS_COUNT; i++) {
+            for (GLVertexArrayObject vao : new GLVertexArrayObject[]{undirectedEdgesVAOs[i], directedEdgesVAOs[i]}) {
+                if (vao != null) {
+                    vao.destroy();
+                }
+            }
 
-        if (directedEdgesVAOSecondary != null) {
-            directedEdgesVAOSecondary.stopUsing();
+            undirectedEdgesVAOs[i] = null;
+            directedEdgesVAOs[i] = null;
         }
     }
 
@@ -755,32 +1050,164 @@ public class AbstractEdgeData {
             vertexGLBufferDirected.destroy();
         }
 
-        if (attributesGLBufferDirected != null) {
-            attributesGLBufferDirected.destroy();
+        if (attributesRings != null) {
+            //Ring buffers own the active attributes GL buffers:
+            for (GLPersistentRingBuffer ring : attributesRings) {
+                ring.destroy();
+            }
+            attributesRings = null;
+
+            attributesGLBufferDirected = null;
+            attributesGLBufferUndirected = null;
         }
 
-        if (attributesGLBufferDirectedSecondary != null) {
-            attributesGLBufferDirectedSecondary.destroy();
+        if (attributesGLBufferDirected != null) {
+            attributesGLBufferDirected.destroy();
         }
 
         if (attributesGLBufferUndirected != null) {
             attributesGLBufferUndirected.destroy();
         }
 
-        if (attributesGLBufferUndirectedSecondary != null) {
-            attributesGLBufferUndirectedSecondary.destroy();
+        if (selectionStatesGLBufferDirected != null) {
+            selectionStatesGLBufferDirected.destroy();
+            selectionStatesGLBufferDirected = null;
+        }
+
+        if (selectionStatesGLBufferUndirected != null) {
+            selectionStatesGLBufferUndirected.destroy();
+            selectionStatesGLBufferUndirected = null;
+        }
+
+        if (frames != null) {
+            frames.forEach(EdgesFrame::destroy);
+            frames = null;
         }
 
+        uploadedAttributesVersion = -1;
+        lastAttributesValid = false;
         edgesCallback.reset();
     }
 
+    /**
+     * Edges data of one world update: attributes in the 2 edges regions, the selection state of each edge, their counts
+     * and the selection used to write them.
+     * <p>
+     * Frames of selection only updates share the attributes version of the previous update.</p>
+     */
+    protected static class EdgesFrame {
+
+        //Attributes, as a direct buffer for instanced rendering or as an array otherwise:
+        public final ManagedDirectBuffer attributesBuffer;
+        public float[] attributesArray;
+        public final ManagedDirectBuffer selectionStatesBuffer;
+        public long attributesVersion = -1;
+        public final int[] regionsCounts = new int[REGIONS_COUNT];
+        public final int[] statesCounts = new int[REGIONS_COUNT * COUNTS_PER_REGION];
+        public final int[] culledCounts = new int[REGIONS_COUNT];
+        public boolean writtenToRings = false;
+
+        //Selection state:
+        public boolean someEdgesSelection;
+        public boolean someNodesSelection;
+        public boolean edgeSelectionColor;
+        public float edgeBothSelectionColor;
+        public float edgeOutSelectionColor;
+        public float edgeInSelectionColor;
+
+        public EdgesFrame(final boolean directBuffer) {
+            if (directBuffer) {
+                attributesBuffer = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_EDGES_SIZE);
+            } else {
+                attributesBuffer = null;
+                attributesArray = new float[ATTRIBS_STRIDE * BATCH_EDGES_SIZE];
+            }
+            selectionStatesBuffer = new ManagedDirectBuffer(GL_UNSIGNED_BYTE, SELECTION_STATE_STRIDE * BATCH_EDGES_SIZE);
+        }
+
+        public void saveSelectionState(final boolean someEdgesSelection, final boolean someNodesSelection, final boolean edgeSelectionColor,
+                                       final float edgeBothSelectionColor, final float edgeOutSelectionColor, final float edgeInSelectionColor) {
+            this.someEdgesSelection = someEdgesSelection;
+            this.someNodesSelection = someNodesSelection;
+            this.edgeSelectionColor = edgeSelectionColor;
+            this.edgeBothSelectionColor = edgeBothSelectionColor;
+            this.edgeOutSelectionColor = edgeOutSelectionColor;
+            this.edgeInSelectionColor = edgeInSelectionColor;
+        }
+
+        public void clear() {
+            attributesVersion = -1;
+            Arrays.fill(regionsCounts, 0);
+            Arrays.fill(statesCounts, 0);
+            Arrays.fill(culledCounts, 0);
+            writtenToRings = false;
+            someEdgesSelection = false;
+        }
+
+        public void destroy() {
+            if (attributesBuffer != null) {
+                attributesBuffer.destroy();
+            }
+            selectionStatesBuffer.destroy();
+            attributesArray = null;
+        }
+    }
+
+    /**
+     * Screen space culling of the edges whose length and thickness are both below a size in world units,
+     * computed by {@link #createSubPixelCulling} from a size in pixels.
+     */
+    protected static final class SubPixelCulling {
+
+        //Same as the directed edges shader:
+        private static final float ARROW_LENGTH_FACTOR = 1.1f * 2f;
+
+        private final float maxSize;
+        private final float maxSizeSquared;
+        private final float edgeScaleMin;
+        private final float edgeScaleMax;
+        private final float minWeight;
+        private final float weightDifferenceDivisor;
+
+        public SubPixelCulling(final float maxSize, final float edgeScaleMin, final float edgeScaleMax, final float minWeight, final float weightDifferenceDivisor) {
+            this.maxSize = maxSize;
+            this.maxSizeSquared = maxSize * maxSize;
+            this.edgeScaleMin = edgeScaleMin;
+            this.edgeScaleMax = edgeScaleMax;
+            this.minWeight = minWeight;
+            this.weightDifferenceDivisor = weightDifferenceDivisor;
+        }
+
+        public boolean isCulled(final Edge edge) {
+            final Node source = edge.getSource();
+            final Node target = edge.getTarget();
+
+            final float dx = target.x() - source.x();
+            final float dy = target.y() - source.y();
+            if (dx * dx + dy * dy >= maxSizeSquared) {
+                return false;
+            }
+
+            final float weight = (float) edge.getWeight();
+            final float thickness = edgeScaleMin + (edgeScaleMax - edgeScaleMin) * (weight - minWeight) / weightDifferenceDivisor;
+            if (edge.isDirected()) {
+                //The line ends at the target border, so it can extend beyond the target position:
+                return thickness * ARROW_LENGTH_FACTOR < maxSize && target.size() < maxSize;
+            }
+
+            return thickness < maxSize;
+        }
+    }
+
     private class UndirectedEdgesVAO extends GLVertexArrayObject {
 
         private final GLBuffer attributesBuffer;
+        private final GLBuffer selectionStatesBuffer;
 
-        public UndirectedEdgesVAO(GLCapabilities capabilities, OpenGLOptions openGLOptions, GLBuffer attributesBuffer) {
+        public UndirectedEdgesVAO(GLCapabilities capabilities, OpenGLOptions openGLOptions, GLBuffer attributesBuffer, GLBuffer selectionStatesBuffer) {
             super(capabilities, openGLOptions);
             this.attributesBuffer = attributesBuffer;
+            this.selectionStatesBuffer = selectionStatesBuffer;
         }
 
         @Override
@@ -813,19 +1240,41 @@ public class AbstractEdgeData {
                 glVertexAttribPointer(SHADER_COLOR_LOCATION, EdgeLineModelUndirected.COLOR_FLOATS * Float.BYTES, GL_UNSIGNED_BYTE, false, stride, offset);
             }
             attributesBuffer.unbind();
+
+            if (selectionStatesBuffer != null) {
+                selectionStatesBuffer.bind();
+                {
+                    glVertexAttribPointer(SHADER_SELECTION_STATE_LOCATION, SELECTION_STATE_STRIDE, GL_UNSIGNED_BYTE, false, SELECTION_STATE_STRIDE, 0);
+                }
+                selectionStatesBuffer.unbind();
+            }
         }
 
         @Override
         protected int[] getUsedAttributeLocations() {
-            return new int[]{
-                SHADER_VERT_LOCATION,
-                SHADER_POSITION_LOCATION,
-                SHADER_POSITION_TARGET_LOCATION,
-                SHADER_SIZE_LOCATION,
-                SHADER_SOURCE_COLOR_LOCATION,
-                SHADER_TARGET_COLOR_LOCATION,
-                SHADER_COLOR_LOCATION
-            };
+            if (selectionStatesBuffer != null) {
+                return new int[]{
+                    SHADER_VERT_LOCATION,
+                    SHADER_POSITION_LOCATION,
+                    SHADER_POSITION_TARGET_LOCATION,
+                    SHADER_SIZE_LOCATION,
+                    SHADER_SOURCE_COLOR_LOCATION,
+                    SHADER_TARGET_COLOR_LOCATION,
+                    SHADER_COLOR_LOCATION,
+                    SHADER_SELECTION_STATE_LOCATION
+                };
+            } else {
+                //Without selection states buffer, the selection state is a constant vertex attribute:
+                return new int[]{
+                    SHADER_VERT_LOCATION,
+                    SHADER_POSITION_LOCATION,
+                    SHADER_POSITION_TARGET_LOCATION,
+                    SHADER_SIZE_LOCATION,
+                    SHADER_SOURCE_COLOR_LOCATION,
+                    SHADER_TARGET_COLOR_LOCATION,
+                    SHADER_COLOR_LOCATION
+                };
+            }
         }
 
         @Override
@@ -837,7 +1286,8 @@ public class AbstractEdgeData {
                     SHADER_SIZE_LOCATION,
                     SHADER_SOURCE_COLOR_LOCATION,
                     SHADER_TARGET_COLOR_LOCATION,
-                    SHADER_COLOR_LOCATION
+                    SHADER_COLOR_LOCATION,
+                    SHADER_SELECTION_STATE_LOCATION
                 };
             } else {
                 return null;
@@ -849,10 +1299,12 @@ public class AbstractEdgeData {
     private class DirectedEdgesVAO extends GLVertexArrayObject {
 
         private final GLBuffer attributesBuffer;
+        private final GLBuffer selectionStatesBuffer;
 
-        public DirectedEdgesVAO(GLCapabilities capabilities, OpenGLOptions openGLOptions, GLBuffer attributesBuffer) {
+        public DirectedEdgesVAO(GLCapabilities capabilities, OpenGLOptions openGLOptions, GLBuffer attributesBuffer, GLBuffer selectionStatesBuffer) {
             super(capabilities, openGLOptions);
             this.attributesBuffer = attributesBuffer;
+            this.selectionStatesBuffer = selectionStatesBuffer;
         }
 
         @Override
@@ -883,21 +1335,48 @@ public class AbstractEdgeData {
                 offset += EdgeLineModelDirected.COLOR_FLOATS * Float.BYTES;
 
                 glVertexAttribPointer(SHADER_TARGET_SIZE_LOCATION, EdgeLineModelDirected.TARGET_SIZE_FLOATS, GL_FLOAT, false, stride, offset);
+                offset += EdgeLineModelDirected.TARGET_SIZE_FLOATS * Float.BYTES;
+
+                glVertexAttribPointer(SHADER_TARGET_COLOR_LOCATION, EdgeLineModelDirected.TARGET_COLOR_FLOATS * Float.BYTES, GL_UNSIGNED_BYTE, false, stride, offset);
             }
             attributesBuffer.unbind();
+
+            if (selectionStatesBuffer != null) {
+                selectionStatesBuffer.bind();
+                {
+                    glVertexAttribPointer(SHADER_SELECTION_STATE_LOCATION, SELECTION_STATE_STRIDE, GL_UNSIGNED_BYTE, false, SELECTION_STATE_STRIDE, 0);
+                }
+                selectionStatesBuffer.unbind();
+            }
         }
 
         @Override
         protected int[] getUsedAttributeLocations() {
-            return new int[]{
-                SHADER_VERT_LOCATION,
-                SHADER_POSITION_LOCATION,
-                SHADER_POSITION_TARGET_LOCATION,
-                SHADER_SIZE_LOCATION,
-                SHADER_SOURCE_COLOR_LOCATION,
-                SHADER_COLOR_LOCATION,
-                SHADER_TARGET_SIZE_LOCATION
-            };
+            if (selectionStatesBuffer != null) {
+                return new int[]{
+                    SHADER_VERT_LOCATION,
+                    SHADER_POSITION_LOCATION,
+                    SHADER_POSITION_TARGET_LOCATION,
+                    SHADER_SIZE_LOCATION,
+                    SHADER_SOURCE_COLOR_LOCATION,
+                    SHADER_COLOR_LOCATION,
+                    SHADER_TARGET_SIZE_LOCATION,
+                    SHADER_TARGET_COLOR_LOCATION,
+                    SHADER_SELECTION_STATE_LOCATION
+                };
+            } else {
+                //Without selection states buffer, the selection state is a constant vertex attribute:
+                return new int[]{
+                    SHADER_VERT_LOCATION,
+                    SHADER_POSITION_LOCATION,
+                    SHADER_POSITION_TARGET_LOCATION,
+                    SHADER_SIZE_LOCATION,
+                    SHADER_SOURCE_COLOR_LOCATION,
+                    SHADER_COLOR_LOCATION,
+                    SHADER_TARGET_SIZE_LOCATION,
+                    SHADER_TARGET_COLOR_LOCATION
+                };
+            }
         }
 
         @Override
@@ -909,7 +1388,9 @@ public class AbstractEdgeData {
                     SHADER_SIZE_LOCATION,
                     SHADER_SOURCE_COLOR_LOCATION,
                     SHADER_COLOR_LOCATION,
-                    SHADER_TARGET_SIZE_LOCATION
+                    SHADER_TARGET_SIZE_LOCATION,
+                    SHADER_TARGET_COLOR_LOCATION,
+                    SHADER_SELECTION_STATE_LOCATION
                 };
             } else {
                 return null;
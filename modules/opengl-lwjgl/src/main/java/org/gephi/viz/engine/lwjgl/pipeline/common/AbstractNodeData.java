@@ -6,23 +6,30 @@ import org.gephi.viz.engine.lwjgl.models.NodeDiskModel;
 import org.gephi.viz.engine.lwjgl.models.NodeDiskVertexDataGenerator;
 import org.gephi.viz.engine.lwjgl.util.gl.GLBuffer;
 import org.gephi.viz.engine.lwjgl.util.gl.GLBufferMutable;
+import org.gephi.viz.engine.lwjgl.util.gl.GLPersistentRingBuffer;
 import org.gephi.viz.engine.lwjgl.util.gl.GLVertexArrayObject;
 import org.gephi.viz.engine.lwjgl.util.gl.ManagedDirectBuffer;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
 import org.gephi.viz.engine.pipeline.common.InstanceCounter;
+import org.gephi.viz.engine.status.FrameContext;
 import org.gephi.viz.engine.status.GraphRenderingOptions;
 import org.gephi.viz.engine.status.GraphSelection;
 import org.gephi.viz.engine.status.GraphSelectionNeighbours;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.ParallelFill;
+import org.gephi.viz.engine.util.TripleBuffer;
 import org.gephi.viz.engine.util.gl.OpenGLOptions;
 import org.gephi.viz.engine.util.structure.NodesCallback;
 import org.lwjgl.opengl.GLCapabilities;
 import org.lwjgl.system.MemoryStack;
 
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.util.Arrays;
 
 import static org.gephi.viz.engine.util.gl.Constants.*;
+import static org.gephi.viz.engine.util.gl.GLConstants.INDIRECT_DRAW_COMMAND_BYTES;
 import static org.gephi.viz.engine.util.gl.GLConstants.INDIRECT_DRAW_COMMAND_INTS_COUNT;
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL20.glVertexAttribPointer;
@@ -39,16 +46,24 @@ public abstract class AbstractNodeData {
     protected static final int OBSERVED_SIZE_LOD_THRESHOLD_32 = 16;
     protected static final int OBSERVED_SIZE_LOD_THRESHOLD_16 = 2;
 
-    // NOTE: Why secondary buffers and VAOs?
-    // Sadly, we cannot use glDrawArraysInstancedBaseInstance in MacOS and it will be never available
+    //LOD buckets, from the biggest circles to the smallest:
+    protected static final int LOD_BUCKET_64 = 0;
+    protected static final int LOD_BUCKET_32 = 1;
+    protected static final int LOD_BUCKET_16 = 2;
+    protected static final int LOD_BUCKET_8 = 3;
+    protected static final int LOD_BUCKETS_COUNT = 4;
+
+    // NOTE: Why a separate selection state buffer?
+    // Attributes keep the visible nodes order, so selection changes (hovering) only need to upload one byte per node
 
     protected GLBuffer vertexGLBuffer;
     protected GLBuffer attributesGLBuffer;
-    protected GLBuffer attributesGLBufferSecondary;
     protected GLBuffer commandsGLBuffer;
+    protected GLBuffer selectionStateGLBuffer;
     protected final NodesCallback nodesCallback = new NodesCallback();
 
     protected static final int ATTRIBS_STRIDE = NodeDiskModel.TOTAL_ATTRIBUTES_FLOATS;
+    protected static final int SELECTION_STATE_STRIDE = NodeDiskModel.SELECTION_STATE_BYTES;
 
     protected final NodeDiskModel diskModel;
 
@@ -65,24 +80,87 @@ public abstract class AbstractNodeData {
     protected final int firstVertex32;
     protected final int firstVertex16;
     protected final int firstVertex8;
+    //First vertex of the extra vertex data, see initCirclesGLVertexBuffer:
+    protected final int firstVertexAfterCircles;
     protected final boolean instancedRendering;
     protected final boolean indirectCommands;
+    protected final boolean lodBuckets;
 
-    // State:
+    // State, only used in the GL thread:
     protected final InstanceCounter instanceCounter = new InstanceCounter();
-    protected float maxNodeSize = 0;
     protected float maxNodeSizeToDraw = 0;
+    protected int instancesCountToDraw = 0;
+    protected boolean someSelectionToDraw = false;
+    protected final int[] lodBucketsCountsToDraw = new int[LOD_BUCKETS_COUNT];
+    protected final int[] selectedRunsToDraw = new int[MAX_SELECTED_RUNS * 2];
+    protected int selectedRunsCountToDraw = -1;
+    private long uploadedAttributesVersion = -1;
+
+    //Nodes of the uploaded attributes, for ID buffer picking. Two arrays, so the nodes of a picking pass stay valid until
+    //its result is read back in the next frame:
+    private volatile boolean pickingEnabled = false;
+    private final Node[][] pickingNodesArrays = new Node[][]{new Node[0], new Node[0]};
+    private int pickingNodesArrayIndex = 0;
+    private Node[] pickingNodes = null;
+    private int pickingNodesCount = 0;
 
     // Buffers for vertex attributes:
     protected static final int BATCH_NODES_SIZE = 32768;
-    protected ManagedDirectBuffer attributesBuffer;
     protected float[] attributesBufferBatch;
-    protected ManagedDirectBuffer commandsBuffer;
     private int[] commandsBufferBatch;
 
+    //Frames written by world updaters and read by the GL thread (see acquireFrame):
+    protected TripleBuffer<NodesFrame> frames;
+
+    //Last attributes written by the world updaters, kept by selection only updates (see updateData):
+    private long attributesVersion = 0;
+    private boolean lastAttributesValid = false;
+    private boolean lastAttributesWrittenToRings = false;
+    private float lastMaxNodeSize = 0;
+    private final int[] lastLodBucketsCounts = new int[LOD_BUCKETS_COUNT];
+
+    //Visible nodes sorting by LOD bucket (see sortNodesByLODBucket):
+    private byte[] nodesLodBuckets = new byte[0];
+    private Node[] lodSortedNodes = new Node[0];
+    private int[] chunksLodBucketsCounts = new int[0];
+
+    //Per chunk counts of each selection state, for parallel filling:
+    private static final int COUNT_UNSELECTED = 0;
+    private static final int COUNT_SELECTED = 1;
+    private static final int COUNT_SELECTED_RUNS = 2;
+    private static final int COUNTS_PER_CHUNK = 3;
+
+    /**
+     * Maximum runs of consecutive selected instances kept per frame, so the front layer only draws the selected
+     * instances while there is a selection. With more runs, it draws every instance and the shader skips the others.
+     */
+    protected static final int MAX_SELECTED_RUNS = 256;
+
+    protected static final int CHUNK_BATCH_NODES_SIZE = 4096;
+    private int[] chunksCounts = new int[0];
+    private float[] chunksMaxNodeSize = new float[0];
+    private float[][] chunksAttributesBatches = new float[0][];
+    private int[][] chunksCommandsBatches = new int[0][];
+    private int[][] chunksSelectedRuns = new int[0][];
+
+    //Persistent mapped ring buffers, only used by subclasses that create them (see initRingBuffers):
+    protected GLPersistentRingBuffer attributesRing;
+    protected GLPersistentRingBuffer commandsRing;
+
     public AbstractNodeData(final boolean instancedRendering, final boolean indirectCommands) {
+        this(instancedRendering, indirectCommands, false);
+    }
+
+    /**
+     * @param instancedRendering True if attributes are per instance
+     * @param indirectCommands True to write one indirect draw command per instance
+     * @param lodBuckets True to sort the instances by LOD bucket, so each bucket can be drawn with its own circle LOD
+     * (see {@link #lodBucketsCountsToDraw})
+     */
+    public AbstractNodeData(final boolean instancedRendering, final boolean indirectCommands, final boolean lodBuckets) {
         this.instancedRendering = instancedRendering;
         this.indirectCommands = indirectCommands;
+        this.lodBuckets = lodBuckets;
 
         diskModel = new NodeDiskModel();
 
@@ -100,6 +178,7 @@ public abstract class AbstractNodeData {
         firstVertex32 = generator64.getVertexCount();
         firstVertex16 = firstVertex32 + generator32.getVertexCount();
         firstVertex8 = firstVertex16 + generator16.getVertexCount();
+        firstVertexAfterCircles = firstVertex8 + generator8.getVertexCount();
     }
 
     public void init() {
@@ -109,15 +188,33 @@ public abstract class AbstractNodeData {
 
     protected void initBuffers() {
         attributesBufferBatch = new float[ATTRIBS_STRIDE * BATCH_NODES_SIZE];
-        attributesBuffer = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_NODES_SIZE);
 
         if (indirectCommands) {
             commandsBufferBatch = new int[INDIRECT_DRAW_COMMAND_INTS_COUNT * BATCH_NODES_SIZE];
-            commandsBuffer = new ManagedDirectBuffer(GL_UNSIGNED_INT, INDIRECT_DRAW_COMMAND_INTS_COUNT * BATCH_NODES_SIZE);
         }
+
+        frames = new TripleBuffer<>(() -> new NodesFrame(indirectCommands));
+    }
+
+    /**
+     * @return Instance counts of the frame being drawn. Only updated in the GL thread
+     */
+    public InstanceCounter getInstanceCounter() {
+        return instanceCounter;
     }
 
     protected void initCirclesGLVertexBuffer(final int bufferName) {
+        initCirclesGLVertexBuffer(bufferName, new float[0]);
+    }
+
+    /**
+     * Initializes the vertex buffer with the circles of every LOD, followed by the given vertex data, which starts at
+     * {@link #firstVertexAfterCircles}.
+     *
+     * @param bufferName GL buffer name
+     * @param extraVertexData Vertex data of the subclass
+     */
+    protected void initCirclesGLVertexBuffer(final int bufferName, final float[] extraVertexData) {
         final NodeDiskVertexDataGenerator generator64 = new NodeDiskVertexDataGenerator(64);
         final NodeDiskVertexDataGenerator generator32 = new NodeDiskVertexDataGenerator(32);
         final NodeDiskVertexDataGenerator generator16 = new NodeDiskVertexDataGenerator(16);
@@ -128,6 +225,7 @@ public abstract class AbstractNodeData {
                 + generator32.getVertexData().length
                 + generator16.getVertexData().length
                 + generator8.getVertexData().length
+                + extraVertexData.length
             ];
 
         int offset = 0;
@@ -138,6 +236,8 @@ public abstract class AbstractNodeData {
         System.arraycopy(generator16.getVertexData(), 0, circleVertexData, offset, generator16.getVertexData().length);
         offset += generator16.getVertexData().length;
         System.arraycopy(generator8.getVertexData(), 0, circleVertexData, offset, generator8.getVertexData().length);
+        offset += generator8.getVertexData().length;
+        System.arraycopy(extraVertexData, 0, circleVertexData, offset, extraVertexData.length);
 
         try (MemoryStack stack = MemoryStack.stackPush()) {
             final FloatBuffer circleVertexBuffer = stack.floats(circleVertexData);
@@ -149,24 +249,41 @@ public abstract class AbstractNodeData {
         }
     }
 
+    protected void initSelectionStateGLBuffer(final int bufferName) {
+        selectionStateGLBuffer = new GLBufferMutable(bufferName, GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        selectionStateGLBuffer.bind();
+        selectionStateGLBuffer.init(SELECTION_STATE_STRIDE * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        selectionStateGLBuffer.unbind();
+    }
+
+    /**
+     * The back layer draws every instance of the frame, and the shader skips the ones that are not unselected.
+     * With a selection, the front layer only draws the runs of selected instances when available
+     * (see {@link #isDrawingSelectedRuns(RenderingLayer)}), otherwise every instance too.
+     *
+     * @return Instances to draw, 0 when the layer has nothing to draw
+     */
     protected int setupShaderProgramForRenderingLayer(final RenderingLayer layer,
                                                       final VizEngine engine,
-                                                      final float[] mvpFloats,
+                                                      final FrameContext context,
                                                       final boolean isRenderingOutsideCircle) {
-        final boolean someSelection = engine.getLookup().lookup(GraphSelection.class).getSelectedNodesCount() > 0;
+        //Selection of the frame being drawn, its selection states were written with it:
+        final boolean someSelection = someSelectionToDraw;
         final boolean renderingUnselectedNodes = layer.isBack();
-        if (!someSelection && renderingUnselectedNodes) {
+        if (renderingUnselectedNodes && (!someSelection || instanceCounter.unselectedCountToDraw == 0)) {
+            return 0;
+        }
+        if (!renderingUnselectedNodes && instanceCounter.selectedCountToDraw == 0) {
             return 0;
         }
 
-        final float[] backgroundColorFloats = engine.getBackgroundColor();
+        final float[] mvpFloats = context.getModelViewProjectionFloats();
+        final float[] backgroundColorFloats = context.getBackgroundColor();
 
-        final int instanceCount;
         final float sizeMultiplier = isRenderingOutsideCircle ? 1f : INSIDE_CIRCLE_SIZE;
 
         if (renderingUnselectedNodes) {
-            instanceCount = instanceCounter.unselectedCountToDraw;
-            final float colorLightenFactor = engine.getLookup().lookup(GraphRenderingOptions.class).getLightenNonSelectedFactor();
+            final float colorLightenFactor = context.getRenderingOptions().getLightenNonSelectedFactor();
             final float colorBias = 0f;
             final float colorMultiplier = isRenderingOutsideCircle ? NODER_BORDER_DARKEN_FACTOR : 1f;
             diskModel.useProgramWithSelection(
@@ -175,12 +292,10 @@ public abstract class AbstractNodeData {
                     sizeMultiplier,
                     colorBias,
                     colorMultiplier,
-                    colorLightenFactor
+                    colorLightenFactor,
+                    SELECTION_STATE_UNSELECTED
             );
-
-            setupSecondaryVertexArrayAttributes(engine);
         } else {
-            instanceCount = instanceCounter.selectedCountToDraw;
             final float colorLightenFactor = 0;
 
             if (someSelection) {
@@ -192,17 +307,18 @@ public abstract class AbstractNodeData {
                         sizeMultiplier,
                         colorBias,
                         colorMultiplier,
-                        colorLightenFactor
+                        colorLightenFactor,
+                        SELECTION_STATE_SELECTED
                 );
             } else {
                 final float colorMultiplier = isRenderingOutsideCircle ? NODER_BORDER_DARKEN_FACTOR : 1f;
                 diskModel.useProgram(mvpFloats, sizeMultiplier, colorMultiplier);
             }
-
-            setupVertexArrayAttributes(engine);
         }
 
-        return instanceCount;
+        setupVertexArrayAttributes(engine);
+
+        return instancesCountToDraw;
     }
 
     protected void updateData(final float zoom,
@@ -210,199 +326,657 @@ public abstract class AbstractNodeData {
                               final GraphRenderingOptions renderingOptions,
                               final GraphSelection selection,
                               final GraphSelectionNeighbours neighboursSelection) {
+        updateData(zoom, spatialIndex, renderingOptions, selection, neighboursSelection, false);
+    }
+
+    /**
+     * Writes the next frame: attributes (and indirect commands) of every visible node, in the visible nodes order,
+     * and the selection state of each one.
+     * <p>
+     * For selection only updates, the visible nodes and attributes of the last update are kept and only the selection
+     * states are written again, so the GL thread only has to upload those.</p>
+     *
+     * @param selectionOnly True if nothing but the selection changed since the last update, see
+     * {@link org.gephi.viz.engine.status.WorldUpdateTracker#isSelectionOnlyUpdate()}
+     */
+    protected void updateData(final float zoom,
+                              final GraphIndexImpl spatialIndex,
+                              final GraphRenderingOptions renderingOptions,
+                              final GraphSelection selection,
+                              final GraphSelectionNeighbours neighboursSelection,
+                              final boolean selectionOnly) {
+        final NodesFrame frame = frames.write();
         if (!renderingOptions.isShowNodes()) {
-            instanceCounter.clearCount();
+            frame.clear();
+            lastAttributesValid = false;
+            frames.publish();
             return;
         }
 
-        spatialIndex.indexNodes();
+        final boolean keepAttributes = selectionOnly && lastAttributesValid;
+        if (!keepAttributes) {
+            spatialIndex.indexNodes();
+            spatialIndex.getVisibilitySnapshot().getVisibleNodes(nodesCallback);
+            attributesVersion++;
+
+            if (lodBuckets) {
+                //Kept sorted for selection only updates, the attributes are in the same order:
+                sortNodesByLODBucket(zoom, nodesCallback.getNodesArray(), nodesCallback.getCount());
+            }
+        }
 
         //Selection:
         final boolean someSelection = selection.getSelectedNodesCount() > 0;
         final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
         final boolean hideNonSelected = someSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
 
-        final int totalNodes = spatialIndex.getNodeCount();
+        final Node[] visibleNodesArray = nodesCallback.getNodesArray();
+        final int visibleNodesCount = nodesCallback.getCount();
 
-        attributesBuffer.ensureCapacity(totalNodes * ATTRIBS_STRIDE);
-        if (indirectCommands) {
-            commandsBuffer.ensureCapacity(totalNodes * INDIRECT_DRAW_COMMAND_INTS_COUNT);
+        //Where the attributes of this frame are:
+        final boolean fillAttributes;
+        final boolean writeToRings;
+        if (!keepAttributes) {
+            fillAttributes = true;
+            //NOTE: The ring buffers write segments are not part of the frames, so this relies on the engine not running
+            //a world update while the GL thread swaps them (see updateRingBuffers)
+            writeToRings = attributesRing != null
+                && attributesRing.fits((long) visibleNodesCount * ATTRIBS_STRIDE * Float.BYTES)
+                && (!indirectCommands || commandsRing.fits((long) visibleNodesCount * INDIRECT_DRAW_COMMAND_BYTES));
+        } else if (lastAttributesWrittenToRings) {
+            //Still in the rings write segment, or already active if the GL thread acquired that frame
+            fillAttributes = false;
+            writeToRings = true;
+        } else {
+            //Frames are reused, this one may hold older attributes
+            fillAttributes = frame.writtenToRings || frame.attributesVersion != attributesVersion;
+            writeToRings = false;
         }
 
-        final FloatBuffer attribs = attributesBuffer.floatBuffer();
-        final IntBuffer commands = indirectCommands ? commandsBuffer.intBuffer() : null;
+        final FloatBuffer attribs;
+        final IntBuffer commands;
+        if (!fillAttributes) {
+            attribs = null;
+            commands = null;
+        } else if (writeToRings) {
+            attribs = attributesRing.writeFloatBuffer();
+            commands = indirectCommands ? commandsRing.writeIntBuffer() : null;
+        } else {
+            frame.attributesBuffer.ensureCapacity(spatialIndex.getNodeCount() * ATTRIBS_STRIDE);
+            if (indirectCommands) {
+                frame.commandsBuffer.ensureCapacity(spatialIndex.getNodeCount() * INDIRECT_DRAW_COMMAND_INTS_COUNT);
+            }
 
-        spatialIndex.getVisibleNodes(nodesCallback);
+            attribs = frame.attributesBuffer.floatBuffer();
+            commands = indirectCommands ? frame.commandsBuffer.intBuffer() : null;
+        }
 
-        final Node[] visibleNodesArray = nodesCallback.getNodesArray();
-        final int visibleNodesCount = nodesCallback.getCount();
+        frame.selectionStatesBuffer.ensureCapacity(visibleNodesCount * SELECTION_STATE_STRIDE);
+        final ByteBuffer states = frame.selectionStatesBuffer.byteBuffer();
+
+        final int chunks = ParallelFill.chunksCount(visibleNodesCount);
+        ensureChunksCapacity(chunks);
+
+        final int[] counts = chunksCounts;
+        final float[] maxSizes = chunksMaxNodeSize;
+
+        //Fill, every chunk writes its own range of instances:
+        ParallelFill.forEachChunk(chunks, chunk -> fillNodesBatched(
+            zoom, someSelection, hideNonSelected, selection, neighboursSelection, visibleNodesArray,
+            ParallelFill.chunkStart(chunk, chunks, visibleNodesCount), ParallelFill.chunkStart(chunk + 1, chunks, visibleNodesCount),
+            states,
+            chunk == 0 ? attributesBufferBatch : chunksAttributesBatches[chunk],
+            chunk == 0 ? commandsBufferBatch : chunksCommandsBatches[chunk],
+            attribs != null ? attribs.duplicate() : null,
+            commands != null ? commands.duplicate() : null,
+            counts, chunk * COUNTS_PER_CHUNK, chunksSelectedRuns[chunk], maxSizes, chunk
+        ));
+
+        int unselectedCount = 0;
+        int selectedCount = 0;
+        float newMaxNodeSize = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            unselectedCount += counts[chunk * COUNTS_PER_CHUNK + COUNT_UNSELECTED];
+            selectedCount += counts[chunk * COUNTS_PER_CHUNK + COUNT_SELECTED];
+            newMaxNodeSize = Math.max(maxSizes[chunk], newMaxNodeSize);
+        }
 
-        int newNodesCountUnselected = 0;
-        int newNodesCountSelected = 0;
+        frame.selectedRunsCount = someSelection ? mergeSelectedRuns(chunks, frame.selectedRuns) : -1;
 
-        float newMaxNodeSize = 0;
-        for (int j = 0; j < visibleNodesCount; j++) {
-            final float size = visibleNodesArray[j].size();
-            newMaxNodeSize = Math.max(size, newMaxNodeSize);
-        }
-
-        int attributesIndex = 0;
-        int commandIndex = 0;
-        int instanceId = 0;
-        if (someSelection) {
-            if (hideNonSelected) {
-                for (int j = 0; j < visibleNodesCount; j++) {
-                    final Node node = visibleNodesArray[j];
-
-                    final boolean selected = selection.isNodeSelected(node) || neighboursSelection.isNodeSelected(node);
-                    if (!selected) {
-                        continue;
-                    }
-
-                    newNodesCountSelected++;
-                    fillNodeAttributesData(node, attributesIndex);
-                    attributesIndex += ATTRIBS_STRIDE;
-
-                    if (attributesIndex == attributesBufferBatch.length) {
-                        attribs.put(attributesBufferBatch);
-                        attributesIndex = 0;
-                    }
-
-                    if (indirectCommands) {
-                        fillNodeCommandData(node, zoom, commandIndex, instanceId);
-                        instanceId++;
-                        commandIndex += INDIRECT_DRAW_COMMAND_INTS_COUNT;
-
-                        if (commandIndex == commandsBufferBatch.length) {
-                            commands.put(commandsBufferBatch);
-                            commandIndex = 0;
-                        }
-                    }
+        if (!keepAttributes) {
+            lastAttributesValid = true;
+            lastAttributesWrittenToRings = writeToRings;
+            lastMaxNodeSize = newMaxNodeSize;
+        }
+
+        if (pickingEnabled && frame.nodesVersion != attributesVersion) {
+            if (frame.nodes.length < visibleNodesCount) {
+                frame.nodes = new Node[visibleNodesCount];
+            }
+            System.arraycopy(visibleNodesArray, 0, frame.nodes, 0, visibleNodesCount);
+            frame.nodesVersion = attributesVersion;
+        }
+
+        frame.attributesVersion = attributesVersion;
+        frame.writtenToRings = writeToRings;
+        frame.instancesCount = visibleNodesCount;
+        frame.unselectedCount = unselectedCount;
+        frame.selectedCount = selectedCount;
+        frame.someSelection = someSelection;
+        frame.maxNodeSize = lastMaxNodeSize;
+        System.arraycopy(lastLodBucketsCounts, 0, frame.lodBucketsCounts, 0, LOD_BUCKETS_COUNT);
+        frames.publish();
+    }
+
+    /**
+     * Makes the last frame published by the world updaters the one to draw, and promotes its counts to draw.
+     * Must be called in the GL thread.
+     *
+     * @return True if a new frame was published since the last call, false to keep drawing the current one
+     */
+    protected boolean acquireFrame() {
+        if (!frames.acquire()) {
+            return false;
+        }
+
+        final NodesFrame frame = frames.draw();
+        instanceCounter.unselectedCount = frame.unselectedCount;
+        instanceCounter.selectedCount = frame.selectedCount;
+        instanceCounter.promoteCountToDraw();
+        instancesCountToDraw = frame.instancesCount;
+        someSelectionToDraw = frame.someSelection;
+        maxNodeSizeToDraw = frame.maxNodeSize;
+        System.arraycopy(frame.lodBucketsCounts, 0, lodBucketsCountsToDraw, 0, LOD_BUCKETS_COUNT);
+        selectedRunsCountToDraw = frame.selectedRunsCount;
+        if (selectedRunsCountToDraw > 0) {
+            System.arraycopy(frame.selectedRuns, 0, selectedRunsToDraw, 0, selectedRunsCountToDraw * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Joins the runs of selected instances of every chunk, in instance order, into the given array.
+     *
+     * @return Runs count or -1 if there are too many to keep
+     */
+    private int mergeSelectedRuns(final int chunks, final int[] runs) {
+        int runsCount = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            final int chunkRunsCount = chunksCounts[chunk * COUNTS_PER_CHUNK + COUNT_SELECTED_RUNS];
+            if (chunkRunsCount < 0) {
+                return -1;
+            }
+
+            final int[] chunkRuns = chunksSelectedRuns[chunk];
+            for (int i = 0; i < chunkRunsCount; i++) {
+                final int runStart = chunkRuns[i * 2];
+                final int runLength = chunkRuns[i * 2 + 1];
+
+                //Continues the last run of the previous chunk:
+                if (runsCount > 0 && runs[(runsCount - 1) * 2] + runs[(runsCount - 1) * 2 + 1] == runStart) {
+                    runs[(runsCount - 1) * 2 + 1] += runLength;
+                    continue;
                 }
-            } else {
-                //First non-selected (bottom):
-                for (int j = 0; j < visibleNodesCount; j++) {
-                    final Node node = visibleNodesArray[j];
-
-                    final boolean selected = selection.isNodeSelected(node) || neighboursSelection.isNodeSelected(node);
-                    if (selected) {
-                        continue;
-                    }
-
-                    newNodesCountUnselected++;
-
-                    fillNodeAttributesData(node, attributesIndex);
-                    attributesIndex += ATTRIBS_STRIDE;
-
-                    if (attributesIndex == attributesBufferBatch.length) {
-                        attribs.put(attributesBufferBatch);
-                        attributesIndex = 0;
-                    }
-
-                    if (indirectCommands) {
-                        fillNodeCommandData(node, zoom, commandIndex, instanceId);
-                        instanceId++;
-                        commandIndex += INDIRECT_DRAW_COMMAND_INTS_COUNT;
-
-                        if (commandIndex == commandsBufferBatch.length) {
-                            commands.put(commandsBufferBatch);
-                            commandIndex = 0;
-                        }
-                    }
+
+                if (runsCount == MAX_SELECTED_RUNS) {
+                    return -1;
                 }
 
-                instanceId = 0;//Reset instance id, since we draw elements in 2 separate attribute buffers (main/selected and secondary/unselected)
-                //Then selected ones (up):
-                for (int j = 0; j < visibleNodesCount; j++) {
-                    final Node node = visibleNodesArray[j];
+                runs[runsCount * 2] = runStart;
+                runs[runsCount * 2 + 1] = runLength;
+                runsCount++;
+            }
+        }
 
-                    final boolean selected = selection.isNodeSelected(node) || neighboursSelection.isNodeSelected(node);
-                    if (!selected) {
-                        continue;
-                    }
+        return runsCount;
+    }
 
-                    newNodesCountSelected++;
+    /**
+     * @param layer Layer
+     * @return True if the layer only has to draw the selected runs of the frame (see {@link #selectedRunsToDraw})
+     * instead of every instance. Must be called in the GL thread.
+     */
+    protected boolean isDrawingSelectedRuns(final RenderingLayer layer) {
+        return !layer.isBack() && someSelectionToDraw && selectedRunsCountToDraw >= 0;
+    }
 
-                    fillNodeAttributesData(node, attributesIndex);
-                    attributesIndex += ATTRIBS_STRIDE;
+    /**
+     * @param frame Acquired frame
+     * @return False if the GL buffers already have the attributes of the frame, so only its selection states changed
+     */
+    protected boolean hasNewAttributes(final NodesFrame frame) {
+        return frame.attributesVersion != uploadedAttributesVersion;
+    }
 
-                    if (attributesIndex == attributesBufferBatch.length) {
-                        attribs.put(attributesBufferBatch);
-                        attributesIndex = 0;
-                    }
+    /**
+     * Remembers the attributes of the frame as the ones in the GL buffers. Must be called in the GL thread.
+     *
+     * @param frame Acquired frame
+     */
+    protected void attributesUploaded(final NodesFrame frame) {
+        uploadedAttributesVersion = frame.attributesVersion;
+
+        if (pickingEnabled && frame.nodesVersion == frame.attributesVersion) {
+            pickingNodesArrayIndex = (pickingNodesArrayIndex + 1) % pickingNodesArrays.length;
+            if (pickingNodesArrays[pickingNodesArrayIndex].length < frame.instancesCount) {
+                pickingNodesArrays[pickingNodesArrayIndex] = new Node[frame.instancesCount];
+            }
 
-                    if (indirectCommands) {
-                        fillNodeCommandData(node, zoom, commandIndex, instanceId);
-                        instanceId++;
-                        commandIndex += INDIRECT_DRAW_COMMAND_INTS_COUNT;
+            pickingNodes = pickingNodesArrays[pickingNodesArrayIndex];
+            pickingNodesCount = frame.instancesCount;
+            System.arraycopy(frame.nodes, 0, pickingNodes, 0, pickingNodesCount);
+        } else {
+            pickingNodes = null;
+            pickingNodesCount = 0;
+        }
+    }
 
-                        if (commandIndex == commandsBufferBatch.length) {
-                            commands.put(commandsBufferBatch);
-                            commandIndex = 0;
-                        }
-                    }
+    /**
+     * Starts keeping the nodes of each frame, so picking IDs can be resolved. Nodes are only available once the world
+     * updaters write new attributes, so a world update should be requested after enabling it.
+     */
+    public void enablePicking() {
+        pickingEnabled = true;
+    }
+
+    public boolean isPickingEnabled() {
+        return pickingEnabled;
+    }
+
+    /**
+     * @return Nodes of the attributes in the GL buffers, in instance order, or null if not available yet. Only valid
+     * in the GL thread, until the attributes are uploaded twice more
+     */
+    public Node[] getPickingNodes() {
+        return pickingNodes;
+    }
+
+    public int getPickingNodesCount() {
+        return pickingNodesCount;
+    }
+
+    /**
+     * Draws the ID of each drawn node (instance index + 1) with the picking program, unselected nodes first so
+     * selected ones end on top, like in the rendering layers. Hidden nodes are not drawn.
+     * Must be called in the GL thread with the picking framebuffer bound.
+     *
+     * @param engine Engine
+     * @param mvpFloats Model view projection of the picking region
+     */
+    public void drawPickingIds(final VizEngine engine, final float[] mvpFloats) {
+        if (!instancedRendering || pickingNodes == null || instancesCountToDraw <= 0) {
+            return;
+        }
+
+        final float maxObservedSize = maxNodeSizeToDraw * engine.getZoom();
+        final int circleVertexCount = circleVertexCountForObservedSize(maxObservedSize);
+        final int firstVertex = firstVertexForObservedSize(maxObservedSize);
+
+        setupVertexArrayAttributes(engine);
+        if (someSelectionToDraw && instanceCounter.unselectedCountToDraw > 0) {
+            diskModel.usePickingProgram(mvpFloats, SELECTION_STATE_UNSELECTED);
+            diskModel.drawInstanced(firstVertex, circleVertexCount, instancesCountToDraw);
+        }
+        if (instanceCounter.selectedCountToDraw > 0) {
+            diskModel.usePickingProgram(mvpFloats, SELECTION_STATE_SELECTED);
+            if (someSelectionToDraw && selectedRunsCountToDraw >= 0) {
+                for (int i = 0; i < selectedRunsCountToDraw; i++) {
+                    setupVertexArrayFirstInstance(selectedRunsToDraw[i * 2]);
+                    diskModel.drawInstanced(firstVertex, circleVertexCount, selectedRunsToDraw[i * 2 + 1]);
                 }
+                setupVertexArrayFirstInstance(0);
+            } else {
+                diskModel.drawInstanced(firstVertex, circleVertexCount, instancesCountToDraw);
+            }
+        }
+        diskModel.stopUsingProgram();
+        unsetupVertexArrayAttributes();
+    }
+
+    /**
+     * Sorts the visible nodes by LOD bucket for the given zoom, keeping their order inside each bucket.
+     * Like the edges regions, a first pass counts the nodes of each bucket in parallel chunks and a second one writes
+     * each node at its final position.
+     */
+    private void sortNodesByLODBucket(final float zoom, final Node[] visibleNodesArray, final int visibleNodesCount) {
+        if (nodesLodBuckets.length < visibleNodesCount) {
+            nodesLodBuckets = new byte[visibleNodesArray.length];
+        }
+        if (lodSortedNodes.length < visibleNodesCount) {
+            lodSortedNodes = new Node[visibleNodesArray.length];
+        }
+
+        final int chunks = ParallelFill.chunksCount(visibleNodesCount);
+        if (chunksLodBucketsCounts.length < chunks * LOD_BUCKETS_COUNT) {
+            chunksLodBucketsCounts = new int[chunks * LOD_BUCKETS_COUNT];
+        }
+
+        final byte[] buckets = nodesLodBuckets;
+        final Node[] sorted = lodSortedNodes;
+        final int[] counts = chunksLodBucketsCounts;
+
+        //Classify and count:
+        ParallelFill.forEachChunk(chunks, chunk -> {
+            final int countsOffset = chunk * LOD_BUCKETS_COUNT;
+            for (int bucket = 0; bucket < LOD_BUCKETS_COUNT; bucket++) {
+                counts[countsOffset + bucket] = 0;
+            }
+
+            final int end = ParallelFill.chunkStart(chunk + 1, chunks, visibleNodesCount);
+            for (int j = ParallelFill.chunkStart(chunk, chunks, visibleNodesCount); j < end; j++) {
+                final int bucket = lodBucketForObservedSize(visibleNodesArray[j].size() * zoom);
+                buckets[j] = (byte) bucket;
+                counts[countsOffset + bucket]++;
             }
+        });
+
+        //Prefix sums, each chunk start position inside every bucket:
+        int position = 0;
+        for (int bucket = 0; bucket < LOD_BUCKETS_COUNT; bucket++) {
+            int bucketCount = 0;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                final int count = counts[chunk * LOD_BUCKETS_COUNT + bucket];
+                counts[chunk * LOD_BUCKETS_COUNT + bucket] = position;
+                position += count;
+                bucketCount += count;
+            }
+            lastLodBucketsCounts[bucket] = bucketCount;
+        }
+
+        //Write at the final positions, counts are now the chunks cursors:
+        ParallelFill.forEachChunk(chunks, chunk -> {
+            final int cursorsOffset = chunk * LOD_BUCKETS_COUNT;
+            final int end = ParallelFill.chunkStart(chunk + 1, chunks, visibleNodesCount);
+            for (int j = ParallelFill.chunkStart(chunk, chunks, visibleNodesCount); j < end; j++) {
+                sorted[counts[cursorsOffset + buckets[j]]++] = visibleNodesArray[j];
+            }
+        });
+
+        System.arraycopy(sorted, 0, visibleNodesArray, 0, visibleNodesCount);
+    }
+
+    protected static int lodBucketForObservedSize(final float observedSize) {
+        if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_64) {
+            return LOD_BUCKET_64;
+        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_32) {
+            return LOD_BUCKET_32;
+        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_16) {
+            return LOD_BUCKET_16;
         } else {
-            //Just all nodes, no selection active:
-            for (int j = 0; j < visibleNodesCount; j++) {
-                final Node node = visibleNodesArray[j];
+            return LOD_BUCKET_8;
+        }
+    }
 
-                newNodesCountSelected++;
+    protected int circleVertexCountForLODBucket(final int bucket) {
+        switch (bucket) {
+            case LOD_BUCKET_64:
+                return circleVertexCount64;
+            case LOD_BUCKET_32:
+                return circleVertexCount32;
+            case LOD_BUCKET_16:
+                return circleVertexCount16;
+            default:
+                return circleVertexCount8;
+        }
+    }
 
-                fillNodeAttributesData(node, attributesIndex);
-                attributesIndex += ATTRIBS_STRIDE;
+    protected int firstVertexForLODBucket(final int bucket) {
+        switch (bucket) {
+            case LOD_BUCKET_64:
+                return firstVertex64;
+            case LOD_BUCKET_32:
+                return firstVertex32;
+            case LOD_BUCKET_16:
+                return firstVertex16;
+            default:
+                return firstVertex8;
+        }
+    }
 
-                if (attributesIndex == attributesBufferBatch.length) {
-                    attribs.put(attributesBufferBatch);
-                    attributesIndex = 0;
-                }
+    protected int circleVertexCountForObservedSize(final float observedSize) {
+        if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_64) {
+            return circleVertexCount64;
+        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_32) {
+            return circleVertexCount32;
+        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_16) {
+            return circleVertexCount16;
+        } else {
+            return circleVertexCount8;
+        }
+    }
 
+    protected int firstVertexForObservedSize(final float observedSize) {
+        if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_64) {
+            return firstVertex64;
+        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_32) {
+            return firstVertex32;
+        } else if (observedSize > OBSERVED_SIZE_LOD_THRESHOLD_16) {
+            return firstVertex16;
+        } else {
+            return firstVertex8;
+        }
+    }
+
+    /**
+     * Uploads the selection states of the frame, only a byte per instance. Must be called in the GL thread.
+     *
+     * @param frame Acquired frame
+     */
+    protected void updateSelectionStateGLBuffer(final NodesFrame frame) {
+        final ByteBuffer states = frame.selectionStatesBuffer.byteBuffer();
+        states.limit(frame.instancesCount * SELECTION_STATE_STRIDE);
+
+        selectionStateGLBuffer.bind();
+        selectionStateGLBuffer.updateWithOrphaning(states);
+        selectionStateGLBuffer.unbind();
+    }
+
+    private void ensureChunksCapacity(final int chunks) {
+        if (chunksMaxNodeSize.length < chunks) {
+            chunksCounts = new int[chunks * COUNTS_PER_CHUNK];
+            chunksMaxNodeSize = new float[chunks];
+        }
+
+        //First chunk uses the main batches:
+        if (chunksAttributesBatches.length < chunks) {
+            final float[][] newAttributesBatches = new float[chunks][];
+            final int[][] newCommandsBatches = new int[chunks][];
+            System.arraycopy(chunksAttributesBatches, 0, newAttributesBatches, 0, chunksAttributesBatches.length);
+            System.arraycopy(chunksCommandsBatches, 0, newCommandsBatches, 0, chunksCommandsBatches.length);
+            for (int chunk = Math.max(1, chunksAttributesBatches.length); chunk < chunks; chunk++) {
+                newAttributesBatches[chunk] = new float[ATTRIBS_STRIDE * CHUNK_BATCH_NODES_SIZE];
                 if (indirectCommands) {
-                    fillNodeCommandData(node, zoom, commandIndex, instanceId);
-                    instanceId++;
-                    commandIndex += INDIRECT_DRAW_COMMAND_INTS_COUNT;
-
-                    if (commandIndex == commandsBufferBatch.length) {
-                        commands.put(commandsBufferBatch);
-                        commandIndex = 0;
-                    }
+                    newCommandsBatches[chunk] = new int[INDIRECT_DRAW_COMMAND_INTS_COUNT * CHUNK_BATCH_NODES_SIZE];
+                }
+            }
+            chunksAttributesBatches = newAttributesBatches;
+            chunksCommandsBatches = newCommandsBatches;
+        }
+
+        if (chunksSelectedRuns.length < chunks) {
+            final int[][] newSelectedRuns = Arrays.copyOf(chunksSelectedRuns, chunks);
+            for (int chunk = chunksSelectedRuns.length; chunk < chunks; chunk++) {
+                newSelectedRuns[chunk] = new int[MAX_SELECTED_RUNS * 2];
+            }
+            chunksSelectedRuns = newSelectedRuns;
+        }
+    }
+
+    private void fillNodesBatched(
+        final float zoom, final boolean someSelection, final boolean hideNonSelected,
+        final GraphSelection selection, final GraphSelectionNeighbours neighboursSelection,
+        final Node[] visibleNodesArray, final int start, final int end, final ByteBuffer states,
+        final float[] attributesBatch, final int[] commandsBatch, final FloatBuffer attribs, final IntBuffer commands,
+        final int[] counts, final int countsOffset, final int[] selectedRuns, final float[] maxSizes, final int chunk
+    ) {
+        //Without attributes target, only the selection states are written:
+        final boolean fillAttributes = attribs != null;
+        final int batchSize = attributesBatch.length / ATTRIBS_STRIDE;
+
+        int unselectedCount = 0;
+        int selectedCount = 0;
+        //Runs of consecutive selected instances, only with selection. -1 when they don't fit:
+        int selectedRunsCount = someSelection ? 0 : -1;
+        float maxSize = 0;
+        int batchFirstInstance = start;
+        int batchCount = 0;
+
+        for (int j = start; j < end; j++) {
+            final Node node = visibleNodesArray[j];
+
+            //Without selection, every node is drawn as selected:
+            final byte state;
+            if (!someSelection || selection.isNodeSelected(node) || neighboursSelection.isNodeSelected(node)) {
+                state = SELECTION_STATE_SELECTED;
+                selectedCount++;
+
+                if (selectedRunsCount > 0
+                    && selectedRuns[(selectedRunsCount - 1) * 2] + selectedRuns[(selectedRunsCount - 1) * 2 + 1] == j) {
+                    selectedRuns[(selectedRunsCount - 1) * 2 + 1]++;
+                } else if (selectedRunsCount >= 0 && selectedRunsCount < MAX_SELECTED_RUNS) {
+                    selectedRuns[selectedRunsCount * 2] = j;
+                    selectedRuns[selectedRunsCount * 2 + 1] = 1;
+                    selectedRunsCount++;
+                } else {
+                    selectedRunsCount = -1;
                 }
+            } else if (hideNonSelected) {
+                state = SELECTION_STATE_HIDDEN;
+            } else {
+                state = SELECTION_STATE_UNSELECTED;
+                unselectedCount++;
+            }
+            states.put(j * SELECTION_STATE_STRIDE, state);
+
+            if (!fillAttributes) {
+                continue;
+            }
+
+            maxSize = Math.max(node.size(), maxSize);
+            fillNodeAttributesData(attributesBatch, node, batchCount * ATTRIBS_STRIDE);
+
+            if (indirectCommands) {
+                //One command per instance, in the same order as the attributes:
+                fillNodeCommandData(commandsBatch, node, zoom, batchCount * INDIRECT_DRAW_COMMAND_INTS_COUNT, j);
+            }
+
+            batchCount++;
+            if (batchCount == batchSize) {
+                flushBatch(attributesBatch, commandsBatch, attribs, commands, batchFirstInstance, batchCount);
+                batchFirstInstance += batchCount;
+                batchCount = 0;
             }
         }
 
         //Remaining:
-        if (attributesIndex > 0) {
-            attribs.put(attributesBufferBatch, 0, attributesIndex);
+        if (fillAttributes) {
+            flushBatch(attributesBatch, commandsBatch, attribs, commands, batchFirstInstance, batchCount);
+        }
+
+        counts[countsOffset + COUNT_UNSELECTED] = unselectedCount;
+        counts[countsOffset + COUNT_SELECTED] = selectedCount;
+        counts[countsOffset + COUNT_SELECTED_RUNS] = selectedRunsCount;
+        maxSizes[chunk] = maxSize;
+    }
+
+    private void flushBatch(
+        final float[] attributesBatch, final int[] commandsBatch, final FloatBuffer attribs, final IntBuffer commands,
+        final int firstInstance, final int count
+    ) {
+        if (count == 0) {
+            return;
+        }
+
+        attribs.position(firstInstance * ATTRIBS_STRIDE);
+        attribs.put(attributesBatch, 0, count * ATTRIBS_STRIDE);
+
+        if (indirectCommands) {
+            commands.position(firstInstance * INDIRECT_DRAW_COMMAND_INTS_COUNT);
+            commands.put(commandsBatch, 0, count * INDIRECT_DRAW_COMMAND_INTS_COUNT);
+        }
+    }
+
+    protected void initRingBuffers() {
+        attributesRing = new GLPersistentRingBuffer(GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        attributesRing.init(ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE);
+
+        if (indirectCommands) {
+            commandsRing = new GLPersistentRingBuffer(GLBufferMutable.GL_BUFFER_TYPE_DRAW_INDIRECT);
+            commandsRing.init(INDIRECT_DRAW_COMMAND_BYTES * BATCH_NODES_SIZE);
         }
 
-        if (indirectCommands && commandIndex > 0) {
-            commands.put(commandsBufferBatch, 0, commandIndex);
+        updateActiveRingBuffers();
+    }
+
+    /**
+     * Makes the attributes of the given frame active when they are new, copying them from the frame attributes buffer
+     * first if they were not written to the ring buffers, and uploads its selection states.
+     * Must be called in the GL thread, after {@link #acquireFrame()}.
+     *
+     * @param frame Acquired frame
+     */
+    protected void updateRingBuffers(final NodesFrame frame) {
+        if (hasNewAttributes(frame)) {
+            if (!frame.writtenToRings) {
+                final int instancesCount = frame.instancesCount;
+
+                boolean reallocated = attributesRing.ensureCapacity((long) instancesCount * ATTRIBS_STRIDE * Float.BYTES);
+                if (indirectCommands) {
+                    reallocated |= commandsRing.ensureCapacity((long) instancesCount * INDIRECT_DRAW_COMMAND_BYTES);
+                }
+
+                if (reallocated) {
+                    destroyVertexArrays();
+                }
+
+                final FloatBuffer buf = frame.attributesBuffer.floatBuffer();
+                buf.limit(instancesCount * ATTRIBS_STRIDE);
+                attributesRing.writeFloatBuffer().put(buf);
+
+                if (indirectCommands) {
+                    final IntBuffer commandsBufferData = frame.commandsBuffer.intBuffer();
+                    commandsBufferData.limit(instancesCount * INDIRECT_DRAW_COMMAND_INTS_COUNT);
+                    commandsRing.writeIntBuffer().put(commandsBufferData);
+                }
+            }
+
+            attributesRing.swap();
+            if (indirectCommands) {
+                commandsRing.swap();
+            }
+
+            updateActiveRingBuffers();
+            attributesUploaded(frame);
         }
 
-        instanceCounter.unselectedCount = newNodesCountUnselected;
-        instanceCounter.selectedCount = newNodesCountSelected;
-        maxNodeSize = newMaxNodeSize;
+        updateSelectionStateGLBuffer(frame);
+    }
+
+    private void updateActiveRingBuffers() {
+        attributesGLBuffer = attributesRing.getActiveBuffer();
+        if (indirectCommands) {
+            commandsGLBuffer = commandsRing.getActiveBuffer();
+        }
     }
 
-    protected void fillNodeAttributesData(final Node node, final int index) {
+    protected void fillNodeAttributesData(final float[] buffer, final Node node, final int index) {
         final float x = node.x();
         final float y = node.y();
         final float size = node.size();
         final int rgba = node.getRGBA();
 
         //Position:
-        attributesBufferBatch[index] = x;
-        attributesBufferBatch[index + 1] = y;
+        buffer[index] = x;
+        buffer[index + 1] = y;
 
         //Color:
-        attributesBufferBatch[index + 2] = Float.intBitsToFloat(rgba);
+        buffer[index + 2] = Float.intBitsToFloat(rgba);
 
         //Size:
-        attributesBufferBatch[index + 3] = size;
+        buffer[index + 3] = size;
     }
 
-    protected void fillNodeCommandData(final Node node, final float zoom, final int index, final int instanceId) {
+    protected void fillNodeCommandData(final int[] buffer, final Node node, final float zoom, final int index, final int instanceId) {
         //Indirect Draw:
         //Choose LOD:
         final float observedSize = node.size() * zoom;
@@ -423,55 +997,68 @@ public abstract class AbstractNodeData {
             firstVertex = firstVertex8;
         }
 
-        commandsBufferBatch[index] = circleVertexCount;//vertex count
-        commandsBufferBatch[index + 1] = 1;//instance count
-        commandsBufferBatch[index + 2] = firstVertex;//first vertex
-        commandsBufferBatch[index + 3] = instanceId;//base instance
+        buffer[index] = circleVertexCount;//vertex count
+        buffer[index + 1] = 1;//instance count
+        buffer[index + 2] = firstVertex;//first vertex
+        buffer[index + 3] = instanceId;//base instance
     }
 
-    private NodesVAO nodesVAO;
-    private NodesVAO nodesVAOSecondary;
+    //One VAO per ring buffer segment, only the first one is used without ring buffers:
+    private final NodesVAO[] nodesVAOs = new NodesVAO[GLPersistentRingBuffer.SEGMENTS_COUNT];
+
+    private int activeVertexArraysIndex() {
+        return attributesRing != null ? attributesRing.getActiveSegment() : 0;
+    }
 
     public void setupVertexArrayAttributes(VizEngine engine) {
-        if (nodesVAO == null) {
-            nodesVAO = new NodesVAO(
+        final int index = activeVertexArraysIndex();
+        if (nodesVAOs[index] == null) {
+            nodesVAOs[index] = new NodesVAO(
                 engine.getLookup().lookup(GLCapabilities.class),
                 engine.getLookup().lookup(OpenGLOptions.class),
-                vertexGLBuffer, attributesGLBuffer
+                vertexGLBuffer, attributesGLBuffer, selectionStateGLBuffer
             );
         }
 
-        nodesVAO.use();
+        nodesVAOs[index].use();
     }
 
-    public void setupSecondaryVertexArrayAttributes(VizEngine engine) {
-        if (nodesVAOSecondary == null) {
-            nodesVAOSecondary = new NodesVAO(
-                engine.getLookup().lookup(GLCapabilities.class),
-                engine.getLookup().lookup(OpenGLOptions.class),
-                vertexGLBuffer, attributesGLBufferSecondary
-            );
+    /**
+     * Points the per instance attributes of the vertex array in use to the given instance, so instanced draws start
+     * there without glDrawArraysInstancedBaseInstance, which is not available everywhere.
+     * Must be reset to 0 after drawing, with the vertex array still in use.
+     *
+     * @param firstInstance First instance of the next draws
+     */
+    protected void setupVertexArrayFirstInstance(final int firstInstance) {
+        final int index = activeVertexArraysIndex();
+        if (nodesVAOs[index] != null) {
+            nodesVAOs[index].configureInstancedAttributes(firstInstance);
         }
-
-        nodesVAOSecondary.use();
     }
 
     public void unsetupVertexArrayAttributes() {
-        if (nodesVAO != null) {
-            nodesVAO.stopUsing();
+        final int index = activeVertexArraysIndex();
+        if (nodesVAOs[index] != null) {
+            nodesVAOs[index].stopUsing();
         }
+    }
 
-        if (nodesVAOSecondary != null) {
-            nodesVAOSecondary.stopUsing();
+    private void destroyVertexArrays() {
+        for (int i = 0; i < nodesVAOs.length; i++) {
+            if (nodesVAOs[i] != null) {
+                nodesVAOs[i].destroy();
+                nodesVAOs[i] = null;
+            }
         }
     }
 
     public void dispose() {
         attributesBufferBatch = null;
         commandsBufferBatch = null;
-        if (attributesBuffer != null) {
-            attributesBuffer.destroy();
-            attributesBuffer = null;
+        if (frames != null) {
+            frames.forEach(NodesFrame::destroy);
+            frames = null;
         }
 
         if (vertexGLBuffer != null) {
@@ -479,36 +1066,107 @@ public abstract class AbstractNodeData {
             vertexGLBuffer = null;
         }
 
-        if (attributesGLBuffer != null) {
-            attributesGLBuffer.destroy();
-            attributesGLBuffer = null;
+        if (selectionStateGLBuffer != null) {
+            selectionStateGLBuffer.destroy();
+            selectionStateGLBuffer = null;
         }
 
-        if (attributesGLBufferSecondary != null) {
-            attributesGLBufferSecondary.destroy();
-            attributesGLBufferSecondary = null;
-        }
-        if (commandsBuffer != null) {
-            commandsBuffer.destroy();
-            commandsBuffer = null;
+        if (attributesRing != null) {
+            //Ring buffers own the active attributes and commands GL buffers:
+            attributesRing.destroy();
+            if (commandsRing != null) {
+                commandsRing.destroy();
+            }
+            attributesRing = null;
+            commandsRing = null;
+            commandsGLBuffer = null;
+        } else {
+            if (attributesGLBuffer != null) {
+                attributesGLBuffer.destroy();
+            }
         }
+        attributesGLBuffer = null;
+        uploadedAttributesVersion = -1;
+        lastAttributesValid = false;
+        nodesLodBuckets = new byte[0];
+        lodSortedNodes = new Node[0];
+        pickingNodesArrays[0] = new Node[0];
+        pickingNodesArrays[1] = new Node[0];
+        pickingNodes = null;
+        pickingNodesCount = 0;
 
         nodesCallback.reset();
     }
 
+    /**
+     * Nodes data of one world update: attributes and indirect commands in the visible nodes order, the selection state
+     * of each instance and their counts.
+     * <p>
+     * Frames of selection only updates share the attributes version of the previous update.</p>
+     */
+    protected static class NodesFrame {
+
+        public final ManagedDirectBuffer attributesBuffer;
+        public final ManagedDirectBuffer commandsBuffer;
+        public final ManagedDirectBuffer selectionStatesBuffer;
+        public long attributesVersion = -1;
+        public int instancesCount = 0;
+        public int unselectedCount = 0;
+        public int selectedCount = 0;
+        public boolean someSelection = false;
+        public float maxNodeSize = 0;
+        public final int[] lodBucketsCounts = new int[LOD_BUCKETS_COUNT];
+        //Start and length of each run of selected instances, -1 runs when not kept:
+        public final int[] selectedRuns = new int[MAX_SELECTED_RUNS * 2];
+        public int selectedRunsCount = -1;
+        public boolean writtenToRings = false;
+        //Only kept with picking enabled:
+        public Node[] nodes = new Node[0];
+        public long nodesVersion = -1;
+
+        public NodesFrame(final boolean indirectCommands) {
+            attributesBuffer = new ManagedDirectBuffer(GL_FLOAT, ATTRIBS_STRIDE * BATCH_NODES_SIZE);
+            commandsBuffer = indirectCommands ? new ManagedDirectBuffer(GL_UNSIGNED_INT, INDIRECT_DRAW_COMMAND_INTS_COUNT * BATCH_NODES_SIZE) : null;
+            selectionStatesBuffer = new ManagedDirectBuffer(GL_UNSIGNED_BYTE, SELECTION_STATE_STRIDE * BATCH_NODES_SIZE);
+        }
+
+        public void clear() {
+            attributesVersion = -1;
+            instancesCount = 0;
+            unselectedCount = 0;
+            selectedCount = 0;
+            someSelection = false;
+            maxNodeSize = 0;
+            Arrays.fill(lodBucketsCounts, 0);
+            selectedRunsCount = -1;
+            writtenToRings = false;
+            nodesVersion = -1;
+        }
+
+        public void destroy() {
+            attributesBuffer.destroy();
+            selectionStatesBuffer.destroy();
+            if (commandsBuffer != null) {
+                commandsBuffer.destroy();
+            }
+        }
+    }
+
     private class NodesVAO extends GLVertexArrayObject {
 
         private final GLBuffer vertexBuffer;
         private final GLBuffer attributesBuffer;
+        private final GLBuffer selectionStateBuffer;
 
-        public NodesVAO(GLCapabilities capabilities, OpenGLOptions openGLOptions, final GLBuffer vertexBuffer, final GLBuffer attributesBuffer) {
+        public NodesVAO(GLCapabilities capabilities, OpenGLOptions openGLOptions, final GLBuffer vertexBuffer, final GLBuffer attributesBuffer, final GLBuffer selectionStateBuffer) {
             super(capabilities, openGLOptions);
             this.vertexBuffer = vertexBuffer;
             this.attributesBuffer = attributesBuffer;
+            this.selectionStateBuffer = selectionStateBuffer;
         }
 
         @Override
-        protected void configure() {
+        public void configure() {
             vertexBuffer.bind();
             {
                 glVertexAttribPointer(SHADER_VERT_LOCATION, NodeDiskModel.VERTEX_FLOATS, GL_FLOAT, false, 0, 0);
@@ -516,21 +1174,31 @@ public abstract class AbstractNodeData {
             vertexBuffer.unbind();
 
             if (instancedRendering) {
-                attributesBuffer.bind();
-                {
-                    final int stride = ATTRIBS_STRIDE * Float.BYTES;
-                    int offset = 0;
+                configureInstancedAttributes(0);
+            }
+        }
 
-                    glVertexAttribPointer(SHADER_POSITION_LOCATION, NodeDiskModel.POSITION_FLOATS, GL_FLOAT, false, stride, offset);
-                    offset += NodeDiskModel.POSITION_FLOATS * Float.BYTES;
+        public void configureInstancedAttributes(final int firstInstance) {
+            attributesBuffer.bind();
+            {
+                final int stride = ATTRIBS_STRIDE * Float.BYTES;
+                long offset = (long) firstInstance * stride;
 
-                    glVertexAttribPointer(SHADER_COLOR_LOCATION, NodeDiskModel.COLOR_FLOATS * Float.BYTES, GL_UNSIGNED_BYTE, false, stride, offset);
-                    offset += NodeDiskModel.COLOR_FLOATS * Float.BYTES;
+                glVertexAttribPointer(SHADER_POSITION_LOCATION, NodeDiskModel.POSITION_FLOATS, GL_FLOAT, false, stride, offset);
+                offset += NodeDiskModel.POSITION_FLOATS * Float.BYTES;
 
-                    glVertexAttribPointer(SHADER_SIZE_LOCATION, NodeDiskModel.SIZE_FLOATS, GL_FLOAT, false, stride, offset);
-                }
-                attributesBuffer.unbind();
+                glVertexAttribPointer(SHADER_COLOR_LOCATION, NodeDiskModel.COLOR_FLOATS * Float.BYTES, GL_UNSIGNED_BYTE, false, stride, offset);
+                offset += NodeDiskModel.COLOR_FLOATS * Float.BYTES;
+
+                glVertexAttribPointer(SHADER_SIZE_LOCATION, NodeDiskModel.SIZE_FLOATS, GL_FLOAT, false, stride, offset);
+            }
+            attributesBuffer.unbind();
+
+            selectionStateBuffer.bind();
+            {
+                glVertexAttribPointer(SHADER_SELECTION_STATE_LOCATION, SELECTION_STATE_STRIDE, GL_UNSIGNED_BYTE, false, SELECTION_STATE_STRIDE, (long) firstInstance * SELECTION_STATE_STRIDE);
             }
+            selectionStateBuffer.unbind();
         }
 
         @Override
@@ -540,7 +1208,8 @@ public abstract class AbstractNodeData {
                     SHADER_VERT_LOCATION,
                     SHADER_POSITION_LOCATION,
                     SHADER_COLOR_LOCATION,
-                    SHADER_SIZE_LOCATION
+                    SHADER_SIZE_LOCATION,
+                    SHADER_SELECTION_STATE_LOCATION
                 };
             } else {
                 return new int[]{
@@ -555,7 +1224,8 @@ public abstract class AbstractNodeData {
                 return new int[]{
                     SHADER_POSITION_LOCATION,
                     SHADER_COLOR_LOCATION,
-                    SHADER_SIZE_LOCATION
+                    SHADER_SIZE_LOCATION,
+                    SHADER_SELECTION_STATE_LOCATION
                 };
             } else {
                 return null;
@@ -14,6 +14,9 @@ public abstract class AbstractNodeRenderer implements Renderer<LWJGLRenderingTar
         RenderingLayer.MIDDLE2
     );
 
+    //Last layer with nodes, picking runs after it so picked nodes are the ones on top:
+    public static final RenderingLayer PICKING_LAYER = RenderingLayer.MIDDLE2;
+
     @Override
     public EnumSet<RenderingLayer> getLayers() {
         return LAYERS;
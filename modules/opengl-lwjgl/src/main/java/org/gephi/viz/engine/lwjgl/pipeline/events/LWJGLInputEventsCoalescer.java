@@ -0,0 +1,48 @@
+package org.gephi.viz.engine.lwjgl.pipeline.events;
+
+import org.gephi.viz.engine.util.InputEventsQueue;
+
+/**
+ * Merges the mouse events that arrive in floods between two frames:
+ * <ul>
+ * <li>Consecutive moves or drags keep only the last one. Their positions are absolute and the listeners compute deltas
+ * from the last known position, so the result is the same.</li>
+ * <li>Consecutive scrolls at the same position sum their amounts, zoom is multiplicative.</li>
+ * </ul>
+ * Any other event, like a press or a key, is kept and stops the merging.
+ *
+ * @author Eduardo Ramos
+ */
+public class LWJGLInputEventsCoalescer implements InputEventsQueue.Coalescer<LWJGLInputEvent> {
+
+    @Override
+    public LWJGLInputEvent coalesce(LWJGLInputEvent previous, LWJGLInputEvent next) {
+        if (!(previous instanceof MouseEvent) || !(next instanceof MouseEvent)) {
+            return null;
+        }
+
+        final MouseEvent previousMouseEvent = (MouseEvent) previous;
+        final MouseEvent nextMouseEvent = (MouseEvent) next;
+        if (previousMouseEvent.action != nextMouseEvent.action) {
+            return null;
+        }
+
+        switch (nextMouseEvent.action) {
+            case MOVE:
+            case DRAG:
+                return nextMouseEvent;
+            case SCROLL:
+                if (previousMouseEvent.x != nextMouseEvent.x || previousMouseEvent.y != nextMouseEvent.y) {
+                    return null;
+                }
+
+                return MouseEvent.scroll(
+                        nextMouseEvent.x, nextMouseEvent.y,
+                        previousMouseEvent.xScroll + nextMouseEvent.xScroll,
+                        previousMouseEvent.yScroll + nextMouseEvent.yScroll
+                );
+            default:
+                return null;
+        }
+    }
+}
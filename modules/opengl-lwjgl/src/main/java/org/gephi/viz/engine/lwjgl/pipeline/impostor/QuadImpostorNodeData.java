@@ -0,0 +1,184 @@
+package org.gephi.viz.engine.lwjgl.pipeline.impostor;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.lwjgl.availability.PersistentMappedBuffers;
+import org.gephi.viz.engine.lwjgl.models.NodeQuadModel;
+import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractNodeData;
+import org.gephi.viz.engine.lwjgl.util.gl.GLBufferMutable;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.FrameContext;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+
+import java.nio.FloatBuffer;
+
+import static org.gephi.viz.engine.util.gl.Constants.*;
+import static org.lwjgl.opengl.GL20.glDeleteBuffers;
+import static org.lwjgl.opengl.GL20.glGenBuffers;
+
+/**
+ * Nodes drawn as one instanced quad each, the circle and its border being computed in the fragment shader.
+ * Compared to the disks, it's 6 vertices per node whatever its size, no LOD, and a single draw call per layer.
+ * <p>
+ * The circles LODs are still in the vertex buffer, for ID buffer picking.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class QuadImpostorNodeData extends AbstractNodeData {
+
+    private final NodeQuadModel quadModel = new NodeQuadModel();
+
+    private final int[] bufferName = new int[3];
+
+    private static final int VERT_BUFFER = 0;
+    private static final int ATTRIBS_BUFFER = 1;
+    private static final int SELECTION_STATE_BUFFER = 2;
+
+    private boolean usePersistentMappedBuffers = false;
+
+    public QuadImpostorNodeData() {
+        super(true, false);
+    }
+
+    public void init(VizEngine engine) {
+        usePersistentMappedBuffers = PersistentMappedBuffers.isAvailable(engine);
+        init();
+        quadModel.initGLPrograms();
+    }
+
+    public void update(VizEngine engine, FrameContext context, GraphIndexImpl spatialIndex) {
+        updateData(
+                context.getZoom(),
+                spatialIndex,
+                context.getRenderingOptions(),
+                context.getSelection(),
+                context.getNeighboursSelection(),
+                engine.getWorldUpdateTracker().isSelectionOnlyUpdate()
+        );
+    }
+
+    public void drawQuads(final RenderingLayer layer, final VizEngine engine, final FrameContext context) {
+        final int instanceCount = setupQuadProgramForRenderingLayer(layer, engine, context);
+
+        if (instanceCount <= 0) {
+            return;
+        }
+
+        if (isDrawingSelectedRuns(layer)) {
+            for (int i = 0; i < selectedRunsCountToDraw; i++) {
+                setupVertexArrayFirstInstance(selectedRunsToDraw[i * 2]);
+                quadModel.drawInstanced(firstVertexAfterCircles, selectedRunsToDraw[i * 2 + 1]);
+            }
+            setupVertexArrayFirstInstance(0);
+        } else {
+            quadModel.drawInstanced(firstVertexAfterCircles, instanceCount);
+        }
+        quadModel.stopUsingProgram();
+        unsetupVertexArrayAttributes();
+    }
+
+    /**
+     * Same colors as the outside (border) and inside circles of the disk pipelines, in a single program.
+     *
+     * @return Instances to draw, 0 when the layer has nothing to draw
+     */
+    private int setupQuadProgramForRenderingLayer(final RenderingLayer layer,
+                                                  final VizEngine engine,
+                                                  final FrameContext context) {
+        final boolean someSelection = someSelectionToDraw;
+        final boolean renderingUnselectedNodes = layer.isBack();
+        if (renderingUnselectedNodes && (!someSelection || instanceCounter.unselectedCountToDraw == 0)) {
+            return 0;
+        }
+        if (!renderingUnselectedNodes && instanceCounter.selectedCountToDraw == 0) {
+            return 0;
+        }
+
+        final float[] mvpFloats = context.getModelViewProjectionFloats();
+        final float[] backgroundColorFloats = context.getBackgroundColor();
+
+        if (renderingUnselectedNodes) {
+            final float colorLightenFactor = context.getRenderingOptions().getLightenNonSelectedFactor();
+            quadModel.useProgram(
+                    mvpFloats,
+                    backgroundColorFloats,
+                    0f, 1f,
+                    0f, NODER_BORDER_DARKEN_FACTOR,
+                    colorLightenFactor,
+                    INSIDE_CIRCLE_SIZE,
+                    SELECTION_STATE_UNSELECTED
+            );
+        } else if (someSelection) {
+            quadModel.useProgram(
+                    mvpFloats,
+                    backgroundColorFloats,
+                    0.5f, 0.5f,
+                    0f, 1f,
+                    0f,
+                    INSIDE_CIRCLE_SIZE,
+                    SELECTION_STATE_SELECTED
+            );
+        } else {
+            //Without selection, every node is in the selected state:
+            quadModel.useProgram(
+                    mvpFloats,
+                    backgroundColorFloats,
+                    0f, 1f,
+                    0f, NODER_BORDER_DARKEN_FACTOR,
+                    0f,
+                    INSIDE_CIRCLE_SIZE,
+                    SELECTION_STATE_SELECTED
+            );
+        }
+
+        setupVertexArrayAttributes(engine);
+
+        return instancesCountToDraw;
+    }
+
+    protected void initBuffers() {
+        super.initBuffers();
+
+        glGenBuffers(bufferName);
+
+        initCirclesGLVertexBuffer(bufferName[VERT_BUFFER], NodeQuadModel.VERTEX_DATA);
+        initSelectionStateGLBuffer(bufferName[SELECTION_STATE_BUFFER]);
+
+        if (usePersistentMappedBuffers) {
+            //Updaters write directly into mapped GPU memory:
+            glDeleteBuffers(bufferName[ATTRIBS_BUFFER]);
+            initRingBuffers();
+            return;
+        }
+
+        //Initialize for batch nodes size:
+        attributesGLBuffer = new GLBufferMutable(bufferName[ATTRIBS_BUFFER], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        attributesGLBuffer.bind();
+        attributesGLBuffer.init(ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        attributesGLBuffer.unbind();
+    }
+
+    public void updateBuffers() {
+        if (!acquireFrame()) {
+            return;
+        }
+
+        final NodesFrame frame = frames.draw();
+        if (attributesRing != null) {
+            updateRingBuffers(frame);
+            return;
+        }
+
+        if (hasNewAttributes(frame)) {
+            final FloatBuffer buf = frame.attributesBuffer.floatBuffer();
+            buf.limit(frame.instancesCount * ATTRIBS_STRIDE);
+
+            attributesGLBuffer.bind();
+            attributesGLBuffer.updateWithOrphaning(buf);
+            attributesGLBuffer.unbind();
+
+            attributesUploaded(frame);
+        }
+
+        updateSelectionStateGLBuffer(frame);
+    }
+}
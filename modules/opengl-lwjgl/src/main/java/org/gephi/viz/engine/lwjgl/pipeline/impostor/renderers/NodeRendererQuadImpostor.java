@@ -0,0 +1,68 @@
+package org.gephi.viz.engine.lwjgl.pipeline.impostor.renderers;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.lwjgl.LWJGLRenderingTarget;
+import org.gephi.viz.engine.lwjgl.availability.QuadImpostorDraw;
+import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractNodeRenderer;
+import org.gephi.viz.engine.lwjgl.pipeline.impostor.QuadImpostorNodeData;
+import org.gephi.viz.engine.lwjgl.pipeline.picking.NodesIdBufferPicker;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.FrameContext;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class NodeRendererQuadImpostor extends AbstractNodeRenderer {
+
+    private final VizEngine engine;
+    private final QuadImpostorNodeData nodeData;
+    private NodesIdBufferPicker picker;
+
+    public NodeRendererQuadImpostor(VizEngine engine, QuadImpostorNodeData nodeData) {
+        this.engine = engine;
+        this.nodeData = nodeData;
+    }
+
+    @Override
+    public void init(LWJGLRenderingTarget target) {
+        engine.getFrameStats().setInstanceCounters(this, nodeData.getInstanceCounter());
+        picker = engine.getLookup().lookup(NodesIdBufferPicker.class);
+    }
+
+    @Override
+    public void dispose(LWJGLRenderingTarget target) {
+        if (picker != null) {
+            picker.dispose();
+        }
+    }
+
+    @Override
+    public void worldUpdated(LWJGLRenderingTarget target) {
+        nodeData.updateBuffers();
+    }
+
+    @Override
+    public void render(LWJGLRenderingTarget target, RenderingLayer layer, FrameContext context) {
+        nodeData.drawQuads(layer, engine, context);
+
+        if (layer == PICKING_LAYER && picker != null) {
+            picker.pickNodes(nodeData);
+        }
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return QuadImpostorDraw.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Nodes (Quad impostors)";
+    }
+
+    @Override
+    public boolean isAvailable(LWJGLRenderingTarget target) {
+        return QuadImpostorDraw.isAvailable(engine);
+    }
+}
@@ -0,0 +1,68 @@
+package org.gephi.viz.engine.lwjgl.pipeline.impostor.updaters;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.lwjgl.LWJGLRenderingTarget;
+import org.gephi.viz.engine.lwjgl.availability.QuadImpostorDraw;
+import org.gephi.viz.engine.lwjgl.pipeline.impostor.QuadImpostorNodeData;
+import org.gephi.viz.engine.pipeline.PipelineCategory;
+import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.status.FrameContext;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class NodesUpdaterQuadImpostorRendering implements WorldUpdater<LWJGLRenderingTarget> {
+
+    private final VizEngine engine;
+    private final QuadImpostorNodeData nodeData;
+    private final GraphIndexImpl spatialIndex;
+
+    public NodesUpdaterQuadImpostorRendering(VizEngine engine, QuadImpostorNodeData nodeData, GraphIndexImpl spatialIndex) {
+        this.engine = engine;
+        this.nodeData = nodeData;
+        this.spatialIndex = spatialIndex;
+    }
+
+    @Override
+    public void init(LWJGLRenderingTarget target) {
+        nodeData.init(engine);
+    }
+
+    @Override
+    public void dispose(LWJGLRenderingTarget target) {
+        nodeData.dispose();
+    }
+
+    @Override
+    public void updateWorld(FrameContext context) {
+        nodeData.update(engine, context, spatialIndex);
+    }
+
+    @Override
+    public String getCategory() {
+        return PipelineCategory.NODE;
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return QuadImpostorDraw.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Nodes (Quad impostors)";
+    }
+
+    @Override
+    public boolean isAvailable(LWJGLRenderingTarget target) {
+        return QuadImpostorDraw.isAvailable(engine);
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+}
@@ -0,0 +1,1112 @@
+package org.gephi.viz.engine.lwjgl.pipeline.indexed;
+
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphDiff;
+import org.gephi.graph.api.GraphObserver;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.lwjgl.models.EdgeLineModelIndexed;
+import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractEdgeData;
+import org.gephi.viz.engine.lwjgl.util.gl.GLBuffer;
+import org.gephi.viz.engine.lwjgl.util.gl.GLBufferMutable;
+import org.gephi.viz.engine.lwjgl.util.gl.GLVertexArrayObject;
+import org.gephi.viz.engine.lwjgl.util.gl.ManagedDirectBuffer;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.pipeline.common.InstanceCounter;
+import org.gephi.viz.engine.status.FrameContext;
+import org.gephi.viz.engine.status.GraphRenderingOptions;
+import org.gephi.viz.engine.status.GraphSelection;
+import org.gephi.viz.engine.status.WorldUpdateTracker;
+import org.gephi.viz.engine.structure.GraphIndex;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+import org.gephi.viz.engine.util.ArrayUtils;
+import org.gephi.viz.engine.util.ElementSlots;
+import org.gephi.viz.engine.util.TripleBuffer;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryStack;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.gephi.viz.engine.lwjgl.models.EdgeLineModelIndexed.NODES_COLORS_TEXTURE_UNIT;
+import static org.gephi.viz.engine.lwjgl.models.EdgeLineModelIndexed.NODES_POSITIONS_TEXTURE_UNIT;
+import static org.gephi.viz.engine.lwjgl.models.EdgeLineModelIndexed.NODES_SIZES_TEXTURE_UNIT;
+import static org.gephi.viz.engine.lwjgl.models.EdgeLineModelIndexed.NODE_ATTRIBUTES_FLOATS;
+import static org.gephi.viz.engine.lwjgl.models.EdgeLineModelIndexed.NODE_POSITION_FLOATS;
+import static org.gephi.viz.engine.util.gl.Constants.*;
+import static org.lwjgl.opengl.GL11.GL_FLOAT;
+import static org.lwjgl.opengl.GL11.GL_INT;
+import static org.lwjgl.opengl.GL11.GL_RGBA8;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_BYTE;
+import static org.lwjgl.opengl.GL11.glBindTexture;
+import static org.lwjgl.opengl.GL11.glDeleteTextures;
+import static org.lwjgl.opengl.GL11.glGenTextures;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
+import static org.lwjgl.opengl.GL13.glActiveTexture;
+import static org.lwjgl.opengl.GL15.glGenBuffers;
+import static org.lwjgl.opengl.GL20.glVertexAttribPointer;
+import static org.lwjgl.opengl.GL30.GL_RG32F;
+import static org.lwjgl.opengl.GL30.glVertexAttribIPointer;
+import static org.lwjgl.opengl.GL31.GL_TEXTURE_BUFFER;
+import static org.lwjgl.opengl.GL31.glTexBuffer;
+
+/**
+ * Edges that only store their source and target node slots, weight and color. Node positions, sizes and colors are
+ * uploaded once per world update in node slots buffers, indexed by node store id, that the edge shaders read as texture buffers.
+ * <p>
+ * Each edge keeps a slot (see {@link ElementSlots}) in the attributes buffer of its direction, whatever its selection
+ * state, and world updates only write the slots that changed. The GL thread uploads them as ranges with glBufferSubData
+ * instead of the whole buffer:</p>
+ * <ul>
+ * <li>Added edges come from the graph observer diff. Removed edges are found by checking the slots, since graphstore
+ * clears the store id of removed edges, and only when the slots hold more edges than the graph.</li>
+ * <li>Selection changes only write the edges whose selection state or color changed.</li>
+ * <li>Graphstore does not version edge weights and colors. When the elements may have changed (see
+ * {@link org.gephi.viz.engine.status.WorldUpdateTracker#getElementsVersion()}: edge table changes, polling, or
+ * {@link org.gephi.viz.engine.VizEngine#requestWorldUpdate()}), weights and colors are checked again and only the edges
+ * where they changed are written.</li>
+ * <li>Everything is written again when the rendering options change or when requested with {@link #requestEdgesRefill()}.</li>
+ * </ul>
+ * <p>
+ * Removed edges leave holes, reused by the next added edges and compacted a few at a time on each world update. Each layer
+ * draws all the slots, and the shaders skip the edges in the other selection state and the holes (hidden state).</p>
+ * <p>
+ * Since each world update only has the changes since the previous one, updates are queued for the GL thread instead of
+ * published as frames that may be skipped. If the GL thread falls behind, the queue is replaced by one update with all the slots.</p>
+ * <p>
+ * While nodes move, for example during a layout, only the node slots are uploaded. Positions and sizes/colors are in
+ * separate node slots buffers. For positions only world updates
+ * (see {@link org.gephi.viz.engine.status.WorldUpdateTracker#isPositionsOnlyUpdate()}) only positions are written and
+ * uploaded, half of the node slots data.</p>
+ * <p>
+ * To keep the edges independent from node positions and the camera, all the edges of the visible graph are drawn, and the
+ * vertex shaders cull the ones outside of the view and the sub-pixel ones (see
+ * {@link org.gephi.viz.engine.status.GraphRenderingOptions#getEdgeCullingPixels()}) with the current camera.</p>
+ * <p>
+ * The positions buffer is viewed as RG32F texels for x and y. The attributes buffer is viewed as 2 texture buffers:
+ * RG32F texels for size and color, and RGBA8 texels for the color, twice as many since each float is one of them.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class IndexedEdgeData extends AbstractEdgeData {
+
+    private static final int INDEXED_ATTRIBS_STRIDE = EdgeLineModelIndexed.TOTAL_ATTRIBUTES_FLOATS;
+    private static final int SELECTION_STATE_STRIDE = EdgeLineModelIndexed.SELECTION_STATE_BYTES;
+
+    private final EdgeLineModelIndexed indexedLineModelUndirected = new EdgeLineModelIndexed(false);
+    private final EdgeLineModelIndexed indexedLineModelDirected = new EdgeLineModelIndexed(true);
+
+    private final int[] bufferName = new int[8];
+
+    private static final int VERT_BUFFER_UNDIRECTED = 0;
+    private static final int VERT_BUFFER_DIRECTED = 1;
+    private static final int ATTRIBS_BUFFER_UNDIRECTED = 2;
+    private static final int ATTRIBS_BUFFER_DIRECTED = 3;
+    private static final int SELECTION_STATES_BUFFER_UNDIRECTED = 4;
+    private static final int SELECTION_STATES_BUFFER_DIRECTED = 5;
+    private static final int NODE_POSITIONS_BUFFER = 6;
+    private static final int NODE_ATTRIBUTES_BUFFER = 7;
+
+    private final int[] textureName = new int[3];
+
+    private static final int NODES_POSITIONS_TEXTURE = 0;
+    private static final int NODES_SIZES_TEXTURE = 1;
+    private static final int NODES_COLORS_TEXTURE = 2;
+
+    private static final int BATCH_NODE_SLOTS_SIZE = 8192;
+
+    //Dirty slots separated by less clean slots are uploaded in the same range:
+    private static final int DIRTY_RANGES_MAX_GAP = 64;
+    //Edges moved into holes on each world update:
+    private static final int COMPACTION_MAX_MOVES = 16384;
+    //Queued edges updates before replacing them with one update with all the slots:
+    private static final int MAX_PENDING_EDGES_UPDATES = 32;
+
+    private final EdgeSlots undirectedEdges = new EdgeSlots();
+    private final EdgeSlots directedEdges = new EdgeSlots();
+
+    //Edges updates queued by the world updaters and applied in order by the GL thread:
+    private final Object edgesUpdatesLock = new Object();
+    private List<EdgesUpdate> pendingEdgesUpdates = new ArrayList<>();
+    private List<EdgesUpdate> drainedEdgesUpdates = new ArrayList<>();
+    private boolean queuedSelectionColors = false;
+
+    //Only accessed by the GL thread:
+    private ManagedDirectBuffer uploadAttributesBuffer;
+    private ManagedDirectBuffer uploadSelectionStatesBuffer;
+    private boolean selectionColorsToDraw = false;
+    private final float[] viewBoundariesFloats = new float[4];
+
+    private GLBufferMutable nodePositionsGLBuffer;
+    private GLBufferMutable nodeAttributesGLBuffer;
+    private long uploadedNodeAttributesVersion = -1;
+
+    //Node slots written by the world updaters every update, and read by the GL thread:
+    private TripleBuffer<NodeSlotsFrame> nodeSlotsFrames;
+    private float[] nodePositionsArray = new float[0];
+    private float[] nodeAttributesArray = new float[0];
+    private int nodeSlotsCount = 0;
+    private long nodeAttributesVersion = 0;
+
+    //Only accessed by the world updaters, to know what changed in the edges:
+    private Graph observedGraph = null;
+    private GraphObserver graphObserver = null;
+    private long selectionVersion = -1;
+    private long renderingOptionsVersion = -1;
+    private long elementsVersion = -1;
+    private volatile boolean edgesRefillRequested = true;
+
+    public IndexedEdgeData() {
+        super(true, INDEXED_ATTRIBS_STRIDE);
+    }
+
+    public void init(VizEngine engine) {
+        indexedLineModelUndirected.initGLPrograms();
+        indexedLineModelDirected.initGLPrograms();
+        initBuffers();
+    }
+
+    /**
+     * Makes the next world update fill all the edges again. Edge weights and colors changes only need
+     * {@link VizEngine#requestWorldUpdate()}, that writes the edges where they changed.
+     */
+    public void requestEdgesRefill() {
+        edgesRefillRequested = true;
+    }
+
+    public void update(VizEngine engine, FrameContext context, GraphIndexImpl graphIndex) {
+        final GraphRenderingOptions renderingOptions = context.getRenderingOptions();
+        final GraphSelection graphSelection = context.getSelection();
+        final Graph graph = graphIndex.getGraph();
+
+        if (!renderingOptions.isShowEdges()) {
+            if (graphObserver != null) {
+                //Filled again from scratch when shown:
+                destroyGraphObserver();
+                undirectedEdges.clear();
+                directedEdges.clear();
+                queueEdgesUpdate(true, false);
+            }
+            return;
+        }
+
+        final WorldUpdateTracker worldUpdateTracker = engine.getWorldUpdateTracker();
+        final boolean positionsOnly = worldUpdateTracker.isPositionsOnlyUpdate();
+
+        //Node slots are published first, so the GL thread never draws edges with node slots older than them:
+        updateNodeSlots(graph, positionsOnly);
+
+        //Edges don't have positions:
+        final long newElementsVersion = worldUpdateTracker.getElementsVersion();
+        final boolean elementsChanged = newElementsVersion != elementsVersion && !positionsOnly;
+        elementsVersion = newElementsVersion;
+
+        updateEdges(graphIndex, graph, renderingOptions, graphSelection, elementsChanged);
+    }
+
+    /**
+     * @param positionsOnly True to keep the sizes and colors of the last update, only slots that did not exist are
+     * written entirely
+     */
+    private void updateNodeSlots(final Graph graph, final boolean positionsOnly) {
+        final NodeSlotsFrame frame = nodeSlotsFrames.write();
+
+        //Slots below it already have their size and color:
+        final int keptSlotsCount = positionsOnly ? nodeSlotsCount : 0;
+
+        int slotsCount = keptSlotsCount;
+        boolean attributesChanged = false;
+        graph.readLock();
+        try {
+            for (Node node : graph.getNodes()) {
+                final int slot = node.getStoreId();
+                final int positionIndex = slot * NODE_POSITION_FLOATS;
+                if (positionIndex + NODE_POSITION_FLOATS > nodePositionsArray.length) {
+                    nodePositionsArray = ArrayUtils.ensureCapacity(nodePositionsArray, positionIndex + NODE_POSITION_FLOATS);
+                }
+
+                nodePositionsArray[positionIndex] = node.x();
+                nodePositionsArray[positionIndex + 1] = node.y();
+
+                if (slot >= keptSlotsCount) {
+                    final int attributesIndex = slot * NODE_ATTRIBUTES_FLOATS;
+                    if (attributesIndex + NODE_ATTRIBUTES_FLOATS > nodeAttributesArray.length) {
+                        nodeAttributesArray = ArrayUtils.ensureCapacity(nodeAttributesArray, attributesIndex + NODE_ATTRIBUTES_FLOATS);
+                    }
+
+                    nodeAttributesArray[attributesIndex] = node.size();
+                    nodeAttributesArray[attributesIndex + 1] = Float.intBitsToFloat(node.getRGBA());
+                    attributesChanged = true;
+                }
+
+                slotsCount = Math.max(slotsCount, slot + 1);
+            }
+        } finally {
+            graph.readUnlockAll();
+        }
+
+        if (attributesChanged) {
+            nodeAttributesVersion++;
+        }
+        nodeSlotsCount = slotsCount;
+
+        frame.positionsBuffer.ensureCapacity(slotsCount * NODE_POSITION_FLOATS);
+        frame.positionsBuffer.floatBuffer().put(nodePositionsArray, 0, slotsCount * NODE_POSITION_FLOATS);
+
+        //Frames are reused, this one may hold older sizes and colors:
+        if (frame.attributesVersion != nodeAttributesVersion) {
+            frame.attributesBuffer.ensureCapacity(slotsCount * NODE_ATTRIBUTES_FLOATS);
+            frame.attributesBuffer.floatBuffer().put(nodeAttributesArray, 0, slotsCount * NODE_ATTRIBUTES_FLOATS);
+            frame.attributesVersion = nodeAttributesVersion;
+        }
+        frame.slotsCount = slotsCount;
+
+        nodeSlotsFrames.publish();
+    }
+
+    /**
+     * @param elementsChanged True if edge weights and colors may have changed since the last update
+     */
+    private void updateEdges(final GraphIndexImpl graphIndex, final Graph graph, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection, final boolean elementsChanged) {
+        boolean refill = edgesRefillRequested;
+        edgesRefillRequested = false;
+
+        if (graphObserver == null || graph != observedGraph) {
+            destroyGraphObserver();
+
+            observedGraph = graph;
+            graphObserver = graph.getModel().createGraphObserver(graph, true);
+            refill = true;
+        }
+
+        if (renderingOptions.getVersion() != renderingOptionsVersion) {
+            renderingOptionsVersion = renderingOptions.getVersion();
+            refill = true;
+        }
+
+        boolean selectionChanged = false;
+        if (graphSelection.getVersion() != selectionVersion) {
+            selectionVersion = graphSelection.getVersion();
+            selectionChanged = true;
+        }
+
+        final EdgesSelection selection = new EdgesSelection(graphSelection, renderingOptions);
+
+        boolean edgesChanged = false;
+        graph.readLock();
+        try {
+            final boolean graphChanged = graphObserver.hasGraphChanged();
+            //Always read, so the next diff only has the changes since this update:
+            final GraphDiff diff = graphChanged ? graphObserver.getDiff() : null;
+
+            if (refill) {
+                undirectedEdges.clear();
+                directedEdges.clear();
+                for (Edge edge : graph.getEdges()) {
+                    edgeSlots(edge).add(edge, selection);
+                }
+            } else {
+                if (graphChanged) {
+                    edgesChanged = applyGraphDiff(graph, diff, selection);
+                }
+
+                if (selectionChanged || elementsChanged) {
+                    undirectedEdges.refresh(selection);
+                    directedEdges.refresh(selection);
+                }
+            }
+        } finally {
+            graph.readUnlockAll();
+        }
+
+        if (refill || edgesChanged || elementsChanged) {
+            graphIndex.indexEdges();
+        }
+
+        undirectedEdges.compact();
+        directedEdges.compact();
+
+        queueEdgesUpdate(refill, selection.someNodesSelection && selection.edgeSelectionColor);
+    }
+
+    /**
+     * @return True if some edges were added or removed
+     */
+    private boolean applyGraphDiff(final Graph graph, final GraphDiff diff, final EdgesSelection selection) {
+        boolean changed = false;
+
+        addedEdges:
+        for (Edge edge : diff.getAddedEdges()) {
+            if (!graph.contains(edge)) {
+                continue;
+            }
+
+            //Store ids of removed edges are reused, the removed edge may still be in the slot:
+            final int storeId = edge.getStoreId();
+            for (EdgeSlots edges : new EdgeSlots[]{undirectedEdges, directedEdges}) {
+                final Edge current = edges.getEdge(storeId);
+                if (current == edge) {
+                    continue addedEdges;
+                }
+
+                if (current != null) {
+                    edges.remove(storeId);
+                }
+            }
+
+            edgeSlots(edge).add(edge, selection);
+            changed = true;
+        }
+
+        final int removedCount = undirectedEdges.getEdgesCount() + directedEdges.getEdgesCount() - graph.getEdgeCount();
+        if (removedCount > 0) {
+            final int undirectedRemovedCount = undirectedEdges.removeStaleEdges(graph, removedCount);
+            directedEdges.removeStaleEdges(graph, removedCount - undirectedRemovedCount);
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    private EdgeSlots edgeSlots(final Edge edge) {
+        return edge.isDirected() ? directedEdges : undirectedEdges;
+    }
+
+    /**
+     * Queues the slots written since the last update for the GL thread, if any.
+     *
+     * @param all True to send all the slots
+     */
+    private void queueEdgesUpdate(final boolean all, final boolean selectionColors) {
+        final boolean overflow;
+        synchronized (edgesUpdatesLock) {
+            overflow = pendingEdgesUpdates.size() >= MAX_PENDING_EDGES_UPDATES;
+        }
+
+        final boolean full = all || overflow;
+        if (full) {
+            undirectedEdges.slots.markAllDirty();
+            directedEdges.slots.markAllDirty();
+        } else if (!undirectedEdges.hasChanges() && !directedEdges.hasChanges() && selectionColors == queuedSelectionColors) {
+            return;
+        }
+
+        final EdgesUpdate update = new EdgesUpdate(
+                full,
+                undirectedEdges.createPatch(),
+                directedEdges.createPatch(),
+                selectionColors
+        );
+        queuedSelectionColors = selectionColors;
+
+        synchronized (edgesUpdatesLock) {
+            if (full) {
+                //Has everything the previous ones had:
+                pendingEdgesUpdates.clear();
+            }
+            pendingEdgesUpdates.add(update);
+        }
+    }
+
+    public void drawIndexed(RenderingLayer layer, VizEngine engine, FrameContext context) {
+        glActiveTexture(GL_TEXTURE0 + NODES_POSITIONS_TEXTURE_UNIT);
+        glBindTexture(GL_TEXTURE_BUFFER, textureName[NODES_POSITIONS_TEXTURE]);
+        glActiveTexture(GL_TEXTURE0 + NODES_SIZES_TEXTURE_UNIT);
+        glBindTexture(GL_TEXTURE_BUFFER, textureName[NODES_SIZES_TEXTURE]);
+        glActiveTexture(GL_TEXTURE0 + NODES_COLORS_TEXTURE_UNIT);
+        glBindTexture(GL_TEXTURE_BUFFER, textureName[NODES_COLORS_TEXTURE]);
+
+        draw(layer, engine, context, indexedLineModelUndirected, undirectedInstanceCounter, undirectedEdges, false);
+        draw(layer, engine, context, indexedLineModelDirected, directedInstanceCounter, directedEdges, true);
+
+        glBindTexture(GL_TEXTURE_BUFFER, 0);
+        glActiveTexture(GL_TEXTURE0 + NODES_SIZES_TEXTURE_UNIT);
+        glBindTexture(GL_TEXTURE_BUFFER, 0);
+        glActiveTexture(GL_TEXTURE0 + NODES_POSITIONS_TEXTURE_UNIT);
+        glBindTexture(GL_TEXTURE_BUFFER, 0);
+    }
+
+    /**
+     * Same programs selection as the other edge pipelines. All the slots are drawn, the program only shows the edges in
+     * the selection state of the layer.
+     */
+    private void draw(final RenderingLayer layer, final VizEngine engine, final FrameContext context,
+                      final EdgeLineModelIndexed lineModel, final InstanceCounter instanceCounter, final EdgeSlots edges, final boolean directed) {
+        final boolean someSelection = context.getSelectedEdgesCount() > 0;
+        final boolean renderingUnselectedEdges = layer.isBack();
+        if (!someSelection && renderingUnselectedEdges) {
+            return;
+        }
+
+        final int instanceCount = renderingUnselectedEdges ? instanceCounter.unselectedCountToDraw : instanceCounter.selectedCountToDraw;
+        if (instanceCount <= 0) {
+            return;
+        }
+
+        final float[] mvpFloats = context.getModelViewProjectionFloats();
+        final GraphRenderingOptions renderingOptions = context.getRenderingOptions();
+        final float edgeScale = renderingOptions.getEdgeScale();
+
+        final GraphIndex graphIndex = context.getGraphIndex();
+        final float minWeight = graphIndex.getEdgesMinWeight();
+        final float maxWeight = graphIndex.getEdgesMaxWeight();
+
+        //Culled in the shaders with the current camera, the edges don't depend on it:
+        final float cullingPixels = renderingOptions.getEdgeCullingPixels();
+        final float zoom = context.getZoom();
+        final float cullingSize = cullingPixels > 0 && zoom > 0 ? cullingPixels / zoom : 0;
+
+        final Rect2D viewBoundaries = engine.getViewBoundaries();
+        viewBoundariesFloats[0] = viewBoundaries.minX;
+        viewBoundariesFloats[1] = viewBoundaries.minY;
+        viewBoundariesFloats[2] = viewBoundaries.maxX;
+        viewBoundariesFloats[3] = viewBoundaries.maxY;
+
+        if (renderingUnselectedEdges) {
+            lineModel.useProgramWithSelectionUnselected(
+                    mvpFloats,
+                    edgeScale,
+                    minWeight,
+                    maxWeight,
+                    cullingSize,
+                    viewBoundariesFloats,
+                    context.getBackgroundColor(),
+                    renderingOptions.getLightenNonSelectedFactor()
+            );
+        } else if (someSelection && !selectionColorsToDraw) {
+            lineModel.useProgramWithSelectionSelected(
+                    mvpFloats,
+                    edgeScale,
+                    minWeight,
+                    maxWeight,
+                    cullingSize,
+                    viewBoundariesFloats,
+                    0.5f,
+                    0.5f
+            );
+        } else {
+            lineModel.useProgram(
+                    mvpFloats,
+                    edgeScale,
+                    minWeight,
+                    maxWeight,
+                    cullingSize,
+                    viewBoundariesFloats
+            );
+        }
+
+        final IndexedEdgesVAO vao = vertexArray(engine, directed, edges);
+        vao.use();
+        lineModel.drawInstanced(edges.slotsCountToDraw);
+        vao.stopUsing();
+        lineModel.stopUsingProgram();
+    }
+
+    private IndexedEdgesVAO vertexArray(final VizEngine engine, final boolean directed, final EdgeSlots edges) {
+        if (edges.vao == null) {
+            final GLCapabilities capabilities = engine.getLookup().lookup(GLCapabilities.class);
+            final OpenGLOptions openGLOptions = engine.getLookup().lookup(OpenGLOptions.class);
+
+            edges.vao = new IndexedEdgesVAO(
+                    capabilities, openGLOptions,
+                    directed ? indexedLineModelDirected : indexedLineModelUndirected,
+                    directed ? vertexGLBufferDirected : vertexGLBufferUndirected,
+                    edges.attributesGLBuffer,
+                    edges.selectionStatesGLBuffer
+            );
+        }
+        return edges.vao;
+    }
+
+    @Override
+    protected void initBuffers() {
+        //No frames, edges updates are queued (see queueEdgesUpdate)
+        glGenBuffers(bufferName);
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            final FloatBuffer undirectedVertexData = stack.floats(indexedLineModelUndirected.getVertexData());
+            vertexGLBufferUndirected = new GLBufferMutable(bufferName[VERT_BUFFER_UNDIRECTED], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+            vertexGLBufferUndirected.bind();
+            vertexGLBufferUndirected.init(undirectedVertexData, GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
+            vertexGLBufferUndirected.unbind();
+        }
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            final FloatBuffer directedVertexData = stack.floats(indexedLineModelDirected.getVertexData());
+            vertexGLBufferDirected = new GLBufferMutable(bufferName[VERT_BUFFER_DIRECTED], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+            vertexGLBufferDirected.bind();
+            vertexGLBufferDirected.init(directedVertexData, GLBufferMutable.GL_BUFFER_USAGE_STATIC_DRAW);
+            vertexGLBufferDirected.unbind();
+        }
+
+        //Initialize for batch edges size:
+        undirectedEdges.attributesGLBuffer = initEdgesGLBuffer(bufferName[ATTRIBS_BUFFER_UNDIRECTED], attribsStride * Float.BYTES);
+        undirectedEdges.selectionStatesGLBuffer = initEdgesGLBuffer(bufferName[SELECTION_STATES_BUFFER_UNDIRECTED], SELECTION_STATE_STRIDE);
+        directedEdges.attributesGLBuffer = initEdgesGLBuffer(bufferName[ATTRIBS_BUFFER_DIRECTED], attribsStride * Float.BYTES);
+        directedEdges.selectionStatesGLBuffer = initEdgesGLBuffer(bufferName[SELECTION_STATES_BUFFER_DIRECTED], SELECTION_STATE_STRIDE);
+
+        //Destroyed by the parent:
+        attributesGLBufferUndirected = undirectedEdges.attributesGLBuffer;
+        attributesGLBufferDirected = directedEdges.attributesGLBuffer;
+
+        uploadAttributesBuffer = new ManagedDirectBuffer(GL_FLOAT, attribsStride * BATCH_EDGES_SIZE);
+        uploadSelectionStatesBuffer = new ManagedDirectBuffer(GL_UNSIGNED_BYTE, SELECTION_STATE_STRIDE * BATCH_EDGES_SIZE);
+
+        nodePositionsGLBuffer = initNodeSlotsGLBuffer(bufferName[NODE_POSITIONS_BUFFER], NODE_POSITION_FLOATS);
+        nodeAttributesGLBuffer = initNodeSlotsGLBuffer(bufferName[NODE_ATTRIBUTES_BUFFER], NODE_ATTRIBUTES_FLOATS);
+
+        //Textures keep pointing to the buffers when their data store is reallocated:
+        glGenTextures(textureName);
+        glBindTexture(GL_TEXTURE_BUFFER, textureName[NODES_POSITIONS_TEXTURE]);
+        glTexBuffer(GL_TEXTURE_BUFFER, GL_RG32F, nodePositionsGLBuffer.getId());
+        glBindTexture(GL_TEXTURE_BUFFER, textureName[NODES_SIZES_TEXTURE]);
+        glTexBuffer(GL_TEXTURE_BUFFER, GL_RG32F, nodeAttributesGLBuffer.getId());
+        glBindTexture(GL_TEXTURE_BUFFER, textureName[NODES_COLORS_TEXTURE]);
+        glTexBuffer(GL_TEXTURE_BUFFER, GL_RGBA8, nodeAttributesGLBuffer.getId());
+        glBindTexture(GL_TEXTURE_BUFFER, 0);
+
+        nodeSlotsFrames = new TripleBuffer<>(NodeSlotsFrame::new);
+    }
+
+    private GLBufferMutable initEdgesGLBuffer(final int name, final int slotBytes) {
+        final GLBufferMutable buffer = new GLBufferMutable(name, GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
+        buffer.bind();
+        buffer.init((long) slotBytes * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        buffer.unbind();
+        return buffer;
+    }
+
+    private GLBufferMutable initNodeSlotsGLBuffer(final int name, final int slotFloats) {
+        final GLBufferMutable buffer = new GLBufferMutable(name, GLBufferMutable.GL_BUFFER_TYPE_TEXTURE);
+        buffer.bind();
+        buffer.init((long) slotFloats * Float.BYTES * BATCH_NODE_SLOTS_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
+        buffer.unbind();
+        return buffer;
+    }
+
+    public void updateBuffers() {
+        synchronized (edgesUpdatesLock) {
+            final List<EdgesUpdate> updates = pendingEdgesUpdates;
+            pendingEdgesUpdates = drainedEdgesUpdates;
+            drainedEdgesUpdates = updates;
+        }
+
+        if (!drainedEdgesUpdates.isEmpty()) {
+            for (EdgesUpdate update : drainedEdgesUpdates) {
+                applyEdgesPatch(update.undirected, undirectedEdges, update.full);
+                applyEdgesPatch(update.directed, directedEdges, update.full);
+                selectionColorsToDraw = update.selectionColors;
+            }
+            drainedEdgesUpdates.clear();
+
+            undirectedInstanceCounter.promoteCountToDraw();
+            directedInstanceCounter.promoteCountToDraw();
+        }
+
+        //After the edges, so the node slots are at least as recent as them:
+        if (nodeSlotsFrames.acquire()) {
+            final NodeSlotsFrame frame = nodeSlotsFrames.draw();
+            final FloatBuffer positions = frame.positionsBuffer.floatBuffer();
+            positions.limit(frame.slotsCount * NODE_POSITION_FLOATS);
+
+            nodePositionsGLBuffer.bind();
+            nodePositionsGLBuffer.updateWithOrphaning(positions);
+            nodePositionsGLBuffer.unbind();
+
+            //Sizes and colors are not uploaded again while only positions change:
+            if (frame.attributesVersion != uploadedNodeAttributesVersion) {
+                final FloatBuffer attributes = frame.attributesBuffer.floatBuffer();
+                attributes.limit(frame.slotsCount * NODE_ATTRIBUTES_FLOATS);
+
+                nodeAttributesGLBuffer.bind();
+                nodeAttributesGLBuffer.updateWithOrphaning(attributes);
+                nodeAttributesGLBuffer.unbind();
+
+                uploadedNodeAttributesVersion = frame.attributesVersion;
+            }
+        }
+    }
+
+    private void applyEdgesPatch(final EdgesPatch patch, final EdgeSlots edges, final boolean full) {
+        final int[] ranges = patch.ranges;
+
+        uploadAttributesBuffer.ensureCapacity(patch.attributes.length);
+        final FloatBuffer attributes = uploadAttributesBuffer.floatBuffer();
+        attributes.put(patch.attributes);
+
+        edges.attributesGLBuffer.bind();
+        ensureEdgesGLBufferCapacity(edges.attributesGLBuffer, (long) patch.slotsCount * attribsStride * Float.BYTES, full);
+        int offset = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            final int floats = (ranges[i + 1] - ranges[i]) * attribsStride;
+            attributes.limit(offset + floats);
+            attributes.position(offset);
+            edges.attributesGLBuffer.updateRange((long) ranges[i] * attribsStride * Float.BYTES, attributes);
+            offset += floats;
+        }
+        edges.attributesGLBuffer.unbind();
+
+        uploadSelectionStatesBuffer.ensureCapacity(patch.selectionStates.length);
+        final ByteBuffer selectionStates = uploadSelectionStatesBuffer.byteBuffer();
+        selectionStates.put(patch.selectionStates);
+
+        edges.selectionStatesGLBuffer.bind();
+        ensureEdgesGLBufferCapacity(edges.selectionStatesGLBuffer, (long) patch.slotsCount * SELECTION_STATE_STRIDE, full);
+        offset = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            final int bytes = (ranges[i + 1] - ranges[i]) * SELECTION_STATE_STRIDE;
+            selectionStates.limit(offset + bytes);
+            selectionStates.position(offset);
+            edges.selectionStatesGLBuffer.updateRange((long) ranges[i] * SELECTION_STATE_STRIDE, selectionStates);
+            offset += bytes;
+        }
+        edges.selectionStatesGLBuffer.unbind();
+
+        edges.slotsCountToDraw = patch.slotsCount;
+
+        final InstanceCounter instanceCounter = edges == directedEdges ? directedInstanceCounter : undirectedInstanceCounter;
+        instanceCounter.selectedCount = patch.selectedCount;
+        instanceCounter.unselectedCount = patch.unselectedCount;
+    }
+
+    private static void ensureEdgesGLBufferCapacity(final GLBufferMutable buffer, final long neededBytes, final boolean full) {
+        if (full) {
+            //Everything is written again, no need to copy the old data:
+            buffer.ensureCapacity(neededBytes);
+        } else {
+            buffer.ensureCapacityKeepingData(neededBytes);
+        }
+    }
+
+    private void destroyGraphObserver() {
+        if (graphObserver != null && !graphObserver.isDestroyed()) {
+            graphObserver.destroy();
+        }
+        graphObserver = null;
+        observedGraph = null;
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+
+        for (EdgeSlots edges : new EdgeSlots[]{undirectedEdges, directedEdges}) {
+            if (edges.vao != null) {
+                edges.vao.destroy();
+                edges.vao = null;
+            }
+            if (edges.selectionStatesGLBuffer != null) {
+                edges.selectionStatesGLBuffer.destroy();
+                edges.selectionStatesGLBuffer = null;
+            }
+            edges.attributesGLBuffer = null;
+            edges.slotsCountToDraw = 0;
+            edges.clear();
+        }
+
+        synchronized (edgesUpdatesLock) {
+            pendingEdgesUpdates.clear();
+        }
+        drainedEdgesUpdates.clear();
+        queuedSelectionColors = false;
+        selectionColorsToDraw = false;
+
+        if (uploadAttributesBuffer != null) {
+            uploadAttributesBuffer.destroy();
+            uploadAttributesBuffer = null;
+        }
+        if (uploadSelectionStatesBuffer != null) {
+            uploadSelectionStatesBuffer.destroy();
+            uploadSelectionStatesBuffer = null;
+        }
+
+        if (nodePositionsGLBuffer != null) {
+            nodePositionsGLBuffer.destroy();
+            nodePositionsGLBuffer = null;
+        }
+        if (nodeAttributesGLBuffer != null) {
+            nodeAttributesGLBuffer.destroy();
+            nodeAttributesGLBuffer = null;
+        }
+        uploadedNodeAttributesVersion = -1;
+
+        glDeleteTextures(textureName);
+
+        if (nodeSlotsFrames != null) {
+            nodeSlotsFrames.forEach(NodeSlotsFrame::destroy);
+            nodeSlotsFrames = null;
+        }
+        nodePositionsArray = new float[0];
+        nodeAttributesArray = new float[0];
+        nodeSlotsCount = 0;
+
+        destroyGraphObserver();
+        edgesRefillRequested = true;
+    }
+
+    /**
+     * Selection state and color of the edges for one world update.
+     */
+    private static final class EdgesSelection {
+
+        private final GraphSelection graphSelection;
+        private final boolean someEdgesSelection;
+        private final boolean hideNonSelected;
+        private final boolean someNodesSelection;
+        private final boolean edgeSelectionColor;
+        private final float edgeBothSelectionColor;
+        private final float edgeOutSelectionColor;
+        private final float edgeInSelectionColor;
+
+        public EdgesSelection(final GraphSelection graphSelection, final GraphRenderingOptions renderingOptions) {
+            this.graphSelection = graphSelection;
+            this.someEdgesSelection = graphSelection.getSelectedEdgesCount() > 0;
+            this.someNodesSelection = graphSelection.getSelectedNodesCount() > 0;
+            this.hideNonSelected = someEdgesSelection && (renderingOptions.isHideNonSelected() || renderingOptions.getLightenNonSelectedFactor() >= 1);
+            this.edgeSelectionColor = renderingOptions.isEdgeSelectionColor();
+            this.edgeBothSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeBothSelectionColor().getRGB());
+            this.edgeOutSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeOutSelectionColor().getRGB());
+            this.edgeInSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeInSelectionColor().getRGB());
+        }
+
+        public boolean isSelected(final Edge edge) {
+            return !someEdgesSelection || graphSelection.isEdgeSelected(edge);
+        }
+
+        public byte selectionState(final boolean selected) {
+            if (selected) {
+                return SELECTION_STATE_SELECTED;
+            }
+            return hideNonSelected ? SELECTION_STATE_HIDDEN : SELECTION_STATE_UNSELECTED;
+        }
+
+        public float color(final Edge edge, final boolean selected) {
+            return edgeColorWithSelection(
+                    edge, selected, someNodesSelection, edgeSelectionColor, graphSelection,
+                    edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor
+            );
+        }
+    }
+
+    /**
+     * Edges of one direction in their slots: edge, attributes and selection state of each slot, written by the world
+     * updaters, and the GL buffers they are uploaded to.
+     */
+    private static final class EdgeSlots implements ElementSlots.SlotMoveListener {
+
+        private final ElementSlots slots = new ElementSlots();
+        private Edge[] edges = new Edge[0];
+        private float[] attributes = new float[0];
+        private byte[] selectionStates = new byte[0];
+        private int selectedCount = 0;
+        private int unselectedCount = 0;
+        private int queuedSlotsCount = 0;
+
+        //Only accessed by the GL thread:
+        private GLBufferMutable attributesGLBuffer;
+        private GLBufferMutable selectionStatesGLBuffer;
+        private IndexedEdgesVAO vao;
+        private int slotsCountToDraw = 0;
+
+        public Edge getEdge(final int storeId) {
+            final int slot = slots.getSlot(storeId);
+            return slot == ElementSlots.NO_SLOT ? null : edges[slot];
+        }
+
+        public int getEdgesCount() {
+            return slots.getElementsCount();
+        }
+
+        public void add(final Edge edge, final EdgesSelection selection) {
+            final int slot = slots.add(edge.getStoreId());
+            ensureCapacity(slot + 1);
+
+            edges[slot] = edge;
+
+            //Node slots, read as integers by the shaders:
+            final int index = slot * INDEXED_ATTRIBS_STRIDE;
+            attributes[index] = Float.intBitsToFloat(edge.getSource().getStoreId());
+            attributes[index + 1] = Float.intBitsToFloat(edge.getTarget().getStoreId());
+
+            //Size:
+            attributes[index + 2] = (float) edge.getWeight();
+
+            final boolean selected = selection.isSelected(edge);
+            attributes[index + 3] = selection.color(edge, selected);//Color
+            setSelectionState(slot, selection.selectionState(selected));
+        }
+
+        public void remove(final int storeId) {
+            final int slot = slots.remove(storeId);
+            if (slot != ElementSlots.NO_SLOT) {
+                edges[slot] = null;
+                setSelectionState(slot, SELECTION_STATE_HIDDEN);
+            }
+        }
+
+        /**
+         * Removes the edges that are not in the graph anymore, or whose store id was cleared or reused.
+         *
+         * @param maxCount Removed edges to find before stopping
+         * @return Removed edges
+         */
+        public int removeStaleEdges(final Graph graph, final int maxCount) {
+            int removed = 0;
+            for (int slot = 0; slot < slots.getSlotsCount() && removed < maxCount; slot++) {
+                final Edge edge = edges[slot];
+                if (edge == null) {
+                    continue;
+                }
+
+                final int storeId = slots.getStoreId(slot);
+                if (edge.getStoreId() != storeId || !graph.contains(edge)) {
+                    remove(storeId);
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        /**
+         * Writes the weight, selection state and color again, only marking dirty the slots where they changed.
+         */
+        public void refresh(final EdgesSelection selection) {
+            for (int slot = 0; slot < slots.getSlotsCount(); slot++) {
+                final Edge edge = edges[slot];
+                if (edge == null) {
+                    continue;
+                }
+
+                final boolean selected = selection.isSelected(edge);
+                final byte selectionState = selection.selectionState(selected);
+                final float weight = (float) edge.getWeight();
+                final float color = selection.color(edge, selected);
+
+                final int sizeIndex = slot * INDEXED_ATTRIBS_STRIDE + 2;
+                final int colorIndex = slot * INDEXED_ATTRIBS_STRIDE + 3;
+                if (selectionState != selectionStates[slot]
+                        || Float.floatToRawIntBits(weight) != Float.floatToRawIntBits(attributes[sizeIndex])
+                        || Float.floatToRawIntBits(color) != Float.floatToRawIntBits(attributes[colorIndex])) {
+                    attributes[sizeIndex] = weight;
+                    attributes[colorIndex] = color;
+                    setSelectionState(slot, selectionState);
+                    slots.markDirty(slot);
+                }
+            }
+        }
+
+        private void setSelectionState(final int slot, final byte selectionState) {
+            updateCounts(selectionStates[slot], -1);
+            updateCounts(selectionState, 1);
+            selectionStates[slot] = selectionState;
+        }
+
+        private void updateCounts(final byte selectionState, final int delta) {
+            if (selectionState == SELECTION_STATE_SELECTED) {
+                selectedCount += delta;
+            } else if (selectionState == SELECTION_STATE_UNSELECTED) {
+                unselectedCount += delta;
+            }
+        }
+
+        public void compact() {
+            slots.compact(COMPACTION_MAX_MOVES, this);
+        }
+
+        @Override
+        public void moved(final int fromSlot, final int toSlot) {
+            System.arraycopy(attributes, fromSlot * INDEXED_ATTRIBS_STRIDE, attributes, toSlot * INDEXED_ATTRIBS_STRIDE, INDEXED_ATTRIBS_STRIDE);
+
+            //Holes are hidden, counts don't change:
+            selectionStates[toSlot] = selectionStates[fromSlot];
+            selectionStates[fromSlot] = SELECTION_STATE_HIDDEN;
+
+            edges[toSlot] = edges[fromSlot];
+            edges[fromSlot] = null;
+        }
+
+        public boolean hasChanges() {
+            return slots.hasDirtySlots() || slots.getSlotsCount() != queuedSlotsCount;
+        }
+
+        /**
+         * @return Data of the dirty slots, that are not dirty anymore
+         */
+        public EdgesPatch createPatch() {
+            final int slotsCount = slots.getSlotsCount();
+            final int[] ranges = slots.collectDirtyRanges(DIRTY_RANGES_MAX_GAP);
+
+            int patchSlotsCount = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                patchSlotsCount += ranges[i + 1] - ranges[i];
+            }
+
+            final float[] patchAttributes = new float[patchSlotsCount * INDEXED_ATTRIBS_STRIDE];
+            final byte[] patchSelectionStates = new byte[patchSlotsCount];
+            int offset = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                final int count = ranges[i + 1] - ranges[i];
+                System.arraycopy(attributes, ranges[i] * INDEXED_ATTRIBS_STRIDE, patchAttributes, offset * INDEXED_ATTRIBS_STRIDE, count * INDEXED_ATTRIBS_STRIDE);
+                System.arraycopy(selectionStates, ranges[i], patchSelectionStates, offset, count);
+                offset += count;
+            }
+
+            queuedSlotsCount = slotsCount;
+            return new EdgesPatch(slotsCount, ranges, patchAttributes, patchSelectionStates, selectedCount, unselectedCount);
+        }
+
+        private void ensureCapacity(final int slotsCount) {
+            if (slotsCount > edges.length) {
+                final int capacity = ArrayUtils.getNextPowerOf2(slotsCount);
+                final int oldCapacity = edges.length;
+
+                edges = Arrays.copyOf(edges, capacity);
+                attributes = Arrays.copyOf(attributes, capacity * INDEXED_ATTRIBS_STRIDE);
+                selectionStates = Arrays.copyOf(selectionStates, capacity);
+                Arrays.fill(selectionStates, oldCapacity, capacity, SELECTION_STATE_HIDDEN);
+            }
+        }
+
+        public void clear() {
+            slots.clear();
+            edges = new Edge[0];
+            attributes = new float[0];
+            selectionStates = new byte[0];
+            selectedCount = 0;
+            unselectedCount = 0;
+            queuedSlotsCount = 0;
+        }
+    }
+
+    /**
+     * Slots of one direction written by a world update, for the GL thread.
+     */
+    private static final class EdgesPatch {
+
+        public final int slotsCount;
+        //Pairs of first slot (inclusive) and last slot (exclusive), their data is contiguous in the arrays:
+        public final int[] ranges;
+        public final float[] attributes;
+        public final byte[] selectionStates;
+        public final int selectedCount;
+        public final int unselectedCount;
+
+        public EdgesPatch(int slotsCount, int[] ranges, float[] attributes, byte[] selectionStates, int selectedCount, int unselectedCount) {
+            this.slotsCount = slotsCount;
+            this.ranges = ranges;
+            this.attributes = attributes;
+            this.selectionStates = selectionStates;
+            this.selectedCount = selectedCount;
+            this.unselectedCount = unselectedCount;
+        }
+    }
+
+    private static final class EdgesUpdate {
+
+        //All the slots are in the patches:
+        public final boolean full;
+        public final EdgesPatch undirected;
+        public final EdgesPatch directed;
+        public final boolean selectionColors;
+
+        public EdgesUpdate(boolean full, EdgesPatch undirected, EdgesPatch directed, boolean selectionColors) {
+            this.full = full;
+            this.undirected = undirected;
+            this.directed = directed;
+            this.selectionColors = selectionColors;
+        }
+    }
+
+    /**
+     * Node slots of one world update: x and y, and size and color of each node at its store id.
+     */
+    private static class NodeSlotsFrame {
+
+        public final ManagedDirectBuffer positionsBuffer = new ManagedDirectBuffer(GL_FLOAT, NODE_POSITION_FLOATS * BATCH_NODE_SLOTS_SIZE);
+        public final ManagedDirectBuffer attributesBuffer = new ManagedDirectBuffer(GL_FLOAT, NODE_ATTRIBUTES_FLOATS * BATCH_NODE_SLOTS_SIZE);
+        public long attributesVersion = -1;
+        public int slotsCount = 0;
+
+        public void destroy() {
+            positionsBuffer.destroy();
+            attributesBuffer.destroy();
+        }
+    }
+
+    private static class IndexedEdgesVAO extends GLVertexArrayObject {
+
+        private final EdgeLineModelIndexed lineModel;
+        private final GLBuffer vertexBuffer;
+        private final GLBuffer attributesBuffer;
+        private final GLBuffer selectionStatesBuffer;
+
+        public IndexedEdgesVAO(GLCapabilities capabilities, OpenGLOptions openGLOptions, EdgeLineModelIndexed lineModel, GLBuffer vertexBuffer, GLBuffer attributesBuffer, GLBuffer selectionStatesBuffer) {
+            super(capabilities, openGLOptions);
+            this.lineModel = lineModel;
+            this.vertexBuffer = vertexBuffer;
+            this.attributesBuffer = attributesBuffer;
+            this.selectionStatesBuffer = selectionStatesBuffer;
+        }
+
+        @Override
+        protected void configure() {
+            vertexBuffer.bind();
+            {
+                glVertexAttribPointer(SHADER_VERT_LOCATION, lineModel.getVertexFloats(), GL_FLOAT, false, 0, 0);
+            }
+            vertexBuffer.unbind();
+
+            attributesBuffer.bind();
+            {
+                int stride = INDEXED_ATTRIBS_STRIDE * Float.BYTES;
+                int offset = 0;
+                glVertexAttribIPointer(SHADER_SOURCE_INDEX_LOCATION, EdgeLineModelIndexed.SOURCE_INDEX_FLOATS, GL_INT, stride, offset);
+                offset += EdgeLineModelIndexed.SOURCE_INDEX_FLOATS * Float.BYTES;
+
+                glVertexAttribIPointer(SHADER_TARGET_INDEX_LOCATION, EdgeLineModelIndexed.TARGET_INDEX_FLOATS, GL_INT, stride, offset);
+                offset += EdgeLineModelIndexed.TARGET_INDEX_FLOATS * Float.BYTES;
+
+                glVertexAttribPointer(SHADER_SIZE_LOCATION, EdgeLineModelIndexed.SIZE_FLOATS, GL_FLOAT, false, stride, offset);
+                offset += EdgeLineModelIndexed.SIZE_FLOATS * Float.BYTES;
+
+                glVertexAttribPointer(SHADER_COLOR_LOCATION, EdgeLineModelIndexed.COLOR_FLOATS * Float.BYTES, GL_UNSIGNED_BYTE, false, stride, offset);
+            }
+            attributesBuffer.unbind();
+
+            selectionStatesBuffer.bind();
+            {
+                glVertexAttribPointer(SHADER_SELECTION_STATE_LOCATION, SELECTION_STATE_STRIDE, GL_UNSIGNED_BYTE, false, SELECTION_STATE_STRIDE, 0);
+            }
+            selectionStatesBuffer.unbind();
+        }
+
+        @Override
+        protected int[] getUsedAttributeLocations() {
+            return new int[]{
+                SHADER_VERT_LOCATION,
+                SHADER_SOURCE_INDEX_LOCATION,
+                SHADER_TARGET_INDEX_LOCATION,
+                SHADER_SIZE_LOCATION,
+                SHADER_COLOR_LOCATION,
+                SHADER_SELECTION_STATE_LOCATION
+            };
+        }
+
+        @Override
+        protected int[] getInstancedAttributeLocations() {
+            return new int[]{
+                SHADER_SOURCE_INDEX_LOCATION,
+                SHADER_TARGET_INDEX_LOCATION,
+                SHADER_SIZE_LOCATION,
+                SHADER_COLOR_LOCATION,
+                SHADER_SELECTION_STATE_LOCATION
+            };
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.gephi.viz.engine.lwjgl.pipeline.indexed.renderers;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.lwjgl.LWJGLRenderingTarget;
+import org.gephi.viz.engine.lwjgl.availability.IndexedEdgeDraw;
+import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractEdgeRenderer;
+import org.gephi.viz.engine.lwjgl.pipeline.indexed.IndexedEdgeData;
+import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.FrameContext;
+
+/**
+ * TODO: self loops
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgeRendererIndexed extends AbstractEdgeRenderer {
+
+    private final VizEngine engine;
+    private final IndexedEdgeData edgeData;
+
+    public EdgeRendererIndexed(VizEngine engine, IndexedEdgeData edgeData) {
+        this.engine = engine;
+        this.edgeData = edgeData;
+    }
+
+    @Override
+    public void init(LWJGLRenderingTarget target) {
+        engine.getFrameStats().setInstanceCounters(this, edgeData.getUndirectedInstanceCounter(), edgeData.getDirectedInstanceCounter());
+    }
+
+    @Override
+    public void worldUpdated(LWJGLRenderingTarget target) {
+        edgeData.updateBuffers();
+    }
+
+    @Override
+    public void render(LWJGLRenderingTarget target, RenderingLayer layer, FrameContext context) {
+        edgeData.drawIndexed(
+                layer,
+                engine, context
+        );
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return IndexedEdgeDraw.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Edges (Indexed)";
+    }
+
+    @Override
+    public boolean isAvailable(LWJGLRenderingTarget target) {
+        return IndexedEdgeDraw.isAvailable(engine);
+    }
+}
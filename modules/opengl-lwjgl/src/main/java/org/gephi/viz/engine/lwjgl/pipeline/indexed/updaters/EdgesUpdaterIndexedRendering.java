@@ -0,0 +1,68 @@
+package org.gephi.viz.engine.lwjgl.pipeline.indexed.updaters;
+
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.lwjgl.LWJGLRenderingTarget;
+import org.gephi.viz.engine.lwjgl.availability.IndexedEdgeDraw;
+import org.gephi.viz.engine.lwjgl.pipeline.indexed.IndexedEdgeData;
+import org.gephi.viz.engine.pipeline.PipelineCategory;
+import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.status.FrameContext;
+import org.gephi.viz.engine.structure.GraphIndexImpl;
+
+/**
+ *
+ * @author Eduardo Ramos
+ */
+public class EdgesUpdaterIndexedRendering implements WorldUpdater<LWJGLRenderingTarget> {
+
+    private final VizEngine engine;
+    private final IndexedEdgeData edgeData;
+    private final GraphIndexImpl spatialIndex;
+
+    public EdgesUpdaterIndexedRendering(VizEngine engine, IndexedEdgeData edgeData, GraphIndexImpl spatialIndex) {
+        this.engine = engine;
+        this.edgeData = edgeData;
+        this.spatialIndex = spatialIndex;
+    }
+
+    @Override
+    public void init(LWJGLRenderingTarget target) {
+        edgeData.init(engine);
+    }
+
+    @Override
+    public void dispose(LWJGLRenderingTarget target) {
+        edgeData.dispose();
+    }
+
+    @Override
+    public void updateWorld(FrameContext context) {
+        edgeData.update(engine, context, spatialIndex);
+    }
+
+    @Override
+    public String getCategory() {
+        return PipelineCategory.EDGE;
+    }
+
+    @Override
+    public int getPreferenceInCategory() {
+        return IndexedEdgeDraw.getPreferenceInCategory();
+    }
+
+    @Override
+    public String getName() {
+        return "Edges (Indexed)";
+    }
+
+    @Override
+    public boolean isAvailable(LWJGLRenderingTarget target) {
+        return IndexedEdgeDraw.isAvailable(engine);
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+}
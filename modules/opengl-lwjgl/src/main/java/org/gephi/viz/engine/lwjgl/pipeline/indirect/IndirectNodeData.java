@@ -1,12 +1,11 @@
 package org.gephi.viz.engine.lwjgl.pipeline.indirect;
 
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.lwjgl.availability.PersistentMappedBuffers;
 import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractNodeData;
 import org.gephi.viz.engine.lwjgl.util.gl.GLBufferMutable;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
-import org.gephi.viz.engine.status.GraphRenderingOptions;
-import org.gephi.viz.engine.status.GraphSelection;
-import org.gephi.viz.engine.status.GraphSelectionNeighbours;
+import org.gephi.viz.engine.status.FrameContext;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 
 import java.nio.FloatBuffer;
@@ -14,6 +13,7 @@ import java.nio.IntBuffer;
 
 import static org.gephi.viz.engine.util.gl.GLConstants.INDIRECT_DRAW_COMMAND_BYTES;
 import static org.gephi.viz.engine.util.gl.GLConstants.INDIRECT_DRAW_COMMAND_INTS_COUNT;
+import static org.lwjgl.opengl.GL20.glDeleteBuffers;
 import static org.lwjgl.opengl.GL20.glGenBuffers;
 
 /**
@@ -26,34 +26,42 @@ public class IndirectNodeData extends AbstractNodeData {
 
     private static final int VERT_BUFFER = 0;
     private static final int ATTRIBS_BUFFER = 1;
-    private static final int ATTRIBS_BUFFER_SECONDARY = 2;
+    private static final int SELECTION_STATE_BUFFER = 2;
     private static final int INDIRECT_DRAW_BUFFER = 3;
 
+    private boolean usePersistentMappedBuffers = false;
+
     public IndirectNodeData() {
         super(true, true);
     }
 
-    public void update(VizEngine engine, GraphIndexImpl spatialIndex) {
+    public void init(VizEngine engine) {
+        usePersistentMappedBuffers = PersistentMappedBuffers.isAvailable(engine);
+        init();
+    }
+
+    public void update(VizEngine engine, FrameContext context, GraphIndexImpl spatialIndex) {
         updateData(
-                engine.getZoom(),
+                context.getZoom(),
                 spatialIndex,
-                engine.getLookup().lookup(GraphRenderingOptions.class),
-                engine.getLookup().lookup(GraphSelection.class),
-                engine.getLookup().lookup(GraphSelectionNeighbours.class)
+                context.getRenderingOptions(),
+                context.getSelection(),
+                context.getNeighboursSelection(),
+                engine.getWorldUpdateTracker().isSelectionOnlyUpdate()
         );
     }
 
-    public void drawIndirect(RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
+    public void drawIndirect(RenderingLayer layer, VizEngine engine, FrameContext context) {
         //First we draw outside circle (for border) and then inside circle:
-        drawIndirectInternal(layer, engine, mvpFloats, true);
-        drawIndirectInternal(layer, engine, mvpFloats, false);
+        drawIndirectInternal(layer, engine, context, true);
+        drawIndirectInternal(layer, engine, context, false);
     }
 
     private void drawIndirectInternal(final RenderingLayer layer,
                                       final VizEngine engine,
-                                      final float[] mvpFloats,
+                                      final FrameContext context,
                                       final boolean isRenderingOutsideCircle) {
-        final int instanceCount = setupShaderProgramForRenderingLayer(layer, engine, mvpFloats, isRenderingOutsideCircle);
+        final int instanceCount = setupShaderProgramForRenderingLayer(layer, engine, context, isRenderingOutsideCircle);
 
         if (instanceCount <= 0) {
             diskModel.stopUsingProgram();
@@ -61,13 +69,18 @@ public class IndirectNodeData extends AbstractNodeData {
             return;
         }
 
-        final boolean renderingUnselectedNodes = layer.isBack();
-        final int instancesOffset = renderingUnselectedNodes ? 0 : instanceCounter.unselectedCountToDraw;
-
         commandsGLBuffer.bind();
-        diskModel.drawIndirect(
-                instanceCount, instancesOffset
-        );
+        if (isDrawingSelectedRuns(layer)) {
+            //Commands are in instance order, so each run of selected instances is a range of commands:
+            for (int i = 0; i < selectedRunsCountToDraw; i++) {
+                diskModel.drawIndirect(selectedRunsToDraw[i * 2 + 1], selectedRunsToDraw[i * 2]);
+            }
+        } else {
+            //All commands, the shader skips instances in the other selection state:
+            diskModel.drawIndirect(
+                    instanceCount, 0
+            );
+        }
         commandsGLBuffer.unbind();
         diskModel.stopUsingProgram();
         unsetupVertexArrayAttributes();
@@ -79,6 +92,14 @@ public class IndirectNodeData extends AbstractNodeData {
         glGenBuffers(bufferName);
 
         initCirclesGLVertexBuffer(bufferName[VERT_BUFFER]);
+        initSelectionStateGLBuffer(bufferName[SELECTION_STATE_BUFFER]);
+
+        if (usePersistentMappedBuffers) {
+            //Updaters write directly into mapped GPU memory:
+            glDeleteBuffers(new int[]{bufferName[ATTRIBS_BUFFER], bufferName[INDIRECT_DRAW_BUFFER]});
+            initRingBuffers();
+            return;
+        }
 
         //Initialize for batch nodes size:
         attributesGLBuffer = new GLBufferMutable(bufferName[ATTRIBS_BUFFER], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
@@ -86,11 +107,6 @@ public class IndirectNodeData extends AbstractNodeData {
         attributesGLBuffer.init(ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBuffer.unbind();
 
-        attributesGLBufferSecondary = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_SECONDARY], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
-        attributesGLBufferSecondary.bind();
-        attributesGLBufferSecondary.init(ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
-        attributesGLBufferSecondary.unbind();
-
         commandsGLBuffer = new GLBufferMutable(bufferName[INDIRECT_DRAW_BUFFER], GLBufferMutable.GL_BUFFER_TYPE_DRAW_INDIRECT);
         commandsGLBuffer.bind();
         commandsGLBuffer.init(INDIRECT_DRAW_COMMAND_BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
@@ -98,32 +114,34 @@ public class IndirectNodeData extends AbstractNodeData {
     }
 
     public void updateBuffers() {
-        final FloatBuffer buf = attributesBuffer.floatBuffer();
+        if (!acquireFrame()) {
+            return;
+        }
 
-        buf.limit(instanceCounter.unselectedCount * ATTRIBS_STRIDE);
-        buf.position(0);
+        final NodesFrame frame = frames.draw();
+        if (attributesRing != null) {
+            updateRingBuffers(frame);
+            return;
+        }
 
-        attributesGLBufferSecondary.bind();
-        attributesGLBufferSecondary.updateWithOrphaning(buf);
-        attributesGLBufferSecondary.unbind();
+        if (hasNewAttributes(frame)) {
+            final FloatBuffer buf = frame.attributesBuffer.floatBuffer();
+            buf.limit(frame.instancesCount * ATTRIBS_STRIDE);
 
-        final int offset = buf.limit();
-        buf.limit(offset + instanceCounter.selectedCount * ATTRIBS_STRIDE);
-        buf.position(offset);
+            attributesGLBuffer.bind();
+            attributesGLBuffer.updateWithOrphaning(buf);
+            attributesGLBuffer.unbind();
 
-        attributesGLBuffer.bind();
-        attributesGLBuffer.updateWithOrphaning(buf);
-        attributesGLBuffer.unbind();
+            final IntBuffer commandsBufferData = frame.commandsBuffer.intBuffer();
+            commandsBufferData.limit(frame.instancesCount * INDIRECT_DRAW_COMMAND_INTS_COUNT);
 
-        final IntBuffer commandsBufferData = commandsBuffer.intBuffer();
-        commandsBufferData.position(0);
-        commandsBufferData.limit(instanceCounter.total() * INDIRECT_DRAW_COMMAND_INTS_COUNT);
+            commandsGLBuffer.bind();
+            commandsGLBuffer.updateWithOrphaning(commandsBufferData);
+            commandsGLBuffer.unbind();
 
-        commandsGLBuffer.bind();
-        commandsGLBuffer.updateWithOrphaning(commandsBufferData);
-        commandsGLBuffer.unbind();
+            attributesUploaded(frame);
+        }
 
-        instanceCounter.promoteCountToDraw();
-        maxNodeSizeToDraw = maxNodeSize;
+        updateSelectionStateGLBuffer(frame);
     }
 }
@@ -6,6 +6,7 @@ import org.gephi.viz.engine.lwjgl.availability.IndirectDraw;
 import org.gephi.viz.engine.lwjgl.pipeline.indirect.IndirectNodeData;
 import org.gephi.viz.engine.pipeline.PipelineCategory;
 import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.status.FrameContext;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 
 /**
@@ -26,7 +27,7 @@ public class NodesUpdaterIndirectRendering implements WorldUpdater<LWJGLRenderin
 
     @Override
     public void init(LWJGLRenderingTarget target) {
-        nodeData.init();
+        nodeData.init(engine);
     }
 
     @Override
@@ -35,8 +36,8 @@ public class NodesUpdaterIndirectRendering implements WorldUpdater<LWJGLRenderin
     }
 
     @Override
-    public void updateWorld() {
-        nodeData.update(engine, spatialIndex);
+    public void updateWorld(FrameContext context) {
+        nodeData.update(engine, context, spatialIndex);
     }
 
     @Override
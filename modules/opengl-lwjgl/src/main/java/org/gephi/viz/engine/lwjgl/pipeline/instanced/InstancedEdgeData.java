@@ -1,24 +1,19 @@
 package org.gephi.viz.engine.lwjgl.pipeline.instanced;
 
-import org.gephi.graph.api.Edge;
-import org.gephi.graph.api.Graph;
 import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.lwjgl.availability.PersistentMappedBuffers;
 import org.gephi.viz.engine.lwjgl.models.EdgeLineModelDirected;
 import org.gephi.viz.engine.lwjgl.models.EdgeLineModelUndirected;
 import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractEdgeData;
 import org.gephi.viz.engine.lwjgl.util.gl.GLBufferMutable;
-import org.gephi.viz.engine.lwjgl.util.gl.ManagedDirectBuffer;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
-import org.gephi.viz.engine.status.GraphRenderingOptions;
-import org.gephi.viz.engine.status.GraphSelection;
-import org.gephi.viz.engine.structure.GraphIndex;
+import org.gephi.viz.engine.status.FrameContext;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 import org.lwjgl.system.MemoryStack;
 
 import java.nio.FloatBuffer;
 
-import static org.gephi.viz.engine.pipeline.RenderingLayer.BACK1;
-import static org.lwjgl.opengl.GL11.GL_FLOAT;
+import static org.lwjgl.opengl.GL15.glDeleteBuffers;
 import static org.lwjgl.opengl.GL15.glGenBuffers;
 
 /**
@@ -31,37 +26,46 @@ public class InstancedEdgeData extends AbstractEdgeData {
     private static final int VERT_BUFFER_UNDIRECTED = 0;
     private static final int VERT_BUFFER_DIRECTED = 1;
     private static final int ATTRIBS_BUFFER_UNDIRECTED = 2;
-    private static final int ATTRIBS_BUFFER_UNDIRECTED_SECONDARY = 3;
-    private static final int ATTRIBS_BUFFER_DIRECTED = 4;
-    private static final int ATTRIBS_BUFFER_DIRECTED_SECONDARY = 5;
+    private static final int ATTRIBS_BUFFER_DIRECTED = 3;
+    private static final int SELECTION_STATES_BUFFER_UNDIRECTED = 4;
+    private static final int SELECTION_STATES_BUFFER_DIRECTED = 5;
+
+    private boolean usePersistentMappedBuffers = false;
 
     public InstancedEdgeData() {
-        super(true, true);
+        super(true);
+    }
+
+    public void init(VizEngine engine) {
+        usePersistentMappedBuffers = PersistentMappedBuffers.isAvailable(engine);
+        init();
     }
 
-    public void update(VizEngine engine, GraphIndexImpl graphIndex) {
+    public void update(VizEngine engine, FrameContext context, GraphIndexImpl graphIndex) {
         updateData(
+            engine,
             graphIndex,
-            engine.getLookup().lookup(GraphRenderingOptions.class),
-            engine.getLookup().lookup(GraphSelection.class)
+            context.getRenderingOptions(),
+            context.getSelection(),
+            engine.getWorldUpdateTracker().isSelectionOnlyUpdate()
         );
     }
 
-    public void drawInstanced(RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
-        drawUndirected(engine, layer, mvpFloats);
-        drawDirected(engine, layer, mvpFloats);
+    public void drawInstanced(RenderingLayer layer, VizEngine engine, FrameContext context) {
+        drawUndirected(engine, layer, context);
+        drawDirected(engine, layer, context);
     }
 
-    private void drawUndirected(VizEngine engine, RenderingLayer layer, float[] mvpFloats) {
-        final int instanceCount = setupShaderProgramForRenderingLayerUndirected(layer, engine, mvpFloats);
+    private void drawUndirected(VizEngine engine, RenderingLayer layer, FrameContext context) {
+        final int instanceCount = setupShaderProgramForRenderingLayerUndirected(layer, engine, context);
 
         lineModelUndirected.drawInstanced(instanceCount);
         lineModelUndirected.stopUsingProgram();
         unsetupUndirectedVertexArrayAttributes();
     }
 
-    private void drawDirected(VizEngine engine, RenderingLayer layer, float[] mvpFloats) {
-        final int instanceCount = setupShaderProgramForRenderingLayerDirected(layer, engine, mvpFloats);
+    private void drawDirected(VizEngine engine, RenderingLayer layer, FrameContext context) {
+        final int instanceCount = setupShaderProgramForRenderingLayerDirected(layer, engine, context);
 
         lineModelDirected.drawInstanced(instanceCount);
         lineModelDirected.stopUsingProgram();
@@ -88,118 +92,68 @@ public class InstancedEdgeData extends AbstractEdgeData {
             vertexGLBufferDirected.unbind();
         }
 
+        initSelectionStatesGLBuffers(bufferName[SELECTION_STATES_BUFFER_UNDIRECTED], bufferName[SELECTION_STATES_BUFFER_DIRECTED]);
+
+        if (usePersistentMappedBuffers) {
+            //Updaters write directly into mapped GPU memory:
+            glDeleteBuffers(new int[]{
+                bufferName[ATTRIBS_BUFFER_UNDIRECTED], bufferName[ATTRIBS_BUFFER_DIRECTED]
+            });
+            initRingBuffers();
+            return;
+        }
+
         //Initialize for batch edges size:
         attributesGLBufferDirected = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_DIRECTED], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
         attributesGLBufferDirected.bind();
         attributesGLBufferDirected.init(ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBufferDirected.unbind();
 
-        attributesGLBufferDirectedSecondary = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_DIRECTED_SECONDARY], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
-        attributesGLBufferDirectedSecondary.bind();
-        attributesGLBufferDirectedSecondary.init(ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
-        attributesGLBufferDirectedSecondary.unbind();
-
         attributesGLBufferUndirected = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_UNDIRECTED], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
         attributesGLBufferUndirected.bind();
         attributesGLBufferUndirected.init(ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBufferUndirected.unbind();
-
-        attributesGLBufferUndirectedSecondary = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_UNDIRECTED_SECONDARY], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
-        attributesGLBufferUndirectedSecondary.bind();
-        attributesGLBufferUndirectedSecondary.init(ATTRIBS_STRIDE * Float.BYTES * BATCH_EDGES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
-        attributesGLBufferUndirectedSecondary.unbind();
     }
 
     public void updateBuffers() {
-        final FloatBuffer buf = attributesBuffer.floatBuffer();
-
-        buf.limit(undirectedInstanceCounter.unselectedCount * ATTRIBS_STRIDE);
-        buf.position(0);
-
-        attributesGLBufferUndirectedSecondary.bind();
-        attributesGLBufferUndirectedSecondary.updateWithOrphaning(buf);
-        attributesGLBufferUndirectedSecondary.unbind();
-
-        int offset = buf.limit();
-        buf.limit(offset + undirectedInstanceCounter.selectedCount * ATTRIBS_STRIDE);
-        buf.position(offset);
-
-        attributesGLBufferUndirected.bind();
-        attributesGLBufferUndirected.updateWithOrphaning(buf);
-        attributesGLBufferUndirected.unbind();
-
-        offset = buf.limit();
-        buf.limit(offset + directedInstanceCounter.unselectedCount * ATTRIBS_STRIDE);
-        buf.position(offset);
-
-        attributesGLBufferDirectedSecondary.bind();
-        attributesGLBufferDirectedSecondary.updateWithOrphaning(buf);
-        attributesGLBufferDirectedSecondary.unbind();
-
-        offset = buf.limit();
-        buf.limit(offset + directedInstanceCounter.selectedCount * ATTRIBS_STRIDE);
-        buf.position(offset);
-
-        attributesGLBufferDirected.bind();
-        attributesGLBufferDirected.updateWithOrphaning(buf);
-        attributesGLBufferDirected.unbind();
-
-        undirectedInstanceCounter.promoteCountToDraw();
-        directedInstanceCounter.promoteCountToDraw();
-    }
-
-    private void updateData(final GraphIndexImpl graphIndex, final GraphRenderingOptions renderingOptions, final GraphSelection graphSelection) {
-        if (!renderingOptions.isShowEdges()) {
-            undirectedInstanceCounter.clearCount();
-            directedInstanceCounter.clearCount();
+        if (!acquireFrame()) {
             return;
         }
 
-        graphIndex.indexEdges();
-
-        //Selection:
-        final boolean someEdgesSelection = graphSelection.getSelectedEdgesCount() > 0;
-        final boolean someNodesSelection = graphSelection.getSelectedNodesCount() > 0;
-        final float lightenNonSelectedFactor = renderingOptions.getLightenNonSelectedFactor();
-        final boolean hideNonSelected = someEdgesSelection && (renderingOptions.isHideNonSelected() || lightenNonSelectedFactor >= 1);
-        final boolean edgeSelectionColor = renderingOptions.isEdgeSelectionColor();
-        final float edgeBothSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeBothSelectionColor().getRGB());
-        final float edgeInSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeInSelectionColor().getRGB());
-        final float edgeOutSelectionColor = Float.intBitsToFloat(renderingOptions.getEdgeOutSelectionColor().getRGB());
+        final EdgesFrame frame = frames.draw();
+        if (attributesRings != null) {
+            updateRingBuffers(frame);
+            return;
+        }
 
-        final int totalEdges = graphIndex.getEdgeCount();
+        //Selection only updates keep the uploaded attributes:
+        if (hasNewAttributes(frame)) {
+            final FloatBuffer buf = frame.attributesBuffer.floatBuffer();
 
-        attributesBuffer.ensureCapacity(totalEdges * ATTRIBS_STRIDE);
+            buf.limit(frame.regionsCounts[REGION_UNDIRECTED] * ATTRIBS_STRIDE);
+            buf.position(0);
 
-        final FloatBuffer attribsDirectBuffer = attributesBuffer.floatBuffer();
+            attributesGLBufferUndirected.bind();
+            attributesGLBufferUndirected.updateWithOrphaning(buf);
+            attributesGLBufferUndirected.unbind();
 
-        graphIndex.getVisibleEdges(edgesCallback);
+            final int offset = buf.limit();
+            buf.limit(offset + frame.regionsCounts[REGION_DIRECTED] * ATTRIBS_STRIDE);
+            buf.position(offset);
 
-        final Edge[] visibleEdgesArray = edgesCallback.getEdgesArray();
-        final int visibleEdgesCount = edgesCallback.getCount();
+            attributesGLBufferDirected.bind();
+            attributesGLBufferDirected.updateWithOrphaning(buf);
+            attributesGLBufferDirected.unbind();
 
-        final Graph graph = graphIndex.getGraph();
+            attributesUploaded(frame);
+        }
 
-        updateUndirectedData(
-            graph,
-            someEdgesSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray, graphSelection, someNodesSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
-            attributesBufferBatch, 0, attribsDirectBuffer
-        );
-        updateDirectedData(
-            graph,
-            someEdgesSelection, hideNonSelected, visibleEdgesCount, visibleEdgesArray, graphSelection, someNodesSelection, edgeSelectionColor, edgeBothSelectionColor, edgeOutSelectionColor, edgeInSelectionColor,
-            attributesBufferBatch, 0, attribsDirectBuffer
-        );
+        updateSelectionStatesGLBuffers(frame);
     }
 
     @Override
     public void dispose() {
         super.dispose();
         attributesBufferBatch = null;
-
-        if (attributesBuffer != null) {
-            attributesBuffer.destroy();
-            attributesBuffer = null;
-        }
     }
 }
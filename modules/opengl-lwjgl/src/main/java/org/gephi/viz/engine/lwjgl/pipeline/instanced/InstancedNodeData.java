@@ -4,9 +4,7 @@ import org.gephi.viz.engine.VizEngine;
 import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractNodeData;
 import org.gephi.viz.engine.lwjgl.util.gl.GLBufferMutable;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
-import org.gephi.viz.engine.status.GraphRenderingOptions;
-import org.gephi.viz.engine.status.GraphSelection;
-import org.gephi.viz.engine.status.GraphSelectionNeighbours;
+import org.gephi.viz.engine.status.FrameContext;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 
 import java.nio.FloatBuffer;
@@ -14,41 +12,46 @@ import java.nio.FloatBuffer;
 import static org.lwjgl.opengl.GL20.glGenBuffers;
 
 /**
+ * Nodes drawn with one instanced draw call per LOD bucket, so every node gets the circle LOD of its observed size
+ * without multi draw indirect.
+ *
  * @author Eduardo Ramos
  */
 public class InstancedNodeData extends AbstractNodeData {
 
     public InstancedNodeData() {
-        super(true, false);
+        super(true, false, true);
     }
 
     private final int[] bufferName = new int[3];
 
     private static final int VERT_BUFFER = 0;
     private static final int ATTRIBS_BUFFER = 1;
-    private static final int ATTRIBS_BUFFER_SECONDARY = 2;
+    private static final int SELECTION_STATE_BUFFER = 2;
 
-    public void update(VizEngine engine, GraphIndexImpl spatialIndex) {
+    public void update(VizEngine engine, FrameContext context, GraphIndexImpl spatialIndex) {
+        //Buckets are chosen for the biggest zoom until the next culling update, so LODs are never too coarse in between:
         updateData(
-                engine.getZoom(),
+                engine.getCullingZoom() * engine.getGuardBandMaxZoomFactor(),
                 spatialIndex,
-                engine.getLookup().lookup(GraphRenderingOptions.class),
-                engine.getLookup().lookup(GraphSelection.class),
-                engine.getLookup().lookup(GraphSelectionNeighbours.class)
+                context.getRenderingOptions(),
+                context.getSelection(),
+                context.getNeighboursSelection(),
+                engine.getWorldUpdateTracker().isSelectionOnlyUpdate()
         );
     }
 
-    public void drawInstanced(RenderingLayer layer, VizEngine engine, float[] mvpFloats) {
+    public void drawInstanced(RenderingLayer layer, VizEngine engine, FrameContext context) {
         //First we draw outside circle (for border) and then inside circle:
-        drawInstancedInternal(layer, engine, mvpFloats, true);
-        drawInstancedInternal(layer, engine, mvpFloats, false);
+        drawInstancedInternal(layer, engine, context, true);
+        drawInstancedInternal(layer, engine, context, false);
     }
 
     private void drawInstancedInternal(final RenderingLayer layer,
                                       final VizEngine engine,
-                                      final float[] mvpFloats,
+                                      final FrameContext context,
                                       final boolean isRenderingOutsideCircle) {
-        final int instanceCount = setupShaderProgramForRenderingLayer(layer, engine, mvpFloats, isRenderingOutsideCircle);
+        final int instanceCount = setupShaderProgramForRenderingLayer(layer, engine, context, isRenderingOutsideCircle);
 
         if (instanceCount <= 0) {
             diskModel.stopUsingProgram();
@@ -56,30 +59,62 @@ public class InstancedNodeData extends AbstractNodeData {
             return;
         }
 
-        final float maxObservedSize = maxNodeSizeToDraw * engine.getZoom();
-        final int circleVertexCount;
-        final int firstVertex;
-        if (maxObservedSize > OBSERVED_SIZE_LOD_THRESHOLD_64) {
-            circleVertexCount = circleVertexCount64;
-            firstVertex = firstVertex64;
-        } else if (maxObservedSize > OBSERVED_SIZE_LOD_THRESHOLD_32) {
-            circleVertexCount = circleVertexCount32;
-            firstVertex = firstVertex32;
-        } else if (maxObservedSize > OBSERVED_SIZE_LOD_THRESHOLD_16) {
-            circleVertexCount = circleVertexCount16;
-            firstVertex = firstVertex16;
-        } else {
-            circleVertexCount = circleVertexCount8;
-            firstVertex = firstVertex8;
+        if (isDrawingSelectedRuns(layer)) {
+            drawSelectedRunsInstanced();
+            diskModel.stopUsingProgram();
+            unsetupVertexArrayAttributes();
+            return;
         }
 
-        diskModel.drawInstanced(
-                firstVertex, circleVertexCount, instanceCount
-        );
+        //Instances are sorted by LOD bucket:
+        int firstInstance = 0;
+        for (int bucket = 0; bucket < LOD_BUCKETS_COUNT; bucket++) {
+            final int bucketCount = lodBucketsCountsToDraw[bucket];
+            if (bucketCount > 0) {
+                setupVertexArrayFirstInstance(firstInstance);
+                diskModel.drawInstanced(
+                        firstVertexForLODBucket(bucket), circleVertexCountForLODBucket(bucket), bucketCount
+                );
+            }
+            firstInstance += bucketCount;
+        }
+        setupVertexArrayFirstInstance(0);
+
         diskModel.stopUsingProgram();
         unsetupVertexArrayAttributes();
     }
 
+    /**
+     * Draws only the runs of selected instances, split where they cross LOD buckets.
+     */
+    private void drawSelectedRunsInstanced() {
+        int bucket = 0;
+        int bucketEnd = lodBucketsCountsToDraw[0];
+        for (int i = 0; i < selectedRunsCountToDraw; i++) {
+            int firstInstance = selectedRunsToDraw[i * 2];
+            final int runEnd = firstInstance + selectedRunsToDraw[i * 2 + 1];
+
+            while (firstInstance < runEnd) {
+                while (firstInstance >= bucketEnd && bucket < LOD_BUCKETS_COUNT - 1) {
+                    bucket++;
+                    bucketEnd += lodBucketsCountsToDraw[bucket];
+                }
+
+                final int end = Math.min(runEnd, bucketEnd);
+                if (end <= firstInstance) {
+                    break;
+                }
+
+                setupVertexArrayFirstInstance(firstInstance);
+                diskModel.drawInstanced(
+                        firstVertexForLODBucket(bucket), circleVertexCountForLODBucket(bucket), end - firstInstance
+                );
+                firstInstance = end;
+            }
+        }
+        setupVertexArrayFirstInstance(0);
+    }
+
     protected void initBuffers() {
         super.initBuffers();
         glGenBuffers(bufferName);
@@ -92,31 +127,26 @@ public class InstancedNodeData extends AbstractNodeData {
         attributesGLBuffer.init(ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
         attributesGLBuffer.unbind();
 
-        attributesGLBufferSecondary = new GLBufferMutable(bufferName[ATTRIBS_BUFFER_SECONDARY], GLBufferMutable.GL_BUFFER_TYPE_ARRAY);
-        attributesGLBufferSecondary.bind();
-        attributesGLBufferSecondary.init(ATTRIBS_STRIDE * Float.BYTES * BATCH_NODES_SIZE, GLBufferMutable.GL_BUFFER_USAGE_DYNAMIC_DRAW);
-        attributesGLBufferSecondary.unbind();
+        initSelectionStateGLBuffer(bufferName[SELECTION_STATE_BUFFER]);
     }
 
     public void updateBuffers() {
-        final FloatBuffer buf = attributesBuffer.floatBuffer();
-
-        buf.limit(instanceCounter.unselectedCount * ATTRIBS_STRIDE);
-        buf.position(0);
+        if (!acquireFrame()) {
+            return;
+        }
 
-        attributesGLBufferSecondary.bind();
-        attributesGLBufferSecondary.updateWithOrphaning(buf);
-        attributesGLBufferSecondary.unbind();
+        final NodesFrame frame = frames.draw();
+        if (hasNewAttributes(frame)) {
+            final FloatBuffer buf = frame.attributesBuffer.floatBuffer();
+            buf.limit(frame.instancesCount * ATTRIBS_STRIDE);
 
-        final int offset = buf.limit();
-        buf.limit(offset + instanceCounter.selectedCount * ATTRIBS_STRIDE);
-        buf.position(offset);
+            attributesGLBuffer.bind();
+            attributesGLBuffer.updateWithOrphaning(buf);
+            attributesGLBuffer.unbind();
 
-        attributesGLBuffer.bind();
-        attributesGLBuffer.updateWithOrphaning(buf);
-        attributesGLBuffer.unbind();
+            attributesUploaded(frame);
+        }
 
-        instanceCounter.promoteCountToDraw();
-        maxNodeSizeToDraw = maxNodeSize;
+        updateSelectionStateGLBuffer(frame);
     }
 }
@@ -6,6 +6,7 @@ import org.gephi.viz.engine.lwjgl.availability.InstancedDraw;
 import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractEdgeRenderer;
 import org.gephi.viz.engine.lwjgl.pipeline.instanced.InstancedEdgeData;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.FrameContext;
 
 /**
  * TODO: self loops
@@ -24,7 +25,7 @@ public class EdgeRendererInstanced extends AbstractEdgeRenderer {
 
     @Override
     public void init(LWJGLRenderingTarget target) {
-        //NOOP
+        engine.getFrameStats().setInstanceCounters(this, edgeData.getUndirectedInstanceCounter(), edgeData.getDirectedInstanceCounter());
     }
 
     @Override
@@ -32,14 +33,11 @@ public class EdgeRendererInstanced extends AbstractEdgeRenderer {
         edgeData.updateBuffers();
     }
 
-    private final float[] mvpFloats = new float[16];
-
     @Override
-    public void render(LWJGLRenderingTarget target, RenderingLayer layer) {
-        engine.getModelViewProjectionMatrixFloats(mvpFloats);
+    public void render(LWJGLRenderingTarget target, RenderingLayer layer, FrameContext context) {
         edgeData.drawInstanced(
                 layer,
-                engine, mvpFloats
+                engine, context
         );
     }
 
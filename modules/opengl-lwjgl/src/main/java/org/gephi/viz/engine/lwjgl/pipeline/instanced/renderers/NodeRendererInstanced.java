@@ -5,7 +5,9 @@ import org.gephi.viz.engine.lwjgl.LWJGLRenderingTarget;
 import org.gephi.viz.engine.lwjgl.availability.InstancedDraw;
 import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractNodeRenderer;
 import org.gephi.viz.engine.lwjgl.pipeline.instanced.InstancedNodeData;
+import org.gephi.viz.engine.lwjgl.pipeline.picking.NodesIdBufferPicker;
 import org.gephi.viz.engine.pipeline.RenderingLayer;
+import org.gephi.viz.engine.status.FrameContext;
 
 /**
  *
@@ -15,6 +17,7 @@ public class NodeRendererInstanced extends AbstractNodeRenderer {
 
     private final VizEngine engine;
     private final InstancedNodeData nodeData;
+    private NodesIdBufferPicker picker;
 
     public NodeRendererInstanced(VizEngine engine, InstancedNodeData nodeData) {
         this.engine = engine;
@@ -23,7 +26,15 @@ public class NodeRendererInstanced extends AbstractNodeRenderer {
 
     @Override
     public void init(LWJGLRenderingTarget target) {
-        //NOOP
+        engine.getFrameStats().setInstanceCounters(this, nodeData.getInstanceCounter());
+        picker = engine.getLookup().lookup(NodesIdBufferPicker.class);
+    }
+
+    @Override
+    public void dispose(LWJGLRenderingTarget target) {
+        if (picker != null) {
+            picker.dispose();
+        }
     }
 
     @Override
@@ -31,12 +42,13 @@ public class NodeRendererInstanced extends AbstractNodeRenderer {
         nodeData.updateBuffers();
     }
 
-    private final float[] mvpFloats = new float[16];
-
     @Override
-    public void render(LWJGLRenderingTarget target, RenderingLayer layer) {
-        engine.getModelViewProjectionMatrixFloats(mvpFloats);
-        nodeData.drawInstanced(layer, engine, mvpFloats);
+    public void render(LWJGLRenderingTarget target, RenderingLayer layer, FrameContext context) {
+        nodeData.drawInstanced(layer, engine, context);
+
+        if (layer == PICKING_LAYER && picker != null) {
+            picker.pickNodes(nodeData);
+        }
     }
 
     @Override
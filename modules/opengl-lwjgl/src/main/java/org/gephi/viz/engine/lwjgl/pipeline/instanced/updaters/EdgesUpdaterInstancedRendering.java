@@ -6,6 +6,7 @@ import org.gephi.viz.engine.lwjgl.availability.InstancedDraw;
 import org.gephi.viz.engine.lwjgl.pipeline.instanced.InstancedEdgeData;
 import org.gephi.viz.engine.pipeline.PipelineCategory;
 import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.status.FrameContext;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 
 /**
@@ -26,7 +27,7 @@ public class EdgesUpdaterInstancedRendering implements WorldUpdater<LWJGLRenderi
 
     @Override
     public void init(LWJGLRenderingTarget target) {
-        edgeData.init();
+        edgeData.init(engine);
     }
 
     @Override
@@ -35,9 +36,9 @@ public class EdgesUpdaterInstancedRendering implements WorldUpdater<LWJGLRenderi
     }
 
     @Override
-    public void updateWorld() {
+    public void updateWorld(FrameContext context) {
         //final long start = TimeUtils.getTimeMillis();
-        edgeData.update(engine, spatialIndex);
+        edgeData.update(engine, context, spatialIndex);
         //System.out.println("Edges update ms: " + (TimeUtils.getTimeMillis() - start));
     }
 
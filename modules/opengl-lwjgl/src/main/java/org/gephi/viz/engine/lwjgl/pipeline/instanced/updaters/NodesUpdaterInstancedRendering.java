@@ -6,6 +6,7 @@ import org.gephi.viz.engine.lwjgl.availability.InstancedDraw;
 import org.gephi.viz.engine.lwjgl.pipeline.instanced.InstancedNodeData;
 import org.gephi.viz.engine.pipeline.PipelineCategory;
 import org.gephi.viz.engine.spi.WorldUpdater;
+import org.gephi.viz.engine.status.FrameContext;
 import org.gephi.viz.engine.structure.GraphIndexImpl;
 
 /**
@@ -35,8 +36,8 @@ public class NodesUpdaterInstancedRendering implements WorldUpdater<LWJGLRenderi
     }
 
     @Override
-    public void updateWorld() {
-        nodeData.update(engine, spatialIndex);
+    public void updateWorld(FrameContext context) {
+        nodeData.update(engine, context, spatialIndex);
     }
 
     @Override
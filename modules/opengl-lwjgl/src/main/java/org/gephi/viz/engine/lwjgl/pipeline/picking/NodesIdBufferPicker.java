@@ -0,0 +1,270 @@
+package org.gephi.viz.engine.lwjgl.pipeline.picking;
+
+import org.gephi.graph.api.Node;
+import org.gephi.viz.engine.VizEngine;
+import org.gephi.viz.engine.lwjgl.pipeline.common.AbstractNodeData;
+import org.gephi.viz.engine.util.gl.OpenGLOptions;
+import org.joml.Matrix4f;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_PACK_BUFFER;
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * Picks the node under the cursor by drawing the ID of every node into a small integer framebuffer around it, with the
+ * same instanced attributes as the node renderers. The result is exact for the drawn disks and costs the same however
+ * dense the graph is.
+ *
+ * <p>
+ * The IDs are read into a pixel buffer object and only mapped in the next frame, so the GL thread never waits for
+ * the GPU. Only the latest requested position is picked.</p>
+ *
+ * <p>
+ * Enabled with {@link OpenGLOptions#setEnableIdBufferPicking}. The active node renderer calls {@link #pickNodes} once per
+ * frame, after drawing its nodes.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class NodesIdBufferPicker {
+
+    //Pixels around the cursor, so thin nodes can be picked when the cursor is not exactly over them:
+    public static final int PICKING_REGION_RADIUS = 2;
+    public static final int PICKING_REGION_SIZE = PICKING_REGION_RADIUS * 2 + 1;
+
+    private static final long NO_REQUEST = Long.MIN_VALUE;
+    private static final int[] CLEAR_ID = new int[]{0, 0, 0, 0};
+
+    private final VizEngine engine;
+    private final AtomicLong requestedPosition = new AtomicLong(NO_REQUEST);
+    private volatile Consumer<Node> pickListener;
+    private volatile boolean active = false;
+
+    //GL objects:
+    private int framebuffer = 0;
+    private int idRenderbuffer = 0;
+    private int pixelBuffer = 0;
+
+    //Pass waiting to be read back:
+    private boolean readbackPending = false;
+    private Node[] readbackNodes = null;
+    private int readbackNodesCount = 0;
+
+    private final float[] mvpFloats = new float[16];
+    private final Matrix4f viewMvp = new Matrix4f();
+    private final Matrix4f mvp = new Matrix4f();
+    private final int[] previousFramebuffer = new int[1];
+    private final int[] previousViewport = new int[4];
+
+    public NodesIdBufferPicker(VizEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * @param pickListener Receives the picked node, or null when there is no node under the cursor. Called in the GL
+     * thread, so it should not do any heavy work
+     */
+    public void setPickListener(Consumer<Node> pickListener) {
+        this.pickListener = pickListener;
+    }
+
+    /**
+     * @return True if a node renderer is picking, otherwise requests won't be answered
+     */
+    public boolean isActive() {
+        return active && isEnabled();
+    }
+
+    public boolean isEnabled() {
+        return engine.getLookup().lookup(OpenGLOptions.class).isEnableIdBufferPicking();
+    }
+
+    /**
+     * Requests picking the node at the given screen position, replacing any position that is still pending.
+     * Can be called from any thread.
+     *
+     * @param screenX Screen x
+     * @param screenY Screen y, from the top
+     */
+    public void requestPick(int screenX, int screenY) {
+        requestedPosition.set(((long) screenX << 32) | (screenY & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Reads back the result of the previous pass, if any, and draws a new pass for the latest requested position.
+     * Must be called in the GL thread, once per frame.
+     *
+     * @param nodeData Node data of the active node renderer
+     */
+    public void pickNodes(AbstractNodeData nodeData) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (!nodeData.isPickingEnabled()) {
+            nodeData.enablePicking();
+            //The nodes of the current attributes were not kept:
+            engine.getWorldUpdateTracker().requestUpdate();
+        }
+        active = true;
+
+        if (readbackPending) {
+            readBack();
+        }
+
+        final long position = requestedPosition.getAndSet(NO_REQUEST);
+        if (position != NO_REQUEST) {
+            drawPass(nodeData, (int) (position >> 32), (int) position);
+        }
+    }
+
+    private void drawPass(AbstractNodeData nodeData, int screenX, int screenY) {
+        if (nodeData.getPickingNodes() == null) {
+            //Keep the request until the nodes are available:
+            requestedPosition.compareAndSet(NO_REQUEST, ((long) screenX << 32) | (screenY & 0xFFFFFFFFL));
+            return;
+        }
+
+        if (framebuffer == 0) {
+            initGLObjects();
+        }
+
+        glGetIntegerv(GL_FRAMEBUFFER_BINDING, previousFramebuffer);
+        glGetIntegerv(GL_VIEWPORT, previousViewport);
+
+        glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+        glViewport(0, 0, PICKING_REGION_SIZE, PICKING_REGION_SIZE);
+        glClearBufferuiv(GL_COLOR, 0, CLEAR_ID);
+
+        //Scale the view so the picking region around the cursor fills the framebuffer:
+        final int width = engine.getWidth();
+        final int height = engine.getHeight();
+        final float centerX = 2f * (screenX + 0.5f) / width - 1f;
+        final float centerY = 1f - 2f * (screenY + 0.5f) / height;
+        final float scaleX = (float) width / PICKING_REGION_SIZE;
+        final float scaleY = (float) height / PICKING_REGION_SIZE;
+
+        engine.getModelViewProjectionMatrixFloats(mvpFloats);
+        viewMvp.set(mvpFloats);
+        mvp.identity()
+            .translate(-centerX * scaleX, -centerY * scaleY, 0)
+            .scale(scaleX, scaleY, 1)
+            .mul(viewMvp)
+            .get(mvpFloats);
+
+        nodeData.drawPickingIds(engine, mvpFloats);
+
+        //Start the asynchronous transfer, mapped in the next frame:
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffer);
+        glPixelStorei(GL_PACK_ALIGNMENT, 1);
+        glReadPixels(0, 0, PICKING_REGION_SIZE, PICKING_REGION_SIZE, GL_RED_INTEGER, GL_UNSIGNED_INT, 0L);
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+
+        glBindFramebuffer(GL_FRAMEBUFFER, previousFramebuffer[0]);
+        glViewport(previousViewport[0], previousViewport[1], previousViewport[2], previousViewport[3]);
+
+        readbackPending = true;
+        readbackNodes = nodeData.getPickingNodes();
+        readbackNodesCount = nodeData.getPickingNodesCount();
+    }
+
+    private void readBack() {
+        readbackPending = false;
+
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffer);
+        final ByteBuffer mapped = glMapBufferRange(GL_PIXEL_PACK_BUFFER, 0, (long) PICKING_REGION_SIZE * PICKING_REGION_SIZE * Integer.BYTES, GL_MAP_READ_BIT);
+        if (mapped == null) {
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+            System.out.println("Unable to map picking buffer: 0x" + Integer.toHexString(glGetError()));
+            return;
+        }
+
+        final int id;
+        try {
+            id = nearestId(mapped.order(ByteOrder.nativeOrder()).asIntBuffer());
+        } finally {
+            glUnmapBuffer(GL_PIXEL_PACK_BUFFER);
+            glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+        }
+
+        final Node node = id > 0 && id <= readbackNodesCount ? readbackNodes[id - 1] : null;
+        readbackNodes = null;
+
+        final Consumer<Node> listener = pickListener;
+        if (listener != null) {
+            listener.accept(node);
+        }
+    }
+
+    /**
+     * @return ID under the cursor, or the nearest one in the region, 0 for none
+     */
+    private static int nearestId(IntBuffer ids) {
+        int nearestId = 0;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (int y = 0; y < PICKING_REGION_SIZE; y++) {
+            for (int x = 0; x < PICKING_REGION_SIZE; x++) {
+                final int id = ids.get(y * PICKING_REGION_SIZE + x);
+                if (id == 0) {
+                    continue;
+                }
+
+                final int dx = x - PICKING_REGION_RADIUS;
+                final int dy = y - PICKING_REGION_RADIUS;
+                final int distance = dx * dx + dy * dy;
+                if (distance < nearestDistance) {
+                    nearestDistance = distance;
+                    nearestId = id;
+                }
+            }
+        }
+
+        return nearestId;
+    }
+
+    private void initGLObjects() {
+        framebuffer = glGenFramebuffers();
+        idRenderbuffer = glGenRenderbuffers();
+        glBindRenderbuffer(GL_RENDERBUFFER, idRenderbuffer);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_R32UI, PICKING_REGION_SIZE, PICKING_REGION_SIZE);
+        glBindRenderbuffer(GL_RENDERBUFFER, 0);
+
+        glGetIntegerv(GL_FRAMEBUFFER_BINDING, previousFramebuffer);
+        glBindFramebuffer(GL_FRAMEBUFFER, framebuffer);
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, idRenderbuffer);
+        final int status = glCheckFramebufferStatus(GL_FRAMEBUFFER);
+        glBindFramebuffer(GL_FRAMEBUFFER, previousFramebuffer[0]);
+        if (status != GL_FRAMEBUFFER_COMPLETE) {
+            throw new IllegalStateException("Incomplete picking framebuffer: 0x" + Integer.toHexString(status));
+        }
+
+        pixelBuffer = glGenBuffers();
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, pixelBuffer);
+        glBufferData(GL_PIXEL_PACK_BUFFER, (long) PICKING_REGION_SIZE * PICKING_REGION_SIZE * Integer.BYTES, GL_STREAM_READ);
+        glBindBuffer(GL_PIXEL_PACK_BUFFER, 0);
+    }
+
+    /**
+     * Must be called in the GL thread.
+     */
+    public void dispose() {
+        if (framebuffer != 0) {
+            glDeleteFramebuffers(framebuffer);
+            glDeleteRenderbuffers(idRenderbuffer);
+            glDeleteBuffers(pixelBuffer);
+        }
+
+        framebuffer = 0;
+        idRenderbuffer = 0;
+        pixelBuffer = 0;
+        readbackPending = false;
+        readbackNodes = null;
+        active = false;
+    }
+}
@@ -1,6 +1,8 @@
 package org.gephi.viz.engine.lwjgl.util.gl;
 
+import org.lwjgl.opengl.GL15;
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL31;
 import org.lwjgl.opengl.GL40;
 
 import java.nio.*;
@@ -18,6 +20,7 @@ public class GLBufferMutable implements GLBuffer {
     public static final int GL_BUFFER_TYPE_ARRAY = GL20.GL_ARRAY_BUFFER;
     public static final int GL_BUFFER_TYPE_ELEMENT_INDICES = GL20.GL_ELEMENT_ARRAY_BUFFER;
     public static final int GL_BUFFER_TYPE_DRAW_INDIRECT = GL40.GL_DRAW_INDIRECT_BUFFER;
+    public static final int GL_BUFFER_TYPE_TEXTURE = GL31.GL_TEXTURE_BUFFER;
     public static final int GL_BUFFER_USAGE_STATIC_DRAW = GL20.GL_STATIC_DRAW;
     public static final int GL_BUFFER_USAGE_STREAM_DRAW = GL20.GL_STREAM_DRAW;
     public static final int GL_BUFFER_USAGE_DYNAMIC_DRAW = GL20.GL_DYNAMIC_DRAW;
@@ -65,19 +68,19 @@ public class GLBufferMutable implements GLBuffer {
         }
     }
 
-    private void bufferSubData(Buffer buf) {
+    private void bufferSubData(long offsetBytes, Buffer buf) {
         if (buf instanceof FloatBuffer) {
-            glBufferSubData(type, 0, (FloatBuffer) buf);
+            glBufferSubData(type, offsetBytes, (FloatBuffer) buf);
         } else if (buf instanceof IntBuffer) {
-            glBufferSubData(type, 0, (IntBuffer) buf);
+            glBufferSubData(type, offsetBytes, (IntBuffer) buf);
         } else if (buf instanceof ShortBuffer) {
-            glBufferSubData(type, 0, (ShortBuffer) buf);
+            glBufferSubData(type, offsetBytes, (ShortBuffer) buf);
         } else if (buf instanceof ByteBuffer) {
-            glBufferSubData(type, 0, (ByteBuffer) buf);
+            glBufferSubData(type, offsetBytes, (ByteBuffer) buf);
         } else if (buf instanceof DoubleBuffer) {
-            glBufferSubData(type, 0, (DoubleBuffer) buf);
+            glBufferSubData(type, offsetBytes, (DoubleBuffer) buf);
         } else if (buf instanceof LongBuffer) {
-            glBufferSubData(type, 0, (LongBuffer) buf);
+            glBufferSubData(type, offsetBytes, (LongBuffer) buf);
         } else {
             throw new UnsupportedOperationException("Buffer class not supported: " + buf.getClass().getName());
         }
@@ -121,7 +124,29 @@ public class GLBufferMutable implements GLBuffer {
         final long neededBytesCapacity = (long) buffer.remaining() * elementBytes;
         ensureCapacity(neededBytesCapacity);
 
-        bufferSubData(buffer);
+        bufferSubData(0, buffer);
+    }
+
+    /**
+     * Replaces part of the data, without orphaning, keeping the rest of it.
+     *
+     * @param offsetBytes Where to write the remaining elements of the buffer
+     * @param buffer Data
+     */
+    public void updateRange(long offsetBytes, Buffer buffer) {
+        if (!isInitialized()) {
+            throw new IllegalStateException("You should initialize the buffer first!");
+        }
+        if (!isBound()) {
+            throw new IllegalStateException("You should bind the buffer first!");
+        }
+
+        final long endBytes = offsetBytes + (long) buffer.remaining() * bufferElementBytes(buffer);
+        if (offsetBytes < 0 || endBytes > sizeBytes) {
+            throw new IllegalArgumentException("Range [" + offsetBytes + ", " + endBytes + ") out of buffer size " + sizeBytes);
+        }
+
+        bufferSubData(offsetBytes, buffer);
     }
 
     @Override
@@ -158,6 +183,35 @@ public class GLBufferMutable implements GLBuffer {
         }
     }
 
+    /**
+     * Same as {@link #ensureCapacity(long)}, but keeps the data, copying it to a temporary buffer and back since the
+     * data store is reallocated. Requires OpenGL 3.1.
+     */
+    public void ensureCapacityKeepingData(long neededBytes) {
+        if (!isBound()) {
+            throw new IllegalStateException("You should bind the buffer first!");
+        }
+
+        if (sizeBytes >= neededBytes) {
+            return;
+        }
+
+        final long oldSizeBytes = sizeBytes;
+        final long newSizeBytes = getNextPowerOf2(neededBytes);
+        System.out.println("Growing GL buffer from " + oldSizeBytes + " to " + newSizeBytes + " bytes, keeping its data");
+
+        final int tempId = glGenBuffers();
+        glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, tempId);
+        glBufferData(GL31.GL_COPY_WRITE_BUFFER, oldSizeBytes, GL15.GL_STREAM_COPY);
+        GL31.glCopyBufferSubData(type, GL31.GL_COPY_WRITE_BUFFER, 0, 0, oldSizeBytes);
+
+        init(newSizeBytes, usage);
+
+        GL31.glCopyBufferSubData(GL31.GL_COPY_WRITE_BUFFER, type, 0, 0, oldSizeBytes);
+        glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+        glDeleteBuffers(tempId);
+    }
+
     @Override
     public boolean isInitialized() {
         return sizeBytes != -1;
@@ -0,0 +1,218 @@
+package org.gephi.viz.engine.lwjgl.util.gl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.gephi.viz.engine.util.ArrayUtils.getNextPowerOf2;
+import static org.lwjgl.opengl.GL15.glGenBuffers;
+import static org.lwjgl.opengl.GL30.GL_MAP_WRITE_BIT;
+import static org.lwjgl.opengl.GL30.glMapBufferRange;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL44.GL_MAP_COHERENT_BIT;
+import static org.lwjgl.opengl.GL44.GL_MAP_PERSISTENT_BIT;
+
+/**
+ * Triple buffered ring of immutable, persistently mapped GL buffers (glBufferStorage).
+ *
+ * <p>
+ * The write segment can be filled from any thread through {@link #writeFloatBuffer()} or {@link #writeIntBuffer()}
+ * while the GL thread keeps drawing from the active segment. Once the write segment is complete, the GL thread calls
+ * {@link #swap()} to make it active. The previously active segment is guarded with a fence and is only handed out
+ * for writing again after the GPU is done with it.</p>
+ *
+ * <p>
+ * Every segment is its own GL buffer, so VAOs can keep pointing to offset 0 of each segment.</p>
+ *
+ * @author Eduardo Ramos
+ */
+public class GLPersistentRingBuffer {
+
+    public static final int SEGMENTS_COUNT = 3;
+
+    private static final int STORAGE_FLAGS = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+    private static final long FENCE_WAIT_TIMEOUT_NANOS = 100_000_000L;
+
+    private final int type;
+    private final GLBufferImmutable[] segments = new GLBufferImmutable[SEGMENTS_COUNT];
+    private final ByteBuffer[] mappedSegments = new ByteBuffer[SEGMENTS_COUNT];
+    private final long[] fences = new long[SEGMENTS_COUNT];
+
+    private volatile long segmentSizeBytes = -1;
+    private volatile int writeSegment = 1;
+    private int activeSegment = 0;
+
+    public GLPersistentRingBuffer(int type) {
+        this.type = type;
+    }
+
+    /**
+     * Allocates and maps every segment. Must be called in the GL thread.
+     *
+     * @param segmentSizeBytes Size of each segment
+     */
+    public void init(long segmentSizeBytes) {
+        if (isInitialized()) {
+            throw new IllegalStateException("Already initialized");
+        }
+
+        final int[] bufferNames = new int[SEGMENTS_COUNT];
+        glGenBuffers(bufferNames);
+
+        for (int i = 0; i < SEGMENTS_COUNT; i++) {
+            final GLBufferImmutable segment = new GLBufferImmutable(bufferNames[i], type);
+            segment.bind();
+            segment.init(segmentSizeBytes, STORAGE_FLAGS);
+            final ByteBuffer mapped = glMapBufferRange(type, 0, segmentSizeBytes, STORAGE_FLAGS);
+            segment.unbind();
+
+            if (mapped == null) {
+                throw new IllegalStateException("Could not map persistent buffer of " + segmentSizeBytes + " bytes");
+            }
+
+            segments[i] = segment;
+            mappedSegments[i] = mapped.order(ByteOrder.nativeOrder());
+            fences[i] = 0;
+        }
+
+        activeSegment = 0;
+        writeSegment = 1;
+
+        //Publish segments to writer threads:
+        this.segmentSizeBytes = segmentSizeBytes;
+    }
+
+    public boolean isInitialized() {
+        return segmentSizeBytes != -1;
+    }
+
+    /**
+     * @param bytes Bytes to write
+     * @return True if the write segment can hold the given bytes
+     */
+    public boolean fits(long bytes) {
+        return bytes <= segmentSizeBytes;
+    }
+
+    /**
+     * Returns a new view of the write segment, starting at position 0. Safe to call from any thread between two
+     * {@link #swap()} calls.
+     *
+     * @return Write segment float view
+     */
+    public FloatBuffer writeFloatBuffer() {
+        return writeByteBuffer().asFloatBuffer();
+    }
+
+    /**
+     * Returns a new view of the write segment, starting at position 0. Safe to call from any thread between two
+     * {@link #swap()} calls.
+     *
+     * @return Write segment int view
+     */
+    public IntBuffer writeIntBuffer() {
+        return writeByteBuffer().asIntBuffer();
+    }
+
+    private ByteBuffer writeByteBuffer() {
+        if (!isInitialized()) {
+            throw new IllegalStateException("You should initialize the buffer first!");
+        }
+
+        return mappedSegments[writeSegment].duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Makes the write segment active and waits, if needed, until the GPU is done with the next write segment.
+     * Must be called in the GL thread, once the write segment is complete.
+     */
+    public void swap() {
+        //Draw commands issued until now may still read the active segment:
+        fences[activeSegment] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+
+        activeSegment = writeSegment;
+
+        final int nextWriteSegment = (activeSegment + 1) % SEGMENTS_COUNT;
+        waitFence(nextWriteSegment);
+        writeSegment = nextWriteSegment;
+    }
+
+    private void waitFence(int segment) {
+        final long fence = fences[segment];
+        if (fence == 0) {
+            return;
+        }
+
+        while (true) {
+            final int result = glClientWaitSync(fence, GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_WAIT_TIMEOUT_NANOS);
+            if (result == GL_ALREADY_SIGNALED || result == GL_CONDITION_SATISFIED) {
+                break;
+            }
+
+            if (result == GL_WAIT_FAILED) {
+                System.out.println("Persistent ring buffer fence wait failed");
+                break;
+            }
+        }
+
+        glDeleteSync(fence);
+        fences[segment] = 0;
+    }
+
+    /**
+     * Reallocates every segment if they can't hold the needed bytes. Must be called in the GL thread, when no other
+     * thread is writing.
+     *
+     * @param neededBytes Needed bytes per segment
+     * @return True if the segments were reallocated, so previous GL buffer names are no longer valid
+     */
+    public boolean ensureCapacity(long neededBytes) {
+        if (fits(neededBytes)) {
+            return false;
+        }
+
+        final long newSizeBytes = getNextPowerOf2(neededBytes);
+        System.out.println("Growing persistent ring buffer from " + segmentSizeBytes + " to " + newSizeBytes + " bytes per segment");
+
+        destroy();
+        init(newSizeBytes);
+        return true;
+    }
+
+    public GLBuffer getActiveBuffer() {
+        return segments[activeSegment];
+    }
+
+    public int getActiveSegment() {
+        return activeSegment;
+    }
+
+    public long getSegmentSizeBytes() {
+        return segmentSizeBytes;
+    }
+
+    public void destroy() {
+        if (!isInitialized()) {
+            return;
+        }
+
+        segmentSizeBytes = -1;
+        for (int i = 0; i < SEGMENTS_COUNT; i++) {
+            if (fences[i] != 0) {
+                glDeleteSync(fences[i]);
+                fences[i] = 0;
+            }
+
+            //Deleting the buffer also unmaps it:
+            mappedSegments[i] = null;
+            segments[i].destroy();
+            segments[i] = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GLPersistentRingBuffer{" + "segmentSizeBytes=" + segmentSizeBytes + ", activeSegment=" + activeSegment + ", writeSegment=" + writeSegment + '}';
+    }
+}
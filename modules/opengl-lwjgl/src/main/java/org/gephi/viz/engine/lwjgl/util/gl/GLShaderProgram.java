@@ -6,10 +6,16 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
+ * GLSL program with its uniform and attribute locations resolved at init.
+ *
+ * <p>
+ * Uniform values are part of the program state, so the <code>setUniform*</code> methods remember the last value set for
+ * each location and skip the upload when it did not change, for example the same MVP matrix in every layer.</p>
  *
  * @author Eduardo Ramos
  */
@@ -26,6 +32,10 @@ public class GLShaderProgram {
     private final Map<String, Integer> attribLocations;
     private boolean initDone = false;
 
+    //Last uploaded values, as raw bits, by sorted active uniform location:
+    private int[] cachedLocations = new int[0];
+    private int[][] cachedValues = new int[0][];
+
     public GLShaderProgram(String srcRoot, String vertBasename) {
         this(srcRoot, vertBasename, null);
     }
@@ -98,6 +108,15 @@ public class GLShaderProgram {
                 uniformLocations.put(name, GL20.glGetUniformLocation(id, name));
             }
 
+            //Inactive uniforms (-1 location) are never uploaded:
+            cachedLocations = uniformLocations.values().stream()
+                    .mapToInt(Integer::intValue)
+                    .filter(location -> location != -1)
+                    .distinct()
+                    .sorted()
+                    .toArray();
+            cachedValues = new int[cachedLocations.length][];
+
             for (String name : attribLocations.keySet().toArray(new String[0])) {
                 if (attribLocations.get(name) == null) {
                     attribLocations.put(name, GL20.glGetAttribLocation(id, name));
@@ -158,6 +177,117 @@ public class GLShaderProgram {
         GL20.glUseProgram(0);
     }
 
+    /**
+     * Sets a float uniform. This program must be in use.
+     *
+     * @param location Location from {@link #getUniformLocation(String)}, -1 is ignored like in GL
+     * @param value Value, only uploaded if it changed
+     */
+    public void setUniform1f(int location, float value) {
+        if (location == -1) {
+            return;
+        }
+
+        if (cacheChanged(cacheIndex(location), Float.floatToRawIntBits(value))) {
+            GL20.glUniform1f(location, value);
+        }
+    }
+
+    /**
+     * Sets an int or sampler uniform. This program must be in use.
+     *
+     * @param location Location from {@link #getUniformLocation(String)}, -1 is ignored like in GL
+     * @param value Value, only uploaded if it changed
+     */
+    public void setUniform1i(int location, int value) {
+        if (location == -1) {
+            return;
+        }
+
+        if (cacheChanged(cacheIndex(location), value)) {
+            GL20.glUniform1i(location, value);
+        }
+    }
+
+    /**
+     * Sets a vec4 uniform. This program must be in use.
+     *
+     * @param location Location from {@link #getUniformLocation(String)}, -1 is ignored like in GL
+     * @param values 4 components, only uploaded if any changed
+     */
+    public void setUniform4fv(int location, float[] values) {
+        if (location == -1) {
+            return;
+        }
+
+        if (cacheChanged(cacheIndex(location), values)) {
+            GL20.glUniform4fv(location, values);
+        }
+    }
+
+    /**
+     * Sets a mat4 uniform. This program must be in use.
+     *
+     * @param location Location from {@link #getUniformLocation(String)}, -1 is ignored like in GL
+     * @param values 16 components in column major order, only uploaded if any changed
+     */
+    public void setUniformMatrix4fv(int location, float[] values) {
+        if (location == -1) {
+            return;
+        }
+
+        if (cacheChanged(cacheIndex(location), values)) {
+            GL20.glUniformMatrix4fv(location, false, values);
+        }
+    }
+
+    private int cacheIndex(int location) {
+        if (!isInitialized()) {
+            throw new IllegalStateException("Initialize the program first!");
+        }
+
+        final int index = Arrays.binarySearch(cachedLocations, location);
+        if (index < 0) {
+            throw new IllegalArgumentException("Location " + location + " is not the location of an uniform added before init");
+        }
+
+        return index;
+    }
+
+    private boolean cacheChanged(int index, int bits) {
+        int[] cached = cachedValues[index];
+        if (cached != null && cached.length == 1 && cached[0] == bits) {
+            return false;
+        }
+
+        if (cached == null || cached.length != 1) {
+            cached = cachedValues[index] = new int[1];
+        }
+        cached[0] = bits;
+        return true;
+    }
+
+    private boolean cacheChanged(int index, float[] values) {
+        int[] cached = cachedValues[index];
+        if (cached != null && cached.length == values.length) {
+            boolean changed = false;
+            for (int i = 0; i < values.length; i++) {
+                final int bits = Float.floatToRawIntBits(values[i]);
+                if (cached[i] != bits) {
+                    cached[i] = bits;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        cached = cachedValues[index] = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            cached[i] = Float.floatToRawIntBits(values[i]);
+        }
+        return true;
+    }
+
     private static String loadSource(String srcRoot, String baseName, String extension) throws IOException {
         final StringBuilder builder = new StringBuilder();
         final String path = srcRoot + "/" + baseName + "." + extension;
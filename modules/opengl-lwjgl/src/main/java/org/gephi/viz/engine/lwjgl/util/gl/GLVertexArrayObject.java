@@ -70,6 +70,18 @@ public abstract class GLVertexArrayObject {
         }
     }
 
+    /**
+     * Deletes the VAO, for example when the buffers it points to are no longer valid. It will be configured again if used after this.
+     */
+    public void destroy() {
+        if (vaoSupported && arrayId != -1) {
+            GL30.glDeleteVertexArrays(arrayId);
+        }
+
+        arrayId = -1;
+        attributeLocations = null;
+    }
+
     private void configureAll() {
         configure();
         configureEnabledAttributes();
@@ -56,6 +56,10 @@ public class ManagedDirectBuffer {
         return (IntBuffer) buffer.clear();
     }
 
+    public ByteBuffer byteBuffer() {
+        return (ByteBuffer) buffer.clear();
+    }
+
     public void ensureCapacity(int elements) {
         if (elementsCapacity < elements) {
             final int newElementsCapacity = getNextPowerOf2(elements);